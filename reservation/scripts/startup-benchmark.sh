@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+#
+# Measures the time from container start to the first successful export response, for the standard
+# image (Dockerfile) and the fast-start image (Dockerfile.fast-start).
+#
+# Build both images and start the database first:
+#   ./mvnw package -DskipTests && docker build -t reservation:latest .
+#   ./mvnw -Pfast-start package -DskipTests && docker build -f Dockerfile.fast-start -t reservation:fast-start .
+#   docker compose up -d db
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# Environment: IMAGES (space separated), NETWORK, DATASOURCE_URL, ASSET_ID, MARKET_ID, FROM, TO, PORT, TIMEOUT_SECONDS
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+IMAGES="${IMAGES:-reservation:latest reservation:fast-start}"
+NETWORK="${NETWORK:-reservation_app-network}"
+DATASOURCE_URL="${DATASOURCE_URL:-jdbc:postgresql://db:5432/reservation_db}"
+ASSET_ID="${ASSET_ID:-a1b2c3d4-e5f6-7890-ab12-cd34ef567890}"
+MARKET_ID="${MARKET_ID:-b2c3d4e5-f6d7-8901-ab23-cd45ef678901}"
+FROM="${FROM:-2024-05-15T00:00:00Z}"
+TO="${TO:-2024-05-16T00:00:00Z}"
+PORT="${PORT:-18080}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+
+EXPORT_URL="http://localhost:${PORT}/api/v1/flexibility/reservations/${ASSET_ID}/market/${MARKET_ID}/export?from=${FROM}&to=${TO}"
+
+now_millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Starts the image once and prints the milliseconds until the export endpoint answers with 200.
+measure() {
+    local image="$1"
+    local started container elapsed
+    started=$(now_millis)
+    container=$(docker run -d --rm --network "$NETWORK" -p "${PORT}:8080" \
+        -e SPRING_DATASOURCE_URL="$DATASOURCE_URL" "$image")
+
+    while true; do
+        if [ "$(curl -s -o /dev/null -w '%{http_code}' "$EXPORT_URL" || true)" = "200" ]; then
+            elapsed=$(( $(now_millis) - started ))
+            break
+        fi
+        if [ $(( $(now_millis) - started )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+            docker logs "$container" >&2 || true
+            docker stop "$container" > /dev/null
+            echo "No successful export from $image within ${TIMEOUT_SECONDS}s" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+
+    docker stop "$container" > /dev/null
+    echo "$elapsed"
+}
+
+printf '%-32s %8s %8s %8s\n' "image" "min ms" "p50 ms" "max ms"
+for image in $IMAGES; do
+    results=()
+    for _ in $(seq 1 "$RUNS"); do
+        results+=("$(measure "$image")")
+    done
+    sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+    printf '%-32s %8d %8d %8d\n' "$image" "${sorted[0]}" "${sorted[$(( RUNS / 2 ))]}" "${sorted[$(( RUNS - 1 ))]}"
+done
@@ -0,0 +1,149 @@
+package com.reservation.compute;
+
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the scalar and vector column kernels on a series of a million rows, where about half of the
+ * timestamps have two rows, as in the synthetic data set. The {@code RowByRow} benchmarks are the baselines of
+ * converting and aggregating a series one row at a time through its accessors.
+ * Run with {@code ./mvnw -Pjmh test-compile exec:exec}.
+ *
+ * @author Bojana Samardzic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx2g"})
+public class ColumnKernelsBenchmark {
+
+    @Param({"scalar", "vector"})
+    private String kernels;
+
+    @Param("1000000")
+    private int rows;
+
+    private ColumnKernels columnKernels;
+    private ReservationSeries series;
+    private long[] timestamps;
+    private double[] values;
+    private int[] starts;
+    private int groups;
+    private double[] sums;
+
+    @Setup
+    public void setUp() {
+        columnKernels = kernels.equals("vector") ? new VectorColumnKernels() : new ScalarColumnKernels();
+        Random random = new Random(42);
+        series = new ReservationSeries(UUID.randomUUID(), UUID.randomUUID(), rows);
+        timestamps = new long[rows];
+        values = new double[rows];
+        long timestamp = 0;
+        for (int row = 0; row < rows; row++) {
+            if (row == 0 || random.nextBoolean()) {
+                timestamp += 900_000_000L;
+            }
+            timestamps[row] = timestamp;
+            values[row] = Math.round(random.nextDouble() * 10_000_000) / 1000.0;
+            series.add(row, timestamp, null, null, values[row], random.nextDouble() * 100, random.nextDouble() * 100,
+                    values[row] / 2, random.nextDouble() * 100, random.nextDouble() * 100, timestamp);
+        }
+        starts = new int[rows + 1];
+        groups = new ScalarColumnKernels().groupStarts(timestamps, 0, rows, starts);
+        sums = new double[groups];
+    }
+
+    /**
+     * Converts the values from kW to MW and back, so that they keep their magnitude across invocations.
+     */
+    @Benchmark
+    public ReservationSeries divideValues() {
+        series.divideValues(columnKernels, 1000);
+        series.divideValues(columnKernels, 0.001);
+        return series;
+    }
+
+    @Benchmark
+    public ReservationSeries divideValuesRowByRow() {
+        for (int row = 0; row < series.size(); row++) {
+            series.setPositiveValue(row, series.getPositiveValue(row) / 1000);
+            series.setNegativeValue(row, series.getNegativeValue(row) / 1000);
+        }
+        for (int row = 0; row < series.size(); row++) {
+            series.setPositiveValue(row, series.getPositiveValue(row) / 0.001);
+            series.setNegativeValue(row, series.getNegativeValue(row) / 0.001);
+        }
+        return series;
+    }
+
+    @Benchmark
+    public int groupStarts() {
+        return columnKernels.groupStarts(timestamps, 0, rows, starts);
+    }
+
+    @Benchmark
+    public double[] sumGroups() {
+        columnKernels.sumGroups(values, starts, groups, sums);
+        return sums;
+    }
+
+    @Benchmark
+    public double[] sumGroupsFixedPoint() {
+        columnKernels.sumGroupsFixedPoint(values, starts, groups, sums);
+        return sums;
+    }
+
+    @Benchmark
+    public ReservationSeries sumPerTimestamp() {
+        return series.sumPerTimestamp(columnKernels, false);
+    }
+
+    @Benchmark
+    public ReservationSeries sumPerTimestampFixedPoint() {
+        return series.sumPerTimestamp(columnKernels, true);
+    }
+
+    @Benchmark
+    public ReservationSeries sumPerTimestampRowByRow() {
+        ReservationSeries summed = new ReservationSeries(series.getAssetId(), series.getMarketId(), series.size());
+        int row = 0;
+        while (row < series.size()) {
+            long timestamp = series.getTimestamp(row);
+            double positiveValue = 0;
+            double negativeValue = 0;
+            int next = row;
+            for (; next < series.size() && series.getTimestamp(next) == timestamp; next++) {
+                positiveValue += series.getPositiveValue(next);
+                negativeValue += series.getNegativeValue(next);
+            }
+            summed.add(series.getId(row), timestamp, series.getPositiveBidId(row), series.getNegativeBidId(row),
+                    positiveValue, series.getPositiveCapacityPrice(row), series.getPositiveEnergyPrice(row),
+                    negativeValue, series.getNegativeCapacityPrice(row), series.getNegativeEnergyPrice(row),
+                    series.getUpdatedAt(row));
+            row = next;
+        }
+        return summed;
+    }
+
+    @Benchmark
+    public ColumnStatistics statistics() {
+        return series.statistics(ReservationField.POSITIVE_VALUE, columnKernels);
+    }
+}
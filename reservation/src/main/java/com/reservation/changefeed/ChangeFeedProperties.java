@@ -0,0 +1,38 @@
+package com.reservation.changefeed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the live feed of inserted and updated reservations.
+ * Bound from the {@code reservation.change-feed} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.change-feed")
+public class ChangeFeedProperties {
+
+    /**
+     * Whether the database is listened to for changed reservations and the change feed endpoint is served.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Upper bound of the changes buffered for a subscriber that reads slower than reservations change.
+     * A subscriber exceeding it is disconnected and resumes from its last change when it reconnects.
+     */
+    private int subscriberBufferSize = 1000;
+
+    /**
+     * Delay before the listener reconnects after its connection failed.
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+
+    /**
+     * Interval of the comments sent to subscribers without changes, keeping idle connections open through proxies.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
@@ -0,0 +1,17 @@
+package com.reservation.changefeed;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Payload of a notification on the change channel, sent by the trigger of {@code V5__Create_change_notification_trigger.sql}
+ * once per statement and changed series.
+ *
+ * @param assetId     the unique identifier of the asset of the changed rows
+ * @param marketId    the unique identifier of the market of the changed rows
+ * @param updatedFrom the earliest update time written by the statement
+ * @param updatedTo   the latest update time written by the statement
+ * @author Bojana Samardzic
+ */
+record ChangeNotification(UUID assetId, UUID marketId, OffsetDateTime updatedFrom, OffsetDateTime updatedTo) {
+}
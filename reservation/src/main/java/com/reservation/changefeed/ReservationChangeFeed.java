@@ -0,0 +1,271 @@
+package com.reservation.changefeed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reservation.config.DataSourceConfiguration;
+import com.reservation.dto.ReservationDTO;
+import com.reservation.model.ReservationSeries;
+import com.reservation.service.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live feed of inserted and updated reservations per asset/market series.
+ * A single connection listens on the channel notified by the trigger on the {@code reservation} table. For each
+ * notification of a series with subscribers, the changed rows are read once and handed to every subscriber of the
+ * series. Each subscriber buffers at most {@code subscriber-buffer-size} changes; a subscriber that falls further
+ * behind, and all subscribers while the listener reconnects, are completed instead, so that no change is dropped
+ * silently. Subscribers resume by passing the update time of their last change, from which the changes are read from
+ * the database before the live ones.
+ * Changes are delivered at least once: a change may be repeated around a resume, but none is lost.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ReservationChangeFeed implements SmartLifecycle {
+
+    /**
+     * Channel notified by the trigger of {@code V5__Create_change_notification_trigger.sql}.
+     */
+    static final String CHANNEL = "reservation_changes";
+
+    /**
+     * Upper bound of the notifications received while the previous one is dispatched. The listener reconnects when
+     * it is exceeded, so that subscribers resume instead of missing the dropped notifications.
+     */
+    private static final int MAX_PENDING_NOTIFICATIONS = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationChangeFeed.class);
+
+    private final ChangeFeedProperties properties;
+    private final ReservationService reservationService;
+    private final ConnectionFactory listenerConnectionFactory;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<SeriesKey, Set<ChangeSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Counter overflows;
+    private volatile Disposable listener;
+
+    /**
+     * Constructs a new instance of {@code ReservationChangeFeed}.
+     * The listener connection is opened outside of the reactive pool, as it is held for the lifetime of the feed.
+     *
+     * @param properties         the configuration of the change feed
+     * @param reservationService the service reading the changed reservations
+     * @param connectionPool     the reactive pool, whose connection settings the listener uses
+     * @param objectMapper       the mapper of the notification payloads
+     * @param meterRegistry      the registry the metrics are published to
+     */
+    @Autowired
+    public ReservationChangeFeed(ChangeFeedProperties properties, ReservationService reservationService,
+                                 @Qualifier(DataSourceConfiguration.REACTIVE_CONNECTION_FACTORY) ConnectionPool connectionPool,
+                                 ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.reservationService = reservationService;
+        this.listenerConnectionFactory = connectionPool.unwrap();
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("reservation.change-feed.subscribers", subscribers, map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Subscribers of the change feed")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("reservation.change-feed.overflows")
+                .description("Subscribers disconnected because their buffer of changes was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts listening for changes if the feed is enabled. Failed listener connections are reopened after
+     * {@code reconnect-delay}.
+     */
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        listener = Flux.defer(this::notifications)
+                .onBackpressureBuffer(MAX_PENDING_NOTIFICATIONS)
+                .concatMap(this::dispatch)
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, properties.getReconnectDelay())
+                        .doBeforeRetry(signal -> {
+                            log.warn("Change feed listener failed, reconnecting in {}", properties.getReconnectDelay(), signal.failure());
+                            completeAll();
+                        }))
+                .subscribe();
+    }
+
+    /**
+     * Closes the listener connection and completes all subscribers.
+     */
+    @Override
+    public void stop() {
+        Disposable running = listener;
+        if (running != null) {
+            running.dispose();
+            listener = null;
+        }
+        completeAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return listener != null;
+    }
+
+    /**
+     * Subscribes to the changes of a series. Changes are published from the time of subscription, preceded by the
+     * changes since {@code since} if it is given.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param since    the update time of the last change already received, or {@code null} for live changes only
+     * @return the changed reservations with values in MW; completes when the subscriber falls behind or the listener
+     * reconnects, after which the subscriber resumes from the update time of its last change
+     * @throws IllegalStateException if the feed is not running
+     */
+    public Flux<ReservationDTO> subscribe(UUID assetId, UUID marketId, ZonedDateTime since) {
+        if (!isRunning()) {
+            throw new IllegalStateException("The change feed is not running");
+        }
+        return Flux.defer(() -> {
+            SeriesKey key = new SeriesKey(assetId, marketId);
+            ChangeSubscriber subscriber = new ChangeSubscriber(properties.getSubscriberBufferSize());
+            subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+            Flux<ReservationDTO> missed = since == null ? Flux.empty()
+                    : reservationService.streamReservationChanges(assetId, marketId, since, null).concatMapIterable(ReservationChangeFeed::changes, 1);
+            return missed.concatWith(subscriber.changes())
+                    .doFinally(signal -> unsubscribe(key, subscriber));
+        });
+    }
+
+    private Flux<ChangeNotification> notifications() {
+        return Flux.usingWhen(listenerConnectionFactory.create(),
+                connection -> {
+                    PostgresqlConnection postgresqlConnection = (PostgresqlConnection) connection;
+                    return postgresqlConnection.createStatement("LISTEN " + CHANNEL).execute()
+                            .flatMap(PostgresqlResult::getRowsUpdated)
+                            .doOnComplete(() -> log.info("Change feed listening on channel '{}'", CHANNEL))
+                            .thenMany(postgresqlConnection.getNotifications())
+                            .concatWith(Mono.error(() -> new IllegalStateException("Change feed listener connection closed")));
+                },
+                Connection::close)
+                .mapNotNull(this::parse);
+    }
+
+    private ChangeNotification parse(Notification notification) {
+        try {
+            return objectMapper.readValue(notification.getParameter(), ChangeNotification.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed change notification '{}'", notification.getParameter(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the rows changed by a statement and hands them to the subscribers of their series, if it has any.
+     * Subscribers of a series whose rows cannot be read are completed, so that they resume from the database.
+     */
+    Mono<Void> dispatch(ChangeNotification notification) {
+        Set<ChangeSubscriber> targets = subscribers.get(new SeriesKey(notification.assetId(), notification.marketId()));
+        if (targets == null || targets.isEmpty()) {
+            return Mono.empty();
+        }
+        return reservationService.streamReservationChanges(notification.assetId(), notification.marketId(),
+                        notification.updatedFrom().toZonedDateTime(), notification.updatedTo().toZonedDateTime())
+                .doOnNext(chunk -> {
+                    List<ReservationDTO> changes = changes(chunk);
+                    targets.forEach(subscriber -> subscriber.offer(changes));
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to read the changes of asset {} in market {}", notification.assetId(), notification.marketId(), e);
+                    targets.forEach(ChangeSubscriber::complete);
+                    return Mono.empty();
+                });
+    }
+
+    private void unsubscribe(SeriesKey key, ChangeSubscriber subscriber) {
+        subscribers.computeIfPresent(key, (k, series) -> {
+            series.remove(subscriber);
+            return series.isEmpty() ? null : series;
+        });
+    }
+
+    private void completeAll() {
+        subscribers.values().forEach(series -> series.forEach(ChangeSubscriber::complete));
+    }
+
+    private static List<ReservationDTO> changes(ReservationSeries chunk) {
+        List<ReservationDTO> changes = new ArrayList<>(chunk.size());
+        for (int row = 0; row < chunk.size(); row++) {
+            changes.add(ReservationDTO.of(chunk, row));
+        }
+        return changes;
+    }
+
+    private record SeriesKey(UUID assetId, UUID marketId) {
+    }
+
+    /**
+     * Bounded buffer of the live changes of one subscriber.
+     */
+    private final class ChangeSubscriber {
+
+        private final Sinks.Many<ReservationDTO> sink;
+
+        private ChangeSubscriber(int bufferSize) {
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+        }
+
+        private Flux<ReservationDTO> changes() {
+            return sink.asFlux();
+        }
+
+        /**
+         * Buffers changes, completing the subscriber if they do not fit.
+         */
+        private synchronized void offer(List<ReservationDTO> changes) {
+            for (ReservationDTO change : changes) {
+                Sinks.EmitResult result = sink.tryEmitNext(change);
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    overflows.increment();
+                    sink.tryEmitComplete();
+                    return;
+                }
+                if (result.isFailure()) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationField;
+
+/**
+ * Columns of a cold tier file, in the order their segments are written for each series.
+ *
+ * @author Bojana Samardzic
+ */
+enum ColdColumn {
+
+    ID(null),
+    TIMESTAMP(ReservationField.TIMESTAMP),
+    POSITIVE_BID_ID(ReservationField.POSITIVE_BID_ID),
+    NEGATIVE_BID_ID(ReservationField.NEGATIVE_BID_ID),
+    POSITIVE_VALUE(ReservationField.POSITIVE_VALUE),
+    POSITIVE_CAPACITY_PRICE(ReservationField.POSITIVE_CAPACITY_PRICE),
+    POSITIVE_ENERGY_PRICE(ReservationField.POSITIVE_ENERGY_PRICE),
+    NEGATIVE_VALUE(ReservationField.NEGATIVE_VALUE),
+    NEGATIVE_CAPACITY_PRICE(ReservationField.NEGATIVE_CAPACITY_PRICE),
+    NEGATIVE_ENERGY_PRICE(ReservationField.NEGATIVE_ENERGY_PRICE),
+    UPDATED_AT(ReservationField.UPDATED_AT);
+
+    private final ReservationField field;
+
+    ColdColumn(ReservationField field) {
+        this.field = field;
+    }
+
+    /**
+     * Returns the field stored in the column, or {@code null} for the id, which is stored for every row.
+     */
+    ReservationField field() {
+        return field;
+    }
+
+    /**
+     * Returns whether the column holds a value or price.
+     */
+    boolean isNumeric() {
+        return field != null && field.isNumeric();
+    }
+}
@@ -0,0 +1,391 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationSeries;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A cold tier file holding the reservations of one archived month, with its index read into memory.
+ * The file starts with {@link #MAGIC}, followed by the series of all asset/market pairs, each as one compressed
+ * segment per {@link ColdColumn} with its rows in timestamp and id order. The footer at the end of the file holds the
+ * range of timestamps the file covers, the smallest and largest timestamp in it, and for every series its asset and
+ * market, row count, smallest and largest timestamp and the position of each column segment; it is followed by its
+ * own position and {@link #MAGIC} again.
+ * Reads use the footer to skip files and series outside the requested range and decompress only the columns of the
+ * requested fields. Time points are stored as epoch microseconds of the instant, so files do not depend on the time
+ * zone of the JVM that wrote them; series read from a file hold them in the default time zone of the JVM, like
+ * series read from the database.
+ * Instances are immutable and thread-safe; every read opens the file on its own.
+ *
+ * @author Bojana Samardzic
+ */
+final class ColdTierFile {
+
+    /**
+     * Marks the start and the end of a complete file.
+     */
+    static final byte[] MAGIC = {'R', 'S', 'V', 'C', 'O', 'L', 'D', '1'};
+
+    private static final int TRAILER_SIZE = Long.BYTES + MAGIC.length;
+
+    private final Path path;
+    private final long size;
+    private final Instant rangeStart;
+    private final Instant rangeEnd;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final Map<UUID, List<SeriesEntry>> seriesByAsset;
+
+    /**
+     * Position and bounds of the columns of one asset/market series within a file.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param rows         the number of rows of the series
+     * @param minTimestamp the timestamp of the first row in epoch microseconds
+     * @param maxTimestamp the timestamp of the last row in epoch microseconds
+     * @param offsets      the position of the segment of each column, indexed by {@link ColdColumn#ordinal()}
+     * @param lengths      the compressed length of the segment of each column
+     */
+    record SeriesEntry(UUID assetId, UUID marketId, int rows, long minTimestamp, long maxTimestamp, long[] offsets, int[] lengths) {
+    }
+
+    private ColdTierFile(Path path, long size, Instant rangeStart, Instant rangeEnd, long minTimestamp, long maxTimestamp,
+                         Map<UUID, List<SeriesEntry>> seriesByAsset) {
+        this.path = path;
+        this.size = size;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.seriesByAsset = seriesByAsset;
+    }
+
+    /**
+     * Opens a file and reads its index.
+     *
+     * @param path the file to open
+     * @return the file with its index
+     * @throws IOException if the file cannot be read or is incomplete
+     */
+    static ColdTierFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAGIC.length + TRAILER_SIZE) {
+                throw new IOException("Cold tier file " + path + " is incomplete");
+            }
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            byte[] magic = new byte[MAGIC.length];
+            trailer.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || footerOffset < MAGIC.length || footerOffset > size - TRAILER_SIZE) {
+                throw new IOException("Cold tier file " + path + " is incomplete");
+            }
+
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(
+                    read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset)).array()));
+            Instant rangeStart = fromEpochMicros(footer.readLong());
+            Instant rangeEnd = fromEpochMicros(footer.readLong());
+            long minTimestamp = footer.readLong();
+            long maxTimestamp = footer.readLong();
+            int seriesCount = footer.readInt();
+            Map<UUID, List<SeriesEntry>> seriesByAsset = new HashMap<>();
+            int columns = ColdColumn.values().length;
+            for (int series = 0; series < seriesCount; series++) {
+                UUID assetId = readUuid(footer);
+                UUID marketId = readUuid(footer);
+                int rows = footer.readInt();
+                long first = footer.readLong();
+                long last = footer.readLong();
+                long[] offsets = new long[columns];
+                int[] lengths = new int[columns];
+                for (int column = 0; column < columns; column++) {
+                    offsets[column] = footer.readLong();
+                    lengths[column] = footer.readInt();
+                }
+                seriesByAsset.computeIfAbsent(assetId, id -> new ArrayList<>())
+                        .add(new SeriesEntry(assetId, marketId, rows, first, last, offsets, lengths));
+            }
+            return new ColdTierFile(path, size, rangeStart, rangeEnd, minTimestamp, maxTimestamp, seriesByAsset);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the start of the range of timestamps the file covers, inclusive.
+     */
+    Instant rangeStart() {
+        return rangeStart;
+    }
+
+    /**
+     * Returns the end of the range of timestamps the file covers, exclusive.
+     */
+    Instant rangeEnd() {
+        return rangeEnd;
+    }
+
+    /**
+     * Returns whether the file holds rows within a range of timestamps, according to its smallest and largest one.
+     *
+     * @param from the start of the range in epoch microseconds of the instant, inclusive
+     * @param to   the end of the range in epoch microseconds of the instant, inclusive
+     * @return whether rows of the file may lie within the range
+     */
+    boolean overlaps(long from, long to) {
+        return minTimestamp <= to && maxTimestamp >= from;
+    }
+
+    /**
+     * Finds the series of assets, of one market or of all markets.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for the series of all markets
+     * @return the index entries of the matching series
+     */
+    List<SeriesEntry> find(Collection<UUID> assetIds, UUID marketId) {
+        List<SeriesEntry> found = new ArrayList<>();
+        for (UUID assetId : assetIds) {
+            for (SeriesEntry entry : seriesByAsset.getOrDefault(assetId, List.of())) {
+                if (marketId == null || marketId.equals(entry.marketId())) {
+                    found.add(entry);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads the rows of series within a range of timestamps, decompressing only the columns of the given fields.
+     * The ids and timestamps are always read; the columns of other fields stay empty.
+     *
+     * @param entries the index entries of the series to read
+     * @param from    the start of the range in epoch microseconds of the instant, inclusive
+     * @param to      the end of the range in epoch microseconds of the instant, inclusive
+     * @param fields  the fields to read
+     * @param zone    the time zone the time points of the series are held in
+     * @return the series with rows in the range, without empty ones
+     * @throws IOException if the file cannot be read
+     */
+    List<ReservationSeries> read(List<SeriesEntry> entries, long from, long to, Set<ReservationField> fields, ZoneId zone) throws IOException {
+        List<ReservationSeries> found = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (SeriesEntry entry : entries) {
+                if (entry.minTimestamp() <= to && entry.maxTimestamp() >= from) {
+                    ReservationSeries series = read(channel, entry, from, to, fields, zone);
+                    if (!series.isEmpty()) {
+                        found.add(series);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private ReservationSeries read(FileChannel channel, SeriesEntry entry, long from, long to, Set<ReservationField> fields,
+                                   ZoneId zone) throws IOException {
+        long[] timestamps = readLongs(channel, entry, ColdColumn.TIMESTAMP);
+        int first = lowerBound(timestamps, from);
+        int last = to == Long.MAX_VALUE ? timestamps.length : lowerBound(timestamps, to + 1);
+        ReservationSeries series = new ReservationSeries(entry.assetId(), entry.marketId(), last - first);
+        if (first == last) {
+            return series;
+        }
+
+        long[] ids = readLongs(channel, entry, ColdColumn.ID);
+        long[] updatedAts = fields.contains(ReservationField.UPDATED_AT) ? readLongs(channel, entry, ColdColumn.UPDATED_AT) : null;
+        UUID[] positiveBidIds = fields.contains(ReservationField.POSITIVE_BID_ID) ? readUuids(channel, entry, ColdColumn.POSITIVE_BID_ID) : null;
+        UUID[] negativeBidIds = fields.contains(ReservationField.NEGATIVE_BID_ID) ? readUuids(channel, entry, ColdColumn.NEGATIVE_BID_ID) : null;
+        double[][] numeric = new double[ColdColumn.values().length][];
+        for (ColdColumn column : ColdColumn.values()) {
+            if (column.isNumeric() && fields.contains(column.field())) {
+                numeric[column.ordinal()] = readDoubles(channel, entry, column);
+            }
+        }
+
+        for (int row = first; row < last; row++) {
+            series.add(ids[row],
+                    toLocalEpochMicros(timestamps[row], zone),
+                    positiveBidIds != null ? positiveBidIds[row] : null,
+                    negativeBidIds != null ? negativeBidIds[row] : null,
+                    value(numeric, ColdColumn.POSITIVE_VALUE, row),
+                    value(numeric, ColdColumn.POSITIVE_CAPACITY_PRICE, row),
+                    value(numeric, ColdColumn.POSITIVE_ENERGY_PRICE, row),
+                    value(numeric, ColdColumn.NEGATIVE_VALUE, row),
+                    value(numeric, ColdColumn.NEGATIVE_CAPACITY_PRICE, row),
+                    value(numeric, ColdColumn.NEGATIVE_ENERGY_PRICE, row),
+                    updatedAts != null ? toLocalEpochMicros(updatedAts[row], zone) : 0);
+        }
+        return series;
+    }
+
+    private static double value(double[][] numeric, ColdColumn column, int row) {
+        double[] values = numeric[column.ordinal()];
+        return values != null ? values[row] : 0;
+    }
+
+    private static long[] readLongs(FileChannel channel, SeriesEntry entry, ColdColumn column) throws IOException {
+        DataInputStream data = segment(channel, entry, column);
+        long[] values = new long[entry.rows()];
+        long previous = 0;
+        for (int row = 0; row < values.length; row++) {
+            previous += readVarLong(data);
+            values[row] = previous;
+        }
+        return values;
+    }
+
+    private static UUID[] readUuids(FileChannel channel, SeriesEntry entry, ColdColumn column) throws IOException {
+        DataInputStream data = segment(channel, entry, column);
+        UUID[] dictionary = new UUID[(int) readVarLong(data) + 1];
+        for (int index = 1; index < dictionary.length; index++) {
+            dictionary[index] = readUuid(data);
+        }
+        UUID[] values = new UUID[entry.rows()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = dictionary[(int) readVarLong(data)];
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(FileChannel channel, SeriesEntry entry, ColdColumn column) throws IOException {
+        DataInputStream data = segment(channel, entry, column);
+        double[] values = new double[entry.rows()];
+        long previous = 0;
+        for (int row = 0; row < values.length; row++) {
+            previous ^= data.readLong();
+            values[row] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    private static DataInputStream segment(FileChannel channel, SeriesEntry entry, ColdColumn column) throws IOException {
+        int length = entry.lengths()[column.ordinal()];
+        byte[] compressed = read(channel, entry.offsets()[column.ordinal()], length).array();
+        Inflater inflater = new Inflater();
+        try (InflaterInputStream input = new InflaterInputStream(new ByteArrayInputStream(compressed), inflater)) {
+            return new DataInputStream(new ByteArrayInputStream(input.readAllBytes()));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of cold tier file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Returns the index of the first timestamp not before a time point, or the number of timestamps if there is none.
+     */
+    private static int lowerBound(long[] timestamps, long timestamp) {
+        int low = 0;
+        int high = timestamps.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static UUID readUuid(DataInput input) throws IOException {
+        return new UUID(input.readLong(), input.readLong());
+    }
+
+    /**
+     * Writes a number as a ZigZag-encoded variable-length integer, so that small deltas of either sign take few bytes.
+     */
+    static void writeVarLong(DataOutput output, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            output.writeByte((int) (zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        output.writeByte((int) zigZag);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong}.
+     */
+    static long readVarLong(DataInput input) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte part = input.readByte();
+            zigZag |= (long) (part & 0x7F) << shift;
+            if (part >= 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+    }
+
+    /**
+     * Converts an instant to epoch microseconds.
+     */
+    static long toEpochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    /**
+     * Converts epoch microseconds to an instant.
+     */
+    static Instant fromEpochMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    /**
+     * Converts epoch microseconds of an instant to the epoch microseconds of its date-time in a time zone, the form
+     * time points are held in by {@link ReservationSeries}.
+     */
+    static long toLocalEpochMicros(long micros, ZoneId zone) {
+        long offsetSeconds = zone.getRules().getOffset(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L))).getTotalSeconds();
+        return micros + offsetSeconds * 1_000_000L;
+    }
+
+    /**
+     * Converts a date-time in a time zone to epoch microseconds of the instant.
+     */
+    static long toInstantEpochMicros(LocalDateTime dateTime, ZoneId zone) {
+        return toEpochMicros(dateTime.atZone(zone).toInstant());
+    }
+}
@@ -0,0 +1,201 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationSeries;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a cold tier file in the layout described by {@link ColdTierFile}, one series after the other.
+ * Each column of a series is encoded and compressed on its own: ids and time points as variable-length deltas of
+ * their predecessor, bid IDs as indexes into a dictionary of the distinct IDs of the series, and values and prices as
+ * the bits of each {@code double} XORed with those of its predecessor, which leaves mostly zero bytes for the
+ * slowly changing values of a series.
+ *
+ * @author Bojana Samardzic
+ */
+class ColdTierFileWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final DataOutputStream output;
+    private final Instant rangeStart;
+    private final Instant rangeEnd;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final ByteArrayOutputStream segment = new ByteArrayOutputStream(BUFFER_SIZE);
+    private final List<ColdTierFile.SeriesEntry> entries = new ArrayList<>();
+    private long position;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Creates a file for the reservations of a range of timestamps, replacing an existing file.
+     *
+     * @param file       the file to write
+     * @param rangeStart the start of the range of timestamps the file covers, inclusive
+     * @param rangeEnd   the end of the range of timestamps the file covers, exclusive
+     * @throws IOException if the file cannot be created
+     */
+    ColdTierFileWriter(Path file, Instant rangeStart, Instant rangeEnd) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        output.write(ColdTierFile.MAGIC);
+        position = ColdTierFile.MAGIC.length;
+    }
+
+    /**
+     * Appends the columns of a series. Series must be appended at most once per asset/market pair.
+     *
+     * @param series the series, with time points in epoch microseconds of the instant
+     * @throws IOException if the series cannot be written
+     */
+    void append(ReservationSeries series) throws IOException {
+        if (series.isEmpty()) {
+            return;
+        }
+        ColdColumn[] columns = ColdColumn.values();
+        long[] offsets = new long[columns.length];
+        int[] lengths = new int[columns.length];
+        for (ColdColumn column : columns) {
+            byte[] bytes = encode(series, column);
+            offsets[column.ordinal()] = position;
+            lengths[column.ordinal()] = bytes.length;
+            output.write(bytes);
+            position += bytes.length;
+        }
+
+        long first = series.getTimestamp(0);
+        long last = series.getTimestamp(series.size() - 1);
+        minTimestamp = Math.min(minTimestamp, first);
+        maxTimestamp = Math.max(maxTimestamp, last);
+        entries.add(new ColdTierFile.SeriesEntry(series.getAssetId(), series.getMarketId(), series.size(), first, last, offsets, lengths));
+    }
+
+    /**
+     * Writes the footer indexing the series, forces the file to disk and closes it.
+     *
+     * @throws IOException if the footer cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try (output) {
+            long footerOffset = position;
+            output.writeLong(ColdTierFile.toEpochMicros(rangeStart));
+            output.writeLong(ColdTierFile.toEpochMicros(rangeEnd));
+            output.writeLong(minTimestamp);
+            output.writeLong(maxTimestamp);
+            output.writeInt(entries.size());
+            for (ColdTierFile.SeriesEntry entry : entries) {
+                writeUuid(output, entry.assetId());
+                writeUuid(output, entry.marketId());
+                output.writeInt(entry.rows());
+                output.writeLong(entry.minTimestamp());
+                output.writeLong(entry.maxTimestamp());
+                for (int column = 0; column < entry.offsets().length; column++) {
+                    output.writeLong(entry.offsets()[column]);
+                    output.writeInt(entry.lengths()[column]);
+                }
+            }
+            output.writeLong(footerOffset);
+            output.write(ColdTierFile.MAGIC);
+            output.flush();
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] encode(ReservationSeries series, ColdColumn column) throws IOException {
+        segment.reset();
+        deflater.reset();
+        DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(segment, deflater, BUFFER_SIZE));
+        int rows = series.size();
+        switch (column) {
+            case ID -> writeDeltas(data, rows, series::getId);
+            case TIMESTAMP -> writeDeltas(data, rows, series::getTimestamp);
+            case UPDATED_AT -> writeDeltas(data, rows, series::getUpdatedAt);
+            case POSITIVE_BID_ID -> writeDictionary(data, rows, series::getPositiveBidId);
+            case NEGATIVE_BID_ID -> writeDictionary(data, rows, series::getNegativeBidId);
+            case POSITIVE_VALUE -> writeXored(data, rows, series::getPositiveValue);
+            case POSITIVE_CAPACITY_PRICE -> writeXored(data, rows, series::getPositiveCapacityPrice);
+            case POSITIVE_ENERGY_PRICE -> writeXored(data, rows, series::getPositiveEnergyPrice);
+            case NEGATIVE_VALUE -> writeXored(data, rows, series::getNegativeValue);
+            case NEGATIVE_CAPACITY_PRICE -> writeXored(data, rows, series::getNegativeCapacityPrice);
+            case NEGATIVE_ENERGY_PRICE -> writeXored(data, rows, series::getNegativeEnergyPrice);
+        }
+        data.close();
+        return segment.toByteArray();
+    }
+
+    private static void writeDeltas(DataOutputStream data, int rows, RowLongs column) throws IOException {
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            long value = column.get(row);
+            ColdTierFile.writeVarLong(data, value - previous);
+            previous = value;
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream data, int rows, RowUuids column) throws IOException {
+        Map<UUID, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            UUID value = column.get(row);
+            indexes[row] = value == null ? 0 : dictionary.computeIfAbsent(value, id -> dictionary.size() + 1);
+        }
+        ColdTierFile.writeVarLong(data, dictionary.size());
+        for (UUID value : dictionary.keySet()) {
+            writeUuid(data, value);
+        }
+        for (int index : indexes) {
+            ColdTierFile.writeVarLong(data, index);
+        }
+    }
+
+    private static void writeXored(DataOutputStream data, int rows, RowDoubles column) throws IOException {
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            long bits = Double.doubleToRawLongBits(column.get(row));
+            data.writeLong(bits ^ previous);
+            previous = bits;
+        }
+    }
+
+    private static void writeUuid(DataOutputStream data, UUID value) throws IOException {
+        data.writeLong(value.getMostSignificantBits());
+        data.writeLong(value.getLeastSignificantBits());
+    }
+
+    @FunctionalInterface
+    private interface RowLongs {
+        long get(int row);
+    }
+
+    @FunctionalInterface
+    private interface RowUuids {
+        UUID get(int row);
+    }
+
+    @FunctionalInterface
+    private interface RowDoubles {
+        double get(int row);
+    }
+}
@@ -0,0 +1,29 @@
+package com.reservation.coldtier;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the cold tier of reservations older than the partition retention.
+ * Bound from the {@code reservation.cold-tier} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.cold-tier")
+public class ColdTierProperties {
+
+    /**
+     * Whether expired partitions are written to columnar files and dropped from the database, instead of being moved
+     * to the archive schema. Files already in the directory are served either way.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the columnar files, one per archived month. Unlike the export spool, it is kept across restarts
+     * and holds the only copy of the archived reservations.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "reservation-cold-tier");
+}
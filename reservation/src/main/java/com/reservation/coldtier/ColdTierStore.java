@@ -0,0 +1,173 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationPartition;
+import com.reservation.repository.ReservationPartitionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier of reservations older than the partition retention, kept in compressed columnar files on local disk
+ * instead of in the database: one {@link ColdTierFile} per archived monthly partition, indexed by asset and by the
+ * range of timestamps of each series. The indexes of all files are read on startup and kept in memory, so reads
+ * only open the files and decompress the columns they need.
+ * Files are written to a temporary file, forced to disk and moved into place once complete, and only then become
+ * visible to reads; the directory is forced to disk after the move, so the file survives a crash once archiving returns.
+ * The reservations of a partition are removed from the database only after its file is in place, so they are always
+ * in at least one of the tiers; reads use the boundary of the cold tier to read each reservation from one tier only.
+ * The files are on local disk and only read on startup, so the cold tier must be enabled on a single instance only;
+ * other instances would neither see its files nor the reservations of the partitions it drops.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ColdTierStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ColdTierStore.class);
+
+    private static final String FILE_SUFFIX = ".cold";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final ColdTierProperties properties;
+    private final ReservationPartitionRepository partitionRepository;
+    private final Path directory;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Object writeLock = new Object();
+
+    private volatile List<ColdTierFile> files = List.of();
+
+    /**
+     * Constructs a new instance of {@code ColdTierStore}, creating the directory of the cold tier and reading the
+     * indexes of its files. Temporary files left by an interrupted archiving are deleted; the partitions they were
+     * written from are still in the database and archived again on the next run.
+     *
+     * @param properties          the cold tier configuration
+     * @param partitionRepository the repository reading and dropping archived partitions
+     * @param meterRegistry       the registry the metrics are published to
+     * @throws UncheckedIOException if the directory cannot be created or a file cannot be read
+     */
+    @Autowired
+    public ColdTierStore(ColdTierProperties properties, ReservationPartitionRepository partitionRepository, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partitionRepository = partitionRepository;
+        this.directory = properties.getDirectory();
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare cold tier directory " + directory, e);
+        }
+
+        Gauge.builder("reservation.cold-tier.files", this, store -> store.files.size())
+                .description("Monthly files of the cold tier")
+                .register(meterRegistry);
+        Gauge.builder("reservation.cold-tier.bytes", this, store -> store.files.stream().mapToLong(ColdTierFile::size).sum())
+                .description("Disk space used by the files of the cold tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether expired partitions are moved to the cold tier.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Returns the current files of the cold tier if a range starting at a time point begins in the cold tier.
+     *
+     * @param from the start of the range in the default time zone of the JVM, or {@code null} for an unbounded range
+     * @return the view of the files, or an empty optional if the range is held by the database only
+     */
+    public Optional<ColdTierView> find(LocalDateTime from) {
+        List<ColdTierFile> current = files;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        ColdTierView view = new ColdTierView(current, zone);
+        return view.covers(from) ? Optional.of(view) : Optional.empty();
+    }
+
+    /**
+     * Writes the reservations of a partition to a file of the cold tier, replacing the file of an earlier attempt.
+     * Reads of the range of the partition are served from the file once this method returns, so the partition can be
+     * dropped afterwards. The partition should be detached, so that no reservations are written to it meanwhile.
+     *
+     * @param partition the detached partition to archive
+     * @throws IOException if the file cannot be written
+     */
+    public void archive(ReservationPartition partition) throws IOException {
+        synchronized (writeLock) {
+            Path file = directory.resolve(partition.name() + FILE_SUFFIX);
+            Path temporary = directory.resolve(partition.name() + FILE_SUFFIX + TEMPORARY_SUFFIX);
+            AtomicInteger rows = new AtomicInteger();
+            try (ColdTierFileWriter writer = new ColdTierFileWriter(temporary, partition.from(), partition.to())) {
+                partitionRepository.streamPartition(partition, series -> {
+                    try {
+                        writer.append(series);
+                        rows.addAndGet(series.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                Files.deleteIfExists(temporary);
+                throw e.getCause();
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                directoryChannel.force(true);
+            }
+
+            ColdTierFile written = ColdTierFile.open(file);
+            List<ColdTierFile> updated = new ArrayList<>(files);
+            updated.removeIf(existing -> existing.path().equals(written.path()));
+            updated.add(written);
+            updated.sort(Comparator.comparing(ColdTierFile::rangeStart));
+            files = List.copyOf(updated);
+            log.info("Wrote {} reservations of partition {} to cold tier file {} ({} bytes)", rows.get(), partition.name(), file, written.size());
+        }
+    }
+
+    private void load() throws IOException {
+        List<ColdTierFile> loaded = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(FILE_SUFFIX)) {
+                    loaded.add(ColdTierFile.open(path));
+                }
+            }
+        }
+        loaded.sort(Comparator.comparing(ColdTierFile::rangeStart));
+        files = List.copyOf(loaded);
+        if (!loaded.isEmpty()) {
+            log.info("Cold tier holds {} files up to {}", loaded.size(), loaded.get(loaded.size() - 1).rangeEnd());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The files of the cold tier at one point in time. The cold tier holds all reservations before its {@link #boundary()},
+ * the database all reservations from the boundary on, so a read spanning both reads the cold tier up to the boundary
+ * and the database from there, and appends the rows of the database to those of the cold tier.
+ * A view does not change when files are added later; reads through one view see a consistent boundary.
+ * Bounds of ranges are date-times in the default time zone of the JVM, like the bounds of database reads, and may be
+ * {@code null} for an unbounded range. Values are in kW, as stored.
+ *
+ * @author Bojana Samardzic
+ */
+public final class ColdTierView {
+
+    private static final Set<ReservationField> TOTAL_FIELDS = EnumSet.of(ReservationField.POSITIVE_VALUE, ReservationField.NEGATIVE_VALUE);
+
+    private final List<ColdTierFile> files;
+    private final ZoneId zone;
+    private final LocalDateTime boundary;
+
+    /**
+     * Creates a view of files.
+     *
+     * @param files the files, ordered by their range, at least one
+     * @param zone  the time zone of the bounds of ranges
+     */
+    ColdTierView(List<ColdTierFile> files, ZoneId zone) {
+        this.files = List.copyOf(files);
+        this.zone = zone;
+        this.boundary = LocalDateTime.ofInstant(this.files.get(this.files.size() - 1).rangeEnd(), zone);
+    }
+
+    /**
+     * Returns the start of the reservations in the database: the end of the range of the newest file.
+     *
+     * @return the first time point not held by the cold tier
+     */
+    public LocalDateTime boundary() {
+        return boundary;
+    }
+
+    /**
+     * Returns whether a range starting at a time point begins in the cold tier.
+     *
+     * @param from the start of the range, or {@code null} for an unbounded range
+     * @return whether the range starts before the boundary
+     */
+    public boolean covers(LocalDateTime from) {
+        return from == null || from.isBefore(boundary);
+    }
+
+    /**
+     * Reads the reservations of an asset/market pair within a range of timestamps, one series per file.
+     * Only the columns of the requested fields are decompressed.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, inclusive
+     * @param fields   the fields to read; the other columns of the series stay empty
+     * @return the non-empty series of the files, in timestamp order
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    public List<ReservationSeries> findChunks(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields) {
+        return read(List.of(assetId), marketId, from, to, fields.columnFields());
+    }
+
+    /**
+     * Reads the reservations of an asset/market pair within a range of timestamps as one series.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, inclusive
+     * @param fields   the fields to read; the other columns of the series stay empty
+     * @return the reservations in timestamp order
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    public ReservationSeries findSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields) {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        for (ReservationSeries chunk : findChunks(assetId, marketId, from, to, fields)) {
+            series.addAll(chunk);
+        }
+        return series;
+    }
+
+    /**
+     * Reads the timestamps and values of several assets within a range of timestamps, to sum them per timestamp.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for the series of all markets
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, inclusive
+     * @return one series per asset/market pair and file, each in timestamp order
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    public List<ReservationSeries> findAll(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        return read(assetIds, marketId, from, to, TOTAL_FIELDS);
+    }
+
+    /**
+     * Estimates the number of reservations of assets within a range of timestamps from the index of the files,
+     * without reading their columns. The rows of a series are assumed to be spread evenly between its first and last
+     * timestamp, so a series partly within the range counts with the share of its rows in the range.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for the series of all markets
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, inclusive
+     * @return the estimated number of rows of the cold tier within the range
+     */
+    public long estimateRows(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = from != null ? ColdTierFile.toInstantEpochMicros(from, zone) : Long.MIN_VALUE;
+        long toMicros = to != null ? ColdTierFile.toInstantEpochMicros(to, zone) : Long.MAX_VALUE;
+        long rows = 0;
+        for (ColdTierFile file : files) {
+            if (file.overlaps(fromMicros, toMicros)) {
+                for (ColdTierFile.SeriesEntry entry : file.find(assetIds, marketId)) {
+                    rows += estimateRows(entry, fromMicros, toMicros);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static long estimateRows(ColdTierFile.SeriesEntry entry, long from, long to) {
+        long first = Math.max(from, entry.minTimestamp());
+        long last = Math.min(to, entry.maxTimestamp());
+        if (first > last) {
+            return 0;
+        }
+        long span = entry.maxTimestamp() - entry.minTimestamp();
+        if (span == 0 || (first == entry.minTimestamp() && last == entry.maxTimestamp())) {
+            return entry.rows();
+        }
+        return (long) Math.ceil((double) entry.rows() * (last - first) / span);
+    }
+
+    private List<ReservationSeries> read(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to,
+                                         Set<ReservationField> fields) {
+        long fromMicros = from != null ? ColdTierFile.toInstantEpochMicros(from, zone) : Long.MIN_VALUE;
+        long toMicros = to != null ? ColdTierFile.toInstantEpochMicros(to, zone) : Long.MAX_VALUE;
+        List<ReservationSeries> found = new ArrayList<>();
+        for (ColdTierFile file : files) {
+            if (file.overlaps(fromMicros, toMicros)) {
+                List<ColdTierFile.SeriesEntry> entries = file.find(assetIds, marketId);
+                if (!entries.isEmpty()) {
+                    try {
+                        found.addAll(file.read(entries, fromMicros, toMicros, fields, zone));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot read cold tier file " + file.path(), e);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,72 @@
+package com.reservation.compute;
+
+/**
+ * Batch operations on slices of primitive columns, such as the value columns of a
+ * {@link com.reservation.model.ReservationSeries}.
+ * Working on whole columns instead of row by row lets an implementation process several values per instruction.
+ * Both implementations return bit-identical results, except for the average of {@link #statistics}, whose sum may be
+ * accumulated in a different order.
+ *
+ * @author Bojana Samardzic
+ * @see ScalarColumnKernels
+ * @see VectorColumnKernels
+ */
+public interface ColumnKernels {
+
+    /**
+     * Divides values in place by a constant, e.g. to convert them from kW to MW.
+     *
+     * @param column  the column of values
+     * @param from    the index of the first value, inclusive
+     * @param to      the index of the last value, exclusive
+     * @param divisor the constant to divide by
+     */
+    void divide(double[] column, int from, int to, double divisor);
+
+    /**
+     * Finds the groups of equal keys in a sorted column, e.g. the rows of each timestamp.
+     * The index of the first row of each group is written to {@code starts}, followed by {@code to} as the end of the
+     * last group, so that group {@code g} spans the rows from {@code starts[g]} to {@code starts[g + 1]}.
+     *
+     * @param keys   the column of keys, sorted
+     * @param from   the index of the first key, inclusive
+     * @param to     the index of the last key, exclusive
+     * @param starts receives the first row of each group and the end of the last one; needs room for
+     *               {@code to - from + 1} indexes
+     * @return the number of groups
+     */
+    int groupStarts(long[] keys, int from, int to, int[] starts);
+
+    /**
+     * Sums the values of each group of rows found by {@link #groupStarts}. The values of a group are added in row
+     * order, starting from zero.
+     *
+     * @param column the column of values
+     * @param starts the first row of each group, followed by the end of the last group
+     * @param groups the number of groups
+     * @param target receives the sum of each group
+     */
+    void sumGroups(double[] column, int[] starts, int groups, double[] target);
+
+    /**
+     * Sums the values of each group of rows found by {@link #groupStarts} in fixed point: each value is rounded to
+     * thousandths like {@link com.reservation.model.FixedPoint#toMilliKw(double)}, the thousandths are summed as
+     * integers and the sum is converted back, so the sums do not depend on the order of the values.
+     *
+     * @param column the column of values
+     * @param starts the first row of each group, followed by the end of the last group
+     * @param groups the number of groups
+     * @param target receives the sum of each group
+     */
+    void sumGroupsFixedPoint(double[] column, int[] starts, int groups, double[] target);
+
+    /**
+     * Computes the minimum, maximum and average of values.
+     *
+     * @param column the column of values
+     * @param from   the index of the first value, inclusive
+     * @param to     the index of the last value, exclusive
+     * @return the statistics of the values
+     */
+    ColumnStatistics statistics(double[] column, int from, int to);
+}
@@ -0,0 +1,59 @@
+package com.reservation.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Chooses the {@link ColumnKernels} of the application: the {@link VectorColumnKernels} if they are enabled and the
+ * incubating Vector API module was added to the JVM, the {@link ScalarColumnKernels} otherwise.
+ *
+ * @author Bojana Samardzic
+ */
+@Configuration(proxyBeanMethods = false)
+public class ColumnKernelsConfiguration {
+
+    /**
+     * Name of the module of the Vector API.
+     */
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnKernelsConfiguration.class);
+
+    /**
+     * The column kernels used to convert and aggregate series.
+     *
+     * @param properties the configuration of the batch computations
+     * @return the vector kernels if available and enabled, the scalar kernels otherwise
+     */
+    @Bean
+    public ColumnKernels columnKernels(ComputeProperties properties) {
+        if (!properties.isVectorized()) {
+            log.info("Vectorized column kernels disabled, using scalar loops");
+            return new ScalarColumnKernels();
+        }
+        if (!isVectorModulePresent()) {
+            log.info("Module {} not added to the JVM, using scalar column kernels", VECTOR_MODULE);
+            return new ScalarColumnKernels();
+        }
+        try {
+            VectorColumnKernels kernels = new VectorColumnKernels();
+            log.info("Using vectorized column kernels with {} doubles per vector", kernels.lanes());
+            return kernels;
+        } catch (LinkageError e) {
+            log.warn("Vector API not usable, using scalar column kernels", e);
+            return new ScalarColumnKernels();
+        }
+    }
+
+    /**
+     * Returns whether the Vector API module is resolved in the boot layer, i.e. the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}.
+     *
+     * @return {@code true} if the Vector API can be used
+     */
+    static boolean isVectorModulePresent() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+}
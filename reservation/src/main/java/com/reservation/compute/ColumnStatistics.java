@@ -0,0 +1,28 @@
+package com.reservation.compute;
+
+/**
+ * Minimum, maximum and average of a column of values.
+ *
+ * @param count   the number of values
+ * @param min     the smallest value, or {@code NaN} if there are none
+ * @param max     the largest value, or {@code NaN} if there are none
+ * @param average the arithmetic mean of the values, or {@code NaN} if there are none
+ * @author Bojana Samardzic
+ */
+public record ColumnStatistics(long count, double min, double max, double average) {
+
+    /**
+     * Statistics of no values.
+     */
+    public static final ColumnStatistics EMPTY = new ColumnStatistics(0, Double.NaN, Double.NaN, Double.NaN);
+
+    /**
+     * Returns the statistics with all values divided by a constant, e.g. to convert them from kW to MW.
+     *
+     * @param divisor the constant to divide by
+     * @return the statistics of the divided values
+     */
+    public ColumnStatistics divide(double divisor) {
+        return new ColumnStatistics(count, min / divisor, max / divisor, average / divisor);
+    }
+}
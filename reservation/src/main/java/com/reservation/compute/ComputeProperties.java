@@ -0,0 +1,21 @@
+package com.reservation.compute;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the batch computations on reservation series.
+ * Bound from the {@code reservation.compute} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.compute")
+public class ComputeProperties {
+
+    /**
+     * Whether series are converted and aggregated with the Vector API. Only takes effect if the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}; otherwise scalar loops are used.
+     */
+    private boolean vectorized = true;
+}
@@ -0,0 +1,69 @@
+package com.reservation.compute;
+
+import com.reservation.model.FixedPoint;
+
+/**
+ * Column kernels processing one value at a time, for JVMs without the Vector API.
+ * Also the reference for {@link VectorColumnKernels}, which must return the same results.
+ *
+ * @author Bojana Samardzic
+ */
+public class ScalarColumnKernels implements ColumnKernels {
+
+    @Override
+    public void divide(double[] column, int from, int to, double divisor) {
+        for (int index = from; index < to; index++) {
+            column[index] /= divisor;
+        }
+    }
+
+    @Override
+    public int groupStarts(long[] keys, int from, int to, int[] starts) {
+        int groups = 0;
+        for (int index = from; index < to; index++) {
+            if (index == from || keys[index] != keys[index - 1]) {
+                starts[groups++] = index;
+            }
+        }
+        starts[groups] = to;
+        return groups;
+    }
+
+    @Override
+    public void sumGroups(double[] column, int[] starts, int groups, double[] target) {
+        for (int group = 0; group < groups; group++) {
+            double sum = 0;
+            for (int row = starts[group]; row < starts[group + 1]; row++) {
+                sum += column[row];
+            }
+            target[group] = sum;
+        }
+    }
+
+    @Override
+    public void sumGroupsFixedPoint(double[] column, int[] starts, int groups, double[] target) {
+        for (int group = 0; group < groups; group++) {
+            long sum = 0;
+            for (int row = starts[group]; row < starts[group + 1]; row++) {
+                sum += FixedPoint.toMilliKw(column[row]);
+            }
+            target[group] = FixedPoint.toKw(sum);
+        }
+    }
+
+    @Override
+    public ColumnStatistics statistics(double[] column, int from, int to) {
+        if (from >= to) {
+            return ColumnStatistics.EMPTY;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int index = from; index < to; index++) {
+            min = Math.min(min, column[index]);
+            max = Math.max(max, column[index]);
+            sum += column[index];
+        }
+        return new ColumnStatistics(to - from, min, max, sum / (to - from));
+    }
+}
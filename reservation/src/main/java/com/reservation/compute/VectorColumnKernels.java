@@ -0,0 +1,90 @@
+package com.reservation.compute;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Column kernels on the incubating Vector API, processing as many values per instruction as the preferred vector size
+ * of the CPU holds, e.g. four {@code double}s with AVX2. Remainders that do not fill a vector are processed one by one.
+ * Only the kernels that are faster than the scalar ones are vectorized: finding groups compares a vector of keys
+ * with their predecessors at once, and statistics reduce whole vectors. Divisions are left to the scalar loop, which
+ * the JIT compiler already vectorizes, and group sums to the scalar loops, as gathering the rows of groups of
+ * different sizes into vectors is slower than summing them one by one.
+ * Only usable if the JVM was started with {@code --add-modules jdk.incubator.vector}; see
+ * {@link ColumnKernelsConfiguration}.
+ *
+ * @author Bojana Samardzic
+ */
+class VectorColumnKernels extends ScalarColumnKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, DOUBLES.vectorShape());
+    private static final int LANES = DOUBLES.length();
+
+    /**
+     * Returns the number of {@code double}s processed per instruction.
+     *
+     * @return the number of lanes of the vectors
+     */
+    int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public int groupStarts(long[] keys, int from, int to, int[] starts) {
+        if (from >= to) {
+            starts[0] = to;
+            return 0;
+        }
+        int groups = 0;
+        starts[groups++] = from;
+
+        // Compares each key with its predecessor; every difference starts a group.
+        int index = from + 1;
+        for (int bound = index + LONGS.loopBound(to - index); index < bound; index += LANES) {
+            long boundaries = LongVector.fromArray(LONGS, keys, index)
+                    .compare(VectorOperators.NE, LongVector.fromArray(LONGS, keys, index - 1))
+                    .toLong();
+            while (boundaries != 0) {
+                starts[groups++] = index + Long.numberOfTrailingZeros(boundaries);
+                boundaries &= boundaries - 1;
+            }
+        }
+        for (; index < to; index++) {
+            if (keys[index] != keys[index - 1]) {
+                starts[groups++] = index;
+            }
+        }
+        starts[groups] = to;
+        return groups;
+    }
+
+    @Override
+    public ColumnStatistics statistics(double[] column, int from, int to) {
+        if (from >= to) {
+            return ColumnStatistics.EMPTY;
+        }
+        DoubleVector mins = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        DoubleVector maxs = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        int index = from;
+        for (int bound = from + DOUBLES.loopBound(to - from); index < bound; index += LANES) {
+            DoubleVector values = DoubleVector.fromArray(DOUBLES, column, index);
+            mins = mins.min(values);
+            maxs = maxs.max(values);
+            sums = sums.add(values);
+        }
+
+        double min = mins.reduceLanes(VectorOperators.MIN);
+        double max = maxs.reduceLanes(VectorOperators.MAX);
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; index < to; index++) {
+            min = Math.min(min, column[index]);
+            max = Math.max(max, column[index]);
+            sum += column[index];
+        }
+        return new ColumnStatistics(to - from, min, max, sum / (to - from));
+    }
+}
@@ -0,0 +1,151 @@
+package com.reservation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Separate connection pools for interactive reads and bulk exports, so that long-running exports cannot take
+ * connections away from the JSON endpoint.
+ * The primary pool is bound from {@code spring.datasource} and used by JPA, Flyway and the hot window.
+ * The export pool is bound from {@code reservation.export-datasource} and used only by the export reads of
+ * {@link com.reservation.repository.ReservationSeriesRepository}; its series reads for the JSON endpoint and the row
+ * estimates taken before admission run on the primary pool. Each pool has its own size, connection timeout and
+ * statement timeout.
+ * Plans of slow export queries are captured on a pool of a single connection to the export database, so that
+ * re-running a bulk query with {@code EXPLAIN ANALYZE} takes a connection from neither pool.
+ * The reactive export server reads through an R2DBC pool bound from {@code reservation.reactive-datasource}, whose
+ * connections are only taken while a reactive export is downloaded.
+ *
+ * @author Bojana Samardzic
+ */
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConfiguration {
+
+    /**
+     * Name of the data source bean of the export pool.
+     */
+    public static final String EXPORT_DATA_SOURCE = "exportDataSource";
+
+    /**
+     * Name of the data source bean of the explain pool.
+     */
+    public static final String EXPLAIN_DATA_SOURCE = "explainDataSource";
+
+    /**
+     * Name of the R2DBC connection factory of the reactive export server.
+     */
+    public static final String REACTIVE_CONNECTION_FACTORY = "reactiveConnectionFactory";
+
+    /**
+     * Connection settings of the interactive pool.
+     *
+     * @return the properties bound from {@code spring.datasource}
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * The interactive pool, configured by {@code spring.datasource.hikari}.
+     *
+     * @param properties the connection settings of the interactive pool
+     * @return the primary data source
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Connection settings of the export pool.
+     *
+     * @return the properties bound from {@code reservation.export-datasource}
+     */
+    @Bean
+    @ConfigurationProperties("reservation.export-datasource")
+    public DataSourceProperties exportDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * The export pool, configured by {@code reservation.export-datasource.hikari}.
+     *
+     * @param properties the connection settings of the export pool
+     * @return the data source of bulk exports
+     */
+    @Bean(EXPORT_DATA_SOURCE)
+    @ConfigurationProperties("reservation.export-datasource.hikari")
+    public HikariDataSource exportDataSource(@Qualifier("exportDataSourceProperties") DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The explain pool: a single connection with the settings of the export pool, opened only while a plan is
+     * captured.
+     *
+     * @param properties the connection settings of the export pool
+     * @return the data source of plan captures
+     */
+    @Bean(EXPLAIN_DATA_SOURCE)
+    public HikariDataSource explainDataSource(@Qualifier("exportDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("explain");
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    /**
+     * Connection settings of the reactive pool.
+     *
+     * @return the properties bound from {@code reservation.reactive-datasource}
+     */
+    @Bean
+    @ConfigurationProperties("reservation.reactive-datasource")
+    public R2dbcProperties reactiveDataSourceProperties() {
+        return new R2dbcProperties();
+    }
+
+    /**
+     * The R2DBC pool of the reactive export server, configured by {@code reservation.reactive-datasource.pool}.
+     * Without an explicit URL it connects to the database of the interactive pool.
+     *
+     * @param properties           the connection settings of the reactive pool
+     * @param dataSourceProperties the connection settings of the interactive pool
+     * @return the pooled connection factory of reactive exports
+     */
+    @Bean(name = REACTIVE_CONNECTION_FACTORY, destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionFactory(@Qualifier("reactiveDataSourceProperties") R2dbcProperties properties,
+                                                    DataSourceProperties dataSourceProperties) {
+        String url = properties.getUrl() != null ? properties.getUrl() : dataSourceProperties.determineUrl().replaceFirst("^jdbc:", "r2dbc:");
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime());
+        if (pool.getMaxAcquireTime() != null) {
+            configuration.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        return new ConnectionPool(configuration.build());
+    }
+}
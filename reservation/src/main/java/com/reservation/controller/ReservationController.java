@@ -1,46 +1,129 @@
 package com.reservation.controller;
 
+import com.reservation.compute.ColumnStatistics;
 import com.reservation.dto.ReservationDTO;
+import com.reservation.export.ExportAdmission;
+import com.reservation.export.ExportCoalescer;
+import com.reservation.export.ExportKey;
+import com.reservation.export.ExportPermit;
+import com.reservation.export.ExportPlan;
+import com.reservation.export.ExportPlanner;
+import com.reservation.export.ExportRejectedException;
+import com.reservation.export.ExportSpool;
+import com.reservation.export.ExportStrategy;
+import com.reservation.export.ExportSubscription;
+import com.reservation.export.SpooledExport;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.format.ReservationFormat;
+import com.reservation.format.ReservationFormatRegistry;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
+import com.reservation.profiling.CacheLookupEvent;
 import com.reservation.service.ReservationService;
+import com.reservation.snapshot.ExportSnapshot;
+import com.reservation.snapshot.ExportSnapshotStore;
+import jakarta.servlet.http.HttpServletRequest;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 /**
  * REST controller for managing reservations.
- * Provides an endpoint to export reservation data to a CSV file.
+ * Provides endpoints to export reservation data to a CSV file, and totals over all markets of an asset or over
+ * the assets of a portfolio.
+ * Exports carry a content-based ETag and support byte-range requests, so interrupted downloads can be resumed
+ * from the snapshot kept in {@link ExportSpool}. Exports are admitted by {@link ExportAdmission} and rejected with
+ * HTTP 429 while too many rows are being exported. {@link ExportPlanner} decides whether an export is produced in
+ * memory, streamed to the client or spooled to disk first. Concurrent identical exports are produced once and
+ * shared through {@link ExportCoalescer}. Exports of a whole past day are served from the pre-generated snapshots of
+ * {@link ExportSnapshotStore} when one exists, compressed if the client accepts gzip.
+ * The output format of an export is negotiated from the {@code Accept} header among the formats of
+ * {@link ReservationFormatRegistry}, CSV by default.
+ * Always created eagerly, together with the export path it depends on, so that the first export after a
+ * fast start does not pay for bean creation and the JPA bootstrap.
  *
  * @author Bojana Samardzic
  */
 @RestController
+@Lazy(false)
 @RequestMapping("/api/v1/flexibility/reservations")
 public class ReservationController {
 
+    private static final MediaType TEXT_CSV = CsvReservationFormat.TEXT_CSV;
+    private static final String CONTENT_DISPOSITION = "attachment; filename=reservations.csv";
+    private static final String VARY_EXPORT = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+    private static final String SPOOLED_EXPORT_RELEASE = ReservationController.class.getName() + ".spooledExport";
+    private static final String STREAMED_EXPORT_CLOSE = ReservationController.class.getName() + ".streamedExport";
+
     private final ReservationService reservationService;
+    private final ExportSpool exportSpool;
+    private final ExportAdmission exportAdmission;
+    private final ExportPlanner exportPlanner;
+    private final ExportCoalescer exportCoalescer;
+    private final ExportSnapshotStore exportSnapshotStore;
+    private final ReservationFormatRegistry exportFormats;
     private final ModelMapper modelMapper;
 
     /**
      * Constructs a new instance of {@code ReservationController} with the specified {@link ReservationService}.
      *
-     * @param reservationService the service for managing reservations
+     * @param reservationService  the service for managing reservations
+     * @param exportSpool         the spool of completed exports used for byte-range requests
+     * @param exportAdmission     the admission control limiting the rows exported at the same time
+     * @param exportPlanner       the planner choosing how an export is produced
+     * @param exportCoalescer     the coalescer sharing an export between concurrent identical requests
+     * @param exportSnapshotStore the store of pre-generated daily exports
+     * @param exportFormats       the output formats of exports
      */
     @Autowired
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService, ExportSpool exportSpool, ExportAdmission exportAdmission,
+                                 ExportPlanner exportPlanner, ExportCoalescer exportCoalescer, ExportSnapshotStore exportSnapshotStore,
+                                 ReservationFormatRegistry exportFormats) {
         this.reservationService = reservationService;
+        this.exportSpool = exportSpool;
+        this.exportAdmission = exportAdmission;
+        this.exportPlanner = exportPlanner;
+        this.exportCoalescer = exportCoalescer;
+        this.exportSnapshotStore = exportSnapshotStore;
+        this.exportFormats = exportFormats;
         this.modelMapper = new ModelMapper();
     }
 
@@ -48,40 +131,84 @@ public class ReservationController {
      * Exports reservations to a CSV file based on the provided asset ID, market ID, and time range.
      * Optionally aggregates the total of positive and negative values.
      * Returns a CSV file as an attachment or appropriate HTTP error responses based on the input validation and internal processing.
+     * Clients accepting {@code text/tab-separated-values} or {@code application/x-ndjson} but not CSV receive the
+     * export in that format instead.
+     * Small exports are produced in memory and large ones are spooled to disk; both carry an ETag and can be resumed.
+     * Exports in between are streamed while they are read and carry neither an ETag nor a Content-Length.
+     * With {@code fields}, only the named columns are read from the database and written, in the given order.
+     * The conditions of {@code filter} are applied by the database query, so only matching rows are read.
+     * A complete export of all fields of one past day, from its start to the start of the next day, is read from its
+     * pre-generated snapshot if there is one.
      *
-     * @param assetId  the unique identifier of the asset (must be a valid UUID)
-     * @param marketId the unique identifier of the market (must be a valid UUID)
-     * @param from     the start of the time range for filtering reservations (must be in ISO date-time format)
-     * @param to       the end of the time range for filtering reservations (must be in ISO date-time format)
-     * @param total    if true, aggregates the total of positive and negative values
-     * @return a ResponseEntity containing the CSV formatted string of reservations or an error message
+     * @param assetId        the unique identifier of the asset (must be a valid UUID)
+     * @param marketId       the unique identifier of the market (must be a valid UUID)
+     * @param from           the start of the time range for filtering reservations (must be in ISO date-time format)
+     * @param to             the end of the time range for filtering reservations (must be in ISO date-time format)
+     * @param total          if true, aggregates the total of positive and negative values
+     * @param fields         the comma-separated names of the columns to export, or none to export all columns
+     * @param filter         the value, price, bid and update time conditions exported rows must satisfy
+     * @param acceptEncoding the content codings the client accepts; snapshots are sent compressed if it accepts gzip
+     * @param accept         the media types the client accepts, or none for CSV
+     * @return a ResponseEntity containing the CSV data of reservations or an error message
      * - HTTP 200 OK with CSV data if successful
-     * - HTTP 400 Bad Request if the 'from' date is after the 'to' date
+     * - HTTP 400 Bad Request if the 'from' date is after the 'to' date, a field is unknown, a filter is invalid or the
+     * Accept header is malformed
      * - HTTP 404 Not Found if no data is found for the given parameters
+     * - HTTP 406 Not Acceptable if the client accepts none of the export formats
+     * - HTTP 429 Too Many Requests with a Retry-After header if the export is not admitted
      * - HTTP 500 Internal Server Error if an IO or unexpected error occurs
      */
     @GetMapping("/{assetId}/market/{marketId}/export")
-    public ResponseEntity<String> exportReservationsToCSV(
+    public ResponseEntity<?> exportReservationsToCSV(
             @PathVariable UUID assetId,
             @PathVariable UUID marketId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
-            @RequestParam(required = false, defaultValue = "false") boolean total) {
+            @RequestParam(required = false, defaultValue = "false") boolean total,
+            @RequestParam(required = false) String fields,
+            ReservationFilter filter,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
             if (from.isAfter(to)) {
                 return ResponseEntity.badRequest().body("Invalid date range: 'from' cannot be after 'to'");
             }
+            filter.validate();
+            ReservationFormat format = exportFormats.negotiate(accept).orElse(null);
+            if (format == null) {
+                return notAcceptable();
+            }
 
-            String csvData = reservationService.exportReservationsToCSV(assetId, marketId, from, to, total);
+            ExportKey key = exportKey(assetId, marketId, from, to, total, ReservationProjection.parse(fields, total), filter, format);
+            ExportSnapshot snapshot = findSnapshot(key).orElse(null);
+            if (snapshot != null) {
+                return snapshotExport(snapshot, acceptsGzip(acceptEncoding));
+            }
+            ExportPlan plan = exportPlanner.plan(key);
+            if (plan.strategy() == ExportStrategy.STREAMING) {
+                return streamExport(key, plan, format, assetId, marketId, from, to, total);
+            }
 
-            if (csvData == null || csvData.isEmpty()) {
+            MaterializedExport export = leaseExport(key, plan, format, assetId, marketId, from, to, total);
+            if (export == null) {
                 return ResponseEntity.notFound().build();
             }
+            Object body = export.content() != null ? export.content() : export.snapshot().resource();
 
             return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=reservations.csv")
-                    .body(csvData);
+                    .header("Content-Disposition", contentDisposition(format))
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .eTag(export.snapshot().eTag())
+                    .contentType(format.mediaType())
+                    .body(body);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ExportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error occurred while exporting reservations: " + e.getMessage());
@@ -91,6 +218,246 @@ public class ReservationController {
         }
     }
 
+    /**
+     * Serves the byte ranges named by the {@code Range} header of an export, so that an interrupted download can be resumed.
+     * The range is read from the spooled snapshot of the export if one exists; otherwise the export is produced again.
+     * If the {@code If-Range} header names a different version than the current snapshot, the complete export is
+     * returned instead of a range.
+     * For a client accepting gzip, the ranges of an export with a pre-generated snapshot are read from the compressed
+     * snapshot, as ranges of the compressed content.
+     *
+     * @param assetId        the unique identifier of the asset (must be a valid UUID)
+     * @param marketId       the unique identifier of the market (must be a valid UUID)
+     * @param from           the start of the time range for filtering reservations (must be in ISO date-time format)
+     * @param to             the end of the time range for filtering reservations (must be in ISO date-time format)
+     * @param total          if true, aggregates the total of positive and negative values
+     * @param fields         the comma-separated names of the columns to export, or none to export all columns
+     * @param filter         the value, price, bid and update time conditions exported rows must satisfy
+     * @param ifRange        the ETag of the export version the client already has part of, if any
+     * @param acceptEncoding the content codings the client accepts
+     * @param accept         the media types the client accepts, or none for CSV
+     * @return a ResponseEntity containing:
+     * - HTTP 206 Partial Content with the requested bytes
+     * - HTTP 200 OK with the complete export if the range does not apply
+     * - HTTP 400 Bad Request if the 'from' date is after the 'to' date, a field is unknown, a filter is invalid or the
+     * Accept header is malformed
+     * - HTTP 404 Not Found if no data is found for the given parameters
+     * - HTTP 406 Not Acceptable if the client accepts none of the export formats
+     * - HTTP 416 Range Not Satisfiable if the range is invalid or lies outside the export
+     * - HTTP 429 Too Many Requests with a Retry-After header if the export has to be produced again and is not admitted
+     * - HTTP 500 Internal Server Error if an IO or unexpected error occurs
+     */
+    @GetMapping(value = "/{assetId}/market/{marketId}/export", headers = HttpHeaders.RANGE)
+    public ResponseEntity<?> exportReservationRangeToCSV(
+            @PathVariable UUID assetId,
+            @PathVariable UUID marketId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false, defaultValue = "false") boolean total,
+            @RequestParam(required = false) String fields,
+            ReservationFilter filter,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            if (from.isAfter(to)) {
+                return ResponseEntity.badRequest().body("Invalid date range: 'from' cannot be after 'to'");
+            }
+            filter.validate();
+            ReservationFormat format = exportFormats.negotiate(accept).orElse(null);
+            if (format == null) {
+                return notAcceptable();
+            }
+
+            ExportKey key = exportKey(assetId, marketId, from, to, total, ReservationProjection.parse(fields, total), filter, format);
+            ExportSnapshot snapshot = acceptsGzip(acceptEncoding) ? findSnapshot(key).orElse(null) : null;
+            if (snapshot != null) {
+                if (ifRange != null && !ifRange.equals(snapshot.compressedETag())) {
+                    return snapshotExport(snapshot, true);
+                }
+                // Spring MVC answers with the requested regions of the compressed file (206), or with 416.
+                return ResponseEntity.ok()
+                        .header("Content-Disposition", CONTENT_DISPOSITION)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, VARY_EXPORT)
+                        .eTag(snapshot.compressedETag())
+                        .contentType(TEXT_CSV)
+                        .body(exportSnapshotStore.compressed(snapshot));
+            }
+            SpooledExport export = findSpooled(key)
+                    .filter(spooled -> ifRange == null || ifRange.equals(spooled.eTag()))
+                    .filter(this::lease)
+                    .orElse(null);
+            if (export == null) {
+                ExportPlan plan = exportPlanner.plan(key);
+                MaterializedExport materialized = leaseExport(key, plan, format, assetId, marketId, from, to, total);
+                if (materialized == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                export = materialized.snapshot();
+            }
+
+            if (ifRange != null && !ifRange.equals(export.eTag())) {
+                // Streamed as InputStreamResource so that Spring MVC does not apply the Range header to the new version.
+                return ResponseEntity.ok()
+                        .header("Content-Disposition", contentDisposition(format))
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .eTag(export.eTag())
+                        .contentType(format.mediaType())
+                        .contentLength(export.length())
+                        .body(new InputStreamResource(export.resource().getInputStream()));
+            }
+
+            // Spring MVC answers with the requested regions of the resource (206), or with 416 if they lie outside of it.
+            return ResponseEntity.ok()
+                    .header("Content-Disposition", contentDisposition(format))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .eTag(export.eTag())
+                    .contentType(format.mediaType())
+                    .body(export.resource());
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ExportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error occurred while exporting reservations: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the reservations within several disjoint time windows as a single export, with one header and the rows
+     * of all windows in timestamp order, e.g. the peak hours of the last 90 days or a list of delivery days.
+     * The windows are either listed in {@code windows}, or recur every day from {@code from} to {@code to} at the times
+     * of day given by {@code daily}, optionally on the given {@code days} of the week only. Days and times of day are
+     * those of the time zone of {@code from}. Overlapping windows are merged, and each window includes both of its
+     * ends, like the range of a single export.
+     * All windows are read with one database query. The export is always streamed, so it carries neither an ETag
+     * nor a Content-Length.
+     *
+     * @param assetId  the unique identifier of the asset (must be a valid UUID)
+     * @param marketId the unique identifier of the market (must be a valid UUID)
+     * @param windows  the comma-separated windows, each as {@code <from>/<to>} in ISO date-time format
+     * @param from     the start of the range of recurring windows (must be in ISO date-time format)
+     * @param to       the end of the range of recurring windows (must be in ISO date-time format)
+     * @param daily    the times of day each recurring window starts and ends at, e.g. {@code 08:00/20:00}; a window
+     *                 ending at or before its start ends on the next day
+     * @param days     the days of the week with a recurring window, e.g. {@code MONDAY,FRIDAY}, or none for every day
+     * @param total    if true, aggregates the total of positive and negative values
+     * @param fields   the comma-separated names of the columns to export, or none to export all columns
+     * @param filter   the value, price, bid and update time conditions exported rows must satisfy
+     * @param accept   the media types the client accepts, or none for CSV
+     * @return a ResponseEntity streaming the export or an error message
+     * - HTTP 200 OK with the export if successful
+     * - HTTP 400 Bad Request if the windows are missing, malformed or too many, a field is unknown, a filter is invalid
+     * or the Accept header is malformed
+     * - HTTP 406 Not Acceptable if the client accepts none of the export formats
+     * - HTTP 429 Too Many Requests with a Retry-After header if the export is not admitted
+     * - HTTP 500 Internal Server Error if an unexpected error occurs
+     */
+    @GetMapping("/{assetId}/market/{marketId}/export/windows")
+    public ResponseEntity<?> exportReservationWindows(
+            @PathVariable UUID assetId,
+            @PathVariable UUID marketId,
+            @RequestParam(required = false) String windows,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false) String daily,
+            @RequestParam(required = false) List<DayOfWeek> days,
+            @RequestParam(required = false, defaultValue = "false") boolean total,
+            @RequestParam(required = false) String fields,
+            ReservationFilter filter,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            TimeWindows timeWindows = timeWindows(windows, from, to, daily, days);
+            filter.validate();
+            ReservationFormat format = exportFormats.negotiate(accept).orElse(null);
+            if (format == null) {
+                return notAcceptable();
+            }
+            ReservationProjection projection = ReservationProjection.parse(fields, total);
+
+            ExportPermit permit = exportAdmission.acquire(exportPlanner.planWindows(assetId, marketId, timeWindows, filter));
+            closeOnCompletion(permit);
+            StreamingResponseBody body = outputStream -> {
+                try (permit) {
+                    reservationService.writeWindowReservations(assetId, marketId, timeWindows, total, projection, filter, format, outputStream);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header("Content-Disposition", contentDisposition(format))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .contentType(format.mediaType())
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ExportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the totals of an asset across all of its markets to a CSV file, one row per timestamp.
+     *
+     * @param assetId the unique identifier of the asset (must be a valid UUID)
+     * @param from    the start of the time range for filtering reservations (must be in ISO date-time format)
+     * @param to      the end of the time range for filtering reservations (must be in ISO date-time format)
+     * @return a ResponseEntity containing the CSV data of the totals or an error message
+     * - HTTP 200 OK with CSV data if successful
+     * - HTTP 400 Bad Request if the 'from' date is after the 'to' date
+     * - HTTP 404 Not Found if no data is found for the given parameters
+     * - HTTP 429 Too Many Requests with a Retry-After header if the export is not admitted
+     * - HTTP 500 Internal Server Error if an IO or unexpected error occurs
+     */
+    @GetMapping("/{assetId}/export/total")
+    public ResponseEntity<String> exportAssetTotalsToCSV(
+            @PathVariable UUID assetId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to) {
+        return exportTotals(Set.of(assetId), null, from, to);
+    }
+
+    /**
+     * Exports the totals of a portfolio of assets to a CSV file, one row per timestamp, either across all markets
+     * or in a single market.
+     *
+     * @param assetIds the unique identifiers of the assets of the portfolio (must be valid UUIDs)
+     * @param marketId the unique identifier of the market, or none to sum over all markets
+     * @param from     the start of the time range for filtering reservations (must be in ISO date-time format)
+     * @param to       the end of the time range for filtering reservations (must be in ISO date-time format)
+     * @return a ResponseEntity containing the CSV data of the totals or an error message
+     * - HTTP 200 OK with CSV data if successful
+     * - HTTP 400 Bad Request if no asset is given or the 'from' date is after the 'to' date
+     * - HTTP 404 Not Found if no data is found for the given parameters
+     * - HTTP 429 Too Many Requests with a Retry-After header if the export is not admitted
+     * - HTTP 500 Internal Server Error if an IO or unexpected error occurs
+     */
+    @GetMapping("/portfolio/export/total")
+    public ResponseEntity<String> exportPortfolioTotalsToCSV(
+            @RequestParam List<UUID> assetIds,
+            @RequestParam(required = false) UUID marketId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to) {
+        if (assetIds.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one asset ID is required");
+        }
+        return exportTotals(new LinkedHashSet<>(assetIds), marketId, from, to);
+    }
+
     /**
      * Retrieves a list of reservations for the specified asset ID and market ID.
      * This endpoint queries the reservation service for reservations that match the provided asset ID
@@ -125,4 +492,336 @@ public class ReservationController {
 
         return new ResponseEntity<>(reservationDTOs, HttpStatus.OK);
     }
+
+    /**
+     * Retrieves only the named fields of the reservations for the specified asset ID and market ID.
+     * Only the columns of those fields are read from the database; each reservation is returned as a JSON object
+     * with the fields in the given order and values in MW.
+     *
+     * @param assetId  the unique identifier of the asset (must be a valid UUID)
+     * @param marketId the unique identifier of the market (must be a valid UUID)
+     * @param fields   the comma-separated names of the fields, e.g. {@code timestamp,positiveValue,negativeValue}
+     * @return a ResponseEntity containing:
+     * - HTTP 200 OK with the selected fields of each reservation in JSON format if reservations are found
+     * - HTTP 400 Bad Request if a field is unknown or repeated
+     * - HTTP 404 Not Found if no reservations are found for the given asset ID and market ID
+     */
+    @GetMapping(value = "/{assetId}/market/{marketId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getReservationFields(
+            @PathVariable UUID assetId,
+            @PathVariable UUID marketId,
+            @RequestParam String fields) {
+        ReservationProjection projection;
+        try {
+            projection = ReservationProjection.parse(fields, false);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        ReservationSeries series = reservationService.getReservationSeries(assetId, marketId, projection);
+
+        if (series.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        List<Map<String, Object>> reservations = new ArrayList<>(series.size());
+        for (int row = 0; row < series.size(); row++) {
+            reservations.add(projection.toMap(series, row));
+        }
+
+        return new ResponseEntity<>(reservations, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the minimum, maximum and average of each value and price of the reservations for the specified asset
+     * ID and market ID within a time range, with values in MW.
+     * Optionally the statistics are computed over the totals of positive and negative values per timestamp.
+     *
+     * @param assetId  the unique identifier of the asset (must be a valid UUID)
+     * @param marketId the unique identifier of the market (must be a valid UUID)
+     * @param from     the start of the time range for filtering reservations (must be in ISO date-time format)
+     * @param to       the end of the time range for filtering reservations (must be in ISO date-time format)
+     * @param total    if true, computes the statistics of the totals per timestamp
+     * @return a ResponseEntity containing:
+     * - HTTP 200 OK with the count, minimum, maximum and average of each field in JSON format if reservations are found
+     * - HTTP 400 Bad Request if the 'from' date is after the 'to' date
+     * - HTTP 404 Not Found if no reservations are found for the given parameters
+     */
+    @GetMapping("/{assetId}/market/{marketId}/statistics")
+    public ResponseEntity<Map<String, ColumnStatistics>> getStatistics(
+            @PathVariable UUID assetId,
+            @PathVariable UUID marketId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false, defaultValue = "false") boolean total) {
+        if (from.isAfter(to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Map<String, ColumnStatistics> statistics = reservationService.getStatistics(assetId, marketId, from, to, total);
+
+        if (statistics.values().stream().allMatch(fieldStatistics -> fieldStatistics.count() == 0)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    /**
+     * Streams an export to the client while it is read from the database. Concurrent identical requests subscribe to
+     * the same export; the admission permit is held by the export until the last row is written.
+     * The response is committed once the export has produced its first content, so that an export without any content
+     * is answered with 404 like one produced in memory, and a failure before that with an error status.
+     */
+    private ResponseEntity<StreamingResponseBody> streamExport(ExportKey key, ExportPlan plan, ReservationFormat format, UUID assetId,
+                                                               UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total)
+            throws IOException, ExportRejectedException {
+        ExportSubscription subscription = exportCoalescer.subscribe(key, () -> exportAdmission.acquire(plan), outputStream ->
+                reservationService.writeReservations(assetId, marketId, from, to, total, key.fields(), key.filter(), format, outputStream));
+        boolean empty;
+        try {
+            empty = !subscription.awaitContent();
+        } catch (IOException e) {
+            subscription.close();
+            throw e;
+        }
+        if (empty) {
+            subscription.close();
+            return ResponseEntity.notFound().build();
+        }
+        closeOnCompletion(subscription);
+        StreamingResponseBody body = outputStream -> {
+            try (subscription) {
+                subscription.transferTo(outputStream);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header("Content-Disposition", contentDisposition(format))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(format.mediaType())
+                .body(body);
+    }
+
+    /**
+     * Produces an export under an admission permit, either in memory or spooled to disk as chosen by the plan.
+     *
+     * @return the export, or {@code null} if no data is found for an export produced in memory
+     */
+    private MaterializedExport materializeExport(ExportKey key, ExportPlan plan, ReservationFormat format, UUID assetId, UUID marketId,
+                                                 ZonedDateTime from, ZonedDateTime to, boolean total) throws IOException, ExportRejectedException {
+        try (ExportPermit permit = exportAdmission.acquire(plan)) {
+            if (plan.strategy() == ExportStrategy.IN_MEMORY) {
+                byte[] content = reservationService.exportReservations(assetId, marketId, from, to, total, key.fields(), key.filter(), format);
+                if (content == null || content.length == 0) {
+                    return null;
+                }
+                return new MaterializedExport(content, exportSpool.store(key, content));
+            }
+            return new MaterializedExport(null, spoolExport(key, format, assetId, marketId, from, to, total));
+        }
+    }
+
+    /**
+     * Produces an export, or joins a concurrent production of it, and takes a reference to its snapshot for the
+     * current request. If the snapshot was evicted from the spool and closed before that, the export is produced again.
+     *
+     * @return the export, or {@code null} if no data is found for an export produced in memory
+     */
+    private MaterializedExport leaseExport(ExportKey key, ExportPlan plan, ReservationFormat format, UUID assetId, UUID marketId,
+                                           ZonedDateTime from, ZonedDateTime to, boolean total) throws IOException, ExportRejectedException {
+        while (true) {
+            MaterializedExport export = exportCoalescer.coalesce(key, () -> materializeExport(key, plan, format, assetId, marketId, from, to, total));
+            if (export == null || lease(export.snapshot())) {
+                return export;
+            }
+        }
+    }
+
+    /**
+     * Takes a reference to a spooled export for the current request and releases it once the response is complete,
+     * so that a spooled file evicted while it is sent stays readable.
+     *
+     * @return {@code false} if the export was evicted and can no longer be read
+     */
+    private boolean lease(SpooledExport export) {
+        RequestAttributes request = RequestContextHolder.currentRequestAttributes();
+        if (!export.retain()) {
+            return false;
+        }
+        request.registerDestructionCallback(SPOOLED_EXPORT_RELEASE, export::release, RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+
+    /**
+     * Closes a permit or subscription held for a streamed response once the asynchronous request completes, times
+     * out or fails. The response body closes it as well when it finishes, but it never runs if the request ends
+     * before it is started, e.g. when the client disconnects or the request times out while the body is queued.
+     */
+    private static void closeOnCompletion(AutoCloseable resource) {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(STREAMED_EXPORT_CLOSE, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) throws Exception {
+                resource.close();
+            }
+        });
+    }
+
+    /**
+     * Answers with the complete content of a pre-generated snapshot: the compressed file as is if the client accepts
+     * gzip, otherwise decompressed while it is sent. Each representation carries the ETag of its own content.
+     */
+    private ResponseEntity<?> snapshotExport(ExportSnapshot snapshot, boolean gzip) throws IOException {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("Content-Disposition", CONTENT_DISPOSITION)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.VARY, VARY_EXPORT)
+                .contentType(TEXT_CSV);
+        if (gzip) {
+            // Streamed as InputStreamResource so that Spring MVC does not apply a Range header to a new version.
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .eTag(snapshot.compressedETag())
+                    .contentLength(snapshot.compressedLength())
+                    .body(new InputStreamResource(exportSnapshotStore.compressed(snapshot).getInputStream()));
+        }
+        return response.eTag(snapshot.eTag())
+                .contentLength(snapshot.length())
+                .body(new InputStreamResource(exportSnapshotStore.open(snapshot)));
+    }
+
+    /**
+     * Writes an export to the spool while it is read from the database.
+     */
+    private SpooledExport spoolExport(ExportKey key, ReservationFormat format, UUID assetId, UUID marketId, ZonedDateTime from,
+                                      ZonedDateTime to, boolean total) throws IOException {
+        return exportSpool.spool(key, outputStream ->
+                reservationService.writeReservations(assetId, marketId, from, to, total, key.fields(), key.filter(), format, outputStream));
+    }
+
+    /**
+     * Answers a request accepting none of the export formats with the media types it could ask for.
+     */
+    private ResponseEntity<String> notAcceptable() {
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE)
+                .body("Exports are available as " + exportFormats.mediaTypes().stream().map(MediaType::toString).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Exports the totals of the given assets under an admission permit weighted by the rows they are summed from,
+     * and answers with the CSV data or an error message.
+     */
+    private ResponseEntity<String> exportTotals(Set<UUID> assetIds, UUID marketId, ZonedDateTime from, ZonedDateTime to) {
+        try {
+            if (from.isAfter(to)) {
+                return ResponseEntity.badRequest().body("Invalid date range: 'from' cannot be after 'to'");
+            }
+
+            String csvData;
+            try (ExportPermit permit = exportAdmission.acquire(
+                    exportPlanner.planTotals(assetIds, marketId, from.toLocalDateTime(), to.toLocalDateTime()))) {
+                csvData = reservationService.exportTotalsToCSV(assetIds, marketId, from, to);
+            }
+            if (csvData == null || csvData.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok()
+                    .header("Content-Disposition", "attachment; filename=totals.csv")
+                    .contentType(TEXT_CSV)
+                    .body(csvData);
+
+        } catch (ExportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error occurred while exporting totals: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves the windows of a multi-window export from either a list of windows or a daily recurrence.
+     *
+     * @throws IllegalArgumentException if neither or both are given, or they are malformed
+     */
+    private static TimeWindows timeWindows(String windows, ZonedDateTime from, ZonedDateTime to, String daily, List<DayOfWeek> days) {
+        boolean recurring = from != null || to != null || daily != null;
+        if (windows != null && !recurring) {
+            return TimeWindows.parse(windows);
+        }
+        if (windows != null || from == null || to == null || daily == null) {
+            throw new IllegalArgumentException("Either 'windows' or 'from', 'to' and 'daily' are required");
+        }
+        String[] times = daily.split("/");
+        if (times.length != 2) {
+            throw new IllegalArgumentException("Invalid daily window '" + daily + "': expected <start>/<end>, e.g. 08:00/20:00");
+        }
+        try {
+            return TimeWindows.daily(from, to, LocalTime.parse(times[0].trim()), LocalTime.parse(times[1].trim()), days);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid daily window '" + daily + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up the daily snapshot of an export.
+     */
+    private Optional<ExportSnapshot> findSnapshot(ExportKey key) {
+        return CacheLookupEvent.lookup("snapshot", key.assetId(), key.marketId(), key.total(), () -> exportSnapshotStore.find(key));
+    }
+
+    /**
+     * Looks up a spooled export, kept for resuming downloads.
+     */
+    private Optional<SpooledExport> findSpooled(ExportKey key) {
+        return CacheLookupEvent.lookup("spool", key.assetId(), key.marketId(), key.total(), () -> exportSpool.find(key));
+    }
+
+    /**
+     * Returns whether an {@code Accept-Encoding} header admits gzip, i.e. names {@code gzip} or {@code *} without
+     * {@code q=0}.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if ((name.equalsIgnoreCase("gzip") || name.equals("*"))
+                    && Arrays.stream(parameters).skip(1).noneMatch(parameter -> parameter.replace(" ", "").matches("q=0(\\.0{0,3})?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the {@code Content-Disposition} of an export, naming the file after the format.
+     */
+    private static String contentDisposition(ReservationFormat format) {
+        return "attachment; filename=reservations." + format.fileExtension();
+    }
+
+    /**
+     * Builds the spool key of an export, using the time range as the service interprets it.
+     */
+    private static ExportKey exportKey(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                       ReservationProjection fields, ReservationFilter filter, ReservationFormat format) {
+        return new ExportKey(assetId, marketId, from.toLocalDateTime(), to.toLocalDateTime(), total, fields, filter, format.mediaType());
+    }
+
+    /**
+     * An export produced in memory or spooled to disk.
+     *
+     * @param content  the content of an export produced in memory, or {@code null} if it was spooled
+     * @param snapshot the snapshot serving range requests
+     */
+    private record MaterializedExport(byte[] content, SpooledExport snapshot) {
+    }
 }
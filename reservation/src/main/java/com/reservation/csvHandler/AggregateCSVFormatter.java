@@ -0,0 +1,41 @@
+package com.reservation.csvHandler;
+
+import com.opencsv.CSVWriter;
+import com.reservation.model.AggregateSeries;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for formatting totals over several assets or markets into CSV format.
+ * Writes one row per timestamp with the summed positive and negative values.
+ *
+ * @author Bojana Samardzic
+ */
+@Service
+public class AggregateCSVFormatter {
+
+    /**
+     * Writes the header row for aggregated CSV data.
+     *
+     * @param csvWriter the CSV writer to which the header will be written
+     */
+    public void writeHeader(CSVWriter csvWriter) {
+        csvWriter.writeNext(new String[]{"timestamp", "positiveValue", "negativeValue"});
+    }
+
+    /**
+     * Writes one row of totals to the CSV writer.
+     * Converts the exact positive and negative totals from milli-kW to MW.
+     *
+     * @param csvWriter the CSV writer to which the totals will be written
+     * @param totals    the totals containing the data to be written
+     * @param row       the index of the row within the totals
+     * @param context   the export-scoped cache of encoded values
+     */
+    public void writeRow(CSVWriter csvWriter, AggregateSeries totals, int row, ExportEncodingContext context) {
+        csvWriter.writeNext(new String[]{
+                context.encodeTimestamp(totals.getTimestamp(row)),
+                context.encodeMilliKw(totals.getPositiveValue(row)),
+                context.encodeMilliKw(totals.getNegativeValue(row))
+        });
+    }
+}
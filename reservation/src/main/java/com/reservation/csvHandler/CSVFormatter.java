@@ -2,6 +2,7 @@ package com.reservation.csvHandler;
 
 import com.opencsv.CSVWriter;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
 
 /**
  * Interface for formatting reservation data into CSV format.
@@ -25,5 +26,26 @@ public interface CSVFormatter {
      * @param csvWriter   the CSV writer to which the reservation data will be written
      * @param reservation the reservation object containing the data to be written
      */
-    void writeRow(CSVWriter csvWriter, Reservation reservation);
+    default void writeRow(CSVWriter csvWriter, Reservation reservation) {
+        writeRow(csvWriter, reservation, new ExportEncodingContext());
+    }
+
+    /**
+     * Writes a reservation data row to the provided CSV writer, reusing values already encoded earlier in the same export.
+     *
+     * @param csvWriter   the CSV writer to which the reservation data will be written
+     * @param reservation the reservation object containing the data to be written
+     * @param context     the export-scoped cache of encoded values
+     */
+    void writeRow(CSVWriter csvWriter, Reservation reservation, ExportEncodingContext context);
+
+    /**
+     * Writes one row of a columnar reservation series to the provided CSV writer.
+     *
+     * @param csvWriter the CSV writer to which the reservation data will be written
+     * @param series    the series containing the data to be written
+     * @param row       the index of the row within the series
+     * @param context   the export-scoped cache of encoded values
+     */
+    void writeRow(CSVWriter csvWriter, ReservationSeries series, int row, ExportEncodingContext context);
 }
@@ -2,10 +2,9 @@ package com.reservation.csvHandler;
 
 import com.opencsv.CSVWriter;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
 import org.springframework.stereotype.Service;
 
-import java.time.ZoneOffset;
-
 /**
  * Service for formatting reservation data into detailed CSV format.
  * Implements the {@link CSVFormatter} interface to provide detailed formatting of reservation data.
@@ -27,26 +26,54 @@ public class DetailedCSVFormatter implements CSVFormatter {
 
     /**
      * Writes a reservation data row to the CSV writer in detailed format.
-     * Converts positive and negative values from kW to MW.
+     * Converts positive and negative values from kW to MW as configured by the context.
      *
      * @param csvWriter   the CSV writer to which the reservation data will be written
      * @param reservation the reservation object containing the data to be written
+     * @param context     the export-scoped cache of encoded values
      */
     @Override
-    public void writeRow(CSVWriter csvWriter, Reservation reservation) {
+    public void writeRow(CSVWriter csvWriter, Reservation reservation, ExportEncodingContext context) {
         csvWriter.writeNext(new String[]{
-                reservation.getTimestamp().atZone(ZoneOffset.UTC).toString(),
-                reservation.getAssetId().toString(),
-                reservation.getMarketId().toString(),
-                reservation.getPositiveBidId().toString(),
-                reservation.getNegativeBidId().toString(),
-                String.valueOf(reservation.getPositiveValue() / 1000),
+                context.encodeTimestamp(reservation.getTimestamp()),
+                context.encodeUuid(reservation.getAssetId()),
+                context.encodeUuid(reservation.getMarketId()),
+                context.encodeBidId(reservation.getPositiveBidId()),
+                context.encodeBidId(reservation.getNegativeBidId()),
+                context.encodeValue(reservation.getPositiveValue()),
                 String.valueOf(reservation.getPositiveCapacityPrice()),
                 String.valueOf(reservation.getPositiveEnergyPrice()),
-                String.valueOf(reservation.getNegativeValue() / 1000),
+                context.encodeValue(reservation.getNegativeValue()),
                 String.valueOf(reservation.getNegativeCapacityPrice()),
                 String.valueOf(reservation.getNegativeEnergyPrice()),
-                reservation.getUpdatedAt().atZone(ZoneOffset.UTC).toString()
+                context.encodeUpdatedAt(reservation.getUpdatedAt())
+        });
+    }
+
+    /**
+     * Writes one row of a reservation series to the CSV writer in detailed format.
+     * Converts positive and negative values from kW to MW as configured by the context.
+     *
+     * @param csvWriter the CSV writer to which the reservation data will be written
+     * @param series    the series containing the data to be written
+     * @param row       the index of the row within the series
+     * @param context   the export-scoped cache of encoded values
+     */
+    @Override
+    public void writeRow(CSVWriter csvWriter, ReservationSeries series, int row, ExportEncodingContext context) {
+        csvWriter.writeNext(new String[]{
+                context.encodeTimestamp(series.getTimestamp(row)),
+                context.encodeUuid(series.getAssetId()),
+                context.encodeUuid(series.getMarketId()),
+                context.encodeBidId(series.getPositiveBidId(row)),
+                context.encodeBidId(series.getNegativeBidId(row)),
+                context.encodeValue(series.getPositiveValue(row)),
+                String.valueOf(series.getPositiveCapacityPrice(row)),
+                String.valueOf(series.getPositiveEnergyPrice(row)),
+                context.encodeValue(series.getNegativeValue(row)),
+                String.valueOf(series.getNegativeCapacityPrice(row)),
+                String.valueOf(series.getNegativeEnergyPrice(row)),
+                context.encodeUpdatedAt(series.getUpdatedAt(row))
         });
     }
 }
@@ -0,0 +1,257 @@
+package com.reservation.csvHandler;
+
+import com.reservation.model.FixedPoint;
+import com.reservation.model.ReservationSeries;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Export-scoped cache of already encoded CSV values.
+ * A single instance is created per export and shared by all rows written by a {@link CSVFormatter},
+ * so values that repeat across rows (asset and market IDs, quarter-hour timestamps) are encoded only once. Bid IDs are
+ * nearly unique per row and encoded directly, as caching them would only fill the cache.
+ * Also decides how reservation values are converted from kW to MW: by floating-point division, or in fixed-point mode
+ * by rounding to milli-kW and writing the integer with the decimal point inserted, which is exact and avoids
+ * {@link Double#toString(double)}.
+ * Instances are not thread-safe and must not be shared between exports.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportEncodingContext {
+
+    /**
+     * Upper bound for the number of cached asset and market ID strings; the cache is cleared once it is reached.
+     */
+    static final int MAX_CACHED_UUIDS = 4096;
+
+    private static final String[] QUARTER_HOUR_SUFFIXES = new String[24 * 4];
+
+    static {
+        for (int hour = 0; hour < 24; hour++) {
+            for (int quarter = 0; quarter < 4; quarter++) {
+                QUARTER_HOUR_SUFFIXES[hour * 4 + quarter] = String.format("%02d:%02dZ", hour, quarter * 15);
+            }
+        }
+    }
+
+    /**
+     * Number of decimal places of a value in MW written from milli-kW.
+     */
+    private static final int MEGAWATT_DECIMALS = 6;
+
+    private final boolean fixedPointValues;
+    private final Map<UUID, String> uuidCache = new HashMap<>();
+    private final TimestampEncoder timestampEncoder = new TimestampEncoder();
+    private final TimestampEncoder updatedAtEncoder = new TimestampEncoder();
+
+    /**
+     * Creates an empty encoding context.
+     */
+    public ExportEncodingContext() {
+        this(null, null, false);
+    }
+
+    /**
+     * Creates an encoding context with the asset and market IDs of the export already encoded.
+     *
+     * @param assetId  the unique identifier of the exported asset
+     * @param marketId the unique identifier of the exported market
+     */
+    public ExportEncodingContext(UUID assetId, UUID marketId) {
+        this(assetId, marketId, false);
+    }
+
+    /**
+     * Creates an encoding context with the asset and market IDs of the export already encoded.
+     *
+     * @param assetId          the unique identifier of the exported asset
+     * @param marketId         the unique identifier of the exported market
+     * @param fixedPointValues whether values are written from fixed-point milli-kW instead of by floating-point division
+     */
+    public ExportEncodingContext(UUID assetId, UUID marketId, boolean fixedPointValues) {
+        this.fixedPointValues = fixedPointValues;
+        if (assetId != null) {
+            uuidCache.put(assetId, assetId.toString());
+        }
+        if (marketId != null) {
+            uuidCache.put(marketId, marketId.toString());
+        }
+    }
+
+    /**
+     * Encodes an asset or market ID, reusing the string produced for an equal ID earlier in the export.
+     *
+     * @param uuid the UUID to encode
+     * @return the canonical string representation of the UUID
+     */
+    public String encodeUuid(UUID uuid) {
+        String encoded = uuidCache.get(uuid);
+        if (encoded == null) {
+            encoded = uuid.toString();
+            if (uuidCache.size() >= MAX_CACHED_UUIDS) {
+                uuidCache.clear();
+            }
+            uuidCache.put(uuid, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes a bid ID without caching it, as bid IDs rarely repeat within an export.
+     *
+     * @param bidId the bid ID to encode, or {@code null} for a reservation without a bid
+     * @return the canonical string representation of the bid ID, or {@code null}, written as an empty field, if there
+     * is no bid
+     */
+    public String encodeBidId(UUID bidId) {
+        return bidId != null ? bidId.toString() : null;
+    }
+
+    /**
+     * Encodes the time point of a reservation as an ISO-8601 UTC date-time, producing exactly the same text as
+     * {@code timestamp.atZone(ZoneOffset.UTC).toString()}.
+     *
+     * @param timestamp the time point to encode
+     * @return the ISO-8601 representation of the time point in UTC
+     */
+    public String encodeTimestamp(LocalDateTime timestamp) {
+        return timestampEncoder.encode(timestamp);
+    }
+
+    /**
+     * Encodes the update time of a reservation as an ISO-8601 UTC date-time.
+     * Kept apart from {@link #encodeTimestamp(LocalDateTime)} so that interleaving both columns in one row
+     * does not evict the cached time point.
+     *
+     * @param updatedAt the update time to encode
+     * @return the ISO-8601 representation of the update time in UTC
+     */
+    public String encodeUpdatedAt(LocalDateTime updatedAt) {
+        return updatedAtEncoder.encode(updatedAt);
+    }
+
+    /**
+     * Encodes a time point given in epoch microseconds, as stored in a {@link ReservationSeries},
+     * as an ISO-8601 UTC date-time.
+     *
+     * @param epochMicros the time point to encode
+     * @return the ISO-8601 representation of the time point in UTC
+     */
+    public String encodeTimestamp(long epochMicros) {
+        return timestampEncoder.encode(epochMicros);
+    }
+
+    /**
+     * Encodes an update time given in epoch microseconds as an ISO-8601 UTC date-time.
+     *
+     * @param epochMicros the update time to encode
+     * @return the ISO-8601 representation of the update time in UTC
+     */
+    public String encodeUpdatedAt(long epochMicros) {
+        return updatedAtEncoder.encode(epochMicros);
+    }
+
+    /**
+     * Encodes a reservation value given in kW as MW.
+     * In fixed-point mode the value is rounded to milli-kW and written by {@link #encodeMilliKw(long)}; otherwise
+     * it is divided by 1000 and written by {@link String#valueOf(double)}.
+     *
+     * @param kw the value in kW
+     * @return the decimal representation of the value in MW
+     */
+    public String encodeValue(double kw) {
+        if (fixedPointValues) {
+            return encodeMilliKw(FixedPoint.toMilliKw(kw));
+        }
+        return String.valueOf(kw / 1000);
+    }
+
+    /**
+     * Encodes a value given in milli-kW as MW with up to six decimal places, using integer arithmetic only.
+     * Trailing zeros are dropped but at least one decimal place is kept, so whole values read like {@code 12.0}.
+     *
+     * @param milliKw the value in milli-kW
+     * @return the decimal representation of the value in MW
+     */
+    public String encodeMilliKw(long milliKw) {
+        long whole = Math.abs(milliKw / FixedPoint.MILLI_KW_PER_MW);
+        long fraction = Math.abs(milliKw % FixedPoint.MILLI_KW_PER_MW);
+
+        int decimals = MEGAWATT_DECIMALS;
+        while (decimals > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+
+        char[] chars = new char[20 + 1 + MEGAWATT_DECIMALS];
+        int position = chars.length;
+        for (int digit = 0; digit < decimals; digit++) {
+            chars[--position] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        chars[--position] = '.';
+        do {
+            chars[--position] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (milliKw < 0) {
+            chars[--position] = '-';
+        }
+        return new String(chars, position, chars.length - position);
+    }
+
+    /**
+     * Incremental ISO-8601 encoder for mostly increasing timestamps.
+     * Repeated timestamps are served from the previous result and quarter-hour timestamps are assembled
+     * from a cached date prefix and a precomputed time suffix.
+     */
+    private static final class TimestampEncoder {
+
+        private static final long MICROS_PER_QUARTER_HOUR = 15L * 60 * 1_000_000;
+        private static final long MICROS_PER_DAY = 24L * 60 * 60 * 1_000_000;
+
+        private long lastTimestamp = Long.MIN_VALUE;
+        private String lastEncoded;
+
+        private long lastEpochDay = Long.MIN_VALUE;
+        private String lastDatePrefix;
+
+        String encode(LocalDateTime timestamp) {
+            if (timestamp.getNano() % 1_000 != 0) {
+                return timestamp + "Z";
+            }
+            return encode(ReservationSeries.toEpochMicros(timestamp));
+        }
+
+        String encode(long epochMicros) {
+            if (epochMicros == lastTimestamp && lastEncoded != null) {
+                return lastEncoded;
+            }
+
+            String encoded;
+            if (epochMicros % MICROS_PER_QUARTER_HOUR == 0) {
+                long epochDay = Math.floorDiv(epochMicros, MICROS_PER_DAY);
+                int quarter = (int) (Math.floorMod(epochMicros, MICROS_PER_DAY) / MICROS_PER_QUARTER_HOUR);
+                encoded = datePrefix(epochDay) + QUARTER_HOUR_SUFFIXES[quarter];
+            } else {
+                encoded = ReservationSeries.fromEpochMicros(epochMicros) + "Z";
+            }
+
+            lastTimestamp = epochMicros;
+            lastEncoded = encoded;
+            return encoded;
+        }
+
+        private String datePrefix(long epochDay) {
+            if (epochDay != lastEpochDay) {
+                lastEpochDay = epochDay;
+                lastDatePrefix = LocalDate.ofEpochDay(epochDay) + "T";
+            }
+            return lastDatePrefix;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.reservation.csvHandler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the fixed-point representation of reservation values in exports.
+ * Bound from the {@code reservation.fixed-point} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.fixed-point")
+public class FixedPointProperties {
+
+    /**
+     * Whether values are summed and written as whole milli-kW instead of as floating-point kW.
+     * Sums are then exact and values are written without scientific notation or binary rounding artifacts.
+     */
+    private boolean enabled = false;
+}
@@ -0,0 +1,100 @@
+package com.reservation.csvHandler;
+
+import com.opencsv.CSVWriter;
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+
+/**
+ * Formatter writing only the fields selected by a {@link ReservationProjection}, in the selected order.
+ * Fields are encoded like in {@link DetailedCSVFormatter}. Created per export, as the projection is chosen per request.
+ *
+ * @author Bojana Samardzic
+ */
+public class ProjectedCSVFormatter implements CSVFormatter {
+
+    private final String[] header;
+    private final ReservationField[] fields;
+
+    /**
+     * Constructs a new instance of {@code ProjectedCSVFormatter} for the given projection.
+     *
+     * @param projection the fields to write and their order
+     */
+    public ProjectedCSVFormatter(ReservationProjection projection) {
+        this.header = projection.header();
+        this.fields = projection.fields().toArray(ReservationField[]::new);
+    }
+
+    /**
+     * Writes the names of the selected fields as the header row.
+     *
+     * @param csvWriter the CSV writer to which the header will be written
+     */
+    @Override
+    public void writeHeader(CSVWriter csvWriter) {
+        csvWriter.writeNext(header);
+    }
+
+    /**
+     * Writes the selected fields of a reservation to the CSV writer.
+     * Converts positive and negative values from kW to MW as configured by the context.
+     *
+     * @param csvWriter   the CSV writer to which the reservation data will be written
+     * @param reservation the reservation object containing the data to be written
+     * @param context     the export-scoped cache of encoded values
+     */
+    @Override
+    public void writeRow(CSVWriter csvWriter, Reservation reservation, ExportEncodingContext context) {
+        String[] line = new String[fields.length];
+        for (int column = 0; column < fields.length; column++) {
+            line[column] = switch (fields[column]) {
+                case TIMESTAMP -> context.encodeTimestamp(reservation.getTimestamp());
+                case ASSET_ID -> context.encodeUuid(reservation.getAssetId());
+                case MARKET_ID -> context.encodeUuid(reservation.getMarketId());
+                case POSITIVE_BID_ID -> context.encodeBidId(reservation.getPositiveBidId());
+                case NEGATIVE_BID_ID -> context.encodeBidId(reservation.getNegativeBidId());
+                case POSITIVE_VALUE -> context.encodeValue(reservation.getPositiveValue());
+                case POSITIVE_CAPACITY_PRICE -> String.valueOf(reservation.getPositiveCapacityPrice());
+                case POSITIVE_ENERGY_PRICE -> String.valueOf(reservation.getPositiveEnergyPrice());
+                case NEGATIVE_VALUE -> context.encodeValue(reservation.getNegativeValue());
+                case NEGATIVE_CAPACITY_PRICE -> String.valueOf(reservation.getNegativeCapacityPrice());
+                case NEGATIVE_ENERGY_PRICE -> String.valueOf(reservation.getNegativeEnergyPrice());
+                case UPDATED_AT -> context.encodeUpdatedAt(reservation.getUpdatedAt());
+            };
+        }
+        csvWriter.writeNext(line);
+    }
+
+    /**
+     * Writes the selected fields of one row of a reservation series to the CSV writer.
+     * Converts positive and negative values from kW to MW as configured by the context.
+     *
+     * @param csvWriter the CSV writer to which the reservation data will be written
+     * @param series    the series containing the data to be written
+     * @param row       the index of the row within the series
+     * @param context   the export-scoped cache of encoded values
+     */
+    @Override
+    public void writeRow(CSVWriter csvWriter, ReservationSeries series, int row, ExportEncodingContext context) {
+        String[] line = new String[fields.length];
+        for (int column = 0; column < fields.length; column++) {
+            line[column] = switch (fields[column]) {
+                case TIMESTAMP -> context.encodeTimestamp(series.getTimestamp(row));
+                case ASSET_ID -> context.encodeUuid(series.getAssetId());
+                case MARKET_ID -> context.encodeUuid(series.getMarketId());
+                case POSITIVE_BID_ID -> context.encodeBidId(series.getPositiveBidId(row));
+                case NEGATIVE_BID_ID -> context.encodeBidId(series.getNegativeBidId(row));
+                case POSITIVE_VALUE -> context.encodeValue(series.getPositiveValue(row));
+                case POSITIVE_CAPACITY_PRICE -> String.valueOf(series.getPositiveCapacityPrice(row));
+                case POSITIVE_ENERGY_PRICE -> String.valueOf(series.getPositiveEnergyPrice(row));
+                case NEGATIVE_VALUE -> context.encodeValue(series.getNegativeValue(row));
+                case NEGATIVE_CAPACITY_PRICE -> String.valueOf(series.getNegativeCapacityPrice(row));
+                case NEGATIVE_ENERGY_PRICE -> String.valueOf(series.getNegativeEnergyPrice(row));
+                case UPDATED_AT -> context.encodeUpdatedAt(series.getUpdatedAt(row));
+            };
+        }
+        csvWriter.writeNext(line);
+    }
+}
@@ -2,10 +2,9 @@ package com.reservation.csvHandler;
 
 import com.opencsv.CSVWriter;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
 import org.springframework.stereotype.Service;
 
-import java.time.ZoneOffset;
-
 /**
  * Service for formatting reservation data into a summarized CSV format.
  * Implements the {@link CSVFormatter} interface to provide aggregated formatting of reservation data.
@@ -27,19 +26,40 @@ public class TotalCSVFormatter implements CSVFormatter {
 
     /**
      * Writes a reservation data row to the CSV writer in summarized format.
-     * Converts positive and negative values from kW to MW.
+     * Converts positive and negative values from kW to MW as configured by the context.
      *
      * @param csvWriter   the CSV writer to which the reservation data will be written
      * @param reservation the reservation object containing the data to be written
+     * @param context     the export-scoped cache of encoded values
+     */
+    @Override
+    public void writeRow(CSVWriter csvWriter, Reservation reservation, ExportEncodingContext context) {
+        csvWriter.writeNext(new String[]{
+                context.encodeTimestamp(reservation.getTimestamp()),
+                context.encodeUuid(reservation.getAssetId()),
+                context.encodeUuid(reservation.getMarketId()),
+                context.encodeValue(reservation.getPositiveValue()),
+                context.encodeValue(reservation.getNegativeValue())
+        });
+    }
+
+    /**
+     * Writes one row of a reservation series to the CSV writer in summarized format.
+     * Converts positive and negative values from kW to MW as configured by the context.
+     *
+     * @param csvWriter the CSV writer to which the reservation data will be written
+     * @param series    the series containing the data to be written
+     * @param row       the index of the row within the series
+     * @param context   the export-scoped cache of encoded values
      */
     @Override
-    public void writeRow(CSVWriter csvWriter, Reservation reservation) {
+    public void writeRow(CSVWriter csvWriter, ReservationSeries series, int row, ExportEncodingContext context) {
         csvWriter.writeNext(new String[]{
-                reservation.getTimestamp().atZone(ZoneOffset.UTC).toString(),
-                reservation.getAssetId().toString(),
-                reservation.getMarketId().toString(),
-                String.valueOf(reservation.getPositiveValue() / 1000),
-                String.valueOf(reservation.getNegativeValue() / 1000)
+                context.encodeTimestamp(series.getTimestamp(row)),
+                context.encodeUuid(series.getAssetId()),
+                context.encodeUuid(series.getMarketId()),
+                context.encodeValue(series.getPositiveValue(row)),
+                context.encodeValue(series.getNegativeValue(row))
         });
     }
 }
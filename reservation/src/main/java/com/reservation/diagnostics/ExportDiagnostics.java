@@ -0,0 +1,213 @@
+package com.reservation.diagnostics;
+
+import com.reservation.config.DataSourceConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Diagnostics of slow export queries, so that a regression such as a query that no longer uses its index shows up
+ * right away instead of only as slower downloads.
+ * The series and totals reads of the repositories measure their queries with a {@link QueryTimer}. Queries that spent
+ * longer than {@code threshold} in the database, not counting the time their consumer held them up writing to the
+ * client, are logged with their SQL, bind parameters inlined, their row count and timings, and the most recent
+ * {@code capacity} of them are kept in memory for the {@code exportdiagnostics} actuator endpoint.
+ * For a sample of slow queries, the query is run again with {@code EXPLAIN (ANALYZE, BUFFERS)} on the single
+ * connection of the explain pool, so that neither exports nor interactive requests lose a connection to it, and the
+ * plan is recorded with the query. Plans are captured one at a time on a background thread and never delay the
+ * export that was slow.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportDiagnostics.class);
+
+    private final ExportDiagnosticsProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor explainer;
+    private final Deque<QueryDiagnostic> recent = new ArrayDeque<>();
+    private final Counter slowQueries;
+    private final Counter capturedPlans;
+
+    /**
+     * Constructs a new instance of {@code ExportDiagnostics}.
+     *
+     * @param properties    the diagnostics configuration
+     * @param dataSource    the data source of the explain pool, on which plans are captured
+     * @param meterRegistry the registry the metrics are published to
+     */
+    @Autowired
+    public ExportDiagnostics(ExportDiagnosticsProperties properties, @Qualifier(DataSourceConfiguration.EXPLAIN_DATA_SOURCE) DataSource dataSource,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setReadOnly(true);
+        this.explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "export-diagnostics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.slowQueries = Counter.builder("reservation.export.slow-queries")
+                .description("Export queries slower than the diagnostics threshold")
+                .register(meterRegistry);
+        this.capturedPlans = Counter.builder("reservation.export.captured-plans")
+                .description("Plans of slow export queries captured with EXPLAIN ANALYZE")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts measuring an export query.
+     *
+     * @param operation the repository read running the query
+     * @param assetId   the unique identifier of the asset read, or {@code null} for several assets
+     * @param marketId  the unique identifier of the market read, or {@code null} for all markets
+     * @param sql       the SQL of the query with JDBC bind markers
+     * @param arguments the bind parameters of the query
+     * @return the timer to count the rows of the query with and to finish once its last row has been consumed
+     */
+    public QueryTimer start(String operation, UUID assetId, UUID marketId, String sql, Object... arguments) {
+        return new QueryTimer(this, operation, assetId, marketId, sql, arguments);
+    }
+
+    /**
+     * Returns the most recent slow queries, newest first.
+     *
+     * @return the diagnostics of at most {@code capacity} slow queries
+     */
+    public List<QueryDiagnostic> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    /**
+     * Stops capturing plans; a plan being captured is abandoned.
+     */
+    @PreDestroy
+    public void shutdown() {
+        explainer.shutdownNow();
+    }
+
+    void record(String operation, String sql, Object[] arguments, long rows, long firstRowNanos, long databaseNanos, long totalNanos) {
+        if (!properties.isEnabled() || databaseNanos < properties.getThreshold().toNanos()) {
+            return;
+        }
+        slowQueries.increment();
+        QueryDiagnostic diagnostic = new QueryDiagnostic(Instant.now(), operation, bind(sql, arguments), rows,
+                Duration.ofNanos(firstRowNanos), Duration.ofNanos(databaseNanos), Duration.ofNanos(totalNanos), List.of());
+        if (ThreadLocalRandom.current().nextDouble() < properties.getExplainSampleRate()) {
+            try {
+                explainer.execute(() -> add(diagnostic.withPlan(explain(sql, arguments))));
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("Plan of slow export query not captured, another plan is being captured");
+            }
+        }
+        add(diagnostic);
+    }
+
+    private List<String> explain(String sql, Object[] arguments) {
+        try {
+            List<String> plan = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL statement_timeout = " + properties.getExplainTimeout().toMillis());
+                return jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + sql, String.class, arguments);
+            });
+            capturedPlans.increment();
+            return plan;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Could not capture the plan of a slow export query", e);
+            return List.of();
+        }
+    }
+
+    private void add(QueryDiagnostic diagnostic) {
+        log.warn("Slow export query {}: {} rows, first row after {} ms, {} ms in the database, {} ms in total\n{}{}", diagnostic.operation(),
+                diagnostic.rows(), diagnostic.firstRowTime().toMillis(), diagnostic.databaseTime().toMillis(), diagnostic.totalTime().toMillis(), diagnostic.sql(),
+                diagnostic.plan().isEmpty() ? "" : String.join("\n", diagnostic.plan()));
+        synchronized (recent) {
+            recent.addFirst(diagnostic);
+            while (recent.size() > Math.max(0, properties.getCapacity())) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Inlines the bind parameters of a query as SQL literals, so that it can be run as logged. Time points are written
+     * with the offset of the default time zone of the JVM, in which the driver binds them.
+     *
+     * @param sql       the SQL with JDBC bind markers
+     * @param arguments the bind parameters
+     * @return the SQL with literals in place of the bind markers
+     */
+    static String bind(String sql, Object[] arguments) {
+        StringBuilder bound = new StringBuilder(sql.length() + 32 * arguments.length);
+        int argument = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?' && argument < arguments.length) {
+                bound.append(literal(arguments[argument++]));
+            } else {
+                bound.append(c);
+            }
+        }
+        return bound.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Timestamp timestamp) {
+            return quote(timestamp.toLocalDateTime().atZone(ZoneId.systemDefault()).toOffsetDateTime().toString());
+        }
+        if (value instanceof OffsetDateTime dateTime) {
+            return quote(dateTime.toString());
+        }
+        if (value instanceof Object[] array) {
+            return quote(Arrays.stream(array).map(String::valueOf).collect(Collectors.joining(",", "{", "}")));
+        }
+        return quote(value.toString());
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,41 @@
+package com.reservation.diagnostics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the most recent slow export queries recorded by {@link ExportDiagnostics}, at
+ * {@code /actuator/exportdiagnostics} once exposed over HTTP.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@Endpoint(id = "exportdiagnostics")
+public class ExportDiagnosticsEndpoint {
+
+    private final ExportDiagnostics diagnostics;
+
+    /**
+     * Constructs a new instance of {@code ExportDiagnosticsEndpoint}.
+     *
+     * @param diagnostics the diagnostics of slow export queries
+     */
+    @Autowired
+    public ExportDiagnosticsEndpoint(ExportDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the most recent slow export queries, newest first.
+     *
+     * @return the diagnostics of the queries
+     */
+    @ReadOperation
+    public List<QueryDiagnostic> recent() {
+        return diagnostics.recent();
+    }
+}
@@ -0,0 +1,45 @@
+package com.reservation.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the diagnostics of slow export queries.
+ * Bound from the {@code reservation.export-diagnostics} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.export-diagnostics")
+public class ExportDiagnosticsProperties {
+
+    /**
+     * Whether slow export queries are recorded.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Time an export query spends in the database above which it is recorded: the time from its start until its last
+     * row has been consumed, without the time its consumer spends writing rows to the client or waiting for demand.
+     */
+    private Duration threshold = Duration.ofSeconds(5);
+
+    /**
+     * Number of the most recent slow queries kept in memory.
+     */
+    private int capacity = 50;
+
+    /**
+     * Share of slow queries, between 0 and 1, whose plan is captured with {@code EXPLAIN (ANALYZE, BUFFERS)}.
+     * Capturing runs the query again, so at most one plan is captured at a time; slow queries arriving meanwhile are
+     * recorded without a plan.
+     */
+    private double explainSampleRate = 0.2;
+
+    /**
+     * Statement timeout of capturing a plan, on the single connection of the explain pool.
+     */
+    private Duration explainTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,40 @@
+package com.reservation.diagnostics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Diagnostic of a slow export query.
+ *
+ * @param finishedAt    when the last row of the query had been consumed
+ * @param operation     the repository read that ran the query, e.g. {@code streamSeries}
+ * @param sql           the SQL of the query with its bind parameters inlined as literals
+ * @param rows          the number of rows read
+ * @param firstRowTime  the time from the start of the query until its first row arrived, i.e. the time spent in the
+ *                      database before streaming began
+ * @param databaseTime  the time from the start of the query until its last row had been consumed, without the time
+ *                      the consumer of the rows held up the query
+ * @param totalTime     the time from the start of the query until its last row had been consumed, including the time
+ *                      spent writing the rows to the client
+ * @param plan          the lines of {@code EXPLAIN (ANALYZE, BUFFERS)} of the query run again on a separate connection,
+ *                      or an empty list if the plan was not sampled or could not be captured
+ * @author Bojana Samardzic
+ */
+public record QueryDiagnostic(Instant finishedAt, String operation, String sql, long rows, Duration firstRowTime,
+                              Duration databaseTime, Duration totalTime, List<String> plan) {
+
+    public QueryDiagnostic {
+        plan = List.copyOf(plan);
+    }
+
+    /**
+     * Returns a copy of this diagnostic with a captured plan.
+     *
+     * @param plan the lines of the plan
+     * @return the diagnostic with the plan
+     */
+    QueryDiagnostic withPlan(List<String> plan) {
+        return new QueryDiagnostic(finishedAt, operation, sql, rows, firstRowTime, databaseTime, totalTime, plan);
+    }
+}
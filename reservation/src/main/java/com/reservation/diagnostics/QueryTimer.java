@@ -0,0 +1,114 @@
+package com.reservation.diagnostics;
+
+import com.reservation.profiling.RepositoryFetchEvent;
+
+import java.util.UUID;
+
+/**
+ * Measures one export query: the time until its first row arrives, the time until its last row has been consumed,
+ * the part of that time spent in the database and the number of rows. Passed to {@link ExportDiagnostics} when the
+ * query finishes, which records it if its database time was long, and recorded as a {@link RepositoryFetchEvent} in a
+ * running flight recording.
+ * Time in which the consumer of the rows holds up the query, such as writing a chunk to a slow client or waiting for
+ * the demand of a reactive subscriber, is measured between {@link #pause()} and {@link #resume()} and not counted as
+ * database time, so a slow client does not make a query slow.
+ * Rows must be counted by the thread, or the sequence of signals, consuming the result; only demand may be signalled
+ * concurrently.
+ *
+ * @author Bojana Samardzic
+ */
+public final class QueryTimer {
+
+    private final ExportDiagnostics diagnostics;
+    private final String operation;
+    private final UUID assetId;
+    private final UUID marketId;
+    private final String sql;
+    private final Object[] arguments;
+    private final RepositoryFetchEvent event = new RepositoryFetchEvent();
+    private final long startedAt = System.nanoTime();
+    private long firstRowAt;
+    private long rows;
+    private boolean paused;
+    private long pausedAt;
+    private long consumerNanos;
+    private long demand;
+
+    QueryTimer(ExportDiagnostics diagnostics, String operation, UUID assetId, UUID marketId, String sql, Object[] arguments) {
+        this.diagnostics = diagnostics;
+        this.operation = operation;
+        this.assetId = assetId;
+        this.marketId = marketId;
+        this.sql = sql;
+        this.arguments = arguments;
+        event.begin();
+    }
+
+    /**
+     * Counts rows that arrived, e.g. one row of a JDBC result set or a chunk of an R2DBC result.
+     *
+     * @param count the number of rows
+     */
+    public void rows(long count) {
+        if (rows == 0 && count > 0) {
+            firstRowAt = System.nanoTime();
+        }
+        rows += count;
+    }
+
+    /**
+     * Marks the start of time spent in the consumer of the rows, e.g. before a chunk is passed on.
+     */
+    public synchronized void pause() {
+        if (!paused) {
+            paused = true;
+            pausedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of time spent in the consumer of the rows, e.g. once a chunk has been written.
+     */
+    public synchronized void resume() {
+        if (paused) {
+            paused = false;
+            consumerNanos += System.nanoTime() - pausedAt;
+        }
+    }
+
+    /**
+     * Counts demand of a reactive subscriber for chunks; waiting for demand ends with it.
+     *
+     * @param count the number of chunks requested
+     */
+    public synchronized void requested(long count) {
+        demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+        resume();
+    }
+
+    /**
+     * Counts a chunk delivered to a reactive subscriber; once the demand is used up, the query waits for the
+     * subscriber until it requests more.
+     */
+    public synchronized void delivered() {
+        if (demand != Long.MAX_VALUE && --demand <= 0) {
+            demand = 0;
+            pause();
+        }
+    }
+
+    /**
+     * Finishes the measurement once the last row has been consumed.
+     */
+    public void finish() {
+        long finishedAt = System.nanoTime();
+        long databaseNanos;
+        synchronized (this) {
+            resume();
+            databaseNanos = Math.max(0, finishedAt - startedAt - consumerNanos);
+        }
+        event.finish(operation, assetId, marketId, rows);
+        diagnostics.record(operation, sql, arguments, rows, (rows > 0 ? firstRowAt : finishedAt) - startedAt, databaseNanos,
+                finishedAt - startedAt);
+    }
+}
@@ -1,5 +1,6 @@
 package com.reservation.dto;
 
+import com.reservation.model.ReservationSeries;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -81,5 +82,20 @@ public class ReservationDTO {
      * Date time of updated interval.
      */
     private LocalDateTime updatedAt;
+
+    /**
+     * Creates the DTO of a row of a series, with the values of the series.
+     *
+     * @param series the series
+     * @param row    the index of the row
+     * @return the DTO of the row
+     */
+    public static ReservationDTO of(ReservationSeries series, int row) {
+        return new ReservationDTO(series.getId(row), ReservationSeries.fromEpochMicros(series.getTimestamp(row)),
+                series.getAssetId(), series.getMarketId(), series.getPositiveBidId(row), series.getNegativeBidId(row),
+                series.getPositiveValue(row), series.getPositiveCapacityPrice(row), series.getPositiveEnergyPrice(row),
+                series.getNegativeValue(row), series.getNegativeCapacityPrice(row), series.getNegativeEnergyPrice(row),
+                ReservationSeries.fromEpochMicros(series.getUpdatedAt(row)));
+    }
 }
 
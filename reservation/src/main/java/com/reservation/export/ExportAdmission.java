@@ -0,0 +1,125 @@
+package com.reservation.export;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control in front of the export endpoint.
+ * Every export is weighted by the number of rows estimated by {@link ExportPlanner}, and exports run only while
+ * the sum of their weights fits into the budget of in-flight rows. Exports that do not fit wait in a bounded queue
+ * for a limited time and are rejected afterwards, so that a few large exports cannot exhaust the connection pool
+ * and the heap for all other requests.
+ * Independent of the rows, at most a fixed number of exports run at the same time. This bounds the request threads
+ * and the connections of the export pool taken by exports, leaving the remaining threads to interactive requests.
+ * Publishes the queue depth, the running exports, the rows in flight and the admitted and rejected exports as metrics.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportAdmission {
+
+    private final ExportAdmissionProperties properties;
+    private final Semaphore budget;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Counter admitted;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    /**
+     * Constructs a new instance of {@code ExportAdmission} and registers its metrics.
+     *
+     * @param properties    the admission configuration
+     * @param meterRegistry the registry the metrics are published to
+     */
+    @Autowired
+    public ExportAdmission(ExportAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.budget = new Semaphore(properties.getMaxInFlightRows(), true);
+        this.slots = new Semaphore(properties.getMaxConcurrentExports(), true);
+
+        Gauge.builder("reservation.export.admission.queued", queued, AtomicInteger::get)
+                .description("Exports waiting for budget")
+                .register(meterRegistry);
+        Gauge.builder("reservation.export.admission.running", slots, semaphore -> properties.getMaxConcurrentExports() - semaphore.availablePermits())
+                .description("Exports currently running")
+                .register(meterRegistry);
+        Gauge.builder("reservation.export.admission.rows.in.flight", budget, semaphore -> properties.getMaxInFlightRows() - semaphore.availablePermits())
+                .description("Estimated rows of the exports currently running")
+                .register(meterRegistry);
+        this.admitted = Counter.builder("reservation.export.admission.admitted")
+                .description("Exports admitted")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("reservation.export.admission.rejected")
+                .description("Exports rejected because the budget was exhausted")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("reservation.export.admission.rejected")
+                .description("Exports rejected because the budget was exhausted")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits an export, waiting up to the queue timeout for a concurrency slot and budget.
+     *
+     * @param plan the plan of the export to admit, including its estimated rows
+     * @return the permit to close once the export is complete
+     * @throws ExportRejectedException if the queue is full, a slot or the budget does not become available in time,
+     *                                 or the waiting thread is interrupted
+     */
+    public ExportPermit acquire(ExportPlan plan) throws ExportRejectedException {
+        if (!properties.isEnabled()) {
+            return new ExportPermit(null, 0, null);
+        }
+
+        int rows = (int) Math.min(Math.max(plan.estimatedRows(), 1), properties.getMaxInFlightRows());
+
+        if (queued.incrementAndGet() > properties.getMaxQueueDepth()) {
+            queued.decrementAndGet();
+            rejectedQueueFull.increment();
+            throw new ExportRejectedException("Too many exports are waiting, please retry later", properties.getRetryAfter());
+        }
+
+        long deadline = System.nanoTime() + properties.getQueueTimeout().toNanos();
+        boolean admittedExport = false;
+        boolean slotAcquired = false;
+        try {
+            slotAcquired = slots.tryAcquire(properties.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            admittedExport = slotAcquired && budget.tryAcquire(rows, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (!admittedExport) {
+                rejectedTimeout.increment();
+                throw new ExportRejectedException("Too many exports are running, please retry later", properties.getRetryAfter());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedTimeout.increment();
+            throw new ExportRejectedException("Interrupted while waiting for admission", properties.getRetryAfter());
+        } finally {
+            queued.decrementAndGet();
+            if (slotAcquired && !admittedExport) {
+                slots.release();
+            }
+        }
+
+        admitted.increment();
+        return new ExportPermit(budget, rows, slots);
+    }
+
+    /**
+     * Returns the number of exports currently waiting for budget.
+     *
+     * @return the queue depth
+     */
+    public int queued() {
+        return queued.get();
+    }
+}
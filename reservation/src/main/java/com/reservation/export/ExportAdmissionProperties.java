@@ -0,0 +1,49 @@
+package com.reservation.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the admission control in front of the export endpoint.
+ * Bound from the {@code reservation.export-admission} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.export-admission")
+public class ExportAdmissionProperties {
+
+    /**
+     * Whether exports are admitted against a budget of in-flight rows.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound of the estimated rows of all exports running at the same time.
+     * A single export estimated above the budget is admitted alone.
+     */
+    private int maxInFlightRows = 1_000_000;
+
+    /**
+     * Upper bound of exports running at the same time, independent of their estimated rows.
+     * Matches the size of the export connection pool, so that admitted exports never wait for a connection.
+     */
+    private int maxConcurrentExports = 4;
+
+    /**
+     * Upper bound of exports waiting for budget; further exports are rejected immediately.
+     */
+    private int maxQueueDepth = 16;
+
+    /**
+     * How long an export waits for budget before it is rejected.
+     */
+    private Duration queueTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Delay suggested to rejected clients in the {@code Retry-After} header.
+     */
+    private Duration retryAfter = Duration.ofSeconds(10);
+}
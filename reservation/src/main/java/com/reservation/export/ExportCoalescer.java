@@ -0,0 +1,235 @@
+package com.reservation.export;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent identical exports, so that a burst of requests for the same export reads the database once.
+ * Exports produced in memory or spooled before they are served are single-flight: the first request produces the
+ * export and concurrent requests for the same {@link ExportKey} wait for its result.
+ * Streamed exports are produced by a background thread into a temporary file of the spool directory and fanned out
+ * to every request that joins while they are produced; see {@link SharedExport}.
+ * Only the first request of a burst is subject to admission control; requests joining it share its outcome.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportCoalescer {
+
+    private static final String TEMPORARY_SUFFIX = ".csv.tmp";
+
+    private final Path directory;
+    private final ConcurrentMap<ExportKey, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ExportKey, SharedExport> streams = new ConcurrentHashMap<>();
+    private final ExecutorService producers;
+
+    private final Counter coalescedResults;
+    private final Counter coalescedStreams;
+
+    /**
+     * Constructs a new instance of {@code ExportCoalescer} and registers its metrics.
+     *
+     * @param spoolProperties the spool configuration; shared exports are written to the spool directory
+     * @param meterRegistry   the registry the metrics are published to
+     */
+    @Autowired
+    public ExportCoalescer(ExportSpoolProperties spoolProperties, MeterRegistry meterRegistry) {
+        this.directory = spoolProperties.getDirectory();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare export spool directory " + directory, e);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.producers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "export-producer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("reservation.export.coalescer.in.flight", this, coalescer -> coalescer.results.size() + coalescer.streams.size())
+                .description("Exports currently produced on behalf of one or more requests")
+                .register(meterRegistry);
+        this.coalescedResults = Counter.builder("reservation.export.coalesced")
+                .description("Requests served by an export already in flight")
+                .tag("mode", "materialized")
+                .register(meterRegistry);
+        this.coalescedStreams = Counter.builder("reservation.export.coalesced")
+                .description("Requests served by an export already in flight")
+                .tag("mode", "streaming")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Produces an export once for all concurrent callers with the same key. The first caller runs the computation;
+     * callers arriving while it runs wait for and share its result or failure.
+     *
+     * @param key         the export to produce
+     * @param computation produces the export, including its admission
+     * @param <T>         the type of the produced export
+     * @return the produced export, possibly {@code null}
+     * @throws IOException             if producing the export fails
+     * @throws ExportRejectedException if the export is not admitted
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(ExportKey key, Computation<T> computation) throws IOException, ExportRejectedException {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = results.putIfAbsent(key, result);
+        if (inFlight != null) {
+            coalescedResults.increment();
+            return (T) await(inFlight);
+        }
+
+        try {
+            T value = computation.compute();
+            result.complete(value);
+            return value;
+        } catch (IOException | ExportRejectedException | RuntimeException | Error e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            results.remove(key, result);
+        }
+    }
+
+    /**
+     * Subscribes to the streamed export of the given key, starting it if it is not produced yet.
+     * The export is produced in the background after it has been admitted, and the permit is held until it is complete.
+     *
+     * @param key       the export to stream
+     * @param admission admits the export if it has to be started
+     * @param writer    writes the complete export content
+     * @return the subscription to read the export from and to close afterwards
+     * @throws IOException             if the export cannot be started
+     * @throws ExportRejectedException if the export is not admitted
+     */
+    public ExportSubscription subscribe(ExportKey key, Computation<ExportPermit> admission, ExportSpool.ContentWriter writer)
+            throws IOException, ExportRejectedException {
+        while (true) {
+            SharedExport existing = streams.get(key);
+            if (existing != null) {
+                if (!existing.subscribe()) {
+                    streams.remove(key, existing);
+                    continue;
+                }
+                ExportSubscription subscription = new ExportSubscription(existing);
+                try {
+                    existing.awaitStart();
+                } catch (IOException | ExportRejectedException e) {
+                    subscription.close();
+                    throw e;
+                }
+                coalescedStreams.increment();
+                return subscription;
+            }
+
+            SharedExport export = new SharedExport(directory.resolve(UUID.randomUUID() + TEMPORARY_SUFFIX));
+            if (streams.putIfAbsent(key, export) != null) {
+                continue;
+            }
+            ExportSubscription subscription = new ExportSubscription(export);
+            try {
+                Files.createFile(export.file());
+                ExportPermit permit = admission.compute();
+                try {
+                    producers.execute(() -> produce(key, export, permit, writer));
+                } catch (RuntimeException e) {
+                    permit.close();
+                    throw e;
+                }
+            } catch (IOException | ExportRejectedException | RuntimeException e) {
+                streams.remove(key, export);
+                export.finish(e);
+                subscription.close();
+                throw e;
+            }
+            export.start();
+            return subscription;
+        }
+    }
+
+    /**
+     * Stops the producers of streamed exports.
+     */
+    @PreDestroy
+    public void shutdown() {
+        producers.shutdownNow();
+    }
+
+    /**
+     * Writes a streamed export to its file and publishes it to the subscribers.
+     */
+    private void produce(ExportKey key, SharedExport export, ExportPermit permit, ExportSpool.ContentWriter writer) {
+        Exception failure = null;
+        try (permit;
+             OutputStream fileStream = new BufferedOutputStream(export.publishing(Files.newOutputStream(export.file())))) {
+            writer.writeTo(fileStream);
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            streams.remove(key, export);
+            export.finish(failure);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> inFlight) throws IOException, ExportRejectedException {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a coalesced export", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ExportRejectedException rejected) {
+                throw new ExportRejectedException(rejected.getMessage(), rejected.getRetryAfter());
+            }
+            if (cause instanceof IOException failure) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+            if (cause instanceof RuntimeException failure) {
+                throw failure;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Produces an export or admits it.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Computation<T> {
+
+        /**
+         * Runs the computation.
+         *
+         * @return the result
+         * @throws IOException             if the computation fails
+         * @throws ExportRejectedException if the export is not admitted
+         */
+        T compute() throws IOException, ExportRejectedException;
+    }
+}
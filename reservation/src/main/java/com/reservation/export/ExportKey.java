@@ -0,0 +1,25 @@
+package com.reservation.export;
+
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Identifies the output of one export request: the series, the time range as interpreted by the service and the format.
+ *
+ * @param assetId   the unique identifier of the asset
+ * @param marketId  the unique identifier of the market
+ * @param from      the start of the time range
+ * @param to        the end of the time range
+ * @param total     whether the export aggregates positive and negative values
+ * @param fields    the exported fields in output order
+ * @param filter    the conditions exported rows satisfy
+ * @param mediaType the media type of the output format
+ * @author Bojana Samardzic
+ */
+public record ExportKey(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, boolean total, ReservationProjection fields,
+                        ReservationFilter filter, MediaType mediaType) {
+}
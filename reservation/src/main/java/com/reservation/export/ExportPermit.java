@@ -0,0 +1,43 @@
+package com.reservation.export;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Budget of in-flight rows and the concurrency slot held by an admitted export.
+ * Closing the permit returns both; closing it again, from any thread, has no effect.
+ *
+ * @author Bojana Samardzic
+ */
+public final class ExportPermit implements AutoCloseable {
+
+    private final Semaphore budget;
+    private final int rows;
+    private final Semaphore slots;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ExportPermit(Semaphore budget, int rows, Semaphore slots) {
+        this.budget = budget;
+        this.rows = rows;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the number of rows of the budget held by this permit.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            if (budget != null) {
+                budget.release(rows);
+            }
+            if (slots != null) {
+                slots.release();
+            }
+        }
+    }
+}
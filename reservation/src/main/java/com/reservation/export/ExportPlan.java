@@ -0,0 +1,11 @@
+package com.reservation.export;
+
+/**
+ * The strategy chosen for one export together with the estimate it was chosen from.
+ *
+ * @param strategy      how the export is produced
+ * @param estimatedRows the number of rows the export is expected to read
+ * @author Bojana Samardzic
+ */
+public record ExportPlan(ExportStrategy strategy, long estimatedRows) {
+}
@@ -0,0 +1,200 @@
+package com.reservation.export;
+
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.coldtier.ColdTierView;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.TimeWindows;
+import com.reservation.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Chooses how an export is produced before it is executed.
+ * The size of the result is estimated from the planner statistics of the series query, and for ranges before the
+ * boundary of the cold tier from the row counts of its file index; small exports are produced in memory, medium ones are streamed to the client through a cursor and large ones are spooled to disk.
+ * The chosen strategies are counted in the {@code reservation.export.strategy} metric.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportPlanner.class);
+
+    private static final Duration QUARTER_HOUR = Duration.ofMinutes(15);
+
+    private final ExportPlannerProperties properties;
+    private final ReservationRepository reservationRepository;
+    private final ColdTierStore coldTierStore;
+    private final Map<ExportStrategy, Counter> strategyCounters = new EnumMap<>(ExportStrategy.class);
+
+    /**
+     * Constructs a new instance of {@code ExportPlanner} and registers its metrics.
+     *
+     * @param properties            the strategy thresholds
+     * @param reservationRepository the repository used to estimate the rows of an export in the database
+     * @param coldTierStore         the cold tier, whose index counts the rows of an export before its boundary
+     * @param meterRegistry         the registry the metrics are published to
+     */
+    @Autowired
+    public ExportPlanner(ExportPlannerProperties properties, ReservationRepository reservationRepository, ColdTierStore coldTierStore,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.reservationRepository = reservationRepository;
+        this.coldTierStore = coldTierStore;
+        for (ExportStrategy strategy : ExportStrategy.values()) {
+            strategyCounters.put(strategy, Counter.builder("reservation.export.strategy")
+                    .description("Exports by the strategy chosen to produce them")
+                    .tag("strategy", strategy.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Estimates the size of an export and chooses the strategy to produce it.
+     *
+     * @param key the export to plan
+     * @return the chosen strategy and the estimate it is based on
+     */
+    public ExportPlan plan(ExportKey key) {
+        long estimatedRows = estimateRows(key);
+
+        ExportStrategy strategy;
+        if (estimatedRows <= properties.getInMemoryMaxRows()) {
+            strategy = ExportStrategy.IN_MEMORY;
+        } else if (estimatedRows <= properties.getStreamingMaxRows()) {
+            strategy = ExportStrategy.STREAMING;
+        } else {
+            strategy = ExportStrategy.SPOOL;
+        }
+
+        strategyCounters.get(strategy).increment();
+        log.info("Export asset={} market={} from={} to={} total={} estimated at {} rows, using strategy {}",
+                key.assetId(), key.marketId(), key.from(), key.to(), key.total(), estimatedRows, strategy);
+        return new ExportPlan(strategy, estimatedRows);
+    }
+
+    /**
+     * Estimates the size of a multi-window export. Such exports are always streamed; the estimate weighs their
+     * admission.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param windows  the windows of the export
+     * @param filter   the conditions exported rows must satisfy
+     * @return the streaming strategy and the estimate
+     */
+    public ExportPlan planWindows(UUID assetId, UUID marketId, TimeWindows windows, ReservationFilter filter) {
+        long estimatedRows = estimateWindowRows(assetId, marketId, windows, filter);
+        strategyCounters.get(ExportStrategy.STREAMING).increment();
+        log.info("Export asset={} market={} windows={} from={} to={} estimated at {} rows, using strategy {}",
+                assetId, marketId, windows.windows().size(), windows.from(), windows.to(), estimatedRows, ExportStrategy.STREAMING);
+        return new ExportPlan(ExportStrategy.STREAMING, estimatedRows);
+    }
+
+    /**
+     * Estimates the rows the totals of a portfolio are summed from. Totals are always produced in memory, as they
+     * hold one row per timestamp; the estimate weighs their admission.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return the in-memory strategy and the estimate
+     */
+    public ExportPlan planTotals(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        long estimatedRows = estimateTotalsRows(assetIds, marketId, from, to);
+        strategyCounters.get(ExportStrategy.IN_MEMORY).increment();
+        log.info("Totals assets={} market={} from={} to={} estimated at {} rows, using strategy {}",
+                assetIds.size(), marketId, from, to, estimatedRows, ExportStrategy.IN_MEMORY);
+        return new ExportPlan(ExportStrategy.IN_MEMORY, estimatedRows);
+    }
+
+    /**
+     * Estimates the rows an export reads. Uses the rows of the cold tier up to its boundary and the planner estimate
+     * of the series query from there, and falls back to one row per quarter-hour of the time range if the database
+     * cannot be asked.
+     */
+    long estimateRows(ExportKey key) {
+        try {
+            return estimateStoredRows(key.assetId(), key.marketId(), key.from(), key.to(), key.filter());
+        } catch (DataAccessException e) {
+            log.debug("Could not estimate rows of export {}, falling back to the length of the time range", key, e);
+            return Duration.between(key.from(), key.to()).dividedBy(QUARTER_HOUR) + 1;
+        }
+    }
+
+    /**
+     * Estimates the rows a multi-window export reads: the estimate of the range from the first to the last window in
+     * the cold tier and the database, scaled by the share of that range covered by the windows. Falls back to one row per quarter-hour of each
+     * window if the database cannot be asked.
+     */
+    long estimateWindowRows(UUID assetId, UUID marketId, TimeWindows windows, ReservationFilter filter) {
+        Duration covered = Duration.ZERO;
+        long quarterHours = 0;
+        for (TimeWindows.Window window : windows.windows()) {
+            covered = covered.plus(Duration.between(window.from(), window.to()));
+            quarterHours += Duration.between(window.from(), window.to()).dividedBy(QUARTER_HOUR) + 1;
+        }
+        try {
+            long rangeRows = estimateStoredRows(assetId, marketId, windows.from(), windows.to(), filter);
+            Duration range = Duration.between(windows.from(), windows.to());
+            return range.isZero() ? rangeRows : (long) Math.ceil((double) rangeRows * covered.toSeconds() / range.toSeconds());
+        } catch (DataAccessException e) {
+            log.debug("Could not estimate rows of multi-window export of asset {} market {}, falling back to the length of the windows",
+                    assetId, marketId, e);
+            return quarterHours;
+        }
+    }
+
+    /**
+     * Estimates the rows the totals of a portfolio are summed from: the rows of the cold tier up to its boundary and
+     * the planner estimate of the totals query from there. Falls back to one row per quarter-hour of the time range
+     * and asset if the database cannot be asked.
+     */
+    long estimateTotalsRows(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        try {
+            Optional<ColdTierView> coldTier = coldTierStore.find(from);
+            if (coldTier.isEmpty()) {
+                return reservationRepository.estimateTotalsRows(assetIds, marketId, from, to);
+            }
+            long coldRows = coldTier.get().estimateRows(assetIds, marketId, from, to);
+            LocalDateTime boundary = coldTier.get().boundary();
+            return to.isBefore(boundary) ? coldRows : coldRows + reservationRepository.estimateTotalsRows(assetIds, marketId, boundary, to);
+        } catch (DataAccessException e) {
+            log.debug("Could not estimate rows of totals of {} assets in market {}, falling back to the length of the time range",
+                    assetIds.size(), marketId, e);
+            return (Duration.between(from, to).dividedBy(QUARTER_HOUR) + 1) * assetIds.size();
+        }
+    }
+
+    /**
+     * Estimates the rows of a range: the rows of the cold tier up to its boundary, which are counted from the index of
+     * its files without regard to the filter, and the planner estimate of the database from the boundary on.
+     *
+     * @throws DataAccessException if the database cannot be asked
+     */
+    private long estimateStoredRows(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationFilter filter) {
+        Optional<ColdTierView> coldTier = coldTierStore.find(from);
+        if (coldTier.isEmpty()) {
+            return reservationRepository.estimateSeriesRows(assetId, marketId, from, to, filter);
+        }
+        long coldRows = coldTier.get().estimateRows(List.of(assetId), marketId, from, to);
+        LocalDateTime boundary = coldTier.get().boundary();
+        return to.isBefore(boundary) ? coldRows : coldRows + reservationRepository.estimateSeriesRows(assetId, marketId, boundary, to, filter);
+    }
+}
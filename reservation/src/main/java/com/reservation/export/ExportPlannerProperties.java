@@ -0,0 +1,26 @@
+package com.reservation.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the size thresholds used to choose the strategy of an export.
+ * Bound from the {@code reservation.export-planner} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.export-planner")
+public class ExportPlannerProperties {
+
+    /**
+     * Exports estimated at up to this many rows are produced in memory.
+     */
+    private long inMemoryMaxRows = 50_000;
+
+    /**
+     * Exports estimated at up to this many rows, and above {@code in-memory-max-rows}, are streamed to the client;
+     * larger ones are spooled to disk first.
+     */
+    private long streamingMaxRows = 500_000;
+}
@@ -0,0 +1,28 @@
+package com.reservation.export;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an export is not admitted because the budget of in-flight rows stays exhausted.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportRejectedException extends Exception {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new instance of {@code ExportRejectedException}.
+     *
+     * @param message    the reason of the rejection
+     * @param retryAfter the delay after which the client may retry
+     */
+    public ExportRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,274 @@
+package com.reservation.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps completed exports on disk so that interrupted downloads can be resumed with byte-range requests.
+ * Each export is identified by a strong entity tag derived from its content; a resumed request reads only the
+ * requested bytes from the spooled file instead of repeating the query and the formatting.
+ * The index of spooled exports is kept in memory, so resuming works against the instance that produced the export.
+ * Spooled files are opened when they are registered; a file replaced, expired or evicted while it is being sent is
+ * deleted from the directory at once but stays readable until the requests serving it release it.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportSpool.class);
+
+    private static final String FILE_SUFFIX = ".csv";
+    private static final String TEMPORARY_SUFFIX = ".csv.tmp";
+
+    private final ExportSpoolProperties properties;
+    private final ConcurrentMap<ExportKey, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance of {@code ExportSpool}, creating the spool directory and deleting files left over
+     * from a previous run.
+     *
+     * @param properties the spool configuration
+     */
+    @Autowired
+    public ExportSpool(ExportSpoolProperties properties) {
+        this.properties = properties;
+        try {
+            Files.createDirectories(properties.getDirectory());
+            try (Stream<Path> files = Files.list(properties.getDirectory())) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(FILE_SUFFIX) || name.endsWith(TEMPORARY_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare export spool directory " + properties.getDirectory(), e);
+        }
+    }
+
+    /**
+     * Creates the snapshot of a completed export. Exports of at least {@code min-bytes} are written to the spool
+     * and replace any earlier snapshot of the same key; smaller ones are kept in memory for the current request only.
+     *
+     * @param key     the export the content belongs to
+     * @param content the complete export content
+     * @return the snapshot of the export
+     * @throws IOException if the export cannot be written to the spool
+     */
+    public SpooledExport store(ExportKey key, byte[] content) throws IOException {
+        String eTag = eTag(sha256().digest(content));
+
+        if (content.length < properties.getMinBytes()) {
+            return new SpooledExport(eTag, content.length, new ByteArrayResource(content));
+        }
+
+        Path temporary = temporaryFile();
+        Files.write(temporary, content);
+        return register(key, eTag, content.length, temporary);
+    }
+
+    /**
+     * Writes an export directly to the spool while it is produced, without holding it in memory, and replaces any
+     * earlier snapshot of the same key. The export is spooled regardless of its size.
+     *
+     * @param key    the export the content belongs to
+     * @param writer writes the complete export content
+     * @return the snapshot of the export
+     * @throws IOException if the export cannot be produced or written to the spool
+     */
+    public SpooledExport spool(ExportKey key, ContentWriter writer) throws IOException {
+        MessageDigest digest = sha256();
+        Path temporary = temporaryFile();
+        try {
+            try (OutputStream fileStream = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)), digest)) {
+                writer.writeTo(fileStream);
+            }
+            return register(key, eTag(digest.digest()), Files.size(temporary), temporary);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the spooled snapshot of an export, if it exists and has not expired.
+     * A request serving the snapshot has to {@link SpooledExport#retain() retain} it first, and treat it as missing
+     * if that fails.
+     *
+     * @param key the export to look up
+     * @return the snapshot, or an empty optional if the export has to be produced again
+     */
+    public Optional<SpooledExport> find(ExportKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (isExpired(entry, Instant.now()) || !Files.exists(entry.file())) {
+            if (entries.remove(key, entry)) {
+                delete(entry);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(entry.export());
+    }
+
+    /**
+     * Deletes expired exports.
+     */
+    @Scheduled(fixedDelayString = "${reservation.export-spool.cleanup-interval:PT1M}")
+    public void cleanUp() {
+        Instant now = Instant.now();
+        for (Map.Entry<ExportKey, Entry> entry : entries.entrySet()) {
+            if (isExpired(entry.getValue(), now) && entries.remove(entry.getKey(), entry.getValue())) {
+                delete(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the disk space currently used by spooled exports.
+     *
+     * @return the spooled bytes
+     */
+    public long spooledBytes() {
+        return entries.values().stream().mapToLong(entry -> entry.export().length()).sum();
+    }
+
+    /**
+     * Moves a completely written file into the spool under the given key. If the key already refers to a file with
+     * the same content, that snapshot is kept and the new file is deleted.
+     */
+    private SpooledExport register(ExportKey key, String eTag, long length, Path temporary) throws IOException {
+        Entry current = entries.get(key);
+        if (current != null && current.export().eTag().equals(eTag) && Files.exists(current.file())) {
+            Files.deleteIfExists(temporary);
+            Entry refreshed = new Entry(current.export(), current.file(), Instant.now());
+            entries.put(key, refreshed);
+            return refreshed.export();
+        }
+
+        Path file = properties.getDirectory().resolve(UUID.randomUUID() + FILE_SUFFIX);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        SpooledFileResource resource;
+        try {
+            resource = SpooledFileResource.open(file, length);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        SpooledExport export = new SpooledExport(eTag, length, resource);
+        Entry registered = new Entry(export, file, Instant.now());
+        Entry previous = entries.put(key, registered);
+        if (previous != null) {
+            delete(previous);
+        }
+        enforceBudget(registered);
+        return export;
+    }
+
+    private Path temporaryFile() {
+        return properties.getDirectory().resolve(UUID.randomUUID() + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Deletes the oldest exports until the disk budget is met. The export just registered is kept even if it exceeds
+     * the budget on its own, so that it can still be resumed until the next export replaces it.
+     */
+    private void enforceBudget(Entry registered) {
+        long spooled = spooledBytes();
+        if (spooled <= properties.getMaxBytes()) {
+            return;
+        }
+
+        List<Map.Entry<ExportKey, Entry>> byAge = entries.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getValue().created()))
+                .toList();
+        for (Map.Entry<ExportKey, Entry> entry : byAge) {
+            if (spooled <= properties.getMaxBytes()) {
+                break;
+            }
+            if (entry.getValue() != registered && entries.remove(entry.getKey(), entry.getValue())) {
+                spooled -= entry.getValue().export().length();
+                delete(entry.getValue());
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, Instant now) {
+        return !now.isBefore(entry.created().plus(properties.getTtl()));
+    }
+
+    /**
+     * Deletes the file of an entry removed from the index and releases the reference of the index, so that the file
+     * is closed once no request is sending it any more.
+     */
+    private void delete(Entry entry) {
+        try {
+            Files.deleteIfExists(entry.file());
+        } catch (IOException e) {
+            log.warn("Could not delete spooled export {}", entry.file(), e);
+        }
+        entry.export().release();
+    }
+
+    private static String eTag(byte[] digest) {
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Writes the content of an export.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Writes the complete export content to the given stream.
+         *
+         * @param outputStream the stream of the spool file
+         * @throws IOException if the content cannot be produced or written
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * A spooled export together with its file and the time it was produced.
+     */
+    private record Entry(SpooledExport export, Path file, Instant created) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.reservation.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the spool of completed exports used to answer byte-range requests.
+ * Bound from the {@code reservation.export-spool} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.export-spool")
+public class ExportSpoolProperties {
+
+    /**
+     * Directory the export files are written to. Files left over from a previous run are deleted on startup.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "reservation-export-spool");
+
+    /**
+     * Exports smaller than this many bytes are not spooled; resuming them repeats the export.
+     */
+    private long minBytes = 1024 * 1024;
+
+    /**
+     * Upper bound of disk space used by all spooled exports, in bytes. Oldest exports are deleted first.
+     */
+    private long maxBytes = 10L * 1024 * 1024 * 1024;
+
+    /**
+     * How long a spooled export can be resumed after it was produced.
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * Delay between two runs of the clean-up of expired exports.
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,26 @@
+package com.reservation.export;
+
+/**
+ * How an export is produced, chosen by {@link ExportPlanner} from the estimated size of its result.
+ *
+ * @author Bojana Samardzic
+ */
+public enum ExportStrategy {
+
+    /**
+     * The series is read completely and formatted into a string; fastest for small results.
+     */
+    IN_MEMORY,
+
+    /**
+     * Rows are read through a cursor and written to the response as they arrive; nothing is held in memory,
+     * but the response carries no ETag and cannot be resumed.
+     */
+    STREAMING,
+
+    /**
+     * Rows are read through a cursor and written to a spool file, which is then served with an ETag and
+     * byte-range support.
+     */
+    SPOOL
+}
@@ -0,0 +1,72 @@
+package com.reservation.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A subscriber of an export shared by concurrent identical requests. Reads the content from its own position while
+ * it is produced. Closing the subscription leaves the export; closing it again, from any thread, has no effect.
+ *
+ * @author Bojana Samardzic
+ */
+public final class ExportSubscription implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SharedExport export;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ExportSubscription(SharedExport export) {
+        this.export = export;
+    }
+
+    /**
+     * Waits until the export has produced its first content or has finished.
+     *
+     * @return {@code false} if the export finished without any content
+     * @throws IOException if the export failed before producing content, or the waiting thread is interrupted
+     */
+    public boolean awaitContent() throws IOException {
+        return export.awaitContent(0) >= 0;
+    }
+
+    /**
+     * Copies the complete export to the given stream, waiting for content that has not been produced yet.
+     *
+     * @param out the stream to write the export to
+     * @throws IOException if the export fails, the subscription is closed or the content cannot be written to the stream
+     */
+    public void transferTo(OutputStream out) throws IOException {
+        if (closed.get()) {
+            throw new IOException("Export subscription is closed");
+        }
+        try (FileChannel channel = FileChannel.open(export.file(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = 0;
+            long available;
+            while ((available = export.awaitContent(position)) >= 0) {
+                while (position < available) {
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, available - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Shared export file ended before its published length");
+                    }
+                    out.write(buffer.array(), 0, read);
+                    position += read;
+                }
+                out.flush();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            export.unsubscribe();
+        }
+    }
+}
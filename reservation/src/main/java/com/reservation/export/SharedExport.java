@@ -0,0 +1,224 @@
+package com.reservation.export;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An export produced once and read by any number of subscribers while it is produced.
+ * The producer appends the content to a temporary file; every subscriber reads the file from its own position and
+ * waits for more content when it has caught up. A slow subscriber therefore never holds back the producer or the
+ * other subscribers. The export is cancelled as soon as its last subscriber leaves before it is complete, and the
+ * file is deleted once the producer has finished and no subscriber is left.
+ *
+ * @author Bojana Samardzic
+ */
+final class SharedExport {
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+
+    private int subscribers = 1;
+    private long written;
+    private boolean started;
+    private boolean finished;
+    private boolean cancelled;
+    private Exception failure;
+
+    /**
+     * Creates an export that is not started yet, subscribed by the request that is going to produce it.
+     *
+     * @param file the temporary file the content is appended to
+     */
+    SharedExport(Path file) {
+        this.file = file;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Adds a subscriber to the export.
+     *
+     * @return {@code false} if the export was cancelled or already cleaned up and cannot be joined anymore
+     */
+    boolean subscribe() {
+        lock.lock();
+        try {
+            if (cancelled || (subscribers == 0 && finished)) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a subscriber. The last subscriber cancels an incomplete export or deletes the file of a finished one.
+     */
+    void unsubscribe() {
+        boolean delete;
+        lock.lock();
+        try {
+            subscribers--;
+            if (subscribers == 0 && !finished) {
+                cancelled = true;
+            }
+            delete = subscribers == 0 && finished;
+        } finally {
+            lock.unlock();
+        }
+        if (delete) {
+            deleteFile();
+        }
+    }
+
+    /**
+     * Marks the export as admitted, so that waiting subscribers start reading.
+     */
+    void start() {
+        lock.lock();
+        try {
+            started = true;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the export as finished, either completely or with the given failure, and deletes the file if no
+     * subscriber is left.
+     *
+     * @param failure the reason the export failed, or {@code null} if it is complete
+     */
+    void finish(Exception failure) {
+        boolean delete;
+        lock.lock();
+        try {
+            this.finished = true;
+            this.failure = failure;
+            delete = subscribers == 0;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (delete) {
+            deleteFile();
+        }
+    }
+
+    /**
+     * Waits until the export has been admitted.
+     *
+     * @throws ExportRejectedException if the export was not admitted
+     * @throws IOException             if the export failed before it was started, or the waiting thread is interrupted
+     */
+    void awaitStart() throws ExportRejectedException, IOException {
+        lock.lock();
+        try {
+            while (!started && !finished) {
+                progress.await();
+            }
+            if (!started) {
+                if (failure instanceof ExportRejectedException rejected) {
+                    throw new ExportRejectedException(rejected.getMessage(), rejected.getRetryAfter());
+                }
+                throw new IOException("Shared export failed: " + failure.getMessage(), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared export", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until content beyond the given position has been written or the export has finished.
+     *
+     * @param position the number of bytes the caller has read so far
+     * @return the number of bytes written so far, or {@code -1} if the export is complete and the caller has read all of it
+     * @throws IOException if the export failed, or the waiting thread is interrupted
+     */
+    long awaitContent(long position) throws IOException {
+        lock.lock();
+        try {
+            while (written <= position && !finished) {
+                progress.await();
+            }
+            if (written > position) {
+                return written;
+            }
+            if (failure != null) {
+                throw new IOException("Shared export failed: " + failure.getMessage(), failure);
+            }
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared export", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wraps the stream of the producer so that written content is published to the subscribers, and the producer
+     * fails on its next write once the export has been cancelled.
+     *
+     * @param out the stream writing to the file of the export
+     * @return the publishing stream
+     */
+    OutputStream publishing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (isCancelled()) {
+                    throw new IOException("Export cancelled, no subscriber left");
+                }
+                out.write(b, off, len);
+                published(len);
+            }
+        };
+    }
+
+    private boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void published(int bytes) {
+        lock.lock();
+        try {
+            written += bytes;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deleteFile() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left to the clean-up of the spool directory on the next start.
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.reservation.export;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Snapshot of a completed export that can be read from any byte offset.
+ * A request serving a spooled file takes a reference to it with {@link #retain()} and gives it back with
+ * {@link #release()} once the response is complete, so that the spool cannot close the file while it is being sent.
+ *
+ * @param eTag     the strong entity tag derived from the content, including quotes
+ * @param length   the length of the content in bytes
+ * @param resource the content, either a spooled file or an in-memory buffer
+ * @author Bojana Samardzic
+ */
+public record SpooledExport(String eTag, long length, Resource resource) {
+
+    /**
+     * Takes a reference to the content for a request serving it.
+     *
+     * @return {@code false} if the content is a spooled file that was already evicted and released by all readers
+     */
+    public boolean retain() {
+        return !(resource instanceof SpooledFileResource file) || file.retain();
+    }
+
+    /**
+     * Releases a reference taken with {@link #retain()}.
+     */
+    public void release() {
+        if (resource instanceof SpooledFileResource file) {
+            file.release();
+        }
+    }
+}
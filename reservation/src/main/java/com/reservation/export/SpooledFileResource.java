@@ -0,0 +1,147 @@
+package com.reservation.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A spooled export file that is kept open while it is referenced.
+ * The spool index holds one reference and each request serving the file takes its own, so the file can be deleted
+ * from the spool directory at any time: its content stays readable through the open channel until the last
+ * reference is released, which closes the channel.
+ * Each input stream reads from its own position, so any number of requests and byte ranges can be served at once.
+ *
+ * @author Bojana Samardzic
+ */
+final class SpooledFileResource extends AbstractResource {
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledFileResource.class);
+
+    private final Path file;
+    private final long length;
+    private final FileChannel channel;
+    private int references = 1;
+
+    private SpooledFileResource(Path file, long length, FileChannel channel) {
+        this.file = file;
+        this.length = length;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a spooled file, holding the first reference to it.
+     *
+     * @param file   the spooled file
+     * @param length the length of the content in bytes
+     * @return the opened file
+     * @throws IOException if the file cannot be opened
+     */
+    static SpooledFileResource open(Path file, long length) throws IOException {
+        return new SpooledFileResource(file, length, FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * Takes another reference to the file.
+     *
+     * @return {@code false} if the last reference was already released and the file can no longer be read
+     */
+    synchronized boolean retain() {
+        if (references == 0) {
+            return false;
+        }
+        references++;
+        return true;
+    }
+
+    /**
+     * Releases a reference to the file, closing it when the last one is released.
+     */
+    void release() {
+        synchronized (this) {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close spooled export {}", file, e);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("Spooled export " + file + " is no longer available");
+        }
+        return new ChannelInputStream();
+    }
+
+    @Override
+    public boolean exists() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public String getFilename() {
+        return file.getFileName().toString();
+    }
+
+    @Override
+    public String getDescription() {
+        return "spooled export [" + file + "]";
+    }
+
+    /**
+     * Reads the file from its own position with positional reads, which do not affect other readers of the channel.
+     */
+    private class ChannelInputStream extends InputStream {
+
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(count, length - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) {
+            long skipped = Math.max(0, Math.min(count, length - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+    }
+}
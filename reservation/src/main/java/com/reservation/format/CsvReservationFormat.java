@@ -0,0 +1,121 @@
+package com.reservation.format;
+
+import com.opencsv.CSVWriter;
+import com.reservation.csvHandler.CSVFormatter;
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.csvHandler.ProjectedCSVFormatter;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The CSV format of exports, and the default format when a request accepts any.
+ * Rows are written by the {@link CSVFormatter} of the exported fields: the detailed or total formatter if all of their
+ * fields are selected, otherwise a formatter of the selected fields. Every field is quoted, so the output is the same
+ * as that of the pre-generated snapshots.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class CsvReservationFormat implements ReservationFormat {
+
+    /**
+     * The media type of CSV exports.
+     */
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private final TotalCSVFormatter totalCSVFormatter;
+    private final DetailedCSVFormatter detailedCSVFormatter;
+
+    /**
+     * Constructs a new instance of {@code CsvReservationFormat} with the specified formatters.
+     *
+     * @param totalCSVFormatter    the formatter for exporting aggregated reservation data
+     * @param detailedCSVFormatter the formatter for exporting detailed reservation data
+     */
+    @Autowired
+    public CsvReservationFormat(TotalCSVFormatter totalCSVFormatter, DetailedCSVFormatter detailedCSVFormatter) {
+        this.totalCSVFormatter = totalCSVFormatter;
+        this.detailedCSVFormatter = detailedCSVFormatter;
+    }
+
+    @Override
+    public MediaType mediaType() {
+        return TEXT_CSV;
+    }
+
+    @Override
+    public String fileExtension() {
+        return "csv";
+    }
+
+    @Override
+    public ReservationSink open(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+        return new CsvReservationSink(new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)), csvFormatter(fields), context);
+    }
+
+    /**
+     * Chooses the formatter of an export: the detailed or total formatter if all of their fields are selected,
+     * otherwise a formatter of the selected fields.
+     */
+    private CSVFormatter csvFormatter(ReservationProjection fields) {
+        if (fields.equals(ReservationProjection.DETAILED)) {
+            return detailedCSVFormatter;
+        }
+        if (fields.equals(ReservationProjection.TOTAL)) {
+            return totalCSVFormatter;
+        }
+        return new ProjectedCSVFormatter(fields);
+    }
+
+    /**
+     * Writes rows through a {@link CSVWriter}, which keeps write failures to itself; they are checked after every
+     * batch, so that an export stops as soon as the stream fails, e.g. because the client closed the connection.
+     */
+    private static final class CsvReservationSink implements ReservationSink {
+
+        private final CSVWriter csvWriter;
+        private final CSVFormatter csvFormatter;
+        private final ExportEncodingContext context;
+
+        private CsvReservationSink(CSVWriter csvWriter, CSVFormatter csvFormatter, ExportEncodingContext context) {
+            this.csvWriter = csvWriter;
+            this.csvFormatter = csvFormatter;
+            this.context = context;
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            csvFormatter.writeHeader(csvWriter);
+            checkError();
+        }
+
+        @Override
+        public void writeRows(ReservationSeries series, int fromRow, int toRow) throws IOException {
+            for (int row = fromRow; row < toRow; row++) {
+                csvFormatter.writeRow(csvWriter, series, row, context);
+            }
+            checkError();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            csvWriter.flush();
+        }
+
+        private void checkError() throws IOException {
+            if (csvWriter.checkError()) {
+                throw csvWriter.getException();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The newline-delimited JSON format of exports: one JSON object per reservation and line, with the exported fields as
+ * members in output order, named like in the CSV header. Values (in MW) and prices are numbers, IDs and times are
+ * strings, and a missing bid ID is {@code null}. There is no header, so an export without rows is empty.
+ * Objects are written from precomputed member names instead of through a JSON generator, as exported strings never
+ * need escaping.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class NdjsonReservationFormat implements ReservationFormat {
+
+    @Override
+    public MediaType mediaType() {
+        return MediaType.APPLICATION_NDJSON;
+    }
+
+    @Override
+    public String fileExtension() {
+        return "ndjson";
+    }
+
+    @Override
+    public ReservationSink open(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+        return new NdjsonReservationSink(outputStream, fields, context);
+    }
+
+    private static final class NdjsonReservationSink extends TextReservationSink {
+
+        private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+        private final byte[][] memberPrefixes;
+        private final boolean[] numeric;
+
+        private NdjsonReservationSink(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+            super(outputStream, fields, context);
+            this.memberPrefixes = new byte[this.fields.length][];
+            this.numeric = new boolean[this.fields.length];
+            for (int member = 0; member < this.fields.length; member++) {
+                String prefix = (member == 0 ? "{\"" : ",\"") + this.fields[member].getFieldName() + "\":";
+                memberPrefixes[member] = prefix.getBytes(StandardCharsets.UTF_8);
+                numeric[member] = isNumeric(this.fields[member]);
+            }
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        protected void writeRow(ReservationSeries series, int row) throws IOException {
+            for (int member = 0; member < fields.length; member++) {
+                write(memberPrefixes[member]);
+                String value = encode(fields[member], series, row);
+                if (value == null || (numeric[member] && !isFinite(value))) {
+                    write(NULL);
+                } else if (numeric[member]) {
+                    write(value);
+                } else {
+                    write('"');
+                    write(value);
+                    write('"');
+                }
+            }
+            write('}');
+            write('\n');
+        }
+
+        private static boolean isNumeric(ReservationField field) {
+            return switch (field) {
+                case POSITIVE_VALUE, POSITIVE_CAPACITY_PRICE, POSITIVE_ENERGY_PRICE,
+                     NEGATIVE_VALUE, NEGATIVE_CAPACITY_PRICE, NEGATIVE_ENERGY_PRICE -> true;
+                default -> false;
+            };
+        }
+
+        /**
+         * Returns whether an encoded number is valid JSON, i.e. neither {@code NaN} nor infinite.
+         */
+        private static boolean isFinite(String value) {
+            char last = value.charAt(value.length() - 1);
+            return last != 'N' && last != 'y';
+        }
+    }
+}
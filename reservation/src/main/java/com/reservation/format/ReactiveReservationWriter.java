@@ -0,0 +1,109 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.profiling.ProfiledReservationSink;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * Non-blocking adapter of a {@link ReservationSink} for reactive exports.
+ * Writes a stream of series chunks into a stream of byte arrays: one element for the header, one per batch of at most
+ * {@link #ROWS_PER_ELEMENT} rows and one for the footer, each left out if the format writes nothing for it. Rows are
+ * written into memory by the sink, so writing never waits for the client; the next chunk is requested only once all
+ * output of the previous one has been taken by the subscriber.
+ * Elements are kept small because HTTP servers prefetch a fixed number of elements of a response body, regardless of
+ * their size.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReactiveReservationWriter {
+
+    /**
+     * Maximum number of rows written into one element of the output.
+     */
+    static final int ROWS_PER_ELEMENT = 32;
+
+    private final ReservationFormat format;
+    private final ReservationProjection fields;
+    private final UUID assetId;
+    private final UUID marketId;
+    private final boolean total;
+
+    /**
+     * Constructs a new instance of {@code ReactiveReservationWriter} writing the given fields in the given format.
+     *
+     * @param format the format of the output
+     * @param fields the exported fields in output order
+     */
+    public ReactiveReservationWriter(ReservationFormat format, ReservationProjection fields) {
+        this(format, fields, null, null, false);
+    }
+
+    /**
+     * Constructs a new instance of {@code ReactiveReservationWriter} writing the given fields of an export in the
+     * given format, identifying the export in flight recorder events.
+     *
+     * @param format   the format of the output
+     * @param fields   the exported fields in output order
+     * @param assetId  the unique identifier of the exported asset
+     * @param marketId the unique identifier of the exported market
+     * @param total    whether the export is of totals
+     */
+    public ReactiveReservationWriter(ReservationFormat format, ReservationProjection fields, UUID assetId, UUID marketId, boolean total) {
+        this.format = format;
+        this.fields = fields;
+        this.assetId = assetId;
+        this.marketId = marketId;
+        this.total = total;
+    }
+
+    /**
+     * Writes the header, all rows of the chunks and the footer.
+     *
+     * @param chunks  the chunks to write, in output order
+     * @param context the export-scoped cache of encoded values
+     * @return the output, one element for the header, one per batch of rows and one for the footer
+     */
+    public Flux<byte[]> write(Publisher<ReservationSeries> chunks, ExportEncodingContext context) {
+        return Flux.defer(() -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(ROWS_PER_ELEMENT * 256);
+            ReservationSink sink = ProfiledReservationSink.open(format, buffer, fields, context, assetId, marketId, total);
+            return Flux.concat(
+                    Mono.fromCallable(() -> {
+                        sink.writeHeader();
+                        return take(sink, buffer);
+                    }),
+                    Flux.from(chunks).concatMap(chunk -> Flux.range(0, (chunk.size() + ROWS_PER_ELEMENT - 1) / ROWS_PER_ELEMENT)
+                            .map(batch -> {
+                                try {
+                                    sink.writeRows(chunk, batch * ROWS_PER_ELEMENT, Math.min(chunk.size(), (batch + 1) * ROWS_PER_ELEMENT));
+                                    return take(sink, buffer);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }), 1),
+                    Mono.fromCallable(() -> {
+                        sink.writeFooter();
+                        return take(sink, buffer);
+                    })).filter(element -> element.length > 0);
+        });
+    }
+
+    /**
+     * Takes the output written since the previous element.
+     */
+    private static byte[] take(ReservationSink sink, ByteArrayOutputStream buffer) throws IOException {
+        sink.flush();
+        byte[] element = buffer.toByteArray();
+        buffer.reset();
+        return element;
+    }
+}
@@ -0,0 +1,37 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationProjection;
+import org.springframework.http.MediaType;
+
+import java.io.OutputStream;
+
+/**
+ * An output format of exports, identified by its media type.
+ * Every format bean is registered in {@link ReservationFormatRegistry} and selected by the {@code Accept} header of an
+ * export request, so a new format is added by declaring a bean, without changes to the service.
+ *
+ * @author Bojana Samardzic
+ */
+public interface ReservationFormat {
+
+    /**
+     * Returns the media type of exports in this format, sent as their {@code Content-Type}.
+     */
+    MediaType mediaType();
+
+    /**
+     * Returns the extension of the file name an export in this format is downloaded as, e.g. {@code csv}.
+     */
+    String fileExtension();
+
+    /**
+     * Opens a sink writing one export in this format.
+     *
+     * @param outputStream the stream the export is written to; it is never closed by the sink
+     * @param fields       the exported fields in output order
+     * @param context      the export-scoped encoding of values, shared by all rows of the export
+     * @return the sink of the export
+     */
+    ReservationSink open(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context);
+}
@@ -0,0 +1,112 @@
+package com.reservation.format;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registry of the output formats of exports, keyed by media type.
+ * Collects every {@link ReservationFormat} bean and selects the format of a request from its {@code Accept} header.
+ * CSV is the default: it is chosen for requests without {@code Accept} header, and preferred among formats accepted
+ * with the same quality, e.g. through a wildcard range.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ReservationFormatRegistry {
+
+    private final Map<MediaType, ReservationFormat> formats = new LinkedHashMap<>();
+    private final ReservationFormat defaultFormat;
+
+    /**
+     * Constructs a new instance of {@code ReservationFormatRegistry} with the given formats.
+     *
+     * @param formats the available formats, among them the CSV format
+     * @throws IllegalStateException if the CSV format is missing or two formats share a media type
+     */
+    @Autowired
+    public ReservationFormatRegistry(List<ReservationFormat> formats) {
+        this.defaultFormat = formats.stream()
+                .filter(format -> format.mediaType().equals(CsvReservationFormat.TEXT_CSV))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The CSV format of exports is missing"));
+        this.formats.put(defaultFormat.mediaType(), defaultFormat);
+        for (ReservationFormat format : formats) {
+            ReservationFormat previous = this.formats.putIfAbsent(format.mediaType(), format);
+            if (previous != null && previous != format) {
+                throw new IllegalStateException("Two export formats produce " + format.mediaType());
+            }
+        }
+    }
+
+    /**
+     * Returns the format of exports requested without {@code Accept} header.
+     *
+     * @return the CSV format
+     */
+    public ReservationFormat defaultFormat() {
+        return defaultFormat;
+    }
+
+    /**
+     * Returns the media types of all formats, the default first.
+     *
+     * @return the media types
+     */
+    public List<MediaType> mediaTypes() {
+        return new ArrayList<>(formats.keySet());
+    }
+
+    /**
+     * Selects the format of a request from its {@code Accept} header.
+     * Each format is rated with the quality of the most specific media range including it; the format of the highest
+     * quality above zero is chosen, and the default format among equally rated ones.
+     *
+     * @param accept the {@code Accept} header of the request, or {@code null} if it has none
+     * @return the format to export in, or an empty optional if the request accepts none of the formats
+     * @throws org.springframework.http.InvalidMediaTypeException if the header cannot be parsed
+     */
+    public Optional<ReservationFormat> negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return Optional.of(defaultFormat);
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+
+        ReservationFormat selected = null;
+        double selectedQuality = 0;
+        for (ReservationFormat format : formats.values()) {
+            double quality = quality(accepted, format.mediaType());
+            if (quality > selectedQuality) {
+                selected = format;
+                selectedQuality = quality;
+            }
+        }
+        return Optional.ofNullable(selected);
+    }
+
+    /**
+     * Returns the quality the most specific including media range assigns to a media type, or 0 if none includes it.
+     */
+    private static double quality(List<MediaType> accepted, MediaType mediaType) {
+        MediaType match = null;
+        for (MediaType range : accepted) {
+            if (range.includes(mediaType) && (match == null || specificity(range) > specificity(match))) {
+                match = range;
+            }
+        }
+        return match != null ? match.getQualityValue() : 0;
+    }
+
+    private static int specificity(MediaType range) {
+        if (range.isWildcardType()) {
+            return 0;
+        }
+        return range.isWildcardSubtype() ? 1 : 2;
+    }
+}
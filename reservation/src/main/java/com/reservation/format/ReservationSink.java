@@ -0,0 +1,58 @@
+package com.reservation.format;
+
+import com.reservation.model.ReservationSeries;
+
+import java.io.IOException;
+
+/**
+ * Writes the rows of one export in an output format to an output stream.
+ * An export calls {@link #writeHeader()} once, then {@link #writeRows} for each batch of rows in output order, then
+ * {@link #writeFooter()} once. Sinks may buffer; {@link #flush()} hands everything written so far to the stream.
+ * Created per export by a {@link ReservationFormat}; instances are not thread-safe and never close the stream.
+ *
+ * @author Bojana Samardzic
+ */
+public interface ReservationSink {
+
+    /**
+     * Writes what precedes the rows, e.g. the header row of a table.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    void writeHeader() throws IOException;
+
+    /**
+     * Writes a batch of consecutive rows of a series.
+     *
+     * @param series  the series containing the rows, with values in kW
+     * @param fromRow the index of the first row to write, inclusive
+     * @param toRow   the index of the last row to write, exclusive
+     * @throws IOException if the stream cannot be written
+     */
+    void writeRows(ReservationSeries series, int fromRow, int toRow) throws IOException;
+
+    /**
+     * Writes all rows of a series.
+     *
+     * @param series the series containing the rows, with values in kW
+     * @throws IOException if the stream cannot be written
+     */
+    default void writeRows(ReservationSeries series) throws IOException {
+        writeRows(series, 0, series.size());
+    }
+
+    /**
+     * Writes what follows the rows, e.g. the end of a document. Most formats have none.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    default void writeFooter() throws IOException {
+    }
+
+    /**
+     * Writes all buffered output to the stream and flushes it.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    void flush() throws IOException;
+}
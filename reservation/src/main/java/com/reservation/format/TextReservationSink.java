@@ -0,0 +1,151 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base of sinks writing text directly into a byte buffer, without a {@link java.io.Writer} and its charset encoder.
+ * Exported values are ASCII, so each character is stored as a single byte; other text is encoded as UTF-8.
+ * Values are encoded by the {@link ExportEncodingContext} of the export, like in the CSV format.
+ *
+ * @author Bojana Samardzic
+ */
+abstract class TextReservationSink implements ReservationSink {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The exported fields in output order.
+     */
+    protected final ReservationField[] fields;
+
+    private final OutputStream outputStream;
+    private final ExportEncodingContext context;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    /**
+     * Constructs a sink writing the given fields to a stream.
+     *
+     * @param outputStream the stream the export is written to
+     * @param fields       the exported fields in output order
+     * @param context      the export-scoped encoding of values
+     */
+    protected TextReservationSink(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+        this.outputStream = outputStream;
+        this.fields = fields.fields().toArray(ReservationField[]::new);
+        this.context = context;
+    }
+
+    @Override
+    public void writeRows(ReservationSeries series, int fromRow, int toRow) throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            writeRow(series, row);
+        }
+    }
+
+    /**
+     * Writes one row of a series.
+     *
+     * @param series the series containing the row
+     * @param row    the index of the row within the series
+     * @throws IOException if the stream cannot be written
+     */
+    protected abstract void writeRow(ReservationSeries series, int row) throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+
+    /**
+     * Encodes a field of a row of a series as text, with values converted from kW to MW as configured by the context.
+     *
+     * @param field  the field to encode
+     * @param series the series containing the row
+     * @param row    the index of the row within the series
+     * @return the encoded value, or {@code null} if the row has no bid ID in the field
+     */
+    protected String encode(ReservationField field, ReservationSeries series, int row) {
+        return switch (field) {
+            case TIMESTAMP -> context.encodeTimestamp(series.getTimestamp(row));
+            case ASSET_ID -> context.encodeUuid(series.getAssetId());
+            case MARKET_ID -> context.encodeUuid(series.getMarketId());
+            case POSITIVE_BID_ID -> context.encodeBidId(series.getPositiveBidId(row));
+            case NEGATIVE_BID_ID -> context.encodeBidId(series.getNegativeBidId(row));
+            case POSITIVE_VALUE -> context.encodeValue(series.getPositiveValue(row));
+            case POSITIVE_CAPACITY_PRICE -> String.valueOf(series.getPositiveCapacityPrice(row));
+            case POSITIVE_ENERGY_PRICE -> String.valueOf(series.getPositiveEnergyPrice(row));
+            case NEGATIVE_VALUE -> context.encodeValue(series.getNegativeValue(row));
+            case NEGATIVE_CAPACITY_PRICE -> String.valueOf(series.getNegativeCapacityPrice(row));
+            case NEGATIVE_ENERGY_PRICE -> String.valueOf(series.getNegativeEnergyPrice(row));
+            case UPDATED_AT -> context.encodeUpdatedAt(series.getUpdatedAt(row));
+        };
+    }
+
+    /**
+     * Appends text to the buffer.
+     *
+     * @param text the text to write
+     * @throws IOException if the buffer is full and cannot be written to the stream
+     */
+    protected void write(String text) throws IOException {
+        int length = text.length();
+        for (int index = 0; index < length; index++) {
+            char character = text.charAt(index);
+            if (character >= 0x80) {
+                write(text.substring(index).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) character;
+        }
+    }
+
+    /**
+     * Appends an ASCII character to the buffer.
+     *
+     * @param character the character to write
+     * @throws IOException if the buffer is full and cannot be written to the stream
+     */
+    protected void write(char character) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) character;
+    }
+
+    /**
+     * Appends bytes to the buffer, or writes them directly if they do not fit.
+     *
+     * @param bytes the bytes to write
+     * @throws IOException if the stream cannot be written
+     */
+    protected void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                outputStream.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
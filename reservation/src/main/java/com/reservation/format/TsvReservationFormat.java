@@ -0,0 +1,73 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The tab-separated format of exports: a header row of field names followed by one line per reservation, with the
+ * fields separated by tabs. Exported values never contain tabs or line breaks, so nothing is quoted; a missing bid ID
+ * is written as an empty field.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class TsvReservationFormat implements ReservationFormat {
+
+    /**
+     * The media type of tab-separated exports.
+     */
+    public static final MediaType TEXT_TAB_SEPARATED_VALUES = new MediaType("text", "tab-separated-values");
+
+    @Override
+    public MediaType mediaType() {
+        return TEXT_TAB_SEPARATED_VALUES;
+    }
+
+    @Override
+    public String fileExtension() {
+        return "tsv";
+    }
+
+    @Override
+    public ReservationSink open(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+        return new TsvReservationSink(outputStream, fields, context);
+    }
+
+    private static final class TsvReservationSink extends TextReservationSink {
+
+        private TsvReservationSink(OutputStream outputStream, ReservationProjection fields, ExportEncodingContext context) {
+            super(outputStream, fields, context);
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            for (int column = 0; column < fields.length; column++) {
+                if (column > 0) {
+                    write('\t');
+                }
+                write(fields[column].getFieldName());
+            }
+            write('\n');
+        }
+
+        @Override
+        protected void writeRow(ReservationSeries series, int row) throws IOException {
+            for (int column = 0; column < fields.length; column++) {
+                if (column > 0) {
+                    write('\t');
+                }
+                String value = encode(fields[column], series, row);
+                if (value != null) {
+                    write(value);
+                }
+            }
+            write('\n');
+        }
+    }
+}
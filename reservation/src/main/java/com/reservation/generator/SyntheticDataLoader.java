@@ -0,0 +1,224 @@
+package com.reservation.generator;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads synthetic reservation data into PostgreSQL.
+ * Each asset is loaded by its own {@code COPY FROM STDIN} stream and up to
+ * {@link SyntheticDataProperties#getParallelism()} streams run concurrently. The monthly partitions of the generated
+ * range are created before, so that no rows are copied into the default partition.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class SyntheticDataLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+
+    private static final String COPY_SQL = "COPY reservation (" + SyntheticReservationGenerator.COPY_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+    private final SyntheticDataProperties properties;
+
+    /**
+     * Constructs a new instance of {@code SyntheticDataLoader} with the specified dependencies.
+     *
+     * @param dataSource the data source of the reservation database
+     * @param properties the generator configuration
+     */
+    @Autowired
+    public SyntheticDataLoader(DataSource dataSource, SyntheticDataProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    /**
+     * Generates and loads the configured data set.
+     *
+     * @return the number of loaded rows
+     * @throws SQLException         if preparing the table fails
+     * @throws ExecutionException   if loading one of the assets fails
+     * @throws InterruptedException if the loading thread is interrupted
+     */
+    public long load() throws SQLException, ExecutionException, InterruptedException {
+        return load(properties);
+    }
+
+    /**
+     * Generates and loads a data set described by the given configuration.
+     *
+     * @param configuration the generator configuration to use instead of the application one
+     * @return the number of loaded rows
+     * @throws SQLException         if preparing the table fails
+     * @throws ExecutionException   if loading one of the assets fails
+     * @throws InterruptedException if the loading thread is interrupted
+     */
+    public long load(SyntheticDataProperties configuration) throws SQLException, ExecutionException, InterruptedException {
+        SyntheticReservationGenerator generator = new SyntheticReservationGenerator(configuration);
+        long started = System.nanoTime();
+
+        prepareTable(configuration.isTruncate());
+        createPartitions(configuration);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, configuration.getParallelism()));
+        long rows = 0;
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int asset = 0; asset < configuration.getAssets(); asset++) {
+                int assetIndex = asset;
+                futures.add(executor.submit(() -> copyAsset(generator, assetIndex, configuration.getMarkets())));
+            }
+            for (Future<Long> future : futures) {
+                rows += future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        analyzeTable();
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Loaded {} synthetic reservations for {} assets x {} markets x {} days in {} ms",
+                rows, configuration.getAssets(), configuration.getMarkets(), configuration.getDays(), elapsedMillis);
+        return rows;
+    }
+
+    /**
+     * Loads all markets of one asset through a single COPY stream.
+     */
+    private long copyAsset(SyntheticReservationGenerator generator, int assetIndex, int markets) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            long rows = 0;
+            try (CopyInWriter writer = new CopyInWriter(copyIn)) {
+                for (int market = 0; market < markets; market++) {
+                    rows += generator.writeSeries(assetIndex, market, writer);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                throw e;
+            }
+            copyIn.endCopy();
+            return rows;
+        }
+    }
+
+    /**
+     * Optionally truncates the table and moves the id sequence past the explicitly inserted ids of the seed migration.
+     */
+    private void prepareTable(boolean truncate) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (truncate) {
+                statement.execute("TRUNCATE reservation");
+            }
+            statement.execute("SELECT setval(pg_get_serial_sequence('reservation', 'id'), "
+                    + "GREATEST((SELECT COALESCE(MAX(id), 0) FROM reservation), 1))");
+        }
+    }
+
+    /**
+     * Creates the monthly partitions of the generated range, so that the rows are not copied into the default partition.
+     */
+    private void createPartitions(SyntheticDataProperties configuration) throws SQLException {
+        YearMonth last = YearMonth.from(configuration.getStartDate().plusDays(Math.max(0, configuration.getDays() - 1)));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT create_reservation_partition(?)")) {
+            for (YearMonth month = YearMonth.from(configuration.getStartDate()); !month.isAfter(last); month = month.plusMonths(1)) {
+                statement.setObject(1, month.atDay(1));
+                statement.execute();
+            }
+        }
+    }
+
+    /**
+     * Refreshes planner statistics so that query plans reflect the loaded volume.
+     */
+    private void analyzeTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE reservation");
+        }
+    }
+
+    /**
+     * Buffers characters and forwards them to an active COPY operation in large chunks.
+     */
+    private static final class CopyInWriter extends Writer {
+
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 1024);
+
+        CopyInWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            buffer.append(chars, offset, length);
+            flushIfFull();
+        }
+
+        @Override
+        public Writer append(CharSequence sequence) throws IOException {
+            buffer.append(sequence);
+            flushIfFull();
+            return this;
+        }
+
+        @Override
+        public Writer append(char c) throws IOException {
+            buffer.append(c);
+            flushIfFull();
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            buffer.setLength(0);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IOException("Failed to write to COPY stream", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        private void flushIfFull() throws IOException {
+            if (buffer.length() >= BUFFER_SIZE) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.reservation.generator;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Configuration of the synthetic reservation data generator.
+ * Bound from the {@code reservation.generator} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.generator")
+public class SyntheticDataProperties {
+
+    /**
+     * Seed from which all generated identifiers and values are derived.
+     * The same seed and cardinalities always produce the same rows.
+     */
+    private long seed = 42;
+
+    /**
+     * Number of distinct assets.
+     */
+    private int assets = 100;
+
+    /**
+     * Number of distinct markets every asset bids in.
+     */
+    private int markets = 10;
+
+    /**
+     * First delivery day of the generated time series (UTC).
+     */
+    private LocalDate startDate = LocalDate.of(2024, 1, 1);
+
+    /**
+     * Number of delivery days, each consisting of 96 quarter-hour slots.
+     */
+    private int days = 365;
+
+    /**
+     * Probability that a quarter-hour slot of an asset/market pair carries any bid.
+     */
+    private double bidDensity = 0.8;
+
+    /**
+     * Maximum number of bids in a single slot; the actual number is uniformly distributed between 1 and this value.
+     */
+    private int maxBidsPerSlot = 2;
+
+    /**
+     * Median bid value in kW; values are log-normally distributed around it.
+     */
+    private double valueMedianKw = 5000;
+
+    /**
+     * Standard deviation of the logarithm of bid values.
+     */
+    private double valueSigma = 0.6;
+
+    /**
+     * Mean capacity price in EUR/MW/h.
+     */
+    private double capacityPriceMean = 10;
+
+    /**
+     * Standard deviation of capacity prices in EUR/MW/h.
+     */
+    private double capacityPriceStdDev = 4;
+
+    /**
+     * Mean energy price in EUR/MW/h.
+     */
+    private double energyPriceMean = 80;
+
+    /**
+     * Standard deviation of energy prices in EUR/MW/h.
+     */
+    private double energyPriceStdDev = 25;
+
+    /**
+     * Probability that a bid was revised after gate closure, i.e. that its update time lies after the delivery slot.
+     */
+    private double revisionRate = 0.05;
+
+    /**
+     * Number of parallel COPY streams used for loading.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Whether the reservation table is truncated before loading.
+     */
+    private boolean truncate = false;
+
+    /**
+     * Whether the application exits once loading has finished.
+     */
+    private boolean exitOnCompletion = true;
+}
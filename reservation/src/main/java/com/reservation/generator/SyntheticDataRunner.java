@@ -0,0 +1,52 @@
+package com.reservation.generator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the synthetic data load when the application is started with the {@code generator} profile.
+ * Example: {@code java -jar reservation.jar --spring.profiles.active=generator --reservation.generator.assets=2000}.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@Profile("generator")
+public class SyntheticDataRunner implements CommandLineRunner {
+
+    private final SyntheticDataLoader syntheticDataLoader;
+    private final SyntheticDataProperties properties;
+    private final ApplicationContext applicationContext;
+
+    /**
+     * Constructs a new instance of {@code SyntheticDataRunner} with the specified dependencies.
+     *
+     * @param syntheticDataLoader the loader of synthetic data
+     * @param properties          the generator configuration
+     * @param applicationContext  the application context, closed after loading if configured
+     */
+    @Autowired
+    public SyntheticDataRunner(SyntheticDataLoader syntheticDataLoader, SyntheticDataProperties properties, ApplicationContext applicationContext) {
+        this.syntheticDataLoader = syntheticDataLoader;
+        this.properties = properties;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Loads the configured data set and optionally exits the application afterwards.
+     *
+     * @param args command-line arguments passed to the application
+     * @throws Exception if loading fails
+     */
+    @Override
+    public void run(String... args) throws Exception {
+        syntheticDataLoader.load();
+
+        if (properties.isExitOnCompletion()) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.reservation.generator;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic generator of realistic reservation rows.
+ * Every asset/market pair gets its own random stream derived from the configured seed,
+ * so series can be generated independently and in any order while producing the same rows.
+ * Rows are written in PostgreSQL {@code COPY ... WITH (FORMAT csv)} format matching {@link #COPY_COLUMNS}.
+ *
+ * @author Bojana Samardzic
+ */
+public class SyntheticReservationGenerator {
+
+    /**
+     * Column list of the rows produced by {@link #writeSeries(int, int, Appendable)}.
+     */
+    public static final String COPY_COLUMNS = "timestamp, asset_id, market_id, positive_bid_id, negative_bid_id, "
+            + "positive_value, positive_capacity_price, positive_energy_price, "
+            + "negative_value, negative_capacity_price, negative_energy_price, updated_at";
+
+    static final int SLOTS_PER_DAY = 96;
+
+    private final SyntheticDataProperties properties;
+
+    /**
+     * Constructs a new instance of {@code SyntheticReservationGenerator} with the specified configuration.
+     *
+     * @param properties the generator configuration
+     */
+    public SyntheticReservationGenerator(SyntheticDataProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the identifier of the asset with the given index.
+     *
+     * @param assetIndex the zero-based index of the asset
+     * @return the deterministic asset ID
+     */
+    public UUID assetId(int assetIndex) {
+        return nameUuid("asset", assetIndex);
+    }
+
+    /**
+     * Returns the identifier of the market with the given index.
+     *
+     * @param marketIndex the zero-based index of the market
+     * @return the deterministic market ID
+     */
+    public UUID marketId(int marketIndex) {
+        return nameUuid("market", marketIndex);
+    }
+
+    /**
+     * Writes all rows of one asset/market series in timestamp order.
+     *
+     * @param assetIndex  the zero-based index of the asset
+     * @param marketIndex the zero-based index of the market
+     * @param out         the destination of the CSV rows
+     * @return the number of rows written
+     * @throws IOException if writing to the destination fails
+     */
+    public long writeSeries(int assetIndex, int marketIndex, Appendable out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seriesSeed(assetIndex, marketIndex));
+        ExportEncodingContext encodingContext = new ExportEncodingContext();
+        String assetId = assetId(assetIndex).toString();
+        String marketId = marketId(marketIndex).toString();
+
+        LocalDateTime slot = properties.getStartDate().atStartOfDay();
+        long slots = (long) properties.getDays() * SLOTS_PER_DAY;
+        long rows = 0;
+
+        for (long i = 0; i < slots; i++, slot = slot.plusMinutes(15)) {
+            if (random.nextDouble() >= properties.getBidDensity()) {
+                continue;
+            }
+
+            int bids = 1 + random.nextInt(Math.max(1, properties.getMaxBidsPerSlot()));
+            for (int bid = 0; bid < bids; bid++) {
+                out.append(encodingContext.encodeTimestamp(slot)).append(',')
+                        .append(assetId).append(',')
+                        .append(marketId).append(',')
+                        .append(randomUuid(random).toString()).append(',')
+                        .append(randomUuid(random).toString()).append(',')
+                        .append(String.valueOf(value(random))).append(',')
+                        .append(String.valueOf(price(random, properties.getCapacityPriceMean(), properties.getCapacityPriceStdDev()))).append(',')
+                        .append(String.valueOf(price(random, properties.getEnergyPriceMean(), properties.getEnergyPriceStdDev()))).append(',')
+                        .append(String.valueOf(value(random))).append(',')
+                        .append(String.valueOf(price(random, properties.getCapacityPriceMean(), properties.getCapacityPriceStdDev()))).append(',')
+                        .append(String.valueOf(price(random, properties.getEnergyPriceMean(), properties.getEnergyPriceStdDev()))).append(',')
+                        .append(updatedAt(random, slot).toString()).append("Z\n");
+                rows++;
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Draws a bid value in kW from a log-normal distribution around the configured median, rounded to whole kW.
+     */
+    private double value(SplittableRandom random) {
+        return Math.rint(properties.getValueMedianKw() * Math.exp(properties.getValueSigma() * random.nextGaussian()));
+    }
+
+    /**
+     * Draws a non-negative price in EUR/MW/h from a normal distribution, rounded to cents.
+     */
+    private static double price(SplittableRandom random, double mean, double stdDev) {
+        return Math.max(0, Math.rint((mean + stdDev * random.nextGaussian()) * 100) / 100);
+    }
+
+    /**
+     * Bids are submitted on the day before delivery; revised bids are updated within a day after the slot.
+     */
+    private LocalDateTime updatedAt(SplittableRandom random, LocalDateTime slot) {
+        if (random.nextDouble() < properties.getRevisionRate()) {
+            return slot.plusSeconds(1 + random.nextInt(24 * 3600));
+        }
+        return slot.toLocalDate().minusDays(1).atTime(8, 0).plusSeconds(random.nextInt(4 * 3600));
+    }
+
+    private static UUID randomUuid(SplittableRandom random) {
+        long most = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long least = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+
+    private UUID nameUuid(String kind, int index) {
+        return UUID.nameUUIDFromBytes((kind + "-" + properties.getSeed() + "-" + index).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long seriesSeed(int assetIndex, int marketIndex) {
+        return properties.getSeed() ^ (assetIndex * 0x9E3779B97F4A7C15L) ^ (marketIndex * 0xC2B2AE3D27D4EB4FL);
+    }
+}
@@ -0,0 +1,67 @@
+package com.reservation.hotwindow;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-memory hot window of recent reservations.
+ * Bound from the {@code reservation.hot-window} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.hot-window")
+public class HotWindowProperties {
+
+    /**
+     * Whether recent reservations are kept in memory and served without touching the database.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Length of the hot window, counted back from the current time.
+     */
+    private Duration window = Duration.ofDays(3);
+
+    /**
+     * Delay between two polls of the database for reservations changed since the last poll.
+     */
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    /**
+     * Overlap of consecutive polls: each poll reads reservations updated at or after the last seen update time minus
+     * this lag, so that rows committed after a poll with a slightly older update time are not missed.
+     */
+    private Duration pollLag = Duration.ofMinutes(1);
+
+    /**
+     * Age of the last successful warm-up or poll after which the store is no longer served and ranges are read from
+     * the database, e.g. while polls fail. Should be a few poll intervals.
+     */
+    private Duration maxStaleness = Duration.ofSeconds(30);
+
+    /**
+     * Statement timeout of the warm-up, poll and readmission reads, which run on the interactive pool but may read far
+     * more rows than its statement timeout allows for. Zero disables the timeout.
+     */
+    private Duration statementTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Upper bound of off-heap memory used by all series together, in bytes.
+     * Least recently read series are evicted once it is exceeded.
+     */
+    private long maxBytes = 256L * 1024 * 1024;
+
+    /**
+     * Upper bound of rows kept for a single asset/market series; larger series are served from the database.
+     */
+    private int maxRowsPerSeries = 50_000;
+
+    /**
+     * Time after which an evicted series is loaded again on the next poll, if the memory budget has room for it.
+     * Series that still do not fit are evicted again and retried after another period.
+     */
+    private Duration readmitAfter = Duration.ofMinutes(5);
+}
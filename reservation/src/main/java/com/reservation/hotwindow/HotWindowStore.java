@@ -0,0 +1,389 @@
+package com.reservation.hotwindow;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
+import com.reservation.repository.ReservationRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory store of recent reservations, organized as one {@link OffHeapSeries} per asset/market pair.
+ * The store is warmed once the application is ready and then kept current by polling for reservations
+ * whose {@code updated_at} is at or after the last seen watermark minus {@code poll-lag}. The overlap picks up rows
+ * committed late with an update time shortly before the watermark; they are applied again by id, which is
+ * idempotent. The store is not served while its last successful refresh is older than {@code max-staleness}, e.g.
+ * while polls fail, and ranges are read from the database instead. Rows older than the hot window are evicted,
+ * and whole series are evicted when they exceed the per-series limit or the overall memory budget.
+ * Evicted series are served from the database until they are loaded again, at the earliest {@code readmit-after}
+ * later and only while the memory budget has room for them.
+ * Reservations committed with an update time older than the watermark by more than {@code poll-lag}, and deleted
+ * reservations, are not observed.
+ * Always created eagerly, so that polling is scheduled even when lazy initialization is enabled.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@Lazy(false)
+public class HotWindowStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HotWindowStore.class);
+
+    private final ReservationRepository reservationRepository;
+    private final HotWindowProperties properties;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<SeriesKey, OffHeapSeries> series = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SeriesKey, Long> evicted = new ConcurrentHashMap<>();
+    private final Object refreshLock = new Object();
+
+    private volatile boolean ready;
+    private volatile boolean warmed;
+    private volatile long lastRefreshNanos;
+    private volatile LocalDateTime coverageStart;
+    private LocalDateTime watermark;
+
+    /**
+     * Constructs a new instance of {@code HotWindowStore} with the specified dependencies.
+     *
+     * @param reservationRepository the repository used to load reservations
+     * @param properties            the hot window configuration
+     * @param entityManager         the entity manager used to detach streamed entities
+     * @param transactionManager    the transaction manager for streaming reads
+     */
+    @Autowired
+    public HotWindowStore(ReservationRepository reservationRepository, HotWindowProperties properties,
+                          EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.properties = properties;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Returns the reservations of a series within the given time range, if the range lies fully inside the hot window.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return the matching reservations as a series in timestamp order, or an empty optional if the database has to be queried
+     */
+    public Optional<ReservationSeries> find(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = coverageStart;
+        if (!isFresh() || start == null || from.isBefore(start)) {
+            return Optional.empty();
+        }
+
+        SeriesKey key = new SeriesKey(assetId, marketId);
+        if (evicted.containsKey(key)) {
+            return Optional.empty();
+        }
+
+        OffHeapSeries offHeapSeries = series.get(key);
+        if (offHeapSeries == null) {
+            return Optional.of(new ReservationSeries(assetId, marketId));
+        }
+        synchronized (offHeapSeries) {
+            return Optional.of(offHeapSeries.range(from, to));
+        }
+    }
+
+    /**
+     * Returns the reservations of all series of the given assets within the given time range, if the range lies
+     * fully inside the hot window and none of these series has been evicted.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for the series of all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return one series per asset/market pair that has reservations in the hot window, or an empty optional if
+     * the database has to be queried
+     */
+    public Optional<List<ReservationSeries>> findAll(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = coverageStart;
+        if (!isFresh() || start == null || from.isBefore(start)) {
+            return Optional.empty();
+        }
+        if (evicted.keySet().stream().anyMatch(key -> matches(key, assetIds, marketId))) {
+            return Optional.empty();
+        }
+
+        List<ReservationSeries> matching = new ArrayList<>();
+        for (Map.Entry<SeriesKey, OffHeapSeries> entry : series.entrySet()) {
+            if (matches(entry.getKey(), assetIds, marketId)) {
+                synchronized (entry.getValue()) {
+                    matching.add(entry.getValue().range(from, to));
+                }
+            }
+        }
+        return Optional.of(matching);
+    }
+
+    /**
+     * Loads all reservations of the hot window once the application has started. If loading fails, it is retried on
+     * the next poll and the database is queried until then.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ready = true;
+        refresh();
+    }
+
+    /**
+     * Applies reservations changed since the last poll, evicts rows that left the hot window and loads evicted series
+     * again that are due and fit into the memory budget. Warms the store first if that has not succeeded yet.
+     */
+    @Scheduled(fixedDelayString = "${reservation.hot-window.poll-interval:PT5S}")
+    public void poll() {
+        if (ready) {
+            refresh();
+        }
+    }
+
+    /**
+     * Warms or polls the store. A failure is logged and leaves the watermark and coverage as they were, so that the
+     * next poll reads the same changes again; the store is not served while it is stale.
+     */
+    private void refresh() {
+        synchronized (refreshLock) {
+            long started = System.nanoTime();
+            try {
+                if (warmed) {
+                    pollChanges();
+                } else {
+                    loadWindow();
+                    log.info("Hot window warmed with {} series ({} bytes off-heap) in {} ms",
+                            series.size(), reservedBytes(), (System.nanoTime() - started) / 1_000_000);
+                }
+                lastRefreshNanos = started;
+            } catch (RuntimeException e) {
+                log.warn("Could not {} the hot window, serving its range from the database until it is refreshed",
+                        warmed ? "poll" : "warm", e);
+            }
+        }
+    }
+
+    private void loadWindow() {
+        series.clear();
+        evicted.clear();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = now.minus(properties.getWindow());
+        LocalDateTime maxUpdatedAt = load(() -> reservationRepository.streamByTimestampGreaterThanEqualOrderByAssetIdAscMarketIdAscTimestampAscIdAsc(start), start);
+
+        watermark = nextWatermark(now, maxUpdatedAt);
+        coverageStart = start;
+        enforceBudget();
+        warmed = true;
+    }
+
+    private void pollChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = now.minus(properties.getWindow());
+        LocalDateTime updatedFrom = watermark.minus(properties.getPollLag());
+        LocalDateTime maxUpdatedAt = load(() -> reservationRepository.streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(updatedFrom, coverageStart), coverageStart);
+        LocalDateTime next = nextWatermark(now, maxUpdatedAt);
+        if (next.isAfter(watermark)) {
+            watermark = next;
+        }
+
+        for (OffHeapSeries offHeapSeries : series.values()) {
+            synchronized (offHeapSeries) {
+                offHeapSeries.evictBefore(start);
+            }
+        }
+        coverageStart = start;
+        enforceBudget();
+        readmit();
+    }
+
+    /**
+     * Returns the watermark after reading changes up to the given update time: the latest update time seen, but not
+     * later than the start of the read, so that a client setting {@code updated_at} ahead of the clock does not hide
+     * later changes.
+     */
+    private static LocalDateTime nextWatermark(LocalDateTime readStarted, LocalDateTime maxUpdatedAt) {
+        return maxUpdatedAt == null || maxUpdatedAt.isAfter(readStarted) ? readStarted : maxUpdatedAt;
+    }
+
+    /**
+     * Returns whether the store has been refreshed recently enough to be served.
+     */
+    private boolean isFresh() {
+        return warmed && System.nanoTime() - lastRefreshNanos <= properties.getMaxStaleness().toNanos();
+    }
+
+    /**
+     * Returns the off-heap memory currently reserved by all series.
+     *
+     * @return the reserved bytes
+     */
+    public long reservedBytes() {
+        return series.values().stream().mapToLong(OffHeapSeries::reservedBytes).sum();
+    }
+
+    /**
+     * Upserts streamed reservations into their series.
+     *
+     * @return the highest update time seen, or {@code null} if the stream was empty
+     */
+    private LocalDateTime load(Supplier<Stream<Reservation>> query, LocalDateTime start) {
+        return transactionTemplate.execute(status -> {
+            setStatementTimeout();
+            LocalDateTime maxUpdatedAt = null;
+            try (Stream<Reservation> stream = query.get()) {
+                for (Reservation reservation : (Iterable<Reservation>) stream::iterator) {
+                    entityManager.detach(reservation);
+                    if (reservation.getTimestamp().isBefore(start)) {
+                        continue;
+                    }
+                    upsert(reservation);
+                    if (maxUpdatedAt == null || reservation.getUpdatedAt().isAfter(maxUpdatedAt)) {
+                        maxUpdatedAt = reservation.getUpdatedAt();
+                    }
+                }
+            }
+            return maxUpdatedAt;
+        });
+    }
+
+    private void upsert(Reservation reservation) {
+        SeriesKey key = new SeriesKey(reservation.getAssetId(), reservation.getMarketId());
+        if (evicted.containsKey(key)) {
+            return;
+        }
+
+        OffHeapSeries offHeapSeries = series.computeIfAbsent(key, k -> new OffHeapSeries(k.assetId(), k.marketId()));
+        synchronized (offHeapSeries) {
+            offHeapSeries.upsert(reservation);
+            if (offHeapSeries.size() > properties.getMaxRowsPerSeries()) {
+                evict(key, "it exceeds " + properties.getMaxRowsPerSeries() + " rows");
+            }
+        }
+    }
+
+    /**
+     * Evicts least recently read series until the memory budget is met.
+     */
+    private void enforceBudget() {
+        long reserved = reservedBytes();
+        if (reserved <= properties.getMaxBytes()) {
+            return;
+        }
+
+        List<Map.Entry<SeriesKey, OffHeapSeries>> byLastAccess = series.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos()))
+                .toList();
+        for (Map.Entry<SeriesKey, OffHeapSeries> entry : byLastAccess) {
+            if (reserved <= properties.getMaxBytes()) {
+                break;
+            }
+            reserved -= entry.getValue().reservedBytes();
+            evict(entry.getKey(), "the hot window exceeds " + properties.getMaxBytes() + " bytes");
+        }
+    }
+
+    /**
+     * Loads series evicted at least {@code readmit-after} ago again, longest evicted first, while the memory budget
+     * has room for them. A series that exceeds the per-series limit or the remaining budget stays evicted for another
+     * {@code readmit-after}.
+     */
+    private void readmit() {
+        long now = System.nanoTime();
+        long readmitAfter = properties.getReadmitAfter().toNanos();
+        List<SeriesKey> due = evicted.entrySet().stream()
+                .filter(entry -> now - entry.getValue() >= readmitAfter)
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .toList();
+        for (SeriesKey key : due) {
+            long reserved = reservedBytes();
+            if (reserved >= properties.getMaxBytes()) {
+                return;
+            }
+            OffHeapSeries reloaded = reload(key);
+            if (reloaded == null || reserved + reloaded.reservedBytes() > properties.getMaxBytes()) {
+                evicted.put(key, System.nanoTime());
+                continue;
+            }
+            series.put(key, reloaded);
+            evicted.remove(key);
+            log.info("Readmitted series asset={} market={} to the hot window with {} rows", key.assetId(), key.marketId(), reloaded.size());
+        }
+    }
+
+    /**
+     * Replaces the statement timeout of the interactive pool for the rest of the current transaction, since loading the
+     * window or a large poll may take longer than an interactive read.
+     */
+    private void setStatementTimeout() {
+        entityManager.createNativeQuery("SELECT set_config('statement_timeout', :timeout, true)")
+                .setParameter("timeout", String.valueOf(properties.getStatementTimeout().toMillis()))
+                .getSingleResult();
+    }
+
+    /**
+     * Loads the rows of a series within the hot window from the database.
+     *
+     * @return the series, or {@code null} if it exceeds the per-series limit
+     */
+    private OffHeapSeries reload(SeriesKey key) {
+        return transactionTemplate.execute(status -> {
+            setStatementTimeout();
+            OffHeapSeries reloaded = new OffHeapSeries(key.assetId(), key.marketId());
+            try (Stream<Reservation> stream = reservationRepository.streamByAssetIdAndMarketIdAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(
+                    key.assetId(), key.marketId(), coverageStart)) {
+                for (Reservation reservation : (Iterable<Reservation>) stream::iterator) {
+                    entityManager.detach(reservation);
+                    reloaded.upsert(reservation);
+                    if (reloaded.size() > properties.getMaxRowsPerSeries()) {
+                        return null;
+                    }
+                }
+            }
+            return reloaded;
+        });
+    }
+
+    private static boolean matches(SeriesKey key, Collection<UUID> assetIds, UUID marketId) {
+        return assetIds.contains(key.assetId()) && (marketId == null || marketId.equals(key.marketId()));
+    }
+
+    private void evict(SeriesKey key, String reason) {
+        evicted.put(key, System.nanoTime());
+        series.remove(key);
+        log.info("Evicted series asset={} market={} from the hot window because {}", key.assetId(), key.marketId(), reason);
+    }
+
+    /**
+     * Identifies the series of one asset/market pair.
+     */
+    private record SeriesKey(UUID assetId, UUID marketId) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.reservation.hotwindow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap hash map from reservation id to the timestamp of its row in an {@link OffHeapSeries}.
+ * Uses open addressing with linear probing and backward-shift deletion, so no tombstones accumulate; the table is kept
+ * at most half full and shrinks again once it is mostly empty. Instances are not thread-safe.
+ *
+ * @author Bojana Samardzic
+ */
+class OffHeapIdIndex {
+
+    /**
+     * Returned by {@link #get(long)} for ids that are not in the index.
+     */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private LongBuffer keys;
+    private LongBuffer values;
+    private int capacity;
+    private int size;
+
+    OffHeapIdIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the off-heap memory reserved by the index.
+     */
+    long reservedBytes() {
+        return (long) capacity * 2 * Long.BYTES;
+    }
+
+    /**
+     * Returns the timestamp stored for an id.
+     *
+     * @param id the reservation id
+     * @return the timestamp in epoch microseconds, or {@link #MISSING} if the id is not in the index
+     */
+    long get(long id) {
+        int slot = slotOf(id);
+        return slot < 0 ? MISSING : values.get(slot);
+    }
+
+    /**
+     * Stores the timestamp of an id, replacing a previous one.
+     *
+     * @param id        the reservation id
+     * @param timestamp the timestamp in epoch microseconds
+     */
+    void put(long id, long timestamp) {
+        if (2 * (size + 1) > capacity) {
+            allocate(capacity * 2);
+        }
+        int slot = home(id);
+        while (keys.get(slot) != EMPTY && keys.get(slot) != id) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (keys.get(slot) == EMPTY) {
+            size++;
+        }
+        keys.put(slot, id);
+        values.put(slot, timestamp);
+    }
+
+    /**
+     * Removes an id, moving later entries of its probe sequence back so that lookups still find them.
+     *
+     * @param id the reservation id
+     */
+    void remove(long id) {
+        int hole = slotOf(id);
+        if (hole < 0) {
+            return;
+        }
+        int mask = capacity - 1;
+        for (int slot = (hole + 1) & mask; keys.get(slot) != EMPTY; slot = (slot + 1) & mask) {
+            int home = home(keys.get(slot));
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys.put(hole, keys.get(slot));
+                values.put(hole, values.get(slot));
+                hole = slot;
+            }
+        }
+        keys.put(hole, EMPTY);
+        size--;
+
+        if (capacity > INITIAL_CAPACITY && 8 * size < capacity) {
+            allocate(capacity / 2);
+        }
+    }
+
+    private int slotOf(long id) {
+        int slot = home(id);
+        while (keys.get(slot) != EMPTY) {
+            if (keys.get(slot) == id) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    private int home(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    /**
+     * Moves all entries to newly allocated direct buffers of the given capacity, a power of two.
+     */
+    private void allocate(int newCapacity) {
+        LongBuffer oldKeys = keys;
+        LongBuffer oldValues = values;
+        int oldCapacity = capacity;
+
+        keys = ByteBuffer.allocateDirect(newCapacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        values = ByteBuffer.allocateDirect(newCapacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        capacity = newCapacity;
+        size = 0;
+        for (int i = 0; i < newCapacity; i++) {
+            keys.put(i, EMPTY);
+        }
+
+        for (int i = 0; i < oldCapacity; i++) {
+            if (oldKeys.get(i) != EMPTY) {
+                put(oldKeys.get(i), oldValues.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.reservation.hotwindow;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Reservations of a single asset/market pair stored as off-heap primitive columns.
+ * Rows are kept ordered by timestamp and id; timestamps are stored as epoch microseconds and bid IDs as their most
+ * and least significant bits with a flag per row marking the bids that are present, so that no per-row data is kept
+ * on the heap. An {@link OffHeapIdIndex} maps each id to the timestamp of its row, so that a
+ * reservation whose timestamp changed replaces its previous row. Instances are not thread-safe; {@link HotWindowStore} synchronizes access.
+ *
+ * @author Bojana Samardzic
+ */
+class OffHeapSeries {
+
+    /**
+     * Off-heap bytes per row: nine 8-byte columns, the two halves of two bid IDs and a byte of bid flags.
+     */
+    static final int ROW_BYTES = 9 * Long.BYTES + 4 * Long.BYTES + 1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte POSITIVE_BID = 1;
+    private static final byte NEGATIVE_BID = 2;
+
+    private final UUID assetId;
+    private final UUID marketId;
+
+    private int size;
+    private int capacity;
+
+    private LongBuffer ids;
+    private LongBuffer timestamps;
+    private LongBuffer updatedAts;
+    private DoubleBuffer positiveValues;
+    private DoubleBuffer positiveCapacityPrices;
+    private DoubleBuffer positiveEnergyPrices;
+    private DoubleBuffer negativeValues;
+    private DoubleBuffer negativeCapacityPrices;
+    private DoubleBuffer negativeEnergyPrices;
+    private LongBuffer positiveBidMsbs;
+    private LongBuffer positiveBidLsbs;
+    private LongBuffer negativeBidMsbs;
+    private LongBuffer negativeBidLsbs;
+    private ByteBuffer bidFlags;
+
+    private final OffHeapIdIndex rowIds = new OffHeapIdIndex();
+
+    private long lastAccessNanos = System.nanoTime();
+
+    OffHeapSeries(UUID assetId, UUID marketId) {
+        this.assetId = assetId;
+        this.marketId = marketId;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the off-heap memory reserved by this series, including its id index.
+     */
+    long reservedBytes() {
+        return (long) capacity * ROW_BYTES + rowIds.reservedBytes();
+    }
+
+    long lastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * Inserts a reservation or, if a row with the same id exists, replaces it; the row is moved if the timestamp of the
+     * reservation changed. A row sorting after all others is appended without moving any, so that loading reservations
+     * in timestamp and id order takes linear time.
+     *
+     * @param reservation the reservation to store
+     */
+    void upsert(Reservation reservation) {
+        long timestamp = ReservationSeries.toEpochMicros(reservation.getTimestamp());
+        long id = reservation.getId();
+
+        long previousTimestamp = rowIds.get(id);
+        if (previousTimestamp != OffHeapIdIndex.MISSING) {
+            int row = rowOf(id, previousTimestamp);
+            if (previousTimestamp == timestamp) {
+                write(row, id, timestamp, reservation);
+                return;
+            }
+            removeRow(row);
+        }
+
+        int position = insertionPoint(id, timestamp);
+        if (size == capacity) {
+            allocate(capacity * 2);
+        }
+        shiftRight(position);
+        size++;
+        write(position, id, timestamp, reservation);
+        rowIds.put(id, timestamp);
+    }
+
+    /**
+     * Removes all rows with a timestamp before the given time.
+     *
+     * @param start the first timestamp to keep
+     */
+    void evictBefore(LocalDateTime start) {
+        int removed = lowerBound(ReservationSeries.toEpochMicros(start));
+        if (removed == 0) {
+            return;
+        }
+        for (int i = 0; i < removed; i++) {
+            rowIds.remove(ids.get(i));
+        }
+        for (int i = removed; i < size; i++) {
+            copyRow(i, i - removed);
+        }
+        size -= removed;
+
+        if (capacity > INITIAL_CAPACITY && size < capacity / 4) {
+            allocate(Math.max(INITIAL_CAPACITY, capacity / 2));
+        }
+    }
+
+    /**
+     * Copies the rows with a timestamp between the given bounds (inclusive) into a new on-heap series.
+     *
+     * @param from the start of the time range
+     * @param to   the end of the time range
+     * @return the matching reservations in timestamp order
+     */
+    ReservationSeries range(LocalDateTime from, LocalDateTime to) {
+        lastAccessNanos = System.nanoTime();
+        int first = lowerBound(ReservationSeries.toEpochMicros(from));
+        int end = upperBound(ReservationSeries.toEpochMicros(to));
+        ReservationSeries reservations = new ReservationSeries(assetId, marketId, end - first);
+        for (int i = first; i < end; i++) {
+            reservations.add(
+                    ids.get(i),
+                    timestamps.get(i),
+                    positiveBidId(i),
+                    negativeBidId(i),
+                    positiveValues.get(i),
+                    positiveCapacityPrices.get(i),
+                    positiveEnergyPrices.get(i),
+                    negativeValues.get(i),
+                    negativeCapacityPrices.get(i),
+                    negativeEnergyPrices.get(i),
+                    updatedAts.get(i));
+        }
+        return reservations;
+    }
+
+    /**
+     * Returns the index of the first row whose timestamp is not before the given one.
+     */
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps.get(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first row whose timestamp is after the given one.
+     */
+    private int upperBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps.get(mid) <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index at which a row with the given id and timestamp belongs, checking the end of the series first.
+     */
+    private int insertionPoint(long id, long timestamp) {
+        if (size == 0 || timestamps.get(size - 1) < timestamp
+                || (timestamps.get(size - 1) == timestamp && ids.get(size - 1) < id)) {
+            return size;
+        }
+        int position = lowerBound(timestamp);
+        while (position < size && timestamps.get(position) == timestamp && ids.get(position) < id) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the index of the row with the given id and timestamp, which must exist.
+     */
+    private int rowOf(long id, long timestamp) {
+        int row = lowerBound(timestamp);
+        while (ids.get(row) != id) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Removes a row, leaving its id in the index to be replaced by the caller.
+     */
+    private void removeRow(int row) {
+        for (int i = row + 1; i < size; i++) {
+            copyRow(i, i - 1);
+        }
+        size--;
+    }
+
+    private void write(int row, long id, long timestamp, Reservation reservation) {
+        ids.put(row, id);
+        timestamps.put(row, timestamp);
+        updatedAts.put(row, ReservationSeries.toEpochMicros(reservation.getUpdatedAt()));
+        positiveValues.put(row, reservation.getPositiveValue());
+        positiveCapacityPrices.put(row, reservation.getPositiveCapacityPrice());
+        positiveEnergyPrices.put(row, reservation.getPositiveEnergyPrice());
+        negativeValues.put(row, reservation.getNegativeValue());
+        negativeCapacityPrices.put(row, reservation.getNegativeCapacityPrice());
+        negativeEnergyPrices.put(row, reservation.getNegativeEnergyPrice());
+        byte flags = 0;
+        UUID positiveBidId = reservation.getPositiveBidId();
+        if (positiveBidId != null) {
+            positiveBidMsbs.put(row, positiveBidId.getMostSignificantBits());
+            positiveBidLsbs.put(row, positiveBidId.getLeastSignificantBits());
+            flags |= POSITIVE_BID;
+        }
+        UUID negativeBidId = reservation.getNegativeBidId();
+        if (negativeBidId != null) {
+            negativeBidMsbs.put(row, negativeBidId.getMostSignificantBits());
+            negativeBidLsbs.put(row, negativeBidId.getLeastSignificantBits());
+            flags |= NEGATIVE_BID;
+        }
+        bidFlags.put(row, flags);
+    }
+
+    private void shiftRight(int position) {
+        for (int i = size; i > position; i--) {
+            copyRow(i - 1, i);
+        }
+    }
+
+    private void copyRow(int from, int to) {
+        ids.put(to, ids.get(from));
+        timestamps.put(to, timestamps.get(from));
+        updatedAts.put(to, updatedAts.get(from));
+        positiveValues.put(to, positiveValues.get(from));
+        positiveCapacityPrices.put(to, positiveCapacityPrices.get(from));
+        positiveEnergyPrices.put(to, positiveEnergyPrices.get(from));
+        negativeValues.put(to, negativeValues.get(from));
+        negativeCapacityPrices.put(to, negativeCapacityPrices.get(from));
+        negativeEnergyPrices.put(to, negativeEnergyPrices.get(from));
+        positiveBidMsbs.put(to, positiveBidMsbs.get(from));
+        positiveBidLsbs.put(to, positiveBidLsbs.get(from));
+        negativeBidMsbs.put(to, negativeBidMsbs.get(from));
+        negativeBidLsbs.put(to, negativeBidLsbs.get(from));
+        bidFlags.put(to, bidFlags.get(from));
+    }
+
+    private UUID positiveBidId(int row) {
+        return (bidFlags.get(row) & POSITIVE_BID) != 0 ? new UUID(positiveBidMsbs.get(row), positiveBidLsbs.get(row)) : null;
+    }
+
+    private UUID negativeBidId(int row) {
+        return (bidFlags.get(row) & NEGATIVE_BID) != 0 ? new UUID(negativeBidMsbs.get(row), negativeBidLsbs.get(row)) : null;
+    }
+
+    /**
+     * Moves all columns to newly allocated direct buffers of the given capacity.
+     */
+    private void allocate(int newCapacity) {
+        LongBuffer newIds = longColumn(newCapacity);
+        LongBuffer newTimestamps = longColumn(newCapacity);
+        LongBuffer newUpdatedAts = longColumn(newCapacity);
+        DoubleBuffer newPositiveValues = doubleColumn(newCapacity);
+        DoubleBuffer newPositiveCapacityPrices = doubleColumn(newCapacity);
+        DoubleBuffer newPositiveEnergyPrices = doubleColumn(newCapacity);
+        DoubleBuffer newNegativeValues = doubleColumn(newCapacity);
+        DoubleBuffer newNegativeCapacityPrices = doubleColumn(newCapacity);
+        DoubleBuffer newNegativeEnergyPrices = doubleColumn(newCapacity);
+        LongBuffer newPositiveBidMsbs = longColumn(newCapacity);
+        LongBuffer newPositiveBidLsbs = longColumn(newCapacity);
+        LongBuffer newNegativeBidMsbs = longColumn(newCapacity);
+        LongBuffer newNegativeBidLsbs = longColumn(newCapacity);
+        ByteBuffer newBidFlags = ByteBuffer.allocateDirect(newCapacity);
+
+        for (int i = 0; i < size; i++) {
+            newIds.put(i, ids.get(i));
+            newTimestamps.put(i, timestamps.get(i));
+            newUpdatedAts.put(i, updatedAts.get(i));
+            newPositiveValues.put(i, positiveValues.get(i));
+            newPositiveCapacityPrices.put(i, positiveCapacityPrices.get(i));
+            newPositiveEnergyPrices.put(i, positiveEnergyPrices.get(i));
+            newNegativeValues.put(i, negativeValues.get(i));
+            newNegativeCapacityPrices.put(i, negativeCapacityPrices.get(i));
+            newNegativeEnergyPrices.put(i, negativeEnergyPrices.get(i));
+            newPositiveBidMsbs.put(i, positiveBidMsbs.get(i));
+            newPositiveBidLsbs.put(i, positiveBidLsbs.get(i));
+            newNegativeBidMsbs.put(i, negativeBidMsbs.get(i));
+            newNegativeBidLsbs.put(i, negativeBidLsbs.get(i));
+            newBidFlags.put(i, bidFlags.get(i));
+        }
+
+        ids = newIds;
+        timestamps = newTimestamps;
+        updatedAts = newUpdatedAts;
+        positiveValues = newPositiveValues;
+        positiveCapacityPrices = newPositiveCapacityPrices;
+        positiveEnergyPrices = newPositiveEnergyPrices;
+        negativeValues = newNegativeValues;
+        negativeCapacityPrices = newNegativeCapacityPrices;
+        negativeEnergyPrices = newNegativeEnergyPrices;
+        positiveBidMsbs = newPositiveBidMsbs;
+        positiveBidLsbs = newPositiveBidLsbs;
+        negativeBidMsbs = newNegativeBidMsbs;
+        negativeBidLsbs = newNegativeBidLsbs;
+        bidFlags = newBidFlags;
+        capacity = newCapacity;
+    }
+
+    private static LongBuffer longColumn(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private static DoubleBuffer doubleColumn(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+}
@@ -0,0 +1,148 @@
+package com.reservation.model;
+
+import java.util.Arrays;
+
+/**
+ * Totals of positive and negative reservation values per timestamp, summed over several series, e.g. all markets of
+ * an asset or all assets of a portfolio. Stored as primitive columns with one row per timestamp, in timestamp order.
+ * Timestamps are epoch microseconds of the UTC date-time like in {@link ReservationSeries}; values are fixed-point
+ * milli-kW (see {@link FixedPoint}), so the totals are exact.
+ * Instances are not thread-safe.
+ *
+ * @author Bojana Samardzic
+ */
+public final class AggregateSeries {
+
+    private static final int DEFAULT_CAPACITY = 96;
+
+    private int size;
+    private long[] timestamps;
+    private long[] positiveValues;
+    private long[] negativeValues;
+
+    /**
+     * Creates an empty aggregate.
+     */
+    public AggregateSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty aggregate with room for the given number of timestamps.
+     *
+     * @param capacity the expected number of timestamps
+     */
+    public AggregateSeries(int capacity) {
+        int initialCapacity = Math.max(1, capacity);
+        timestamps = new long[initialCapacity];
+        positiveValues = new long[initialCapacity];
+        negativeValues = new long[initialCapacity];
+    }
+
+    /**
+     * Sums the values of a series per timestamp, each value rounded to milli-kW.
+     *
+     * @param series the series to sum up, in timestamp order
+     * @return the totals of the series, one row per timestamp
+     */
+    public static AggregateSeries of(ReservationSeries series) {
+        AggregateSeries aggregate = new AggregateSeries(series.size());
+        for (int row = 0; row < series.size(); row++) {
+            aggregate.accumulate(series.getTimestamp(row),
+                    FixedPoint.toMilliKw(series.getPositiveValue(row)), FixedPoint.toMilliKw(series.getNegativeValue(row)));
+        }
+        return aggregate;
+    }
+
+    /**
+     * Adds values to the totals of a timestamp. The timestamp must not be before the last timestamp of the aggregate;
+     * values of the last timestamp are added to its row, values of a later one start a new row.
+     *
+     * @param timestamp     the time point in epoch microseconds
+     * @param positiveValue the positive value in milli-kW
+     * @param negativeValue the negative value in milli-kW
+     * @throws IllegalArgumentException if the timestamp is before the last timestamp of the aggregate
+     */
+    public void accumulate(long timestamp, long positiveValue, long negativeValue) {
+        if (size > 0 && timestamp == timestamps[size - 1]) {
+            positiveValues[size - 1] += positiveValue;
+            negativeValues[size - 1] += negativeValue;
+            return;
+        }
+        if (size > 0 && timestamp < timestamps[size - 1]) {
+            throw new IllegalArgumentException("Totals must be accumulated in timestamp order");
+        }
+        if (size == timestamps.length) {
+            grow();
+        }
+        timestamps[size] = timestamp;
+        positiveValues[size] = positiveValue;
+        negativeValues[size] = negativeValue;
+        size++;
+    }
+
+    /**
+     * Combines two aggregates into a new one with the sums of both, merging their timestamps in order.
+     *
+     * @param other the aggregate to combine with this one
+     * @return a new aggregate holding the totals of both
+     */
+    public AggregateSeries combine(AggregateSeries other) {
+        AggregateSeries combined = new AggregateSeries(Math.max(size, other.size));
+        int left = 0;
+        int right = 0;
+        while (left < size || right < other.size) {
+            if (right == other.size || (left < size && timestamps[left] <= other.timestamps[right])) {
+                combined.accumulate(timestamps[left], positiveValues[left], negativeValues[left]);
+                left++;
+            } else {
+                combined.accumulate(other.timestamps[right], other.positiveValues[right], other.negativeValues[right]);
+                right++;
+            }
+        }
+        return combined;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the time point of a row in epoch microseconds.
+     */
+    public long getTimestamp(int row) {
+        return timestamps[checkRow(row)];
+    }
+
+    /**
+     * Returns the total positive value of a row in milli-kW.
+     */
+    public long getPositiveValue(int row) {
+        return positiveValues[checkRow(row)];
+    }
+
+    /**
+     * Returns the total negative value of a row in milli-kW.
+     */
+    public long getNegativeValue(int row) {
+        return negativeValues[checkRow(row)];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for aggregate of size " + size);
+        }
+        return row;
+    }
+
+    private void grow() {
+        int newCapacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        positiveValues = Arrays.copyOf(positiveValues, newCapacity);
+        negativeValues = Arrays.copyOf(negativeValues, newCapacity);
+    }
+}
@@ -0,0 +1,44 @@
+package com.reservation.model;
+
+/**
+ * Conversion of reservation values between kW, as stored in the database, and fixed-point milli-kW.
+ * Values in milli-kW are exact integers, so sums of them carry no floating-point error.
+ *
+ * @author Bojana Samardzic
+ */
+public final class FixedPoint {
+
+    /**
+     * Number of milli-kW per kW.
+     */
+    public static final long MILLI_KW_PER_KW = 1_000;
+
+    /**
+     * Number of milli-kW per MW.
+     */
+    public static final long MILLI_KW_PER_MW = 1_000_000;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts a value in kW to milli-kW, rounding to the nearest milli-kW (1 W).
+     *
+     * @param kw the value in kW
+     * @return the value in milli-kW
+     */
+    public static long toMilliKw(double kw) {
+        return Math.round(kw * MILLI_KW_PER_KW);
+    }
+
+    /**
+     * Converts a value in milli-kW to kW. The result converts back to the same milli-kW with {@link #toMilliKw(double)}
+     * for all values below 2<sup>50</sup> milli-kW.
+     *
+     * @param milliKw the value in milli-kW
+     * @return the value in kW
+     */
+    public static double toKw(long milliKw) {
+        return milliKw / (double) MILLI_KW_PER_KW;
+    }
+}
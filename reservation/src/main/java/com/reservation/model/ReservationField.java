@@ -0,0 +1,101 @@
+package com.reservation.model;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of a reservation that can be selected for an export or a JSON response, in the column order of the detailed export.
+ * Each field knows its name in the CSV header and in JSON, and the database column it is read from.
+ *
+ * @author Bojana Samardzic
+ */
+public enum ReservationField {
+
+    TIMESTAMP("timestamp", "timestamp"),
+    ASSET_ID("assetId", null),
+    MARKET_ID("marketId", null),
+    POSITIVE_BID_ID("positiveBidId", "positive_bid_id"),
+    NEGATIVE_BID_ID("negativeBidId", "negative_bid_id"),
+    POSITIVE_VALUE("positiveValue", "positive_value"),
+    POSITIVE_CAPACITY_PRICE("positiveCapacityPrice", "positive_capacity_price"),
+    POSITIVE_ENERGY_PRICE("positiveEnergyPrice", "positive_energy_price"),
+    NEGATIVE_VALUE("negativeValue", "negative_value"),
+    NEGATIVE_CAPACITY_PRICE("negativeCapacityPrice", "negative_capacity_price"),
+    NEGATIVE_ENERGY_PRICE("negativeEnergyPrice", "negative_energy_price"),
+    UPDATED_AT("updatedAt", "updated_at");
+
+    private final String fieldName;
+    private final String column;
+
+    ReservationField(String fieldName, String column) {
+        this.fieldName = fieldName;
+        this.column = column;
+    }
+
+    /**
+     * Returns the name of the field in the CSV header and in JSON.
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns the database column the field is read from, or {@code null} if the field is shared by all rows of a
+     * series and therefore never read per row.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns whether the field holds a value or price, i.e. a {@code double} column of the series.
+     */
+    public boolean isNumeric() {
+        return switch (this) {
+            case POSITIVE_VALUE, POSITIVE_CAPACITY_PRICE, POSITIVE_ENERGY_PRICE,
+                 NEGATIVE_VALUE, NEGATIVE_CAPACITY_PRICE, NEGATIVE_ENERGY_PRICE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the value of the field in a row of a series, e.g. for a JSON response.
+     *
+     * @param series the series containing the row
+     * @param row    the index of the row within the series
+     * @return the value of the field, with timestamps as date-times
+     */
+    public Object valueOf(ReservationSeries series, int row) {
+        return switch (this) {
+            case TIMESTAMP -> ReservationSeries.fromEpochMicros(series.getTimestamp(row));
+            case ASSET_ID -> series.getAssetId();
+            case MARKET_ID -> series.getMarketId();
+            case POSITIVE_BID_ID -> series.getPositiveBidId(row);
+            case NEGATIVE_BID_ID -> series.getNegativeBidId(row);
+            case POSITIVE_VALUE -> series.getPositiveValue(row);
+            case POSITIVE_CAPACITY_PRICE -> series.getPositiveCapacityPrice(row);
+            case POSITIVE_ENERGY_PRICE -> series.getPositiveEnergyPrice(row);
+            case NEGATIVE_VALUE -> series.getNegativeValue(row);
+            case NEGATIVE_CAPACITY_PRICE -> series.getNegativeCapacityPrice(row);
+            case NEGATIVE_ENERGY_PRICE -> series.getNegativeEnergyPrice(row);
+            case UPDATED_AT -> ReservationSeries.fromEpochMicros(series.getUpdatedAt(row));
+        };
+    }
+
+    /**
+     * Finds a field by its name in the CSV header and in JSON.
+     *
+     * @param fieldName the name of the field, e.g. {@code positiveValue}
+     * @return the field with that name
+     * @throws IllegalArgumentException if no field has that name
+     */
+    public static ReservationField fromFieldName(String fieldName) {
+        for (ReservationField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field '" + fieldName + "', expected one of "
+                + Arrays.stream(values()).map(ReservationField::getFieldName).collect(Collectors.joining(", ")));
+    }
+}
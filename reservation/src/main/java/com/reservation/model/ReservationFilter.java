@@ -0,0 +1,196 @@
+package com.reservation.model;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conditions on the values, prices, bids and update time of reservations, bound from the query parameters of an export.
+ * All conditions are optional and combined with AND; bounds are inclusive. Values are given in MW like in the export,
+ * prices in EUR/MW/h. The repository compiles the conditions into the {@code WHERE} clause of the export query, so only
+ * matching rows are read.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+public class ReservationFilter {
+
+    /**
+     * Lower bound of the positive value in MW.
+     */
+    private Double minPositiveValue;
+
+    /**
+     * Upper bound of the positive value in MW.
+     */
+    private Double maxPositiveValue;
+
+    /**
+     * Lower bound of the negative value in MW.
+     */
+    private Double minNegativeValue;
+
+    /**
+     * Upper bound of the negative value in MW.
+     */
+    private Double maxNegativeValue;
+
+    /**
+     * Lower bound of the positive capacity price.
+     */
+    private Double minPositiveCapacityPrice;
+
+    /**
+     * Upper bound of the positive capacity price.
+     */
+    private Double maxPositiveCapacityPrice;
+
+    /**
+     * Lower bound of the positive energy price.
+     */
+    private Double minPositiveEnergyPrice;
+
+    /**
+     * Upper bound of the positive energy price.
+     */
+    private Double maxPositiveEnergyPrice;
+
+    /**
+     * Lower bound of the negative capacity price.
+     */
+    private Double minNegativeCapacityPrice;
+
+    /**
+     * Upper bound of the negative capacity price.
+     */
+    private Double maxNegativeCapacityPrice;
+
+    /**
+     * Lower bound of the negative energy price.
+     */
+    private Double minNegativeEnergyPrice;
+
+    /**
+     * Upper bound of the negative energy price.
+     */
+    private Double maxNegativeEnergyPrice;
+
+    /**
+     * If set, only reservations with ({@code true}) or without ({@code false}) a positive bid match.
+     */
+    private Boolean hasPositiveBid;
+
+    /**
+     * If set, only reservations with ({@code true}) or without ({@code false}) a negative bid match.
+     */
+    private Boolean hasNegativeBid;
+
+    /**
+     * Earliest update time of matching reservations.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private ZonedDateTime updatedFrom;
+
+    /**
+     * Latest update time of matching reservations.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private ZonedDateTime updatedTo;
+
+    /**
+     * Returns whether the filter has no condition and matches every reservation.
+     */
+    public boolean isEmpty() {
+        return ranges().isEmpty() && hasPositiveBid == null && hasNegativeBid == null && updatedFrom == null && updatedTo == null;
+    }
+
+    /**
+     * Checks that every range is well-formed.
+     *
+     * @throws IllegalArgumentException if a bound is not a number or a lower bound is above its upper bound
+     */
+    public void validate() {
+        for (ValueRange range : ranges()) {
+            if ((range.min() != null && range.min().isNaN()) || (range.max() != null && range.max().isNaN())) {
+                throw new IllegalArgumentException("Invalid filter: bounds of '" + range.field().getFieldName() + "' must be numbers");
+            }
+            if (range.min() != null && range.max() != null && range.min() > range.max()) {
+                throw new IllegalArgumentException("Invalid filter: minimum of '" + range.field().getFieldName() + "' cannot be above its maximum");
+            }
+        }
+        if (updatedFrom != null && updatedTo != null && updatedFrom.isAfter(updatedTo)) {
+            throw new IllegalArgumentException("Invalid filter: 'updatedFrom' cannot be after 'updatedTo'");
+        }
+    }
+
+    /**
+     * Returns the value and price ranges that have at least one bound, with the bounds in database units
+     * (values in kW, prices in EUR/MW/h).
+     *
+     * @return the ranges in column order
+     */
+    public List<ValueRange> ranges() {
+        List<ValueRange> ranges = new ArrayList<>();
+        addRange(ranges, ReservationField.POSITIVE_VALUE, toKw(minPositiveValue), toKw(maxPositiveValue));
+        addRange(ranges, ReservationField.POSITIVE_CAPACITY_PRICE, minPositiveCapacityPrice, maxPositiveCapacityPrice);
+        addRange(ranges, ReservationField.POSITIVE_ENERGY_PRICE, minPositiveEnergyPrice, maxPositiveEnergyPrice);
+        addRange(ranges, ReservationField.NEGATIVE_VALUE, toKw(minNegativeValue), toKw(maxNegativeValue));
+        addRange(ranges, ReservationField.NEGATIVE_CAPACITY_PRICE, minNegativeCapacityPrice, maxNegativeCapacityPrice);
+        addRange(ranges, ReservationField.NEGATIVE_ENERGY_PRICE, minNegativeEnergyPrice, maxNegativeEnergyPrice);
+        return ranges;
+    }
+
+    /**
+     * Tests a row of a series against the filter, for series that are not read from the database.
+     *
+     * @param series the series containing the row
+     * @param row    the index of the row within the series
+     * @return whether the row satisfies all conditions
+     */
+    public boolean matches(ReservationSeries series, int row) {
+        for (ValueRange range : ranges()) {
+            if (!range.contains((Double) range.field().valueOf(series, row))) {
+                return false;
+            }
+        }
+        if (hasPositiveBid != null && hasPositiveBid != (series.getPositiveBidId(row) != null)) {
+            return false;
+        }
+        if (hasNegativeBid != null && hasNegativeBid != (series.getNegativeBidId(row) != null)) {
+            return false;
+        }
+        long updatedAt = series.getUpdatedAt(row);
+        return (updatedFrom == null || updatedAt >= ReservationSeries.toEpochMicros(updatedFrom.toLocalDateTime()))
+                && (updatedTo == null || updatedAt <= ReservationSeries.toEpochMicros(updatedTo.toLocalDateTime()));
+    }
+
+    private static void addRange(List<ValueRange> ranges, ReservationField field, Double min, Double max) {
+        if (min != null || max != null) {
+            ranges.add(new ValueRange(field, min, max));
+        }
+    }
+
+    private static Double toKw(Double mw) {
+        return mw != null ? mw * 1000 : null;
+    }
+
+    /**
+     * Inclusive bounds on the column of a field.
+     *
+     * @param field the field whose column is bounded
+     * @param min   the lower bound, or {@code null} if unbounded below
+     * @param max   the upper bound, or {@code null} if unbounded above
+     */
+    public record ValueRange(ReservationField field, Double min, Double max) {
+
+        /**
+         * Returns whether a value lies within the bounds.
+         */
+        public boolean contains(double value) {
+            return (min == null || value >= min) && (max == null || value <= max);
+        }
+    }
+}
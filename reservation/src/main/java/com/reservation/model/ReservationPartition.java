@@ -0,0 +1,14 @@
+package com.reservation.model;
+
+import java.time.Instant;
+
+/**
+ * A monthly partition of the {@code reservation} table, holding the reservations with a timestamp within its range.
+ *
+ * @param name the name of the partition table
+ * @param from the start of the range of timestamps, inclusive
+ * @param to   the end of the range of timestamps, exclusive
+ * @author Bojana Samardzic
+ */
+public record ReservationPartition(String name, Instant from, Instant to) {
+}
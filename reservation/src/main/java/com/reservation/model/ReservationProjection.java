@@ -0,0 +1,114 @@
+package com.reservation.model;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields of reservations selected by a request, in the order they are written.
+ * Only the columns of the selected fields are read from the database, so narrow projections read and transfer less.
+ *
+ * @param fields the selected fields in output order, without duplicates
+ * @author Bojana Samardzic
+ */
+public record ReservationProjection(List<ReservationField> fields) {
+
+    /**
+     * All fields in the column order of the detailed export.
+     */
+    public static final ReservationProjection DETAILED = new ReservationProjection(List.of(ReservationField.values()));
+
+    /**
+     * The fields of the export of totals per timestamp.
+     */
+    public static final ReservationProjection TOTAL = new ReservationProjection(List.of(ReservationField.TIMESTAMP,
+            ReservationField.ASSET_ID, ReservationField.MARKET_ID, ReservationField.POSITIVE_VALUE, ReservationField.NEGATIVE_VALUE));
+
+    /**
+     * Creates a projection of the given fields.
+     *
+     * @throws IllegalArgumentException if no field is given or a field is given twice
+     */
+    public ReservationProjection {
+        fields = List.copyOf(fields);
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field is required");
+        }
+        if (EnumSet.copyOf(fields).size() != fields.size()) {
+            throw new IllegalArgumentException("Fields must not repeat: " + fields);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of field names, e.g. {@code timestamp,positiveValue,negativeValue}.
+     * Without a list, all fields of the export are selected: those of the detailed export, or those of the totals.
+     *
+     * @param fieldNames the comma-separated field names, or {@code null} to select all fields
+     * @param total      whether the projection applies to the totals per timestamp
+     * @return the projection of the named fields in the given order
+     * @throws IllegalArgumentException if a name is unknown or repeated, or names a field the totals do not have
+     */
+    public static ReservationProjection parse(String fieldNames, boolean total) {
+        ReservationProjection all = total ? TOTAL : DETAILED;
+        if (fieldNames == null) {
+            return all;
+        }
+
+        List<ReservationField> fields = new ArrayList<>();
+        for (String fieldName : fieldNames.split(",")) {
+            ReservationField field = ReservationField.fromFieldName(fieldName.trim());
+            if (!all.fields.contains(field)) {
+                throw new IllegalArgumentException("Field '" + fieldName.trim() + "' is not available in the totals");
+            }
+            fields.add(field);
+        }
+        return new ReservationProjection(fields);
+    }
+
+    /**
+     * Returns whether the projection selects the given field.
+     */
+    public boolean contains(ReservationField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Returns the selected fields that are read from a database column.
+     *
+     * @return the fields with a column, in declaration order
+     */
+    public Set<ReservationField> columnFields() {
+        Set<ReservationField> columnFields = EnumSet.noneOf(ReservationField.class);
+        for (ReservationField field : fields) {
+            if (field.getColumn() != null) {
+                columnFields.add(field);
+            }
+        }
+        return columnFields;
+    }
+
+    /**
+     * Returns the header of an export of the projection.
+     */
+    public String[] header() {
+        return fields.stream().map(ReservationField::getFieldName).toArray(String[]::new);
+    }
+
+    /**
+     * Returns the selected fields of a row of a series by name, in output order, e.g. for a JSON response.
+     *
+     * @param series the series containing the row
+     * @param row    the index of the row within the series
+     * @return the values of the selected fields keyed by field name
+     */
+    public Map<String, Object> toMap(ReservationSeries series, int row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (ReservationField field : fields) {
+            values.put(field.getFieldName(), field.valueOf(series, row));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,465 @@
+package com.reservation.model;
+
+import com.reservation.compute.ColumnKernels;
+import com.reservation.compute.ColumnStatistics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntPredicate;
+
+/**
+ * Reservations of a single asset/market pair stored as primitive columns.
+ * Timestamps are stored as epoch microseconds of the UTC date-time, values and prices as {@code double} columns,
+ * and bid IDs as two {@code long} columns each, holding the most and least significant bits, with a flag column
+ * marking the rows that have a bid. Bid IDs are nearly unique per row, so they are stored without any per-ID objects
+ * and a {@link UUID} is only created when a bid ID is read.
+ * The asset and market IDs are shared by all rows. Rows are kept in timestamp order.
+ * Instances are not thread-safe.
+ *
+ * @author Bojana Samardzic
+ */
+public final class ReservationSeries {
+
+    private static final int DEFAULT_CAPACITY = 96;
+
+    private static final byte POSITIVE_BID = 1;
+    private static final byte NEGATIVE_BID = 2;
+
+    private final UUID assetId;
+    private final UUID marketId;
+
+    private int size;
+
+    private long[] ids;
+    private long[] timestamps;
+    private long[] updatedAts;
+    private double[] positiveValues;
+    private double[] positiveCapacityPrices;
+    private double[] positiveEnergyPrices;
+    private double[] negativeValues;
+    private double[] negativeCapacityPrices;
+    private double[] negativeEnergyPrices;
+    private long[] positiveBidMsbs;
+    private long[] positiveBidLsbs;
+    private long[] negativeBidMsbs;
+    private long[] negativeBidLsbs;
+    private byte[] bidFlags;
+
+    /**
+     * Creates an empty series for the given asset and market.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     */
+    public ReservationSeries(UUID assetId, UUID marketId) {
+        this(assetId, marketId, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty series for the given asset and market with room for the given number of rows.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param capacity the expected number of rows
+     */
+    public ReservationSeries(UUID assetId, UUID marketId, int capacity) {
+        this.assetId = assetId;
+        this.marketId = marketId;
+        int initialCapacity = Math.max(1, capacity);
+        ids = new long[initialCapacity];
+        timestamps = new long[initialCapacity];
+        updatedAts = new long[initialCapacity];
+        positiveValues = new double[initialCapacity];
+        positiveCapacityPrices = new double[initialCapacity];
+        positiveEnergyPrices = new double[initialCapacity];
+        negativeValues = new double[initialCapacity];
+        negativeCapacityPrices = new double[initialCapacity];
+        negativeEnergyPrices = new double[initialCapacity];
+        positiveBidMsbs = new long[initialCapacity];
+        positiveBidLsbs = new long[initialCapacity];
+        negativeBidMsbs = new long[initialCapacity];
+        negativeBidLsbs = new long[initialCapacity];
+        bidFlags = new byte[initialCapacity];
+    }
+
+    /**
+     * Creates a series from reservation entities of one asset/market pair, ordered by timestamp and id.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param reservations the reservations to copy into the series
+     * @return a new series holding the values of the given reservations
+     */
+    public static ReservationSeries of(UUID assetId, UUID marketId, List<Reservation> reservations) {
+        List<Reservation> ordered = new ArrayList<>(reservations);
+        ordered.sort(Comparator.comparing(Reservation::getTimestamp)
+                .thenComparing(Reservation::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        ReservationSeries series = new ReservationSeries(assetId, marketId, ordered.size());
+        for (Reservation reservation : ordered) {
+            series.add(reservation);
+        }
+        return series;
+    }
+
+    /**
+     * Appends a row to the series.
+     *
+     * @param id                    the unique identifier of the reservation
+     * @param timestamp             the time point of the reservation in epoch microseconds
+     * @param positiveBidId         the unique identifier of the positive bid, or {@code null}
+     * @param negativeBidId         the unique identifier of the negative bid, or {@code null}
+     * @param positiveValue         the value of the positive bid in kW
+     * @param positiveCapacityPrice the positive capacity price in EUR/MW/h
+     * @param positiveEnergyPrice   the positive energy price in EUR/MW/h
+     * @param negativeValue         the value of the negative bid in kW
+     * @param negativeCapacityPrice the negative capacity price in EUR/MW/h
+     * @param negativeEnergyPrice   the negative energy price in EUR/MW/h
+     * @param updatedAt             the update time of the reservation in epoch microseconds
+     * @throws IllegalArgumentException if the timestamp is before the timestamp of the last row
+     */
+    public void add(long id, long timestamp, UUID positiveBidId, UUID negativeBidId,
+                    double positiveValue, double positiveCapacityPrice, double positiveEnergyPrice,
+                    double negativeValue, double negativeCapacityPrice, double negativeEnergyPrice,
+                    long updatedAt) {
+        int row = append(id, timestamp, positiveValue, positiveCapacityPrice, positiveEnergyPrice,
+                negativeValue, negativeCapacityPrice, negativeEnergyPrice, updatedAt);
+        byte flags = 0;
+        if (positiveBidId != null) {
+            positiveBidMsbs[row] = positiveBidId.getMostSignificantBits();
+            positiveBidLsbs[row] = positiveBidId.getLeastSignificantBits();
+            flags |= POSITIVE_BID;
+        }
+        if (negativeBidId != null) {
+            negativeBidMsbs[row] = negativeBidId.getMostSignificantBits();
+            negativeBidLsbs[row] = negativeBidId.getLeastSignificantBits();
+            flags |= NEGATIVE_BID;
+        }
+        bidFlags[row] = flags;
+    }
+
+    /**
+     * Appends the values of a reservation entity to the series.
+     *
+     * @param reservation the reservation to append
+     */
+    public void add(Reservation reservation) {
+        add(reservation.getId() != null ? reservation.getId() : 0L,
+                toEpochMicros(reservation.getTimestamp()),
+                reservation.getPositiveBidId(),
+                reservation.getNegativeBidId(),
+                reservation.getPositiveValue(),
+                reservation.getPositiveCapacityPrice(),
+                reservation.getPositiveEnergyPrice(),
+                reservation.getNegativeValue(),
+                reservation.getNegativeCapacityPrice(),
+                reservation.getNegativeEnergyPrice(),
+                reservation.getUpdatedAt() != null ? toEpochMicros(reservation.getUpdatedAt()) : 0L);
+    }
+
+    /**
+     * Appends all rows of another series of the same asset and market, e.g. the rows of a later range.
+     *
+     * @param other the series to append
+     * @throws IllegalArgumentException if the series belongs to another asset or market, or starts before the last
+     *                                  row of this series
+     */
+    public void addAll(ReservationSeries other) {
+        if (!assetId.equals(other.assetId) || !marketId.equals(other.marketId)) {
+            throw new IllegalArgumentException("Series of another asset or market cannot be appended");
+        }
+        for (int row = 0; row < other.size; row++) {
+            copyRow(other, row);
+        }
+    }
+
+    /**
+     * Copies the rows that satisfy a predicate into a new series, keeping their order.
+     *
+     * @param rowPredicate tests the index of a row of this series
+     * @return a new series of the same asset and market with the matching rows
+     */
+    public ReservationSeries select(IntPredicate rowPredicate) {
+        ReservationSeries selected = new ReservationSeries(assetId, marketId, size);
+        for (int row = 0; row < size; row++) {
+            if (rowPredicate.test(row)) {
+                selected.copyRow(this, row);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Divides the positive and negative values of all rows in place by a constant, e.g. to convert them from kW to MW.
+     *
+     * @param kernels the kernels processing the value columns
+     * @param divisor the constant to divide by
+     */
+    public void divideValues(ColumnKernels kernels, double divisor) {
+        kernels.divide(positiveValues, 0, size, divisor);
+        kernels.divide(negativeValues, 0, size, divisor);
+    }
+
+    /**
+     * Sums the positive and negative values of the rows of each timestamp into a new series. The other columns are
+     * taken from the first row of each timestamp.
+     *
+     * @param kernels    the kernels processing the columns
+     * @param fixedPoint whether values are rounded to milli-kW and summed as integers, see
+     *                   {@link ColumnKernels#sumGroupsFixedPoint}
+     * @return a new series with one row per timestamp, in timestamp order
+     */
+    public ReservationSeries sumPerTimestamp(ColumnKernels kernels, boolean fixedPoint) {
+        int[] starts = new int[size + 1];
+        int groups = kernels.groupStarts(timestamps, 0, size, starts);
+
+        ReservationSeries summed = new ReservationSeries(assetId, marketId, groups);
+        for (int group = 0; group < groups; group++) {
+            int first = starts[group];
+            summed.ids[group] = ids[first];
+            summed.timestamps[group] = timestamps[first];
+            summed.updatedAts[group] = updatedAts[first];
+            summed.positiveCapacityPrices[group] = positiveCapacityPrices[first];
+            summed.positiveEnergyPrices[group] = positiveEnergyPrices[first];
+            summed.negativeCapacityPrices[group] = negativeCapacityPrices[first];
+            summed.negativeEnergyPrices[group] = negativeEnergyPrices[first];
+            summed.copyBidIds(group, this, first);
+        }
+        if (fixedPoint) {
+            kernels.sumGroupsFixedPoint(positiveValues, starts, groups, summed.positiveValues);
+            kernels.sumGroupsFixedPoint(negativeValues, starts, groups, summed.negativeValues);
+        } else {
+            kernels.sumGroups(positiveValues, starts, groups, summed.positiveValues);
+            kernels.sumGroups(negativeValues, starts, groups, summed.negativeValues);
+        }
+        summed.size = groups;
+        return summed;
+    }
+
+    /**
+     * Computes the minimum, maximum and average of a numeric field over all rows.
+     *
+     * @param field   the field, one of the {@link ReservationField#isNumeric() numeric} fields
+     * @param kernels the kernels processing the column of the field
+     * @return the statistics of the field
+     * @throws IllegalArgumentException if the field is not numeric
+     */
+    public ColumnStatistics statistics(ReservationField field, ColumnKernels kernels) {
+        return kernels.statistics(column(field), 0, size);
+    }
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public UUID getMarketId() {
+        return marketId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getId(int row) {
+        return ids[checkRow(row)];
+    }
+
+    /**
+     * Returns the time point of a row in epoch microseconds.
+     */
+    public long getTimestamp(int row) {
+        return timestamps[checkRow(row)];
+    }
+
+    /**
+     * Returns the update time of a row in epoch microseconds.
+     */
+    public long getUpdatedAt(int row) {
+        return updatedAts[checkRow(row)];
+    }
+
+    public UUID getPositiveBidId(int row) {
+        return (bidFlags[checkRow(row)] & POSITIVE_BID) != 0 ? new UUID(positiveBidMsbs[row], positiveBidLsbs[row]) : null;
+    }
+
+    public UUID getNegativeBidId(int row) {
+        return (bidFlags[checkRow(row)] & NEGATIVE_BID) != 0 ? new UUID(negativeBidMsbs[row], negativeBidLsbs[row]) : null;
+    }
+
+    public double getPositiveValue(int row) {
+        return positiveValues[checkRow(row)];
+    }
+
+    public void setPositiveValue(int row, double positiveValue) {
+        positiveValues[checkRow(row)] = positiveValue;
+    }
+
+    public double getPositiveCapacityPrice(int row) {
+        return positiveCapacityPrices[checkRow(row)];
+    }
+
+    public double getPositiveEnergyPrice(int row) {
+        return positiveEnergyPrices[checkRow(row)];
+    }
+
+    public double getNegativeValue(int row) {
+        return negativeValues[checkRow(row)];
+    }
+
+    public void setNegativeValue(int row, double negativeValue) {
+        negativeValues[checkRow(row)] = negativeValue;
+    }
+
+    public double getNegativeCapacityPrice(int row) {
+        return negativeCapacityPrices[checkRow(row)];
+    }
+
+    public double getNegativeEnergyPrice(int row) {
+        return negativeEnergyPrices[checkRow(row)];
+    }
+
+    /**
+     * Materializes a row as a new, detached reservation entity.
+     *
+     * @param row the index of the row
+     * @return a reservation holding the values of the row
+     */
+    public Reservation toReservation(int row) {
+        checkRow(row);
+        return new Reservation(
+                ids[row],
+                fromEpochMicros(timestamps[row]),
+                assetId,
+                marketId,
+                getPositiveBidId(row),
+                getNegativeBidId(row),
+                positiveValues[row],
+                positiveCapacityPrices[row],
+                positiveEnergyPrices[row],
+                negativeValues[row],
+                negativeCapacityPrices[row],
+                negativeEnergyPrices[row],
+                fromEpochMicros(updatedAts[row]));
+    }
+
+    /**
+     * Materializes all rows as new, detached reservation entities.
+     *
+     * @return the reservations of the series in timestamp order
+     */
+    public List<Reservation> toReservations() {
+        List<Reservation> reservations = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            reservations.add(toReservation(row));
+        }
+        return reservations;
+    }
+
+    /**
+     * Converts a UTC date-time to epoch microseconds.
+     *
+     * @param dateTime the date-time to convert
+     * @return the number of microseconds since the epoch
+     */
+    public static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    /**
+     * Converts epoch microseconds to a UTC date-time.
+     *
+     * @param micros the number of microseconds since the epoch
+     * @return the corresponding date-time
+     */
+    public static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private double[] column(ReservationField field) {
+        return switch (field) {
+            case POSITIVE_VALUE -> positiveValues;
+            case POSITIVE_CAPACITY_PRICE -> positiveCapacityPrices;
+            case POSITIVE_ENERGY_PRICE -> positiveEnergyPrices;
+            case NEGATIVE_VALUE -> negativeValues;
+            case NEGATIVE_CAPACITY_PRICE -> negativeCapacityPrices;
+            case NEGATIVE_ENERGY_PRICE -> negativeEnergyPrices;
+            default -> throw new IllegalArgumentException("Field '" + field.getFieldName() + "' is not numeric");
+        };
+    }
+
+    /**
+     * Appends the columns of a row except for the bid IDs and returns its index.
+     */
+    private int append(long id, long timestamp, double positiveValue, double positiveCapacityPrice, double positiveEnergyPrice,
+                       double negativeValue, double negativeCapacityPrice, double negativeEnergyPrice, long updatedAt) {
+        if (size > 0 && timestamp < timestamps[size - 1]) {
+            throw new IllegalArgumentException("Rows must be added in timestamp order");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+
+        ids[size] = id;
+        timestamps[size] = timestamp;
+        updatedAts[size] = updatedAt;
+        positiveValues[size] = positiveValue;
+        positiveCapacityPrices[size] = positiveCapacityPrice;
+        positiveEnergyPrices[size] = positiveEnergyPrice;
+        negativeValues[size] = negativeValue;
+        negativeCapacityPrices[size] = negativeCapacityPrice;
+        negativeEnergyPrices[size] = negativeEnergyPrice;
+        return size++;
+    }
+
+    /**
+     * Appends a row of another series, copying the bid ID columns without creating {@link UUID} instances.
+     */
+    private void copyRow(ReservationSeries source, int row) {
+        int target = append(source.ids[row], source.timestamps[row], source.positiveValues[row], source.positiveCapacityPrices[row],
+                source.positiveEnergyPrices[row], source.negativeValues[row], source.negativeCapacityPrices[row],
+                source.negativeEnergyPrices[row], source.updatedAts[row]);
+        copyBidIds(target, source, row);
+    }
+
+    private void copyBidIds(int target, ReservationSeries source, int row) {
+        positiveBidMsbs[target] = source.positiveBidMsbs[row];
+        positiveBidLsbs[target] = source.positiveBidLsbs[row];
+        negativeBidMsbs[target] = source.negativeBidMsbs[row];
+        negativeBidLsbs[target] = source.negativeBidLsbs[row];
+        bidFlags[target] = source.bidFlags[row];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for series of size " + size);
+        }
+        return row;
+    }
+
+    private void grow() {
+        int newCapacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        updatedAts = Arrays.copyOf(updatedAts, newCapacity);
+        positiveValues = Arrays.copyOf(positiveValues, newCapacity);
+        positiveCapacityPrices = Arrays.copyOf(positiveCapacityPrices, newCapacity);
+        positiveEnergyPrices = Arrays.copyOf(positiveEnergyPrices, newCapacity);
+        negativeValues = Arrays.copyOf(negativeValues, newCapacity);
+        negativeCapacityPrices = Arrays.copyOf(negativeCapacityPrices, newCapacity);
+        negativeEnergyPrices = Arrays.copyOf(negativeEnergyPrices, newCapacity);
+        positiveBidMsbs = Arrays.copyOf(positiveBidMsbs, newCapacity);
+        positiveBidLsbs = Arrays.copyOf(positiveBidLsbs, newCapacity);
+        negativeBidMsbs = Arrays.copyOf(negativeBidMsbs, newCapacity);
+        negativeBidLsbs = Arrays.copyOf(negativeBidLsbs, newCapacity);
+        bidFlags = Arrays.copyOf(bidFlags, newCapacity);
+    }
+}
@@ -0,0 +1,18 @@
+package com.reservation.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The latest update time and the number of reservations of an asset/market series within a timestamp range.
+ * An export of the range is still current as long as neither has changed: inserted and updated rows move the update
+ * time, deleted rows the count.
+ *
+ * @param assetId   the unique identifier of the asset
+ * @param marketId  the unique identifier of the market
+ * @param updatedAt the latest update time of the reservations in the range
+ * @param rows      the number of reservations in the range
+ * @author Bojana Samardzic
+ */
+public record SeriesWatermark(UUID assetId, UUID marketId, LocalDateTime updatedAt, long rows) {
+}
@@ -0,0 +1,207 @@
+package com.reservation.model;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Disjoint time windows of a multi-window export, e.g. the peak hours of every working day of a quarter or a list of
+ * delivery days. Like the range of a single export, a window includes both of its ends.
+ * Windows are kept in time order, and overlapping or touching windows are merged, so that no reservation is exported
+ * twice and the rows of all windows together are in timestamp order. Time points are in the default time zone of the
+ * JVM, like all time points read from the database.
+ *
+ * @param windows the windows in time order, none overlapping or touching another
+ * @author Bojana Samardzic
+ */
+public record TimeWindows(List<Window> windows) {
+
+    /**
+     * Upper bound of the number of windows of one export, which are all bound as parameters of a single query.
+     */
+    public static final int MAX_WINDOWS = 1000;
+
+    /**
+     * One time window, including both ends.
+     *
+     * @param from the start of the window
+     * @param to   the end of the window
+     */
+    public record Window(LocalDateTime from, LocalDateTime to) {
+
+        /**
+         * Creates a window.
+         *
+         * @throws IllegalArgumentException if the window ends before it starts
+         */
+        public Window {
+            if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Invalid window: 'from' " + from + " cannot be after 'to' " + to);
+            }
+        }
+    }
+
+    /**
+     * Creates the windows covering the given ones, merging those that overlap or touch.
+     *
+     * @throws IllegalArgumentException if there is no window or more than {@link #MAX_WINDOWS} of them
+     */
+    public TimeWindows {
+        if (windows.isEmpty()) {
+            throw new IllegalArgumentException("At least one time window is required");
+        }
+        if (windows.size() > MAX_WINDOWS) {
+            throw new IllegalArgumentException("At most " + MAX_WINDOWS + " time windows are allowed, got " + windows.size());
+        }
+        windows = merge(windows);
+    }
+
+    /**
+     * Parses a comma-separated list of windows, each given as its start and end in ISO date-time format separated by
+     * a slash, e.g. {@code 2024-03-01T00:00:00Z/2024-03-02T00:00:00Z,2024-03-08T00:00:00Z/2024-03-09T00:00:00Z}.
+     *
+     * @param windows the comma-separated windows
+     * @return the windows, in time order and merged where they overlap
+     * @throws IllegalArgumentException if a window is malformed or ends before it starts
+     */
+    public static TimeWindows parse(String windows) {
+        List<Window> parsed = new ArrayList<>();
+        for (String window : windows.split(",")) {
+            String[] bounds = window.trim().split("/");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Invalid window '" + window.trim() + "': expected <from>/<to>");
+            }
+            try {
+                parsed.add(new Window(toLocal(OffsetDateTime.parse(bounds[0].trim()).toZonedDateTime()),
+                        toLocal(OffsetDateTime.parse(bounds[1].trim()).toZonedDateTime())));
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Invalid window '" + window.trim() + "': " + e.getMessage());
+            }
+        }
+        return new TimeWindows(parsed);
+    }
+
+    /**
+     * Creates a window from {@code start} to {@code end} on every day of a range, e.g. the peak hours of the working
+     * days of a quarter. Days and times of day are those of the time zone of {@code from}, so a window keeps its time
+     * of day across daylight saving time changes. A window ending at or before its start ends on the next day.
+     * The windows are clipped to the range.
+     *
+     * @param from  the start of the range
+     * @param to    the end of the range
+     * @param start the time of day each window starts at
+     * @param end   the time of day each window ends at
+     * @param days  the days of the week with a window, or {@code null} or empty for every day
+     * @return the windows within the range
+     * @throws IllegalArgumentException if the range is empty or has more than {@link #MAX_WINDOWS} windows
+     */
+    public static TimeWindows daily(ZonedDateTime from, ZonedDateTime to, LocalTime start, LocalTime end, Collection<DayOfWeek> days) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid date range: 'from' cannot be after 'to'");
+        }
+        ZoneId zone = from.getZone();
+        ZonedDateTime last = to.withZoneSameInstant(zone);
+        Set<DayOfWeek> weekdays = days == null || days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : EnumSet.copyOf(days);
+        List<Window> windows = new ArrayList<>();
+        for (LocalDate day = from.toLocalDate().minusDays(1); !day.isAfter(last.toLocalDate()); day = day.plusDays(1)) {
+            if (!weekdays.contains(day.getDayOfWeek())) {
+                continue;
+            }
+            ZonedDateTime windowFrom = day.atTime(start).atZone(zone);
+            ZonedDateTime windowTo = (end.isAfter(start) ? day : day.plusDays(1)).atTime(end).atZone(zone);
+            windowFrom = windowFrom.isBefore(from) ? from : windowFrom;
+            windowTo = windowTo.isAfter(to) ? to : windowTo;
+            if (!windowFrom.isAfter(windowTo)) {
+                windows.add(new Window(toLocal(windowFrom), toLocal(windowTo)));
+                if (windows.size() > MAX_WINDOWS) {
+                    throw new IllegalArgumentException("At most " + MAX_WINDOWS + " time windows are allowed");
+                }
+            }
+        }
+        return new TimeWindows(windows);
+    }
+
+    /**
+     * Returns the start of the first window.
+     */
+    public LocalDateTime from() {
+        return windows.get(0).from();
+    }
+
+    /**
+     * Returns the end of the last window.
+     */
+    public LocalDateTime to() {
+        return windows.get(windows.size() - 1).to();
+    }
+
+    /**
+     * Returns whether a time point lies within one of the windows.
+     *
+     * @param epochMicros the time point in microseconds since the epoch, as held by a {@link ReservationSeries}
+     */
+    public boolean contains(long epochMicros) {
+        int low = 0;
+        int high = windows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Window window = windows.get(middle);
+            if (epochMicros < ReservationSeries.toEpochMicros(window.from())) {
+                high = middle - 1;
+            } else if (epochMicros > ReservationSeries.toEpochMicros(window.to())) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the parts of the windows from a time point on, e.g. those not held by the cold tier.
+     *
+     * @param from the time point the parts start at, inclusive
+     * @return the parts of the windows ending at or after the time point, or an empty list if there are none
+     */
+    public List<Window> since(LocalDateTime from) {
+        List<Window> parts = new ArrayList<>();
+        for (Window window : windows) {
+            if (!window.to().isBefore(from)) {
+                parts.add(window.from().isBefore(from) ? new Window(from, window.to()) : window);
+            }
+        }
+        return parts;
+    }
+
+    private static List<Window> merge(List<Window> windows) {
+        List<Window> sorted = new ArrayList<>(windows);
+        sorted.sort(Comparator.comparing(Window::from));
+        List<Window> merged = new ArrayList<>(sorted.size());
+        Window current = sorted.get(0);
+        for (Window window : sorted.subList(1, sorted.size())) {
+            if (window.from().isAfter(current.to())) {
+                merged.add(current);
+                current = window;
+            } else if (window.to().isAfter(current.to())) {
+                current = new Window(current.from(), window.to());
+            }
+        }
+        merged.add(current);
+        return List.copyOf(merged);
+    }
+
+    private static LocalDateTime toLocal(ZonedDateTime dateTime) {
+        return dateTime.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,176 @@
+package com.reservation.partition;
+
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.model.ReservationPartition;
+import com.reservation.repository.ReservationPartitionRepository;
+import com.reservation.repository.ReservationPartitionRepository.MaintenanceLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Maintains the monthly partitions of the {@code reservation} table: creates the partitions of the current month and
+ * the next {@code premade-months} ahead of time, so that new reservations do not land in the default partition, and
+ * archives the partitions older than the {@code retention}. Reservations of other months that landed in the default
+ * partition, e.g. loaded for past months, are moved to partitions of their months created on the next run.
+ * Archiving detaches a partition and moves it to the archive schema instead of deleting its rows, which takes
+ * moments regardless of its size and leaves no dead rows to vacuum; archived partitions can be exported or dropped
+ * from there. With the {@link ColdTierStore cold tier} enabled, a partition is detached first, so that no
+ * reservations are written to it while it is read, then written to a cold tier file and dropped once the file is in
+ * place; while the file is written, the range of the partition reads no rows. A partition whose file cannot be written
+ * is attached again, and one left detached by an interrupted run is moved on the next run. Partitions are archived
+ * oldest first, and a failure stops the run, so the cold tier always holds a contiguous range of months.
+ * Runs once at startup and then on the {@code cron} schedule. A failed run is logged and repeated on the next one.
+ * Each run holds an advisory lock of the database, so that of several instances only one maintains the partitions at
+ * a time; the others skip the run.
+ * Always created eagerly, so that maintenance is scheduled even when lazy initialization is enabled.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@Lazy(false)
+public class PartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenance.class);
+
+    private final PartitionProperties properties;
+    private final ReservationPartitionRepository partitionRepository;
+    private final ColdTierStore coldTierStore;
+    private final Counter created;
+    private final Counter archived;
+
+    /**
+     * Constructs a new instance of {@code PartitionMaintenance} with the specified dependencies.
+     *
+     * @param properties          the partitioning configuration
+     * @param partitionRepository the repository managing the partitions
+     * @param coldTierStore       the cold tier expired partitions are moved to, if enabled
+     * @param meterRegistry       the registry the metrics are published to
+     */
+    @Autowired
+    public PartitionMaintenance(PartitionProperties properties, ReservationPartitionRepository partitionRepository,
+                                ColdTierStore coldTierStore, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partitionRepository = partitionRepository;
+        this.coldTierStore = coldTierStore;
+
+        this.created = Counter.builder("reservation.partitions.created")
+                .description("Monthly partitions of the reservation table created ahead of time")
+                .register(meterRegistry);
+        this.archived = Counter.builder("reservation.partitions.archived")
+                .description("Monthly partitions of the reservation table detached and archived after the retention")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maintains the partitions once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    /**
+     * Maintains the partitions on the configured schedule.
+     */
+    @Scheduled(cron = "${reservation.partitioning.cron:0 30 0 * * *}")
+    public void maintain() {
+        if (properties.isEnabled()) {
+            maintain(Instant.now());
+        }
+    }
+
+    /**
+     * Creates the upcoming partitions and those of months in the default partition, and archives the expired ones.
+     *
+     * @param now the current time
+     */
+    synchronized void maintain(Instant now) {
+        try {
+            Optional<MaintenanceLock> lock = partitionRepository.tryLockMaintenance();
+            if (lock.isEmpty()) {
+                log.info("Partitions of the reservation table are maintained by another instance, skipping this run");
+                return;
+            }
+            try (MaintenanceLock held = lock.get()) {
+                createPartitions(YearMonth.from(now.atOffset(ZoneOffset.UTC)));
+                if (properties.getRetention() != null) {
+                    archivePartitionsBefore(now.atOffset(ZoneOffset.UTC).minus(properties.getRetention()).toInstant());
+                }
+            }
+        } catch (DataAccessException | IOException e) {
+            log.warn("Could not maintain the partitions of the reservation table, retrying on the next run", e);
+        }
+    }
+
+    private void createPartitions(YearMonth currentMonth) {
+        for (YearMonth month : partitionRepository.findDefaultPartitionMonths()) {
+            createPartition(month);
+        }
+        for (int months = 0; months <= properties.getPremadeMonths(); months++) {
+            createPartition(currentMonth.plusMonths(months));
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        partitionRepository.createPartition(month).ifPresent(name -> {
+            created.increment();
+            log.info("Created partition {} of the reservation table", name);
+        });
+    }
+
+    private void archivePartitionsBefore(Instant cutoff) throws IOException {
+        if (coldTierStore.isEnabled()) {
+            for (ReservationPartition detached : partitionRepository.findDetachedPartitions()) {
+                moveToColdTier(detached);
+                archived.increment();
+            }
+        }
+        for (ReservationPartition partition : partitionRepository.findPartitions()) {
+            if (partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            if (coldTierStore.isEnabled()) {
+                partitionRepository.detachPartition(partition);
+                moveToColdTier(partition);
+            } else {
+                partitionRepository.archivePartition(partition);
+                log.info("Archived partition {} of the reservation table to schema {}", partition.name(),
+                        ReservationPartitionRepository.ARCHIVE_SCHEMA);
+            }
+            archived.increment();
+        }
+    }
+
+    /**
+     * Writes a detached partition to the cold tier and drops it, or attaches it again if its file cannot be written.
+     */
+    private void moveToColdTier(ReservationPartition partition) throws IOException {
+        try {
+            coldTierStore.archive(partition);
+        } catch (IOException | RuntimeException e) {
+            try {
+                partitionRepository.attachPartition(partition);
+            } catch (RuntimeException attachFailure) {
+                e.addSuppressed(attachFailure);
+            }
+            throw e;
+        }
+        partitionRepository.dropPartition(partition);
+        log.info("Moved partition {} of the reservation table to the cold tier", partition.name());
+    }
+}
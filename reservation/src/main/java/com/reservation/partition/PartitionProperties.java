@@ -0,0 +1,40 @@
+package com.reservation.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Period;
+
+/**
+ * Configuration of the maintenance of the monthly partitions of the {@code reservation} table.
+ * Bound from the {@code reservation.partitioning} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.partitioning")
+public class PartitionProperties {
+
+    /**
+     * Whether partitions are created and archived by the application. Without maintenance, reservations of months
+     * without a partition are stored in the default partition.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of months after the current one that partitions are created ahead for.
+     */
+    private int premadeMonths = 3;
+
+    /**
+     * Cron expression, in the default time zone of the JVM, of the maintenance run. Maintenance also runs once at
+     * startup.
+     */
+    private String cron = "0 30 0 * * *";
+
+    /**
+     * How long reservations are kept in the {@code reservation} table, counting back from now. Partitions whose whole
+     * range lies before are detached and moved to the archive schema. Partitions are never archived if not set.
+     */
+    private Period retention;
+}
@@ -0,0 +1,50 @@
+package com.reservation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event of summing the values of reservations per timestamp for a total export.
+ *
+ * @author Bojana Samardzic
+ */
+@Name("com.reservation.Aggregation")
+@Label("Aggregation")
+@Category({"Reservation", "Export"})
+@Description("Summing of the values of reservations per timestamp")
+@StackTrace(false)
+public final class AggregationEvent extends ExportEvent {
+
+    @Label("Input Rows")
+    long inputRows;
+
+    @Label("Output Rows")
+    long outputRows;
+
+    @Label("Fixed Point")
+    boolean fixedPoint;
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param assetId    the unique identifier of the asset, or {@code null} for several assets
+     * @param marketId   the unique identifier of the market, or {@code null} for all markets
+     * @param inputRows  the number of rows summed
+     * @param outputRows the number of timestamps they were summed into
+     * @param fixedPoint whether values were summed as fixed-point milli-kW
+     */
+    public void finish(UUID assetId, UUID marketId, long inputRows, long outputRows, boolean fixedPoint) {
+        end();
+        if (shouldCommit()) {
+            this.inputRows = inputRows;
+            this.outputRows = outputRows;
+            this.fixedPoint = fixedPoint;
+            commit(assetId, marketId);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.reservation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Flight recorder event of looking up an export or its rows in one of the stores that serve them without the
+ * database: the hot window, the daily export snapshots or the export spool.
+ *
+ * @author Bojana Samardzic
+ */
+@Name("com.reservation.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Reservation", "Export"})
+@Description("Lookup of an export or its rows in a store serving them without the database")
+@StackTrace(false)
+public final class CacheLookupEvent extends ExportEvent {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Total")
+    boolean total;
+
+    @Label("Hit")
+    boolean hit;
+
+    /**
+     * Runs a lookup as an event.
+     *
+     * @param cache    the name of the store
+     * @param assetId  the unique identifier of the asset, or {@code null} for several assets
+     * @param marketId the unique identifier of the market, or {@code null} for all markets
+     * @param total    whether an export of totals is looked up
+     * @param lookup   the lookup, returning an empty optional on a miss
+     * @return the result of the lookup
+     */
+    public static <T> Optional<T> lookup(String cache, UUID assetId, UUID marketId, boolean total, Supplier<Optional<T>> lookup) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        Optional<T> result = lookup.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.total = total;
+            event.hit = result.isPresent();
+            event.commit(assetId, marketId);
+        }
+        return result;
+    }
+}
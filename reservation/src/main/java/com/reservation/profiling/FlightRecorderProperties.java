@@ -0,0 +1,43 @@
+package com.reservation.profiling;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the flight recordings started through the {@code flightrecording} actuator endpoint.
+ * Bound from the {@code reservation.flight-recorder} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.flight-recorder")
+public class FlightRecorderProperties {
+
+    /**
+     * Predefined settings of the JDK the recording starts from, {@code default} or {@code profile}.
+     */
+    private String baseConfiguration = "default";
+
+    /**
+     * Location of the JFC file whose settings are applied on top of the base configuration.
+     */
+    private String settings = "classpath:jfr/reservation.jfc";
+
+    /**
+     * Age of the oldest data kept by a running recording; older data is discarded.
+     */
+    private Duration maxAge = Duration.ofMinutes(30);
+
+    /**
+     * Upper bound of disk space used by the data of a running recording, in bytes.
+     */
+    private long maxSize = 256L * 1024 * 1024;
+
+    /**
+     * Directory the recording is dumped to. Only the most recent dump is kept.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "reservation-flight-recordings");
+}
@@ -0,0 +1,109 @@
+package com.reservation.profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Actuator endpoint controlling the flight recording of exports held by {@link FlightRecordings}, at
+ * {@code /actuator/flightrecording} once exposed over HTTP: {@code POST} starts a recording, {@code GET} downloads a
+ * dump of the data recorded so far, to be opened in JDK Mission Control or with {@code jfr print}, and
+ * {@code DELETE} stops the recording.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@WebEndpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private final FlightRecordings recordings;
+
+    /**
+     * Constructs a new instance of {@code FlightRecordingEndpoint}.
+     *
+     * @param recordings the flight recording of exports
+     */
+    @Autowired
+    public FlightRecordingEndpoint(FlightRecordings recordings) {
+        this.recordings = recordings;
+    }
+
+    /**
+     * Starts a recording, or leaves the running one running.
+     *
+     * @param duration after how long the recording stops by itself, e.g. {@code PT5M}, or {@code null} to record
+     *                 until it is stopped
+     * @return the state of the recording
+     */
+    @WriteOperation
+    public RecordingStatus start(@Nullable Duration duration) {
+        return recordings.start(duration);
+    }
+
+    /**
+     * Dumps the data recorded so far into a file of this request, which is deleted once it was sent.
+     *
+     * @return the recording file, or 404 if no recording was started
+     * @throws IOException if the dump cannot be written
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump() throws IOException {
+        return recordings.dump()
+                .map(file -> new WebEndpointResponse<Resource>(new DumpResource(recordings, file), WebEndpointResponse.STATUS_OK))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    /**
+     * Stops the recording; its data can still be dumped until the next one is started.
+     *
+     * @return the state of the recording, or 404 if no recording was started
+     */
+    @DeleteOperation
+    public WebEndpointResponse<RecordingStatus> stop() {
+        return recordings.stop()
+                .map(status -> new WebEndpointResponse<>(status, WebEndpointResponse.STATUS_OK))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    /**
+     * The file of a dump, released once its content was read.
+     */
+    private static final class DumpResource extends FileSystemResource {
+
+        private final FlightRecordings recordings;
+        private final Path file;
+
+        private DumpResource(FlightRecordings recordings, Path file) {
+            super(file);
+            this.recordings = recordings;
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        recordings.release(file);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.reservation.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The flight recording of exports, started and dumped on demand so that GC pauses and CPU and allocation samples can
+ * be correlated with the export phases recorded by the events of this package.
+ * At most one recording exists at a time. It uses the settings of the JDK base configuration with those of the
+ * configured JFC file applied on top, and keeps its data on disk within {@code maxAge} and {@code maxSize}, so a
+ * recording left running has a bounded footprint. A dump copies the data recorded so far to a file of its own, which
+ * is kept until it is {@link #release(Path) released} once served, so concurrent downloads never lose their file.
+ * Dumps that were never released are deleted on shutdown.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class FlightRecordings {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordings.class);
+
+    private static final String RECORDING_NAME = "reservation";
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final FlightRecorderProperties properties;
+    private final Map<String, String> settings;
+
+    private final Set<Path> dumps = new HashSet<>();
+
+    private Recording recording;
+    private Instant startedAt;
+    private long dumpCount;
+
+    /**
+     * Constructs a new instance of {@code FlightRecordings}, reading the recording settings.
+     *
+     * @param properties     the flight recorder configuration
+     * @param resourceLoader the loader of the JFC file
+     * @throws IllegalStateException if the base configuration does not exist or the JFC file cannot be read
+     */
+    @Autowired
+    public FlightRecordings(FlightRecorderProperties properties, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        try (Reader reader = new InputStreamReader(resourceLoader.getResource(properties.getSettings()).getInputStream(), StandardCharsets.UTF_8)) {
+            Map<String, String> merged = new HashMap<>(Configuration.getConfiguration(properties.getBaseConfiguration()).getSettings());
+            merged.putAll(Configuration.create(reader).getSettings());
+            this.settings = Map.copyOf(merged);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot read flight recorder settings " + properties.getBaseConfiguration()
+                    + " and " + properties.getSettings(), e);
+        }
+    }
+
+    /**
+     * Starts a new recording, discarding the data of a stopped one. A running recording is left running.
+     *
+     * @param duration after how long the recording stops by itself, or {@code null} to record until it is stopped
+     * @return the state of the running recording
+     */
+    public synchronized RecordingStatus start(Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return status(recording);
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(settings);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize());
+        recording.setDuration(duration);
+        recording.start();
+        startedAt = Instant.now();
+        log.info("Started flight recording{}", duration != null ? " for " + duration : "");
+        return status(recording);
+    }
+
+    /**
+     * Stops the running recording. Its data is kept and can still be dumped.
+     *
+     * @return the state of the recording, or an empty optional if none was started
+     */
+    public synchronized Optional<RecordingStatus> stop() {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped flight recording");
+        }
+        return Optional.of(status(recording));
+    }
+
+    /**
+     * Returns the state of the recording.
+     *
+     * @return the state, or an empty optional if no recording was started
+     */
+    public synchronized Optional<RecordingStatus> status() {
+        return Optional.ofNullable(recording).map(this::status);
+    }
+
+    /**
+     * Copies the data recorded so far to a new file. A running recording keeps running.
+     *
+     * @return the file, to be released once it was served, or an empty optional if no recording was started
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized Optional<Path> dump() throws IOException {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        Files.createDirectories(properties.getDirectory());
+        Path file = properties.getDirectory().resolve(RECORDING_NAME + "-" + DUMP_TIME.format(Instant.now()) + "-" + ++dumpCount + ".jfr");
+        recording.dump(file);
+        dumps.add(file);
+        return Optional.of(file);
+    }
+
+    /**
+     * Deletes a dump once it was served.
+     *
+     * @param file the file returned by {@link #dump()}
+     */
+    public synchronized void release(Path file) {
+        if (dumps.remove(file)) {
+            delete(file);
+        }
+    }
+
+    /**
+     * Closes the recording and deletes the dumps that were not released.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        dumps.forEach(FlightRecordings::delete);
+        dumps.clear();
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete flight recording dump {}", file, e);
+        }
+    }
+
+    private RecordingStatus status(Recording recording) {
+        return new RecordingStatus(recording.getState().name(), startedAt, recording.getDuration(), recording.getMaxAge(),
+                recording.getMaxSize(), recording.getSize());
+    }
+}
@@ -0,0 +1,58 @@
+package com.reservation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event of encoding a batch of rows of an export in its output format.
+ *
+ * @author Bojana Samardzic
+ */
+@Name("com.reservation.FormatBatch")
+@Label("Format Batch")
+@Category({"Reservation", "Export"})
+@Description("Encoding of a batch of rows in the output format of an export")
+@StackTrace(false)
+public final class FormatBatchEvent extends ExportEvent {
+
+    @Label("Format")
+    String format;
+
+    @Label("Total")
+    boolean total;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes Written")
+    @Description("Bytes handed to the output stream while the batch was written; formats buffer, so this is not the encoded size of the batch")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param format   the media type of the output format
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param total    whether the export is of totals
+     * @param rows     the number of rows written
+     * @param bytes    the number of bytes handed to the stream meanwhile
+     */
+    public void finish(String format, UUID assetId, UUID marketId, boolean total, long rows, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.format = format;
+            this.total = total;
+            this.rows = rows;
+            this.bytes = bytes;
+            commit(assetId, marketId);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.reservation.profiling;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.format.ReservationFormat;
+import com.reservation.format.ReservationSink;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Sink of an export that records each batch of rows as a {@link FormatBatchEvent} and each flush as a
+ * {@link ResponseFlushEvent}, counting the bytes the format hands to the output stream.
+ * Exports are only wrapped while a flight recording has these events enabled; otherwise the sink of the format is
+ * used as is, so exports outside of a recording pay nothing for it.
+ *
+ * @author Bojana Samardzic
+ */
+public final class ProfiledReservationSink implements ReservationSink {
+
+    private final ReservationSink sink;
+    private final CountingOutputStream outputStream;
+    private final String format;
+    private final UUID assetId;
+    private final UUID marketId;
+    private final boolean total;
+
+    private ProfiledReservationSink(ReservationSink sink, CountingOutputStream outputStream, String format, UUID assetId, UUID marketId,
+                                    boolean total) {
+        this.sink = sink;
+        this.outputStream = outputStream;
+        this.format = format;
+        this.assetId = assetId;
+        this.marketId = marketId;
+        this.total = total;
+    }
+
+    /**
+     * Opens a sink of an export in a format, recording its batches and flushes if a flight recording is running.
+     *
+     * @param format       the format of the export
+     * @param outputStream the stream the export is written to; it is never closed by the sink
+     * @param fields       the exported fields in output order
+     * @param context      the export-scoped encoding of values
+     * @param assetId      the unique identifier of the exported asset
+     * @param marketId     the unique identifier of the exported market
+     * @param total        whether the export is of totals
+     * @return the sink of the export
+     */
+    public static ReservationSink open(ReservationFormat format, OutputStream outputStream, ReservationProjection fields,
+                                       ExportEncodingContext context, UUID assetId, UUID marketId, boolean total) {
+        if (!new FormatBatchEvent().isEnabled() && !new ResponseFlushEvent().isEnabled()) {
+            return format.open(outputStream, fields, context);
+        }
+        CountingOutputStream counting = new CountingOutputStream(outputStream);
+        return new ProfiledReservationSink(format.open(counting, fields, context), counting, format.mediaType().toString(),
+                assetId, marketId, total);
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        sink.writeHeader();
+    }
+
+    @Override
+    public void writeRows(ReservationSeries series, int fromRow, int toRow) throws IOException {
+        FormatBatchEvent event = new FormatBatchEvent();
+        event.begin();
+        long written = outputStream.count;
+        sink.writeRows(series, fromRow, toRow);
+        event.finish(format, assetId, marketId, total, toRow - fromRow, outputStream.count - written);
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        sink.writeFooter();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ResponseFlushEvent event = new ResponseFlushEvent();
+        event.begin();
+        long written = outputStream.count;
+        sink.flush();
+        event.finish(format, assetId, marketId, total, outputStream.count - written, outputStream.count);
+    }
+
+    /**
+     * Counts the bytes written to the output stream of an export.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
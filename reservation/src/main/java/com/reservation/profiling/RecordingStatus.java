@@ -0,0 +1,18 @@
+package com.reservation.profiling;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * State of the flight recording of exports.
+ *
+ * @param state     the state of the recording, e.g. {@code RUNNING} or {@code STOPPED}
+ * @param startedAt when the recording was started
+ * @param duration  after how long the recording stops by itself, or {@code null} if it runs until it is stopped
+ * @param maxAge    the age of the oldest data kept
+ * @param maxSize   the upper bound of the data kept, in bytes
+ * @param size      the size of the data recorded so far, in bytes
+ * @author Bojana Samardzic
+ */
+public record RecordingStatus(String state, Instant startedAt, Duration duration, Duration maxAge, long maxSize, long size) {
+}
@@ -0,0 +1,46 @@
+package com.reservation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event of a repository read of an export, from the start of its query until its last row has been
+ * consumed.
+ *
+ * @author Bojana Samardzic
+ */
+@Name("com.reservation.RepositoryFetch")
+@Label("Repository Fetch")
+@Category({"Reservation", "Export"})
+@Description("Query of an export, from its start until its last row has been consumed")
+@StackTrace(false)
+public final class RepositoryFetchEvent extends ExportEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param operation the repository read, e.g. {@code streamSeries}
+     * @param assetId   the unique identifier of the asset, or {@code null} for several assets
+     * @param marketId  the unique identifier of the market, or {@code null} for all markets
+     * @param rows      the number of rows read
+     */
+    public void finish(String operation, UUID assetId, UUID marketId, long rows) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.rows = rows;
+            commit(assetId, marketId);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.reservation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event of flushing the buffered output of an export to the response, or to the next element of a
+ * reactive response.
+ *
+ * @author Bojana Samardzic
+ */
+@Name("com.reservation.ResponseFlush")
+@Label("Response Flush")
+@Category({"Reservation", "Export"})
+@Description("Flush of the buffered output of an export to the response")
+@StackTrace(false)
+public final class ResponseFlushEvent extends ExportEvent {
+
+    @Label("Format")
+    String format;
+
+    @Label("Total")
+    boolean total;
+
+    @Label("Bytes Flushed")
+    @DataAmount
+    long bytes;
+
+    @Label("Bytes Written")
+    @Description("Bytes of the export written to the response so far")
+    @DataAmount
+    long totalBytes;
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param format     the media type of the output format
+     * @param assetId    the unique identifier of the asset
+     * @param marketId   the unique identifier of the market
+     * @param total      whether the export is of totals
+     * @param bytes      the number of bytes written by the flush
+     * @param totalBytes the number of bytes of the export written so far
+     */
+    public void finish(String format, UUID assetId, UUID marketId, boolean total, long bytes, long totalBytes) {
+        end();
+        if (shouldCommit()) {
+            this.format = format;
+            this.total = total;
+            this.bytes = bytes;
+            this.totalBytes = totalBytes;
+            commit(assetId, marketId);
+        }
+    }
+}
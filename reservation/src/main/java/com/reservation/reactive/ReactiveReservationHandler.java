@@ -0,0 +1,217 @@
+package com.reservation.reactive;
+
+import com.reservation.changefeed.ChangeFeedProperties;
+import com.reservation.changefeed.ReservationChangeFeed;
+import com.reservation.dto.ReservationDTO;
+import com.reservation.format.ReservationFormat;
+import com.reservation.format.ReservationFormatRegistry;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.service.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Functional endpoints of the reactive export server.
+ * Serves the export and JSON endpoints of {@link com.reservation.controller.ReservationController} under the same paths
+ * and query parameters, but streams the response as the rows are read: the database cursor advances only as fast as
+ * the client consumes the response, and no thread is held while waiting for either.
+ * Reactive exports are neither spooled nor coalesced; their concurrency is bounded by the size of the reactive pool.
+ * The output format of exports is negotiated from the {@code Accept} header like on the servlet export.
+ * Also serves the change feed, whose long-lived streams hold no request thread here.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ReactiveReservationHandler {
+
+    private static final String BASE_PATH = "/api/v1/flexibility/reservations";
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final ReservationService reservationService;
+    private final ReservationChangeFeed changeFeed;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final ReservationFormatRegistry exportFormats;
+    private final DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+
+    /**
+     * Constructs a new instance of {@code ReactiveReservationHandler}.
+     *
+     * @param reservationService   the service streaming the reservations
+     * @param changeFeed           the feed of changed reservations
+     * @param changeFeedProperties the configuration of the change feed
+     * @param exportFormats        the output formats of exports
+     */
+    @Autowired
+    public ReactiveReservationHandler(ReservationService reservationService, ReservationChangeFeed changeFeed, ChangeFeedProperties changeFeedProperties,
+                                      ReservationFormatRegistry exportFormats) {
+        this.reservationService = reservationService;
+        this.changeFeed = changeFeed;
+        this.changeFeedProperties = changeFeedProperties;
+        this.exportFormats = exportFormats;
+    }
+
+    /**
+     * Returns the routes of the reactive export server.
+     *
+     * @return the routes of the export, JSON and change feed endpoints
+     */
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET(BASE_PATH + "/{assetId}/market/{marketId}/export", this::exportReservationsToCSV)
+                .GET(BASE_PATH + "/{assetId}/market/{marketId}/changes", this::streamReservationChanges)
+                .GET(BASE_PATH + "/{assetId}/market/{marketId}", this::getReservations)
+                .build();
+    }
+
+    /**
+     * Streams reservations of an asset/market pair within a time range as an attachment in the negotiated format.
+     * Accepts the query parameters of the servlet export: {@code from}, {@code to}, {@code total}, {@code fields} and
+     * the filter parameters.
+     *
+     * @param request the request
+     * @return HTTP 200 OK with the export streamed as it is read, HTTP 400 Bad Request if a parameter is invalid, or
+     * HTTP 406 Not Acceptable if the client accepts none of the export formats
+     */
+    Mono<ServerResponse> exportReservationsToCSV(ServerRequest request) {
+        return request.bind(ReservationFilter.class, binder -> binder.setConversionService(conversionService))
+                .flatMap(filter -> {
+                    UUID assetId = UUID.fromString(request.pathVariable("assetId"));
+                    UUID marketId = UUID.fromString(request.pathVariable("marketId"));
+                    ZonedDateTime from = ZonedDateTime.parse(requiredParam(request, "from"));
+                    ZonedDateTime to = ZonedDateTime.parse(requiredParam(request, "to"));
+                    boolean total = request.queryParam("total").map(Boolean::parseBoolean).orElse(false);
+                    if (from.isAfter(to)) {
+                        throw new IllegalArgumentException("Invalid date range: 'from' cannot be after 'to'");
+                    }
+                    filter.validate();
+                    ReservationProjection fields = ReservationProjection.parse(request.queryParam("fields").orElse(null), total);
+                    ReservationFormat format = exportFormats.negotiate(request.headers().firstHeader(HttpHeaders.ACCEPT)).orElse(null);
+                    if (format == null) {
+                        return ServerResponse.status(HttpStatus.NOT_ACCEPTABLE).bodyValue("Exports are available as "
+                                + exportFormats.mediaTypes().stream().map(MediaType::toString).collect(Collectors.joining(", ")));
+                    }
+
+                    Flux<byte[]> content = reservationService.streamReservations(assetId, marketId, from, to, total, fields, filter, format);
+                    return ServerResponse.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reservations." + format.fileExtension())
+                            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                            .contentType(format.mediaType())
+                            .body(content, byte[].class);
+                })
+                .onErrorResume(ReactiveReservationHandler::isBadRequest, e -> ServerResponse.badRequest().bodyValue(String.valueOf(e.getMessage())));
+    }
+
+    /**
+     * Streams all reservations of an asset/market pair as JSON, with values in MW.
+     * With {@code fields}, each reservation is an object of only the named fields, in the given order.
+     * The response is a JSON array, or newline-delimited JSON if the client accepts {@code application/x-ndjson}.
+     * As the response is committed before the first row is read, no reservations yield an empty array instead of
+     * HTTP 404 Not Found.
+     *
+     * @param request the request
+     * @return HTTP 200 OK with the reservations streamed as they are read, or HTTP 400 Bad Request if a parameter is invalid
+     */
+    Mono<ServerResponse> getReservations(ServerRequest request) {
+        try {
+            UUID assetId = UUID.fromString(request.pathVariable("assetId"));
+            UUID marketId = UUID.fromString(request.pathVariable("marketId"));
+            Optional<String> fields = request.queryParam("fields");
+            MediaType contentType = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                    ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+
+            if (fields.isPresent()) {
+                ReservationProjection projection = ReservationProjection.parse(fields.get(), false);
+                Flux<Map<String, Object>> reservations = reservationService.streamReservationSeries(assetId, marketId, projection)
+                        .concatMapIterable(chunk -> rows(chunk).mapToObj(row -> projection.toMap(chunk, row)).toList(), 1);
+                return ServerResponse.ok().contentType(contentType).body(reservations, Map.class);
+            }
+
+            Flux<ReservationDTO> reservations = reservationService.streamReservationSeries(assetId, marketId, ReservationProjection.DETAILED)
+                    .concatMapIterable(chunk -> rows(chunk).mapToObj(row -> ReservationDTO.of(chunk, row)).toList(), 1);
+            return ServerResponse.ok().contentType(contentType).body(reservations, ReservationDTO.class);
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().bodyValue(String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the inserted and updated reservations of an asset/market pair as server-sent events, with values in MW.
+     * Each event is a reservation in JSON, identified by its update time. A client resumes after its last event with
+     * the {@code Last-Event-ID} header, as sent by browsers on reconnect, or with {@code since}, e.g. after reading a
+     * snapshot; both are update times in ISO-8601 format. The stream ends when the client falls too far behind, after
+     * which it reconnects and resumes. Idle streams carry a comment every {@code heartbeat-interval}.
+     *
+     * @param request the request
+     * @return HTTP 200 OK with the changes as they are committed, HTTP 400 Bad Request if a parameter is invalid,
+     * or HTTP 503 Service Unavailable if the change feed is disabled
+     */
+    Mono<ServerResponse> streamReservationChanges(ServerRequest request) {
+        try {
+            UUID assetId = UUID.fromString(request.pathVariable("assetId"));
+            UUID marketId = UUID.fromString(request.pathVariable("marketId"));
+            ZonedDateTime since = Optional.ofNullable(request.headers().firstHeader(LAST_EVENT_ID))
+                    .or(() -> request.queryParam("since"))
+                    .map(ZonedDateTime::parse)
+                    .orElse(null);
+            if (!changeFeed.isRunning()) {
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).bodyValue("The change feed is disabled");
+            }
+
+            Flux<ServerSentEvent<ReservationDTO>> events = changeFeed.subscribe(assetId, marketId, since)
+                    .map(change -> ServerSentEvent.builder(change).id(eventId(change)).event("reservation").build());
+            Flux<ServerSentEvent<ReservationDTO>> stream = events.publish(shared -> Flux.merge(shared,
+                    Flux.interval(changeFeedProperties.getHeartbeatInterval())
+                            .map(tick -> ServerSentEvent.<ReservationDTO>builder().comment("heartbeat").build())
+                            .takeUntilOther(shared.then())));
+            return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(stream, new ParameterizedTypeReference<ServerSentEvent<ReservationDTO>>() {
+                    });
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ServerResponse.badRequest().bodyValue(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static String requiredParam(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .orElseThrow(() -> new IllegalArgumentException("Required parameter '" + name + "' is not present"));
+    }
+
+    private static boolean isBadRequest(Throwable e) {
+        return e instanceof IllegalArgumentException || e instanceof DateTimeParseException || e instanceof BindException;
+    }
+
+    /**
+     * Returns the update time of a change with the offset of the JVM, from which a client resumes after it.
+     */
+    private static String eventId(ReservationDTO change) {
+        return change.getUpdatedAt().atZone(ZoneId.systemDefault()).toOffsetDateTime().toString();
+    }
+
+    private static IntStream rows(ReservationSeries chunk) {
+        return IntStream.range(0, chunk.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.reservation.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Reactor Netty server of the reactive export and JSON endpoints, running next to the servlet container on its own port.
+ * Requests are handled on a few event-loop threads; a download waiting for a slow client holds neither a thread nor
+ * more than one fetch of rows in memory.
+ * Uses the codecs configured for the application, so JSON is written like by the servlet endpoints.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ReactiveServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveServer.class);
+
+    private final ReactiveServerProperties properties;
+    private final ReactiveReservationHandler handler;
+    private final ObjectProvider<CodecCustomizer> codecCustomizers;
+    private volatile DisposableServer server;
+
+    /**
+     * Constructs a new instance of {@code ReactiveServer}.
+     *
+     * @param properties       the configuration of the reactive export server
+     * @param handler          the endpoints served
+     * @param codecCustomizers the codec configuration of the application
+     */
+    @Autowired
+    public ReactiveServer(ReactiveServerProperties properties, ReactiveReservationHandler handler, ObjectProvider<CodecCustomizer> codecCustomizers) {
+        this.properties = properties;
+        this.handler = handler;
+        this.codecCustomizers = codecCustomizers;
+    }
+
+    /**
+     * Binds the server if it is enabled.
+     */
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(configurer -> codecCustomizers.orderedStream().forEach(customizer -> customizer.customize(configurer)))
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        server = HttpServer.create()
+                .host(properties.getHost())
+                .port(properties.getPort())
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive export server started on port {}", server.port());
+    }
+
+    /**
+     * Closes the server and the connections of running downloads.
+     */
+    @Override
+    public void stop() {
+        DisposableServer running = server;
+        if (running != null) {
+            running.disposeNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the port, or -1 if the server is not running
+     */
+    public int getPort() {
+        DisposableServer running = server;
+        return running != null ? running.port() : -1;
+    }
+}
@@ -0,0 +1,31 @@
+package com.reservation.reactive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the reactive export server, which serves the export and JSON endpoints on a separate port without
+ * holding a thread per download.
+ * Bound from the {@code reservation.reactive-server} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.reactive-server")
+public class ReactiveServerProperties {
+
+    /**
+     * Whether the reactive export server is started.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Address the reactive export server binds to.
+     */
+    private String host = "0.0.0.0";
+
+    /**
+     * Port of the reactive export server, next to the port of the servlet endpoints.
+     */
+    private int port = 8081;
+}
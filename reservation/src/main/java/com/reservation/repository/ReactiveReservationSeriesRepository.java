@@ -0,0 +1,189 @@
+package com.reservation.repository;
+
+import com.reservation.config.DataSourceConfiguration;
+import com.reservation.diagnostics.ExportDiagnostics;
+import com.reservation.diagnostics.QueryTimer;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@link ReservationSeriesRepository} for the reactive export server.
+ * Rows are fetched from a cursor in batches of {@link #FETCH_SIZE} and only as fast as the subscriber requests them,
+ * so a slow client holds back the reads of its export instead of buffering its rows in memory.
+ * Queries are the same as those of {@link ReservationSeriesRepositoryImpl}; time points are interpreted in the default
+ * time zone of the JVM like there. Completed reads are measured by {@link ExportDiagnostics}, which records them if
+ * they are slow; the time until the first row is that of the first chunk.
+ *
+ * @author Bojana Samardzic
+ */
+@Repository
+public class ReactiveReservationSeriesRepository {
+
+    /**
+     * Number of rows fetched from the database per round trip and upper bound of the rows of a chunk,
+     * apart from rows sharing the timestamp of its last row.
+     */
+    static final int FETCH_SIZE = 500;
+
+    private final ConnectionFactory connectionFactory;
+    private final ExportDiagnostics diagnostics;
+
+    /**
+     * Constructs a new instance of {@code ReactiveReservationSeriesRepository} reading from the reactive pool.
+     *
+     * @param connectionFactory the connection factory of the reactive pool
+     * @param diagnostics       the diagnostics of slow export queries
+     */
+    @Autowired
+    public ReactiveReservationSeriesRepository(@Qualifier(DataSourceConfiguration.REACTIVE_CONNECTION_FACTORY) ConnectionFactory connectionFactory,
+                                               ExportDiagnostics diagnostics) {
+        this.connectionFactory = connectionFactory;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Reads the reservations of an asset/market pair within a timestamp range in chunks, reading only the projected
+     * columns. A chunk ends only where the timestamp changes, so that rows of one timestamp stay together.
+     * The connection is taken on subscription and returned on completion, error or cancellation.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @param fields   the fields to read
+     * @param filter   the conditions rows must satisfy
+     * @return the chunks in timestamp order
+     */
+    public Flux<ReservationSeries> streamSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to,
+                                               ReservationProjection fields, ReservationFilter filter) {
+        SeriesQuery query = SeriesQuery.of(fields, filter, true);
+        return stream("streamSeries", assetId, marketId, query, query.arguments(assetId, marketId, from, to, ReactiveReservationSeriesRepository::toOffsetDateTime));
+    }
+
+    /**
+     * Reads all reservations of an asset/market pair in chunks, reading only the projected columns.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read
+     * @return the chunks in timestamp order
+     */
+    public Flux<ReservationSeries> streamSeries(UUID assetId, UUID marketId, ReservationProjection fields) {
+        SeriesQuery query = SeriesQuery.of(fields, new ReservationFilter(), false);
+        return stream("streamSeries", assetId, marketId, query, query.arguments(assetId, marketId, null, null, ReactiveReservationSeriesRepository::toOffsetDateTime));
+    }
+
+    /**
+     * Reads all reservations of an asset/market pair from a timestamp on in chunks, reading only the projected columns.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the earliest timestamp to include
+     * @param fields   the fields to read
+     * @return the chunks in timestamp order
+     */
+    public Flux<ReservationSeries> streamSeries(UUID assetId, UUID marketId, LocalDateTime from, ReservationProjection fields) {
+        SeriesQuery query = SeriesQuery.since(fields);
+        return stream("streamSeries", assetId, marketId, query, query.arguments(assetId, marketId, from, null, ReactiveReservationSeriesRepository::toOffsetDateTime));
+    }
+
+    /**
+     * Reads all columns of the reservations of an asset/market pair updated within a range of update times in chunks,
+     * ordered by update time.
+     *
+     * @param assetId     the unique identifier of the asset
+     * @param marketId    the unique identifier of the market
+     * @param updatedFrom the start of the range of update times
+     * @param updatedTo   the end of the range of update times, or {@code null} for all rows updated since its start
+     * @return the chunks in update order
+     */
+    public Flux<ReservationSeries> streamChanges(UUID assetId, UUID marketId, LocalDateTime updatedFrom, LocalDateTime updatedTo) {
+        SeriesQuery query = SeriesQuery.changes(updatedTo != null);
+        return stream("streamChanges", assetId, marketId, query, query.arguments(assetId, marketId, updatedFrom, updatedTo, ReactiveReservationSeriesRepository::toOffsetDateTime));
+    }
+
+    private Flux<ReservationSeries> stream(String operation, UUID assetId, UUID marketId, SeriesQuery query, Object[] arguments) {
+        return Flux.usingWhen(connectionFactory.create(),
+                connection -> Flux.defer(() -> {
+                    SeriesChunker chunker = new SeriesChunker(assetId, marketId, query);
+                    QueryTimer timer = diagnostics.start(operation, assetId, marketId, query.sql(), arguments);
+                    return Flux.from(statement(connection, query, arguments).execute())
+                            .concatMap(result -> result.map((row, metadata) -> chunker.add(row)))
+                            .<ReservationSeries>handle((chunk, sink) -> chunk.ifPresent(sink::next))
+                            .concatWith(Mono.fromSupplier(chunker::remaining))
+                            .doOnNext(chunk -> {
+                                timer.rows(chunk.size());
+                                timer.delivered();
+                            })
+                            .doOnRequest(timer::requested)
+                            .doOnComplete(timer::finish);
+                }),
+                Connection::close);
+    }
+
+    private static Statement statement(Connection connection, SeriesQuery query, Object[] arguments) {
+        Statement statement = connection.createStatement(query.indexedSql()).fetchSize(FETCH_SIZE);
+        for (int index = 0; index < arguments.length; index++) {
+            statement.bind(index, arguments[index]);
+        }
+        return statement;
+    }
+
+    private static Object toOffsetDateTime(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    /**
+     * Collects the rows of one query into chunks and hands out each chunk once it is full and the timestamp changes.
+     * Only used by the single subscription of that query, which delivers rows one at a time.
+     */
+    private static final class SeriesChunker {
+
+        private final UUID assetId;
+        private final UUID marketId;
+        private final SeriesQuery query;
+        private ReservationSeries chunk;
+
+        private SeriesChunker(UUID assetId, UUID marketId, SeriesQuery query) {
+            this.assetId = assetId;
+            this.marketId = marketId;
+            this.query = query;
+            this.chunk = new ReservationSeries(assetId, marketId, FETCH_SIZE);
+        }
+
+        /**
+         * Appends a row and returns the previous chunk if the row starts a new one.
+         */
+        private Optional<ReservationSeries> add(Row row) {
+            ReservationSeries completed = null;
+            if (chunk.size() >= FETCH_SIZE && chunk.getTimestamp(chunk.size() - 1) != SeriesQuery.epochMicros(row, 1)) {
+                completed = chunk;
+                chunk = new ReservationSeries(assetId, marketId, FETCH_SIZE);
+            }
+            query.addRow(chunk, row);
+            return Optional.ofNullable(completed);
+        }
+
+        /**
+         * Returns the last chunk, or {@code null} if no row is left.
+         */
+        private ReservationSeries remaining() {
+            return chunk.isEmpty() ? null : chunk;
+        }
+    }
+}
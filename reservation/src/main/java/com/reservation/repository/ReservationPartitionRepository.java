@@ -0,0 +1,340 @@
+package com.reservation.repository;
+
+import com.reservation.config.DataSourceConfiguration;
+import com.reservation.model.ReservationPartition;
+import com.reservation.model.ReservationSeries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Manages the monthly partitions of the {@code reservation} table, see the {@code V6} migration.
+ * Partitions are created by the {@code create_reservation_partition} function of the database, which also moves the
+ * reservations of the month out of the default partition. Archiving detaches a partition and moves it to the
+ * {@value #ARCHIVE_SCHEMA} schema; both are changes of the catalog only, no rows are copied or deleted.
+ * Partitions moved to the cold tier are detached first and read and dropped while detached, so that no reservation
+ * can be written to them in between; until they are dropped they stay in the {@code public} schema under their name.
+ * Whole partitions are read through the export pool, whose statement timeout allows reading a month at once.
+ * Partitions are created, and the default partition is scanned, without the statement timeout of the primary pool,
+ * since moving the reservations of a month out of the default partition may take longer.
+ * Maintenance is serialized across instances by a session-level advisory lock, see {@link #tryLockMaintenance()}.
+ *
+ * @author Bojana Samardzic
+ */
+@Repository
+public class ReservationPartitionRepository {
+
+    /**
+     * Schema archived partitions are moved to, under their original name.
+     */
+    public static final String ARCHIVE_SCHEMA = "reservation_archive";
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT partition_name, range_start, range_end
+            FROM reservation_partitions
+            WHERE range_start IS NOT NULL
+            ORDER BY range_start
+            """;
+
+    private static final String SELECT_DEFAULT_PARTITION_MONTHS = """
+            SELECT DISTINCT date_trunc('month', timestamp AT TIME ZONE 'UTC')::DATE
+            FROM reservation_default
+            ORDER BY 1
+            """;
+
+    private static final String SELECT_DETACHED_PARTITIONS = """
+            SELECT child.relname
+            FROM pg_class child
+            JOIN pg_namespace namespace ON namespace.oid = child.relnamespace
+            WHERE namespace.nspname = 'public' AND child.relkind = 'r' AND NOT child.relispartition
+              AND child.relname ~ '^reservation_[0-9]{4}_[0-9]{2}$'
+            ORDER BY child.relname
+            """;
+
+    private static final String LIFT_STATEMENT_TIMEOUT = "SELECT set_config('statement_timeout', '0', true)";
+
+    private static final String TRY_LOCK_MAINTENANCE = "SELECT pg_try_advisory_lock(hashtext('reservation_partition_maintenance'))";
+    private static final String UNLOCK_MAINTENANCE = "SELECT pg_advisory_unlock(hashtext('reservation_partition_maintenance'))";
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'reservation_'yyyy_MM");
+
+    private static final String SELECT_PARTITION_ROWS = """
+            SELECT id, timestamp, asset_id, market_id, positive_bid_id, negative_bid_id,
+                   positive_value, positive_capacity_price, positive_energy_price,
+                   negative_value, negative_capacity_price, negative_energy_price, updated_at
+            FROM %s
+            ORDER BY asset_id, market_id, timestamp, id
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate exportTransactionTemplate;
+
+    /**
+     * Constructs a new instance of {@code ReservationPartitionRepository} changing partitions on the primary pool and
+     * reading them through the export pool.
+     *
+     * @param dataSource       the data source of the primary pool
+     * @param exportDataSource the data source of the export pool
+     */
+    @Autowired
+    public ReservationPartitionRepository(DataSource dataSource,
+                                          @Qualifier(DataSourceConfiguration.EXPORT_DATA_SOURCE) DataSource exportDataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.exportJdbcTemplate = new JdbcTemplate(exportDataSource);
+        this.exportJdbcTemplate.setFetchSize(ReservationSeriesRepositoryImpl.FETCH_SIZE);
+        this.exportTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(exportDataSource));
+        this.exportTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Finds the partitions with a range of timestamps, i.e. all but the default partition.
+     *
+     * @return the partitions ordered by their range
+     */
+    public List<ReservationPartition> findPartitions() {
+        return jdbcTemplate.query(SELECT_PARTITIONS, (resultSet, row) -> new ReservationPartition(
+                resultSet.getString(1),
+                resultSet.getObject(2, OffsetDateTime.class).toInstant(),
+                resultSet.getObject(3, OffsetDateTime.class).toInstant()));
+    }
+
+    /**
+     * Finds the months in UTC of the reservations in the default partition, i.e. of months without a partition.
+     *
+     * @return the months in ascending order
+     */
+    public List<YearMonth> findDefaultPartitionMonths() {
+        return withoutStatementTimeout(() -> jdbcTemplate.query(SELECT_DEFAULT_PARTITION_MONTHS,
+                (resultSet, row) -> YearMonth.from(resultSet.getObject(1, LocalDate.class))));
+    }
+
+    /**
+     * Creates the partition of a month in UTC, unless it exists.
+     *
+     * @param month the month of the partition
+     * @return the name of the created partition, or empty if it already existed
+     */
+    public Optional<String> createPartition(YearMonth month) {
+        return Optional.ofNullable(withoutStatementTimeout(() -> jdbcTemplate.queryForObject(
+                "SELECT create_reservation_partition(?)", String.class, month.atDay(1))));
+    }
+
+    /**
+     * Detaches a partition from the {@code reservation} table and moves it to the {@value #ARCHIVE_SCHEMA} schema in
+     * one transaction. Its reservations are no longer read by queries of the table.
+     *
+     * @param partition the partition to archive
+     */
+    public void archivePartition(ReservationPartition partition) {
+        String name = quoteIdentifier(partition.name());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE reservation DETACH PARTITION " + name);
+            jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA " + ARCHIVE_SCHEMA);
+        });
+    }
+
+    /**
+     * Finds the partitions that were detached for the cold tier but not dropped yet, e.g. because the application
+     * stopped while writing their file. Their range is derived from their name.
+     *
+     * @return the detached partitions ordered by their range
+     */
+    public List<ReservationPartition> findDetachedPartitions() {
+        return jdbcTemplate.query(SELECT_DETACHED_PARTITIONS, (resultSet, row) -> {
+            String name = resultSet.getString(1);
+            YearMonth month = YearMonth.parse(name, PARTITION_MONTH);
+            return new ReservationPartition(name,
+                    month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                    month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        });
+    }
+
+    /**
+     * Detaches a partition from the {@code reservation} table, keeping it as a table of its own. Its reservations are
+     * no longer read by queries of the table, and new reservations of its range go to the default partition.
+     *
+     * @param partition the partition to detach
+     */
+    public void detachPartition(ReservationPartition partition) {
+        jdbcTemplate.execute("ALTER TABLE reservation DETACH PARTITION " + quoteIdentifier(partition.name()));
+    }
+
+    /**
+     * Attaches a detached partition to the {@code reservation} table again, e.g. after its file could not be written.
+     * The partition is validated by a temporary check constraint before it is attached, like by
+     * {@code create_reservation_partition}, so attaching does not scan it again.
+     *
+     * @param partition the detached partition
+     */
+    public void attachPartition(ReservationPartition partition) {
+        String name = quoteIdentifier(partition.name());
+        String constraint = quoteIdentifier(partition.name() + "_range");
+        String from = quoteLiteral(partition.from().toString());
+        String to = quoteLiteral(partition.to().toString());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + constraint
+                    + " CHECK (timestamp >= " + from + " AND timestamp < " + to + ")");
+            jdbcTemplate.execute("ALTER TABLE reservation ATTACH PARTITION " + name + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + constraint);
+        });
+    }
+
+    /**
+     * Drops a detached partition, e.g. once its reservations are kept elsewhere.
+     *
+     * @param partition the detached partition
+     */
+    public void dropPartition(ReservationPartition partition) {
+        jdbcTemplate.execute("DROP TABLE " + quoteIdentifier(partition.name()));
+    }
+
+    /**
+     * Tries to take the advisory lock of partition maintenance, so that instances sharing the database do not create,
+     * archive or drop partitions at the same time. The lock is held by a connection of the primary pool, which is
+     * taken out of the pool until the lock is released.
+     *
+     * @return the lock, to be closed once maintenance is done, or empty if another instance holds it
+     */
+    public Optional<MaintenanceLock> tryLockMaintenance() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        JdbcTemplate lockTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        boolean locked = false;
+        try {
+            locked = Boolean.TRUE.equals(lockTemplate.queryForObject(TRY_LOCK_MAINTENANCE, Boolean.class));
+        } finally {
+            if (!locked) {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+        if (!locked) {
+            return Optional.empty();
+        }
+        return Optional.of(() -> {
+            try {
+                lockTemplate.queryForObject(UNLOCK_MAINTENANCE, Boolean.class);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        });
+    }
+
+    /**
+     * Reads all reservations of a partition, one asset/market series at a time. Each series is passed on complete
+     * before the next one is read, so only one series is held in memory.
+     * Unlike other series, the time points of the series are epoch microseconds of the instant, independent of the
+     * time zone of the JVM.
+     *
+     * @param partition the partition to read
+     * @param consumer  receives the series of each asset/market pair, in the order of their asset and market IDs
+     */
+    public void streamPartition(ReservationPartition partition, Consumer<ReservationSeries> consumer) {
+        exportTransactionTemplate.executeWithoutResult(status -> {
+            PartitionReader reader = new PartitionReader(consumer);
+            exportJdbcTemplate.query(SELECT_PARTITION_ROWS.formatted(quoteIdentifier(partition.name())), reader);
+            reader.finish();
+        });
+    }
+
+    /**
+     * Runs a statement on the primary pool in a transaction without statement timeout.
+     */
+    private <T> T withoutStatementTimeout(Supplier<T> statement) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject(LIFT_STATEMENT_TIMEOUT, String.class);
+            return statement.get();
+        });
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static String quoteLiteral(String literal) {
+        return '\'' + literal.replace("'", "''") + '\'';
+    }
+
+    /**
+     * The advisory lock of partition maintenance, released when closed.
+     */
+    @FunctionalInterface
+    public interface MaintenanceLock extends AutoCloseable {
+
+        /**
+         * Releases the lock and returns its connection to the pool.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Collects the rows of a partition into series and passes each on once the rows of the next series begin.
+     */
+    private static final class PartitionReader implements RowCallbackHandler {
+
+        private final Consumer<ReservationSeries> consumer;
+        private ReservationSeries series;
+
+        private PartitionReader(Consumer<ReservationSeries> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            UUID assetId = resultSet.getObject(3, UUID.class);
+            UUID marketId = resultSet.getObject(4, UUID.class);
+            if (series == null || !series.getAssetId().equals(assetId) || !series.getMarketId().equals(marketId)) {
+                finish();
+                series = new ReservationSeries(assetId, marketId);
+            }
+            series.add(resultSet.getLong(1),
+                    epochMicros(resultSet, 2),
+                    resultSet.getObject(5, UUID.class),
+                    resultSet.getObject(6, UUID.class),
+                    resultSet.getDouble(7),
+                    resultSet.getDouble(8),
+                    resultSet.getDouble(9),
+                    resultSet.getDouble(10),
+                    resultSet.getDouble(11),
+                    resultSet.getDouble(12),
+                    epochMicros(resultSet, 13));
+        }
+
+        private void finish() {
+            if (series != null) {
+                consumer.accept(series);
+                series = null;
+            }
+        }
+
+        private static long epochMicros(ResultSet resultSet, int column) throws SQLException {
+            OffsetDateTime dateTime = resultSet.getObject(column, OffsetDateTime.class);
+            return dateTime.toEpochSecond() * 1_000_000 + dateTime.getNano() / 1_000;
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.reservation.repository;
 
 import com.reservation.model.Reservation;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repository interface for managing {@link Reservation} entities.
- * Extends the {@link JpaRepository} to provide CRUD operations and custom query methods.
+ * Extends the {@link JpaRepository} to provide CRUD operations and custom query methods,
+ * and {@link ReservationSeriesRepository} for reading columnar series directly from JDBC.
  *
  * @author Bojana Samardzic
  */
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, ReservationSeriesRepository {
 
     /**
      * Finds reservations by asset ID and market ID.
@@ -34,4 +41,48 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
      * @return a list of reservations matching the criteria
      */
     List<Reservation> findByAssetIdAndMarketIdAndTimestampBetween(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Finds reservations by asset ID and market ID with a timestamp at or after the given time.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the earliest timestamp to include
+     * @return a list of reservations matching the criteria
+     */
+    List<Reservation> findByAssetIdAndMarketIdAndTimestampGreaterThanEqual(UUID assetId, UUID marketId, LocalDateTime from);
+
+    /**
+     * Streams all reservations with a timestamp at or after the given time, ordered by asset, market, timestamp and id,
+     * so that the rows of each series arrive in the order they are stored in.
+     * Must be consumed within a transaction.
+     *
+     * @param from the earliest timestamp to include
+     * @return a stream of reservations matching the criteria
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Reservation> streamByTimestampGreaterThanEqualOrderByAssetIdAscMarketIdAscTimestampAscIdAsc(LocalDateTime from);
+
+    /**
+     * Streams the reservations of an asset and market with a timestamp at or after the given time, in timestamp and
+     * id order. Must be consumed within a transaction.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the earliest timestamp to include
+     * @return a stream of reservations matching the criteria
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Reservation> streamByAssetIdAndMarketIdAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(UUID assetId, UUID marketId, LocalDateTime from);
+
+    /**
+     * Streams reservations updated at or after the given time whose timestamp is at or after the given start.
+     * Must be consumed within a transaction.
+     *
+     * @param updatedFrom the earliest update time to include
+     * @param from        the earliest timestamp to include
+     * @return a stream of reservations matching the criteria
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Reservation> streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(LocalDateTime updatedFrom, LocalDateTime from);
 }
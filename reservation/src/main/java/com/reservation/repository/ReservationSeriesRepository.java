@@ -0,0 +1,137 @@
+package com.reservation.repository;
+
+import com.reservation.model.AggregateSeries;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.SeriesWatermark;
+import com.reservation.model.TimeWindows;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Repository fragment that reads reservations directly from JDBC into a columnar {@link ReservationSeries},
+ * without materializing entities.
+ *
+ * @author Bojana Samardzic
+ */
+public interface ReservationSeriesRepository {
+
+    /**
+     * Finds the reservations of an asset/market pair within a timestamp range.
+     * Only the columns of the given fields are read; the other columns of the series stay empty.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @param fields   the fields to read
+     * @param filter   the conditions rows must satisfy
+     * @return the matching reservations as a series ordered by timestamp and id
+     */
+    ReservationSeries findSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields,
+                                 ReservationFilter filter);
+
+    /**
+     * Finds all reservations of an asset/market pair.
+     * Only the columns of the given fields are read; the other columns of the series stay empty.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read
+     * @return the reservations as a series ordered by timestamp and id
+     */
+    ReservationSeries findSeries(UUID assetId, UUID marketId, ReservationProjection fields);
+
+    /**
+     * Finds all reservations of an asset/market pair with a timestamp at or after the given time.
+     * Only the columns of the given fields are read; the other columns of the series stay empty.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the earliest timestamp to include
+     * @param fields   the fields to read
+     * @return the reservations as a series ordered by timestamp and id
+     */
+    ReservationSeries findSeries(UUID assetId, UUID marketId, LocalDateTime from, ReservationProjection fields);
+
+    /**
+     * Reads the reservations of an asset/market pair within a timestamp range in consecutive chunks, so that the
+     * complete result is never held in memory. All rows of one timestamp are passed in the same chunk.
+     * Only the columns of the given fields are read; the other columns of the chunks stay empty.
+     *
+     * @param assetId       the unique identifier of the asset
+     * @param marketId      the unique identifier of the market
+     * @param from          the start of the timestamp range
+     * @param to            the end of the timestamp range
+     * @param fields        the fields to read
+     * @param filter        the conditions rows must satisfy
+     * @param chunkConsumer receives the chunks in timestamp order; the chunks are not reused afterwards
+     */
+    void streamSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields,
+                      ReservationFilter filter, Consumer<ReservationSeries> chunkConsumer);
+
+    /**
+     * Reads the reservations of an asset/market pair within several time windows in consecutive chunks with a single
+     * query, in the same way as {@link #streamSeries}.
+     *
+     * @param assetId       the unique identifier of the asset
+     * @param marketId      the unique identifier of the market
+     * @param windows       the disjoint windows in time order, each including both ends
+     * @param fields        the fields to read
+     * @param filter        the conditions rows must satisfy
+     * @param chunkConsumer receives the chunks in timestamp order; the chunks are not reused afterwards
+     */
+    void streamWindows(UUID assetId, UUID marketId, List<TimeWindows.Window> windows, ReservationProjection fields,
+                       ReservationFilter filter, Consumer<ReservationSeries> chunkConsumer);
+
+    /**
+     * Estimates the number of reservations of an asset/market pair within a timestamp range that match a filter
+     * from the query planner statistics, without reading the rows.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @param filter   the conditions rows must satisfy
+     * @return the number of rows the planner expects {@link #findSeries} to return
+     */
+    long estimateSeriesRows(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationFilter filter);
+
+    /**
+     * Estimates the number of reservations the totals of the given assets within a timestamp range are summed from,
+     * using the query planner statistics without reading the rows.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for all markets
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @return the number of rows the planner expects {@link #findTotals} to sum up
+     */
+    long estimateTotalsRows(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Sums the positive and negative values per timestamp over all reservations of the given assets within a
+     * timestamp range, either in all markets or in a single one.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @return the exact totals in milli-kW, one row per timestamp in timestamp order
+     */
+    AggregateSeries findTotals(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Finds the watermark of every asset/market pair with reservations within a timestamp range.
+     *
+     * @param from the start of the timestamp range
+     * @param to   the end of the timestamp range
+     * @return the latest update time and the number of reservations in the range, one entry per pair with reservations
+     */
+    List<SeriesWatermark> findWatermarks(LocalDateTime from, LocalDateTime to);
+}
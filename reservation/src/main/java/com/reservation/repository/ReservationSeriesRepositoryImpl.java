@@ -0,0 +1,397 @@
+package com.reservation.repository;
+
+import com.reservation.diagnostics.ExportDiagnostics;
+import com.reservation.diagnostics.QueryTimer;
+import com.reservation.model.AggregateSeries;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.SeriesWatermark;
+import com.reservation.model.TimeWindows;
+import com.reservation.config.DataSourceConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC implementation of {@link ReservationSeriesRepository}.
+ * Rows are fetched in batches through a server-side cursor and appended to the series column by column.
+ * Export reads use the export connection pool, separate from the pool of JPA and the interactive endpoints. The
+ * series reads of the JSON endpoint and the row estimates taken before an export is admitted use the interactive
+ * pool, so that they neither queue behind running exports nor wait for a connection that admission would hand out.
+ * Only the columns of the requested {@link ReservationProjection} are selected; the columns of other fields stay
+ * empty in the series. The conditions of a {@link ReservationFilter} are compiled into the {@code WHERE} clause
+ * as bind parameters, so that only matching rows are read.
+ * Time points are interpreted in the default time zone of the JVM, like the JPA mapping of {@link com.reservation.model.Reservation}.
+ * Series and totals reads are measured by {@link ExportDiagnostics}, which records them if they are slow.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationSeriesRepositoryImpl implements ReservationSeriesRepository {
+
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    static final int FETCH_SIZE = 2000;
+
+    private static final String SELECT_TOTALS = """
+            SELECT timestamp, sum(round(positive_value * 1000)::bigint), sum(round(negative_value * 1000)::bigint)
+            FROM reservation
+            WHERE asset_id = ANY (?) AND timestamp BETWEEN ? AND ?
+            GROUP BY timestamp
+            ORDER BY timestamp
+            """;
+
+    private static final String SELECT_MARKET_TOTALS = """
+            SELECT timestamp, sum(round(positive_value * 1000)::bigint), sum(round(negative_value * 1000)::bigint)
+            FROM reservation
+            WHERE asset_id = ANY (?) AND market_id = ? AND timestamp BETWEEN ? AND ?
+            GROUP BY timestamp
+            ORDER BY timestamp
+            """;
+
+    /**
+     * Walks the distinct asset/market pairs of the series index one index probe per pair, instead of scanning the
+     * table, and reads the range of each pair from the same index.
+     */
+    private static final String SELECT_WATERMARKS = """
+            WITH RECURSIVE series AS (
+                (SELECT asset_id, market_id FROM reservation ORDER BY asset_id, market_id LIMIT 1)
+                UNION ALL
+                SELECT next.asset_id, next.market_id
+                FROM series,
+                     LATERAL (SELECT asset_id, market_id FROM reservation
+                              WHERE (asset_id, market_id) > (series.asset_id, series.market_id)
+                              ORDER BY asset_id, market_id LIMIT 1) next
+            )
+            SELECT series.asset_id, series.market_id, watermark.updated_at, watermark.row_count
+            FROM series,
+                 LATERAL (SELECT max(updated_at) AS updated_at, count(*) AS row_count FROM reservation
+                          WHERE asset_id = series.asset_id AND market_id = series.market_id AND timestamp BETWEEN ? AND ?) watermark
+            WHERE watermark.row_count > 0
+            """;
+
+    private static final String SELECT_TOTALS_ROWS = """
+            SELECT 1
+            FROM reservation
+            WHERE asset_id = ANY (?) AND timestamp BETWEEN ? AND ?
+            """;
+
+    private static final String SELECT_MARKET_TOTALS_ROWS = """
+            SELECT 1
+            FROM reservation
+            WHERE asset_id = ANY (?) AND market_id = ? AND timestamp BETWEEN ? AND ?
+            """;
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate interactiveJdbcTemplate;
+    private final TransactionTemplate interactiveTransactionTemplate;
+    private final ExportDiagnostics diagnostics;
+
+    /**
+     * Constructs a new instance of {@code ReservationSeriesRepositoryImpl} reading exports from the export pool and
+     * everything else from the interactive pool.
+     *
+     * @param dataSource            the data source of the export pool
+     * @param interactiveDataSource the data source of the interactive pool
+     * @param diagnostics           the diagnostics of slow export queries
+     */
+    @Autowired
+    public ReservationSeriesRepositoryImpl(@Qualifier(DataSourceConfiguration.EXPORT_DATA_SOURCE) DataSource dataSource,
+                                           DataSource interactiveDataSource, ExportDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setReadOnly(true);
+        this.interactiveJdbcTemplate = new JdbcTemplate(interactiveDataSource);
+        this.interactiveJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.interactiveTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(interactiveDataSource));
+        this.interactiveTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Finds the reservations of an asset/market pair within a timestamp range, reading only the projected columns.
+     * Runs in a read-only transaction so that the driver streams the result instead of buffering it.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @param fields   the fields to read
+     * @param filter   the conditions rows must satisfy
+     * @return the matching reservations as a series ordered by timestamp and id
+     */
+    @Override
+    public ReservationSeries findSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields,
+                                       ReservationFilter filter) {
+        SeriesQuery query = SeriesQuery.of(fields, filter, true);
+        Object[] arguments = query.arguments(assetId, marketId, from, to, Timestamp::valueOf);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        QueryTimer timer = diagnostics.start("findSeries", assetId, marketId, query.sql(), arguments);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(query.sql(), resultSet -> {
+            query.addRow(series, resultSet);
+            timer.rows(1);
+        }, arguments));
+        timer.finish();
+        return series;
+    }
+
+    /**
+     * Finds all reservations of an asset/market pair, reading only the projected columns from the interactive pool.
+     * Runs in a read-only transaction so that the driver streams the result instead of buffering it.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read
+     * @return the reservations as a series ordered by timestamp and id
+     */
+    @Override
+    public ReservationSeries findSeries(UUID assetId, UUID marketId, ReservationProjection fields) {
+        SeriesQuery query = SeriesQuery.of(fields, new ReservationFilter(), false);
+        Object[] arguments = query.arguments(assetId, marketId, null, null, Timestamp::valueOf);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        QueryTimer timer = diagnostics.start("findSeries", assetId, marketId, query.sql(), arguments);
+        interactiveTransactionTemplate.executeWithoutResult(status -> interactiveJdbcTemplate.query(query.sql(), resultSet -> {
+            query.addRow(series, resultSet);
+            timer.rows(1);
+        }, arguments));
+        timer.finish();
+        return series;
+    }
+
+    /**
+     * Finds all reservations of an asset/market pair from a timestamp on, reading only the projected columns from the
+     * interactive pool.
+     * Runs in a read-only transaction so that the driver streams the result instead of buffering it.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the earliest timestamp to include
+     * @param fields   the fields to read
+     * @return the reservations as a series ordered by timestamp and id
+     */
+    @Override
+    public ReservationSeries findSeries(UUID assetId, UUID marketId, LocalDateTime from, ReservationProjection fields) {
+        SeriesQuery query = SeriesQuery.since(fields);
+        Object[] arguments = query.arguments(assetId, marketId, from, null, Timestamp::valueOf);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        QueryTimer timer = diagnostics.start("findSeries", assetId, marketId, query.sql(), arguments);
+        interactiveTransactionTemplate.executeWithoutResult(status -> interactiveJdbcTemplate.query(query.sql(), resultSet -> {
+            query.addRow(series, resultSet);
+            timer.rows(1);
+        }, arguments));
+        timer.finish();
+        return series;
+    }
+
+    /**
+     * Reads the reservations of an asset/market pair within a timestamp range in chunks of about {@link #FETCH_SIZE} rows,
+     * reading only the projected columns.
+     * A chunk is passed on only once the timestamp changes, so that rows of one timestamp stay together.
+     * Runs in a read-only transaction so that the driver streams the result instead of buffering it.
+     *
+     * @param assetId       the unique identifier of the asset
+     * @param marketId      the unique identifier of the market
+     * @param from          the start of the timestamp range
+     * @param to            the end of the timestamp range
+     * @param fields        the fields to read
+     * @param filter        the conditions rows must satisfy
+     * @param chunkConsumer receives the chunks in timestamp order
+     */
+    @Override
+    public void streamSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationProjection fields,
+                             ReservationFilter filter, Consumer<ReservationSeries> chunkConsumer) {
+        SeriesQuery query = SeriesQuery.of(fields, filter, true);
+        Object[] arguments = query.arguments(assetId, marketId, from, to, Timestamp::valueOf);
+        QueryTimer timer = diagnostics.start("streamSeries", assetId, marketId, query.sql(), arguments);
+        ChunkingRowHandler handler = new ChunkingRowHandler(assetId, marketId, query, chunkConsumer, timer);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.query(query.sql(), handler, arguments);
+            handler.flush();
+        });
+        timer.finish();
+    }
+
+    /**
+     * Reads the reservations of an asset/market pair within several time windows in chunks of about
+     * {@link #FETCH_SIZE} rows with a single query, reading only the projected columns.
+     * The windows are bound as arrays of their bounds, so a single query scans the series index once per window where
+     * each window would otherwise be a request and query of its own; the result is ordered like that of a single range.
+     *
+     * @param assetId       the unique identifier of the asset
+     * @param marketId      the unique identifier of the market
+     * @param windows       the disjoint windows in time order, each including both ends
+     * @param fields        the fields to read
+     * @param filter        the conditions rows must satisfy
+     * @param chunkConsumer receives the chunks in timestamp order
+     */
+    @Override
+    public void streamWindows(UUID assetId, UUID marketId, List<TimeWindows.Window> windows, ReservationProjection fields,
+                              ReservationFilter filter, Consumer<ReservationSeries> chunkConsumer) {
+        SeriesQuery query = SeriesQuery.windows(fields, filter);
+        Object[] arguments = query.arguments(assetId, marketId, windows, Timestamp::valueOf);
+        QueryTimer timer = diagnostics.start("streamWindows", assetId, marketId, query.sql(), arguments);
+        ChunkingRowHandler handler = new ChunkingRowHandler(assetId, marketId, query, chunkConsumer, timer);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.query(query.sql(), handler, arguments);
+            handler.flush();
+        });
+        timer.finish();
+    }
+
+    /**
+     * Estimates the number of reservations of an asset/market pair within a timestamp range that match a filter.
+     * Reads the row estimate of the top plan node of {@code EXPLAIN}, which only consults the planner statistics.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @param filter   the conditions rows must satisfy
+     * @return the number of rows the planner expects {@link #findSeries} to return
+     */
+    @Override
+    public long estimateSeriesRows(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, ReservationFilter filter) {
+        SeriesQuery query = SeriesQuery.of(ReservationProjection.DETAILED, filter, true);
+        return estimateRows(query.sql(), query.arguments(assetId, marketId, from, to, Timestamp::valueOf));
+    }
+
+    /**
+     * Estimates the number of reservations {@link #findTotals} sums up from the query planner statistics, without
+     * reading the rows.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} for all markets
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @return the number of rows the planner expects the totals to be summed from
+     */
+    @Override
+    public long estimateTotalsRows(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        UUID[] assets = assetIds.toArray(UUID[]::new);
+        return marketId == null
+                ? estimateRows(SELECT_TOTALS_ROWS, assets, Timestamp.valueOf(from), Timestamp.valueOf(to))
+                : estimateRows(SELECT_MARKET_TOTALS_ROWS, assets, marketId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Sums the values per timestamp over all reservations of the given assets within a timestamp range.
+     * The sums are computed by the database over values rounded to milli-kW, so they are exact and only one row
+     * per timestamp is transferred.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the timestamp range
+     * @param to       the end of the timestamp range
+     * @return the totals, one row per timestamp in timestamp order
+     */
+    @Override
+    public AggregateSeries findTotals(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        AggregateSeries totals = new AggregateSeries();
+        UUID[] assets = assetIds.toArray(UUID[]::new);
+        String sql = marketId == null ? SELECT_TOTALS : SELECT_MARKET_TOTALS;
+        Object[] arguments = marketId == null
+                ? new Object[]{assets, Timestamp.valueOf(from), Timestamp.valueOf(to)}
+                : new Object[]{assets, marketId, Timestamp.valueOf(from), Timestamp.valueOf(to)};
+        QueryTimer timer = diagnostics.start("findTotals", assets.length == 1 ? assets[0] : null, marketId, sql, arguments);
+        RowCallbackHandler handler = resultSet -> {
+            totals.accumulate(SeriesQuery.epochMicros(resultSet, 1), resultSet.getLong(2), resultSet.getLong(3));
+            timer.rows(1);
+        };
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, handler, arguments));
+        timer.finish();
+        return totals;
+    }
+
+    /**
+     * Finds the watermark of every asset/market pair with reservations within a timestamp range.
+     * The pairs are enumerated from the series index, so the cost grows with the number of pairs and the rows in the
+     * range rather than with the size of the table.
+     *
+     * @param from the start of the timestamp range
+     * @param to   the end of the timestamp range
+     * @return the latest update time and the number of reservations in the range, one entry per pair with reservations
+     */
+    @Override
+    public List<SeriesWatermark> findWatermarks(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_WATERMARKS, (resultSet, rowNum) -> new SeriesWatermark(
+                resultSet.getObject(1, UUID.class), resultSet.getObject(2, UUID.class),
+                resultSet.getTimestamp(3).toLocalDateTime(), resultSet.getLong(4)), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Reads the row estimate of the top plan node of {@code EXPLAIN} of a query on the interactive pool, whose short
+     * statement timeout bounds the planning.
+     */
+    private long estimateRows(String sql, Object... arguments) {
+        List<String> plan = interactiveJdbcTemplate.queryForList("EXPLAIN " + sql, String.class, arguments);
+        Matcher matcher = PLAN_ROWS.matcher(plan.isEmpty() ? "" : plan.get(0));
+        if (!matcher.find()) {
+            throw new DataRetrievalFailureException("No row estimate in query plan: " + plan);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Collects rows into chunks and passes each chunk on once it is full and the timestamp changes.
+     */
+    private static final class ChunkingRowHandler implements RowCallbackHandler {
+
+        private final UUID assetId;
+        private final UUID marketId;
+        private final SeriesQuery query;
+        private final Consumer<ReservationSeries> chunkConsumer;
+        private final QueryTimer timer;
+        private ReservationSeries chunk;
+
+        private ChunkingRowHandler(UUID assetId, UUID marketId, SeriesQuery query, Consumer<ReservationSeries> chunkConsumer, QueryTimer timer) {
+            this.assetId = assetId;
+            this.marketId = marketId;
+            this.query = query;
+            this.chunkConsumer = chunkConsumer;
+            this.timer = timer;
+            this.chunk = new ReservationSeries(assetId, marketId, FETCH_SIZE);
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            if (chunk.size() >= FETCH_SIZE && chunk.getTimestamp(chunk.size() - 1) != SeriesQuery.epochMicros(resultSet, 2)) {
+                flush();
+            }
+            query.addRow(chunk, resultSet);
+            timer.rows(1);
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                timer.pause();
+                try {
+                    chunkConsumer.accept(chunk);
+                } finally {
+                    timer.resume();
+                }
+                chunk = new ReservationSeries(assetId, marketId, FETCH_SIZE);
+            }
+        }
+    }
+}
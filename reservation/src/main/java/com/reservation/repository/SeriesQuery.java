@@ -0,0 +1,301 @@
+package com.reservation.repository;
+
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
+import io.r2dbc.spi.Row;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Query of the columns of a projection, always including the id and timestamp that order the rows, restricted to
+ * the rows matching a filter.
+ * Remembers the position of each selected column, so that fields that are not selected are left empty.
+ * Shared by the JDBC and the R2DBC series reads; the SQL is available with JDBC ({@code ?}) and with PostgreSQL
+ * ({@code $1}) bind markers.
+ *
+ * @author Bojana Samardzic
+ */
+final class SeriesQuery {
+
+    private static final String TIMESTAMP_RANGE = " AND timestamp BETWEEN ? AND ?";
+    private static final String TIMESTAMP_SINCE = " AND timestamp >= ?";
+    private static final String WINDOW_RANGE = " AND timestamp BETWEEN window_from AND window_to";
+    private static final String TIMESTAMP_ORDER = "timestamp, id";
+    private static final String UPDATE_ORDER = "updated_at, id";
+
+    private static final SeriesQuery DETAILED_SERIES = new SeriesQuery(ReservationProjection.DETAILED, new ReservationFilter(), TIMESTAMP_RANGE, TIMESTAMP_ORDER);
+    private static final SeriesQuery CHANGES_SINCE = new SeriesQuery(ReservationProjection.DETAILED, new ReservationFilter(), " AND updated_at >= ?", UPDATE_ORDER);
+    private static final SeriesQuery CHANGES_BETWEEN = new SeriesQuery(ReservationProjection.DETAILED, new ReservationFilter(), " AND updated_at BETWEEN ? AND ?", UPDATE_ORDER);
+
+    private final String sql;
+    private final String indexedSql;
+    private final int[] positions = new int[ReservationField.values().length];
+    private final List<Object> filterArguments = new ArrayList<>();
+
+    private SeriesQuery(ReservationProjection fields, ReservationFilter filter, String range, String order) {
+        this(fields, filter, range, order, false);
+    }
+
+    private SeriesQuery(ReservationProjection fields, ReservationFilter filter, String range, String order, boolean windows) {
+        StringBuilder columns = new StringBuilder("id, timestamp");
+        int position = 2;
+        for (ReservationField field : fields.columnFields()) {
+            if (field != ReservationField.TIMESTAMP) {
+                columns.append(", ").append(field.getColumn());
+                positions[field.ordinal()] = ++position;
+            }
+        }
+        StringBuilder select = new StringBuilder("SELECT ").append(columns);
+        if (windows) {
+            // OFFSET 0 keeps the planner from flattening the subquery, which would scan the whole series once and
+            // filter it by window instead of scanning the index once per window.
+            select.append("\nFROM unnest(?::timestamptz[], ?::timestamptz[]) AS time_window(window_from, window_to)")
+                    .append("\nCROSS JOIN LATERAL (\nSELECT ").append(columns);
+        }
+        select.append("\nFROM reservation\nWHERE asset_id = ? AND market_id = ?").append(range);
+        appendFilter(select, filter);
+        if (windows) {
+            select.append("\nOFFSET 0\n) AS window_reservation");
+        }
+        this.sql = select.append("\nORDER BY ").append(order).append('\n').toString();
+        this.indexedSql = indexBindMarkers(sql);
+    }
+
+    /**
+     * Returns the query of a projection and filter, reusing the query of all columns over a timestamp range.
+     *
+     * @param fields the fields to read
+     * @param filter the conditions rows must satisfy
+     * @param range  whether the query is restricted to a timestamp range
+     * @return the query
+     */
+    static SeriesQuery of(ReservationProjection fields, ReservationFilter filter, boolean range) {
+        if (range && filter.isEmpty() && fields.columnFields().equals(ReservationProjection.DETAILED.columnFields())) {
+            return DETAILED_SERIES;
+        }
+        return new SeriesQuery(fields, filter, range ? TIMESTAMP_RANGE : "", TIMESTAMP_ORDER);
+    }
+
+    /**
+     * Returns the query of a projection over all rows of a series from a timestamp on, such as the rows not held by
+     * the cold tier. Only the lower bound of the range is bound.
+     *
+     * @param fields the fields to read
+     * @return the query
+     */
+    static SeriesQuery since(ReservationProjection fields) {
+        return new SeriesQuery(fields, new ReservationFilter(), TIMESTAMP_SINCE, TIMESTAMP_ORDER);
+    }
+
+    /**
+     * Returns the query of a projection and filter over several time windows. The windows are bound as two arrays of
+     * their starts and ends, unnested and joined laterally to the series, so all windows are read in one query with
+     * one range scan of the series index per window, pruned to the partitions of the window.
+     *
+     * @param fields the fields to read
+     * @param filter the conditions rows must satisfy
+     * @return the query
+     */
+    static SeriesQuery windows(ReservationProjection fields, ReservationFilter filter) {
+        return new SeriesQuery(fields, filter, WINDOW_RANGE, TIMESTAMP_ORDER, true);
+    }
+
+    /**
+     * Returns the query of all columns of the rows of a series updated within a range of update times, in update order.
+     * Its range is bound like a timestamp range; without an upper bound, only the lower bound is bound.
+     *
+     * @param bounded whether the range of update times has an upper bound
+     * @return the query
+     */
+    static SeriesQuery changes(boolean bounded) {
+        return bounded ? CHANGES_BETWEEN : CHANGES_SINCE;
+    }
+
+    /**
+     * Returns the query with JDBC bind markers.
+     */
+    String sql() {
+        return sql;
+    }
+
+    /**
+     * Returns the query with numbered PostgreSQL bind markers, as required by R2DBC.
+     */
+    String indexedSql() {
+        return indexedSql;
+    }
+
+    /**
+     * Appends the conditions of a filter with bind parameters. A positive lower bound of a value also adds the
+     * implied literal condition {@code value > 0}, which lets the planner use the partial indexes of non-zero values.
+     */
+    private void appendFilter(StringBuilder where, ReservationFilter filter) {
+        for (ReservationFilter.ValueRange range : filter.ranges()) {
+            String column = range.field().getColumn();
+            if (range.min() != null) {
+                where.append("\n  AND ").append(column).append(" >= ?");
+                filterArguments.add(range.min());
+                if (range.min() > 0 && (range.field() == ReservationField.POSITIVE_VALUE || range.field() == ReservationField.NEGATIVE_VALUE)) {
+                    where.append(" AND ").append(column).append(" > 0");
+                }
+            }
+            if (range.max() != null) {
+                where.append("\n  AND ").append(column).append(" <= ?");
+                filterArguments.add(range.max());
+            }
+        }
+        appendPresence(where, ReservationField.POSITIVE_BID_ID, filter.getHasPositiveBid());
+        appendPresence(where, ReservationField.NEGATIVE_BID_ID, filter.getHasNegativeBid());
+        if (filter.getUpdatedFrom() != null) {
+            where.append("\n  AND updated_at >= ?");
+            filterArguments.add(filter.getUpdatedFrom().toLocalDateTime());
+        }
+        if (filter.getUpdatedTo() != null) {
+            where.append("\n  AND updated_at <= ?");
+            filterArguments.add(filter.getUpdatedTo().toLocalDateTime());
+        }
+    }
+
+    private static void appendPresence(StringBuilder where, ReservationField field, Boolean present) {
+        if (present != null) {
+            where.append("\n  AND ").append(field.getColumn()).append(present ? " IS NOT NULL" : " IS NULL");
+        }
+    }
+
+    private static String indexBindMarkers(String sql) {
+        StringBuilder indexed = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                indexed.append('$').append(++index);
+            } else {
+                indexed.append(c);
+            }
+        }
+        return indexed.toString();
+    }
+
+    /**
+     * Returns the bind parameters of the query: the series, the bounds of the range if the query has one, and the
+     * bounds of the filter.
+     *
+     * @param time converts time points to the type the driver binds
+     */
+    Object[] arguments(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, Function<LocalDateTime, Object> time) {
+        List<Object> arguments = new ArrayList<>(4 + filterArguments.size());
+        arguments.add(assetId);
+        arguments.add(marketId);
+        if (from != null) {
+            arguments.add(time.apply(from));
+        }
+        if (to != null) {
+            arguments.add(time.apply(to));
+        }
+        for (Object argument : filterArguments) {
+            arguments.add(argument instanceof LocalDateTime dateTime ? time.apply(dateTime) : argument);
+        }
+        return arguments.toArray();
+    }
+
+    /**
+     * Returns the bind parameters of a query over time windows: the starts and ends of the windows, the series and
+     * the bounds of the filter. The windows are bound as ISO-8601 text with the offset of the default time zone of
+     * the JVM, which both drivers bind as arrays and the query casts.
+     *
+     * @param time converts the time points of the filter to the type the driver binds
+     */
+    Object[] arguments(UUID assetId, UUID marketId, List<TimeWindows.Window> windows, Function<LocalDateTime, Object> time) {
+        String[] starts = new String[windows.size()];
+        String[] ends = new String[windows.size()];
+        ZoneId zone = ZoneId.systemDefault();
+        for (int index = 0; index < windows.size(); index++) {
+            starts[index] = windows.get(index).from().atZone(zone).toOffsetDateTime().toString();
+            ends[index] = windows.get(index).to().atZone(zone).toOffsetDateTime().toString();
+        }
+        Object[] seriesArguments = arguments(assetId, marketId, null, null, time);
+        Object[] arguments = new Object[seriesArguments.length + 2];
+        arguments[0] = starts;
+        arguments[1] = ends;
+        System.arraycopy(seriesArguments, 0, arguments, 2, seriesArguments.length);
+        return arguments;
+    }
+
+    /**
+     * Appends the current row of a JDBC result set to a series.
+     */
+    void addRow(ReservationSeries series, ResultSet resultSet) throws SQLException {
+        series.add(
+                resultSet.getLong(1),
+                epochMicros(resultSet, 2),
+                readUuid(resultSet, ReservationField.POSITIVE_BID_ID),
+                readUuid(resultSet, ReservationField.NEGATIVE_BID_ID),
+                readDouble(resultSet, ReservationField.POSITIVE_VALUE),
+                readDouble(resultSet, ReservationField.POSITIVE_CAPACITY_PRICE),
+                readDouble(resultSet, ReservationField.POSITIVE_ENERGY_PRICE),
+                readDouble(resultSet, ReservationField.NEGATIVE_VALUE),
+                readDouble(resultSet, ReservationField.NEGATIVE_CAPACITY_PRICE),
+                readDouble(resultSet, ReservationField.NEGATIVE_ENERGY_PRICE),
+                positions[ReservationField.UPDATED_AT.ordinal()] == 0 ? 0 : epochMicros(resultSet, positions[ReservationField.UPDATED_AT.ordinal()]));
+    }
+
+    /**
+     * Appends an R2DBC row to a series. Columns of R2DBC rows are numbered from 0.
+     */
+    void addRow(ReservationSeries series, Row row) {
+        series.add(
+                row.get(0, Long.class),
+                epochMicros(row, 1),
+                readUuid(row, ReservationField.POSITIVE_BID_ID),
+                readUuid(row, ReservationField.NEGATIVE_BID_ID),
+                readDouble(row, ReservationField.POSITIVE_VALUE),
+                readDouble(row, ReservationField.POSITIVE_CAPACITY_PRICE),
+                readDouble(row, ReservationField.POSITIVE_ENERGY_PRICE),
+                readDouble(row, ReservationField.NEGATIVE_VALUE),
+                readDouble(row, ReservationField.NEGATIVE_CAPACITY_PRICE),
+                readDouble(row, ReservationField.NEGATIVE_ENERGY_PRICE),
+                positions[ReservationField.UPDATED_AT.ordinal()] == 0 ? 0 : epochMicros(row, positions[ReservationField.UPDATED_AT.ordinal()] - 1));
+    }
+
+    static long epochMicros(ResultSet resultSet, int column) throws SQLException {
+        return ReservationSeries.toEpochMicros(resultSet.getTimestamp(column).toLocalDateTime());
+    }
+
+    /**
+     * Reads a time point of an R2DBC row in the default time zone of the JVM, like {@link ResultSet#getTimestamp}.
+     */
+    static long epochMicros(Row row, int column) {
+        return ReservationSeries.toEpochMicros(LocalDateTime.ofInstant(row.get(column, Instant.class), ZoneId.systemDefault()));
+    }
+
+    private UUID readUuid(ResultSet resultSet, ReservationField field) throws SQLException {
+        int position = positions[field.ordinal()];
+        return position == 0 ? null : resultSet.getObject(position, UUID.class);
+    }
+
+    private double readDouble(ResultSet resultSet, ReservationField field) throws SQLException {
+        int position = positions[field.ordinal()];
+        return position == 0 ? 0 : resultSet.getDouble(position);
+    }
+
+    private UUID readUuid(Row row, ReservationField field) {
+        int position = positions[field.ordinal()];
+        return position == 0 ? null : row.get(position - 1, UUID.class);
+    }
+
+    private double readDouble(Row row, ReservationField field) {
+        int position = positions[field.ordinal()];
+        return position == 0 ? 0 : row.get(position - 1, Double.class);
+    }
+}
@@ -1,10 +1,21 @@
 package com.reservation.service;
 
+import com.reservation.compute.ColumnStatistics;
+import com.reservation.format.ReservationFormat;
+import com.reservation.model.AggregateSeries;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -24,6 +35,16 @@ public interface ReservationService {
      */
     List<Reservation> getReservations(UUID assetId, UUID marketId);
 
+    /**
+     * Retrieves the selected fields of all reservations of an asset/market pair as a columnar series, with values in MW.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read; the other columns of the series stay empty
+     * @return the reservations as a series in timestamp order
+     */
+    ReservationSeries getReservationSeries(UUID assetId, UUID marketId, ReservationProjection fields);
+
     /**
      * Retrieves a list of reservations based on asset ID, market ID and a time range.
      * Optionally calculates the total of positive and negative values.
@@ -38,7 +59,23 @@ public interface ReservationService {
     List<Reservation> getReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total);
 
     /**
-     * Exports reservations to a CSV file based on asset ID, market ID and a time range.
+     * Retrieves the reservations of an asset/market pair within a time range as a columnar series.
+     * Optionally calculates the total of positive and negative values.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, calculates the total of positive and negative values
+     * @param fields   the fields to read; the other columns of the series stay empty
+     * @param filter   the conditions reservations must satisfy
+     * @return the matching reservations as a series in timestamp order
+     */
+    ReservationSeries getReservationSeries(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                           ReservationProjection fields, ReservationFilter filter);
+
+    /**
+     * Exports reservations in the given format based on asset ID, market ID and a time range.
      * Optionally calculates the total of positive and negative values.
      *
      * @param assetId  the unique identifier of the asset
@@ -46,8 +83,146 @@ public interface ReservationService {
      * @param from     the start of the time range
      * @param to       the end of the time range
      * @param total    if true, calculates the total of positive and negative values
-     * @return a CSV formatted string of the reservations
+     * @param fields   the fields to export, in output order
+     * @param filter   the conditions exported reservations must satisfy
+     * @param format   the output format of the export
+     * @return the complete export content
+     * @throws IOException if an I/O error occurs during export
+     */
+    byte[] exportReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                              ReservationProjection fields, ReservationFilter filter, ReservationFormat format) throws IOException;
+
+    /**
+     * Writes the export of reservations in the given format to a stream while the reservations are read from the
+     * database, without holding the complete export in memory.
+     * Optionally calculates the total of positive and negative values.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param from         the start of the time range
+     * @param to           the end of the time range
+     * @param total        if true, calculates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    void writeReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                           ReservationProjection fields, ReservationFilter filter, ReservationFormat format,
+                           OutputStream outputStream) throws IOException;
+
+    /**
+     * Writes the export of reservations to a stream like {@link #writeReservations}, but always reads them from the
+     * database, never from the hot window. Used where the export has to reflect the database at least as of a
+     * watermark read before, which the hot window may still lag behind.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param from         the start of the time range
+     * @param to           the end of the time range
+     * @param total        if true, calculates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    void writeStoredReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                 ReservationProjection fields, ReservationFilter filter, ReservationFormat format,
+                                 OutputStream outputStream) throws IOException;
+
+    /**
+     * Writes the export of the reservations within several time windows in the given format to a stream, as a single
+     * export with one header and the rows of all windows in timestamp order.
+     * Optionally calculates the total of positive and negative values.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param windows      the time windows
+     * @param total        if true, calculates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    void writeWindowReservations(UUID assetId, UUID marketId, TimeWindows windows, boolean total, ReservationProjection fields,
+                                 ReservationFilter filter, ReservationFormat format, OutputStream outputStream) throws IOException;
+
+    /**
+     * Streams reservations in the given format without blocking, for the reactive export server.
+     * Rows are read from the database only as fast as the subscriber consumes the output.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, aggregates the total of positive and negative values
+     * @param fields   the fields to export, in output order
+     * @param filter   the conditions exported reservations must satisfy
+     * @param format   the output format of the export
+     * @return the export content, starting with the header of the format
+     */
+    Flux<byte[]> streamReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                    ReservationProjection fields, ReservationFilter filter, ReservationFormat format);
+
+    /**
+     * Streams the selected fields of all reservations of an asset/market pair in chunks without blocking, with values in MW.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read; the other columns of the chunks stay empty
+     * @return the reservations as chunks of a series in timestamp order
+     */
+    Flux<ReservationSeries> streamReservationSeries(UUID assetId, UUID marketId, ReservationProjection fields);
+
+    /**
+     * Streams the reservations of an asset/market pair updated within a range of update times in chunks without
+     * blocking, with values in MW.
+     *
+     * @param assetId     the unique identifier of the asset
+     * @param marketId    the unique identifier of the market
+     * @param updatedFrom the start of the range of update times, inclusive
+     * @param updatedTo   the end of the range of update times, inclusive, or {@code null} for all later updates
+     * @return the reservations as chunks of a series in update order
+     */
+    Flux<ReservationSeries> streamReservationChanges(UUID assetId, UUID marketId, ZonedDateTime updatedFrom, ZonedDateTime updatedTo);
+
+    /**
+     * Computes the minimum, maximum and average of each value and price of an asset/market pair within a time range,
+     * with values in MW. Optionally the statistics are computed over the totals per timestamp.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, computes the statistics of the totals of positive and negative values per timestamp
+     * @return the statistics by field name, in the column order of the detailed export
+     */
+    Map<String, ColumnStatistics> getStatistics(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total);
+
+    /**
+     * Retrieves the totals of positive and negative values per timestamp over several assets within a time range,
+     * either across all markets or in a single one.
+     *
+     * @param assetIds the unique identifiers of the assets, e.g. a single asset or the assets of a portfolio
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return the totals, one row per timestamp in timestamp order
+     */
+    AggregateSeries getTotals(Collection<UUID> assetIds, UUID marketId, ZonedDateTime from, ZonedDateTime to);
+
+    /**
+     * Exports the totals of positive and negative values per timestamp over several assets to CSV.
+     *
+     * @param assetIds the unique identifiers of the assets, e.g. a single asset or the assets of a portfolio
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return a CSV formatted string of the totals, or an empty string if there are no reservations
      * @throws IOException if an I/O error occurs during export
      */
-    String exportReservationsToCSV(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total) throws IOException;
+    String exportTotalsToCSV(Collection<UUID> assetIds, UUID marketId, ZonedDateTime from, ZonedDateTime to) throws IOException;
 }
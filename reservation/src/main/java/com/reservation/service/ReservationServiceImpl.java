@@ -1,54 +1,119 @@
 package com.reservation.service;
 
 import com.opencsv.CSVWriter;
-import com.reservation.csvHandler.CSVFormatter;
-import com.reservation.csvHandler.DetailedCSVFormatter;
-import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.coldtier.ColdTierView;
+import com.reservation.compute.ColumnKernels;
+import com.reservation.compute.ColumnStatistics;
+import com.reservation.csvHandler.AggregateCSVFormatter;
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.csvHandler.FixedPointProperties;
+import com.reservation.format.ReactiveReservationWriter;
+import com.reservation.format.ReservationFormat;
+import com.reservation.format.ReservationSink;
+import com.reservation.hotwindow.HotWindowStore;
+import com.reservation.model.AggregateSeries;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
+import com.reservation.profiling.AggregationEvent;
+import com.reservation.profiling.CacheLookupEvent;
+import com.reservation.profiling.ProfiledReservationSink;
+import com.reservation.repository.ReactiveReservationSeriesRepository;
 import com.reservation.repository.ReservationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 /**
  * Implementation of the {@link ReservationService} interface.
  * Provides methods to retrieve and export reservation data.
- * Uses {@link ReservationRepository} for database operations and different CSV formatters for exporting data.
+ * Uses {@link ReservationRepository} for database operations and writes exports through the {@link ReservationSink}
+ * of the requested {@link ReservationFormat}.
+ * Exports work on columnar {@link ReservationSeries} read directly from JDBC.
+ * Ranges that lie fully inside the hot window are served from {@link HotWindowStore} without querying the database.
+ * Totals over several assets or markets are summed by the database, or in parallel from the hot window.
+ * In fixed-point mode values are summed as whole milli-kW and written without floating-point division.
+ * Exports of a subset of the fields read only the columns of those fields from the database, and filtered exports
+ * only the matching rows; ranges in the hot window are filtered in memory.
+ * Exports of the reactive export server are read through {@link ReactiveReservationSeriesRepository} as fast as
+ * the client consumes them.
+ * Series are converted, aggregated and summarized a column at a time by the {@link ColumnKernels}.
+ * Reservations older than the boundary of the {@link ColdTierStore cold tier} are read from its files and followed by
+ * the reservations of the database from the boundary on, so ranges spanning both tiers are returned as one.
  *
  * @author Bojana Samardzic
  */
 @Service
 public class ReservationServiceImpl implements ReservationService {
 
+    /**
+     * The fields read to compute statistics: the timestamps, to sum per timestamp, and all values and prices.
+     */
+    private static final ReservationProjection STATISTICS_FIELDS = new ReservationProjection(Arrays.stream(ReservationField.values())
+            .filter(field -> field == ReservationField.TIMESTAMP || field.isNumeric())
+            .toList());
+
     private final ReservationRepository reservationRepository;
-    private final TotalCSVFormatter totalCSVFormatter;
-    private final DetailedCSVFormatter detailedCSVFormatter;
+    private final HotWindowStore hotWindowStore;
+    private final AggregateCSVFormatter aggregateCSVFormatter;
+    private final FixedPointProperties fixedPointProperties;
+    private final ReactiveReservationSeriesRepository reactiveSeriesRepository;
+    private final ColumnKernels columnKernels;
+    private final ColdTierStore coldTierStore;
 
     /**
      * Constructs a new instance of {@code ReservationServiceImpl} with the specified dependencies.
      *
-     * @param reservationRepository the repository for managing reservations
-     * @param totalCSVFormatter     the formatter for exporting aggregated reservation data
-     * @param detailedCSVFormatter  the formatter for exporting detailed reservation data
+     * @param reservationRepository    the repository for managing reservations
+     * @param hotWindowStore           the in-memory store of recent reservations
+     * @param aggregateCSVFormatter    the formatter for exporting totals over several assets or markets
+     * @param fixedPointProperties     the configuration of the fixed-point value representation
+     * @param reactiveSeriesRepository the non-blocking reads of the reactive export server
+     * @param columnKernels            the batch operations on the columns of series
+     * @param coldTierStore            the files of reservations archived from the database
      */
     @Autowired
-    public ReservationServiceImpl(ReservationRepository reservationRepository, TotalCSVFormatter totalCSVFormatter, DetailedCSVFormatter detailedCSVFormatter) {
+    public ReservationServiceImpl(ReservationRepository reservationRepository, HotWindowStore hotWindowStore, AggregateCSVFormatter aggregateCSVFormatter,
+                                  FixedPointProperties fixedPointProperties, ReactiveReservationSeriesRepository reactiveSeriesRepository,
+                                  ColumnKernels columnKernels, ColdTierStore coldTierStore) {
         this.reservationRepository = reservationRepository;
-        this.totalCSVFormatter = totalCSVFormatter;
-        this.detailedCSVFormatter = detailedCSVFormatter;
+        this.hotWindowStore = hotWindowStore;
+        this.aggregateCSVFormatter = aggregateCSVFormatter;
+        this.fixedPointProperties = fixedPointProperties;
+        this.reactiveSeriesRepository = reactiveSeriesRepository;
+        this.columnKernels = columnKernels;
+        this.coldTierStore = coldTierStore;
     }
 
     /**
      * Retrieves a list of reservations based on the provided asset ID and market ID.
+     * Reservations before the boundary of the cold tier are read from its files and the others from the database from
+     * the boundary on, so a month that is still in both tiers is returned once.
      *
      * @param assetId  the unique identifier of the asset
      * @param marketId the unique identifier of the market
@@ -56,12 +121,40 @@ public class ReservationServiceImpl implements ReservationService {
      */
     @Override
     public List<Reservation> getReservations(UUID assetId, UUID marketId) {
-        List<Reservation> reservations = reservationRepository.findByAssetIdAndMarketId(assetId, marketId);
+        List<Reservation> reservations = coldTierStore.find(null)
+                .map(coldTier -> {
+                    List<Reservation> all = new ArrayList<>(coldTier.findSeries(assetId, marketId, null, null, ReservationProjection.DETAILED).toReservations());
+                    all.addAll(reservationRepository.findByAssetIdAndMarketIdAndTimestampGreaterThanEqual(assetId, marketId, coldTier.boundary()));
+                    return all;
+                })
+                .orElseGet(() -> reservationRepository.findByAssetIdAndMarketId(assetId, marketId));
         reservations = convertKWToMW(reservations);
 
         return reservations;
     }
 
+    /**
+     * Retrieves the selected fields of all reservations of an asset/market pair as a columnar series, with values in MW.
+     * Only the columns of the selected fields are read from the database, and only from the boundary of the cold tier
+     * on, as the reservations before it are read from the cold tier.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read; the other columns of the series stay empty
+     * @return the reservations as a series in timestamp order
+     */
+    @Override
+    public ReservationSeries getReservationSeries(UUID assetId, UUID marketId, ReservationProjection fields) {
+        ReservationSeries series = coldTierStore.find(null)
+                .map(coldTier -> {
+                    ReservationSeries all = coldTier.findSeries(assetId, marketId, null, null, fields);
+                    all.addAll(reservationRepository.findSeries(assetId, marketId, coldTier.boundary(), fields));
+                    return all;
+                })
+                .orElseGet(() -> reservationRepository.findSeries(assetId, marketId, fields));
+        return convertKWToMW(series);
+    }
+
     /**
      * Retrieves a list of reservations based on asset ID, market ID and a time range.
      * Optionally aggregates the total of positive and negative values.
@@ -78,7 +171,9 @@ public class ReservationServiceImpl implements ReservationService {
         LocalDateTime fromLocal = from.toLocalDateTime();
         LocalDateTime toLocal = to.toLocalDateTime();
 
-        List<Reservation> reservations = reservationRepository.findByAssetIdAndMarketIdAndTimestampBetween(assetId, marketId, fromLocal, toLocal);
+        List<Reservation> reservations = findHotSeries(assetId, marketId, fromLocal, toLocal, total)
+                .map(ReservationSeries::toReservations)
+                .orElseGet(() -> findStoredReservations(assetId, marketId, fromLocal, toLocal));
 
         if (total) {
             return aggregateReservations(reservations);
@@ -88,7 +183,7 @@ public class ReservationServiceImpl implements ReservationService {
     }
 
     /**
-     * Exports reservations to a CSV file based on asset ID, market ID and a time range.
+     * Retrieves the reservations of an asset/market pair within a time range as a columnar series.
      * Optionally aggregates the total of positive and negative values.
      *
      * @param assetId  the unique identifier of the asset
@@ -96,27 +191,473 @@ public class ReservationServiceImpl implements ReservationService {
      * @param from     the start of the time range
      * @param to       the end of the time range
      * @param total    if true, aggregates the total of positive and negative values
-     * @return a CSV formatted string of the reservations
+     * @param fields   the fields to read from the database; ranges in the hot window have all fields
+     * @param filter   the conditions reservations must satisfy
+     * @return the matching reservations as a series in timestamp order
+     */
+    @Override
+    public ReservationSeries getReservationSeries(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                                  ReservationProjection fields, ReservationFilter filter) {
+        LocalDateTime fromLocal = from.toLocalDateTime();
+        LocalDateTime toLocal = to.toLocalDateTime();
+
+        ReservationSeries series = findHotSeries(assetId, marketId, fromLocal, toLocal, total)
+                .map(hotSeries -> filter(hotSeries, filter))
+                .orElseGet(() -> findStoredSeries(assetId, marketId, fromLocal, toLocal, fields, filter));
+
+        if (total) {
+            return aggregateReservations(series);
+        }
+
+        return series;
+    }
+
+    /**
+     * Exports reservations in the given format based on asset ID, market ID and a time range.
+     * Optionally aggregates the total of positive and negative values.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, aggregates the total of positive and negative values
+     * @param fields   the fields to export, in output order
+     * @param filter   the conditions exported reservations must satisfy
+     * @param format   the output format of the export
+     * @return the complete export content
      * @throws IOException if an I/O error occurs during export
      */
     @Override
-    public String exportReservationsToCSV(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total) throws IOException {
-        List<Reservation> reservations = getReservations(assetId, marketId, from, to, total);
+    public byte[] exportReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                     ReservationProjection fields, ReservationFilter filter, ReservationFormat format) throws IOException {
+        ReservationSeries series = getReservationSeries(assetId, marketId, from, to, total, fields, filter);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExportEncodingContext encodingContext = new ExportEncodingContext(assetId, marketId, fixedPointProperties.isEnabled());
+        ReservationSink sink = ProfiledReservationSink.open(format, outputStream, fields, encodingContext, assetId, marketId, total);
+        sink.writeHeader();
+        sink.writeRows(series);
+        sink.writeFooter();
+        sink.flush();
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes the export of reservations in the given format to a stream while the reservations are read from the
+     * database. Ranges inside the hot window are written from memory; all other ranges are read in chunks through a
+     * cursor, and each chunk is aggregated and written before the next one is read.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param from         the start of the time range
+     * @param to           the end of the time range
+     * @param total        if true, aggregates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void writeReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                  ReservationProjection fields, ReservationFilter filter, ReservationFormat format,
+                                  OutputStream outputStream) throws IOException {
+        writeReservations(assetId, marketId, from, to, total, fields, filter, format, outputStream, true);
+    }
+
+    /**
+     * Writes the export of reservations in the given format to a stream while the reservations are read from the
+     * database, bypassing the hot window, which does not observe deleted reservations and applies changes only on its
+     * next poll.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param from         the start of the time range
+     * @param to           the end of the time range
+     * @param total        if true, aggregates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void writeStoredReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                        ReservationProjection fields, ReservationFilter filter, ReservationFormat format,
+                                        OutputStream outputStream) throws IOException {
+        writeReservations(assetId, marketId, from, to, total, fields, filter, format, outputStream, false);
+    }
+
+    private void writeReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total, ReservationProjection fields,
+                                   ReservationFilter filter, ReservationFormat format, OutputStream outputStream, boolean hotWindow) throws IOException {
+        LocalDateTime fromLocal = from.toLocalDateTime();
+        LocalDateTime toLocal = to.toLocalDateTime();
+
+        ExportEncodingContext encodingContext = new ExportEncodingContext(assetId, marketId, fixedPointProperties.isEnabled());
+        ReservationSink sink = ProfiledReservationSink.open(format, outputStream, fields, encodingContext, assetId, marketId, total);
+        sink.writeHeader();
+
+        Optional<ReservationSeries> hotSeries = hotWindow ? findHotSeries(assetId, marketId, fromLocal, toLocal, total) : Optional.empty();
+        hotSeries = hotSeries.map(series -> filter(series, filter));
+        if (hotSeries.isPresent()) {
+            sink.writeRows(total ? aggregateReservations(hotSeries.get()) : hotSeries.get());
+        } else {
+            LocalDateTime databaseFrom = fromLocal;
+            Optional<ColdTierView> coldTier = coldTierStore.find(fromLocal);
+            if (coldTier.isPresent()) {
+                for (ReservationSeries chunk : coldTier.get().findChunks(assetId, marketId, fromLocal, toLocal, coldTierFields(fields, filter))) {
+                    chunk = filter(chunk, filter);
+                    sink.writeRows(total ? aggregateReservations(chunk) : chunk);
+                }
+                databaseFrom = coldTier.get().boundary();
+            }
+            if (coldTier.isEmpty() || !toLocal.isBefore(databaseFrom)) {
+                try {
+                    reservationRepository.streamSeries(assetId, marketId, databaseFrom, toLocal, fields, filter,
+                            chunk -> writeRows(sink, total ? aggregateReservations(chunk) : chunk));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+
+        sink.writeFooter();
+        sink.flush();
+    }
+
+    /**
+     * Writes the export of the reservations within several time windows in the given format to a stream.
+     * If the hot window holds the range from the first to the last window, the rows of the windows are selected from
+     * memory. Otherwise windows starting before the boundary of the cold tier are read from its files, window by
+     * window, and the remaining parts of the windows from the database in a single query. The windows are disjoint
+     * and read in time order, so the rows are written in timestamp order, each chunk aggregated on its own.
+     *
+     * @param assetId      the unique identifier of the asset
+     * @param marketId     the unique identifier of the market
+     * @param windows      the time windows
+     * @param total        if true, aggregates the total of positive and negative values
+     * @param fields       the fields to export, in output order
+     * @param filter       the conditions exported reservations must satisfy
+     * @param format       the output format of the export
+     * @param outputStream the stream the export is written to; it is flushed but not closed
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void writeWindowReservations(UUID assetId, UUID marketId, TimeWindows windows, boolean total, ReservationProjection fields,
+                                        ReservationFilter filter, ReservationFormat format, OutputStream outputStream) throws IOException {
+        ExportEncodingContext encodingContext = new ExportEncodingContext(assetId, marketId, fixedPointProperties.isEnabled());
+        ReservationSink sink = ProfiledReservationSink.open(format, outputStream, fields, encodingContext, assetId, marketId, total);
+        sink.writeHeader();
+
+        Optional<ReservationSeries> hotSeries = findHotSeries(assetId, marketId, windows.from(), windows.to(), total)
+                .map(series -> series.select(row -> windows.contains(series.getTimestamp(row)) && filter.matches(series, row)));
+        if (hotSeries.isPresent()) {
+            sink.writeRows(total ? aggregateReservations(hotSeries.get()) : hotSeries.get());
+        } else {
+            List<TimeWindows.Window> databaseWindows = windows.windows();
+            Optional<ColdTierView> coldTier = coldTierStore.find(windows.from());
+            if (coldTier.isPresent()) {
+                LocalDateTime boundary = coldTier.get().boundary();
+                for (TimeWindows.Window window : windows.windows()) {
+                    if (!window.from().isBefore(boundary)) {
+                        break;
+                    }
+                    for (ReservationSeries chunk : coldTier.get().findChunks(assetId, marketId, window.from(), window.to(), coldTierFields(fields, filter))) {
+                        chunk = filter(chunk, filter);
+                        sink.writeRows(total ? aggregateReservations(chunk) : chunk);
+                    }
+                }
+                databaseWindows = windows.since(boundary);
+            }
+            if (!databaseWindows.isEmpty()) {
+                try {
+                    reservationRepository.streamWindows(assetId, marketId, databaseWindows, fields, filter,
+                            chunk -> writeRows(sink, total ? aggregateReservations(chunk) : chunk));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+
+        sink.writeFooter();
+        sink.flush();
+    }
+
+    /**
+     * Streams reservations in the given format without blocking, for the reactive export server.
+     * Ranges in the hot window are written from memory; other ranges are read in chunks from the reactive pool, and
+     * each chunk is aggregated and written on its own, as the chunks keep the rows of a timestamp together.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, aggregates the total of positive and negative values
+     * @param fields   the fields to export, in output order
+     * @param filter   the conditions exported reservations must satisfy
+     * @param format   the output format of the export
+     * @return the export content in elements of a bounded number of rows
+     */
+    @Override
+    public Flux<byte[]> streamReservations(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total,
+                                           ReservationProjection fields, ReservationFilter filter, ReservationFormat format) {
+        LocalDateTime fromLocal = from.toLocalDateTime();
+        LocalDateTime toLocal = to.toLocalDateTime();
+        ReactiveReservationWriter writer = new ReactiveReservationWriter(format, fields, assetId, marketId, total);
+
+        return Flux.defer(() -> {
+            Flux<ReservationSeries> chunks = findHotSeries(assetId, marketId, fromLocal, toLocal, total)
+                    .map(series -> Flux.just(filter(series, filter)))
+                    .orElseGet(() -> streamStoredSeries(assetId, marketId, fromLocal, toLocal, fields, filter));
+            ExportEncodingContext encodingContext = new ExportEncodingContext(assetId, marketId, fixedPointProperties.isEnabled());
+            return writer.write(total ? chunks.map(this::aggregateReservations) : chunks, encodingContext);
+        });
+    }
+
+    /**
+     * Streams the selected fields of all reservations of an asset/market pair in chunks without blocking, with values in MW.
+     * Only the columns of the selected fields are read from the database, and only from the boundary of the cold tier
+     * on, as the reservations before it are read from the cold tier.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param fields   the fields to read; the other columns of the chunks stay empty
+     * @return the reservations as chunks of a series in timestamp order
+     */
+    @Override
+    public Flux<ReservationSeries> streamReservationSeries(UUID assetId, UUID marketId, ReservationProjection fields) {
+        Flux<ReservationSeries> chunks = coldTierStore.find(null)
+                .map(coldTier -> readColdTier(() -> coldTier.findChunks(assetId, marketId, null, null, fields))
+                        .concatWith(reactiveSeriesRepository.streamSeries(assetId, marketId, coldTier.boundary(), fields)))
+                .orElseGet(() -> reactiveSeriesRepository.streamSeries(assetId, marketId, fields));
+        return chunks.map(this::convertKWToMW);
+    }
+
+    /**
+     * Streams the reservations of an asset/market pair updated within a range of update times in chunks without
+     * blocking, with values in MW. The bounds keep their instant when converted to the local time of the JVM, as the
+     * change feed takes them from notifications and clients in any offset.
+     *
+     * @param assetId     the unique identifier of the asset
+     * @param marketId    the unique identifier of the market
+     * @param updatedFrom the start of the range of update times, inclusive
+     * @param updatedTo   the end of the range of update times, inclusive, or {@code null} for all later updates
+     * @return the reservations as chunks of a series in update order
+     */
+    @Override
+    public Flux<ReservationSeries> streamReservationChanges(UUID assetId, UUID marketId, ZonedDateTime updatedFrom, ZonedDateTime updatedTo) {
+        LocalDateTime fromLocal = updatedFrom.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        LocalDateTime toLocal = updatedTo != null ? updatedTo.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+        return reactiveSeriesRepository.streamChanges(assetId, marketId, fromLocal, toLocal).map(this::convertKWToMW);
+    }
+
+    /**
+     * Computes the minimum, maximum and average of each value and price within a time range, with values in MW.
+     * Only the timestamps, values and prices are read; ranges in the hot window are computed from memory.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @param total    if true, computes the statistics of the totals of positive and negative values per timestamp
+     * @return the statistics by field name, in the column order of the detailed export
+     */
+    @Override
+    public Map<String, ColumnStatistics> getStatistics(UUID assetId, UUID marketId, ZonedDateTime from, ZonedDateTime to, boolean total) {
+        ReservationSeries series = convertKWToMW(getReservationSeries(assetId, marketId, from, to, total, STATISTICS_FIELDS, new ReservationFilter()));
+
+        Map<String, ColumnStatistics> statistics = new LinkedHashMap<>();
+        for (ReservationField field : STATISTICS_FIELDS.fields()) {
+            if (field.isNumeric()) {
+                statistics.put(field.getFieldName(), series.statistics(field, columnKernels));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Retrieves the totals per timestamp over several assets within a time range.
+     * Ranges inside the hot window are summed from memory with a parallel reduction over the series of all matching
+     * asset/market pairs; all other ranges are summed by the database.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return the totals, one row per timestamp in timestamp order
+     */
+    @Override
+    public AggregateSeries getTotals(Collection<UUID> assetIds, UUID marketId, ZonedDateTime from, ZonedDateTime to) {
+        LocalDateTime fromLocal = from.toLocalDateTime();
+        LocalDateTime toLocal = to.toLocalDateTime();
+
+        return CacheLookupEvent.lookup("hotWindow", singleAsset(assetIds), marketId, true,
+                        () -> hotWindowStore.findAll(assetIds, marketId, fromLocal, toLocal))
+                .map(series -> reduceTotals(assetIds, marketId, series))
+                .orElseGet(() -> findStoredTotals(assetIds, marketId, fromLocal, toLocal));
+    }
+
+    /**
+     * Exports the totals per timestamp over several assets to CSV.
+     *
+     * @param assetIds the unique identifiers of the assets
+     * @param marketId the unique identifier of the market, or {@code null} to sum over all markets
+     * @param from     the start of the time range
+     * @param to       the end of the time range
+     * @return a CSV formatted string of the totals, or an empty string if there are no reservations
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Override
+    public String exportTotalsToCSV(Collection<UUID> assetIds, UUID marketId, ZonedDateTime from, ZonedDateTime to) throws IOException {
+        AggregateSeries totals = getTotals(assetIds, marketId, from, to);
+        if (totals.isEmpty()) {
+            return "";
+        }
 
         StringWriter stringWriter = new StringWriter();
         CSVWriter csvWriter = new CSVWriter(stringWriter);
+        aggregateCSVFormatter.writeHeader(csvWriter);
 
-        CSVFormatter csvFormatter = total ? totalCSVFormatter : detailedCSVFormatter;
-        csvFormatter.writeHeader(csvWriter);
-
-        for (Reservation reservation : reservations) {
-            csvFormatter.writeRow(csvWriter, reservation);
+        ExportEncodingContext encodingContext = new ExportEncodingContext();
+        for (int row = 0; row < totals.size(); row++) {
+            aggregateCSVFormatter.writeRow(csvWriter, totals, row, encodingContext);
         }
 
         csvWriter.close();
         return stringWriter.toString();
     }
 
+    /**
+     * Reads the reservations of a range as entities from the cold tier up to its boundary and from the database from
+     * the boundary on.
+     */
+    private List<Reservation> findStoredReservations(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        Optional<ColdTierView> coldTier = coldTierStore.find(from);
+        if (coldTier.isEmpty()) {
+            return reservationRepository.findByAssetIdAndMarketIdAndTimestampBetween(assetId, marketId, from, to);
+        }
+        List<Reservation> reservations = new ArrayList<>(
+                coldTier.get().findSeries(assetId, marketId, from, to, ReservationProjection.DETAILED).toReservations());
+        LocalDateTime boundary = coldTier.get().boundary();
+        if (!to.isBefore(boundary)) {
+            reservations.addAll(reservationRepository.findByAssetIdAndMarketIdAndTimestampBetween(assetId, marketId, boundary, to));
+        }
+        return reservations;
+    }
+
+    /**
+     * Reads the reservations of a range as a series from the cold tier up to its boundary and from the database from
+     * the boundary on.
+     */
+    private ReservationSeries findStoredSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to,
+                                               ReservationProjection fields, ReservationFilter filter) {
+        Optional<ColdTierView> coldTier = coldTierStore.find(from);
+        if (coldTier.isEmpty()) {
+            return reservationRepository.findSeries(assetId, marketId, from, to, fields, filter);
+        }
+        ReservationSeries series = filter(coldTier.get().findSeries(assetId, marketId, from, to, coldTierFields(fields, filter)), filter);
+        LocalDateTime boundary = coldTier.get().boundary();
+        if (!to.isBefore(boundary)) {
+            series.addAll(reservationRepository.findSeries(assetId, marketId, boundary, to, fields, filter));
+        }
+        return series;
+    }
+
+    /**
+     * Streams the reservations of a range from the cold tier up to its boundary, followed by those of the database
+     * from the boundary on.
+     */
+    private Flux<ReservationSeries> streamStoredSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to,
+                                                      ReservationProjection fields, ReservationFilter filter) {
+        Optional<ColdTierView> coldTier = coldTierStore.find(from);
+        if (coldTier.isEmpty()) {
+            return reactiveSeriesRepository.streamSeries(assetId, marketId, from, to, fields, filter);
+        }
+        Flux<ReservationSeries> coldChunks = readColdTier(() -> coldTier.get().findChunks(assetId, marketId, from, to, coldTierFields(fields, filter)))
+                .map(chunk -> filter(chunk, filter));
+        LocalDateTime boundary = coldTier.get().boundary();
+        return to.isBefore(boundary)
+                ? coldChunks
+                : coldChunks.concatWith(reactiveSeriesRepository.streamSeries(assetId, marketId, boundary, to, fields, filter));
+    }
+
+    /**
+     * Sums the reservations of a range per timestamp, reducing the series of the cold tier up to its boundary in
+     * parallel and combining them with the totals of the database from the boundary on.
+     */
+    private AggregateSeries findStoredTotals(Collection<UUID> assetIds, UUID marketId, LocalDateTime from, LocalDateTime to) {
+        Optional<ColdTierView> coldTier = coldTierStore.find(from);
+        if (coldTier.isEmpty()) {
+            return reservationRepository.findTotals(assetIds, marketId, from, to);
+        }
+        AggregateSeries totals = reduceTotals(assetIds, marketId, coldTier.get().findAll(assetIds, marketId, from, to));
+        LocalDateTime boundary = coldTier.get().boundary();
+        if (!to.isBefore(boundary)) {
+            totals = totals.combine(reservationRepository.findTotals(assetIds, marketId, boundary, to));
+        }
+        return totals;
+    }
+
+    /**
+     * Sums the series of several assets per timestamp with a parallel reduction.
+     */
+    private static AggregateSeries reduceTotals(Collection<UUID> assetIds, UUID marketId, List<ReservationSeries> series) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        AggregateSeries totals = ForkJoinPool.commonPool().invoke(new TotalsReduction(series));
+        event.finish(singleAsset(assetIds), marketId, series.stream().mapToLong(ReservationSeries::size).sum(), totals.size(), true);
+        return totals;
+    }
+
+    /**
+     * Returns the asset of a totals request of one asset, to identify its flight recorder events.
+     */
+    private static UUID singleAsset(Collection<UUID> assetIds) {
+        return assetIds.size() == 1 ? assetIds.iterator().next() : null;
+    }
+
+    /**
+     * Looks up the reservations of a range in the hot window.
+     */
+    private Optional<ReservationSeries> findHotSeries(UUID assetId, UUID marketId, LocalDateTime from, LocalDateTime to, boolean total) {
+        return CacheLookupEvent.lookup("hotWindow", assetId, marketId, total, () -> hotWindowStore.find(assetId, marketId, from, to));
+    }
+
+    /**
+     * Reads chunks of the cold tier on a thread that may block, for the reactive export server.
+     */
+    private static Flux<ReservationSeries> readColdTier(Supplier<List<ReservationSeries>> chunks) {
+        return Flux.defer(() -> Flux.fromIterable(chunks.get())).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Returns the fields to read from the cold tier: the requested ones, or all fields if the reservations are
+     * filtered in memory, as the database filters on columns that need not be exported.
+     */
+    private static ReservationProjection coldTierFields(ReservationProjection fields, ReservationFilter filter) {
+        return filter.isEmpty() ? fields : ReservationProjection.DETAILED;
+    }
+
+    /**
+     * Applies a filter to a series held in memory, such as a series of the hot window.
+     */
+    private static ReservationSeries filter(ReservationSeries series, ReservationFilter filter) {
+        return filter.isEmpty() ? series : series.select(row -> filter.matches(series, row));
+    }
+
+    /**
+     * Writes all rows of a chunk read through a cursor and stops the export as soon as the stream fails,
+     * e.g. because the client closed the connection.
+     */
+    private static void writeRows(ReservationSink sink, ReservationSeries chunk) {
+        try {
+            sink.writeRows(chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Aggregates reservations by summing up positive and negative values for the same timestamp, asset ID and market ID.
      *
@@ -141,6 +682,23 @@ public class ReservationServiceImpl implements ReservationService {
         return new ArrayList<>(aggregatedMap.values());
     }
 
+    /**
+     * Aggregates a series by summing up positive and negative values of consecutive rows with the same timestamp.
+     * The series is ordered by timestamp, so the rows of each timestamp are found in a single pass over the timestamp
+     * column; the other columns are taken from the first row of each timestamp. In fixed-point mode the values are
+     * rounded to milli-kW and summed as integers, so the sums are exact whole milli-kW regardless of the order of the rows.
+     *
+     * @param series the series to be aggregated
+     * @return a new series with one row per timestamp, in timestamp order
+     */
+    ReservationSeries aggregateReservations(ReservationSeries series) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        ReservationSeries aggregated = series.sumPerTimestamp(columnKernels, fixedPointProperties.isEnabled());
+        event.finish(series.getAssetId(), series.getMarketId(), series.size(), aggregated.size(), fixedPointProperties.isEnabled());
+        return aggregated;
+    }
+
     /**
      * Converts the positive and negative values of a list of reservations from kilowatts (kW) to megawatts (MW).
      * This method iterates over each reservation in the provided list and divides the `positiveValue` and
@@ -157,4 +715,16 @@ public class ReservationServiceImpl implements ReservationService {
 
         return reservations;
     }
+
+    /**
+     * Converts the positive and negative values of a series from kilowatts (kW) to megawatts (MW) in place.
+     *
+     * @param series the series with values in kilowatts (kW)
+     * @return the same series with values converted to megawatts (MW)
+     */
+    ReservationSeries convertKWToMW(ReservationSeries series) {
+        series.divideValues(columnKernels, 1000);
+
+        return series;
+    }
 }
@@ -0,0 +1,58 @@
+package com.reservation.service;
+
+import com.reservation.model.AggregateSeries;
+import com.reservation.model.ReservationSeries;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join reduction of several series into their totals per timestamp.
+ * The sources are split in halves until a slice is small enough to be summed sequentially; the partial totals are
+ * then combined by merging their timestamps, so the result stays in timestamp order.
+ *
+ * @author Bojana Samardzic
+ */
+class TotalsReduction extends RecursiveTask<AggregateSeries> {
+
+    /**
+     * Number of series summed sequentially by one task.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final List<ReservationSeries> sources;
+    private final int start;
+    private final int end;
+
+    /**
+     * Creates the reduction of all given series.
+     *
+     * @param sources the series to sum up, each in timestamp order
+     */
+    TotalsReduction(List<ReservationSeries> sources) {
+        this(sources, 0, sources.size());
+    }
+
+    private TotalsReduction(List<ReservationSeries> sources, int start, int end) {
+        this.sources = sources;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected AggregateSeries compute() {
+        if (end - start <= SEQUENTIAL_THRESHOLD) {
+            AggregateSeries totals = new AggregateSeries();
+            for (int source = start; source < end; source++) {
+                totals = totals.combine(AggregateSeries.of(sources.get(source)));
+            }
+            return totals;
+        }
+
+        int middle = (start + end) >>> 1;
+        TotalsReduction left = new TotalsReduction(sources, start, middle);
+        left.fork();
+        AggregateSeries right = new TotalsReduction(sources, middle, end).compute();
+        return left.join().combine(right);
+    }
+}
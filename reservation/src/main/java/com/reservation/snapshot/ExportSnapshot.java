@@ -0,0 +1,67 @@
+package com.reservation.snapshot;
+
+import com.reservation.export.ExportKey;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.SeriesWatermark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Index entry of a pre-generated export of one day of a series, stored gzip-compressed in the snapshot directory.
+ * A snapshot holds the complete export of the range from the start of the day to the start of the next day, with all
+ * fields and without filter, exactly as the export endpoint produces it for that request.
+ *
+ * @param assetId          the unique identifier of the asset
+ * @param marketId         the unique identifier of the market
+ * @param day              the day of the snapshot
+ * @param total            whether the snapshot aggregates positive and negative values
+ * @param updatedAt        the latest update time of the series within the day when the snapshot was generated
+ * @param rows             the number of reservations of the series within the day when the snapshot was generated
+ * @param fileName         the name of the compressed file in the snapshot directory
+ * @param eTag             the strong entity tag of the uncompressed content, including quotes
+ * @param length           the length of the uncompressed content in bytes
+ * @param compressedETag   the strong entity tag of the compressed content, including quotes
+ * @param compressedLength the length of the compressed content in bytes
+ * @author Bojana Samardzic
+ */
+public record ExportSnapshot(UUID assetId, UUID marketId, LocalDate day, boolean total, LocalDateTime updatedAt, long rows,
+                             String fileName, String eTag, long length, String compressedETag, long compressedLength) {
+
+    /**
+     * Returns the export a snapshot of the given day serves.
+     *
+     * @param assetId  the unique identifier of the asset
+     * @param marketId the unique identifier of the market
+     * @param day      the day of the snapshot
+     * @param total    whether the snapshot aggregates positive and negative values
+     * @return the key of the unfiltered CSV export of all fields from the start of the day to the start of the next day
+     */
+    public static ExportKey key(UUID assetId, UUID marketId, LocalDate day, boolean total) {
+        return new ExportKey(assetId, marketId, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), total,
+                ReservationProjection.parse(null, total), new ReservationFilter(), CsvReservationFormat.TEXT_CSV);
+    }
+
+    /**
+     * Returns the export this snapshot serves.
+     *
+     * @return the key of the export
+     */
+    public ExportKey key() {
+        return key(assetId, marketId, day, total);
+    }
+
+    /**
+     * Returns whether the snapshot still reflects its series, i.e. no reservation of the day was inserted, updated or
+     * deleted since it was generated.
+     *
+     * @param watermark the current watermark of the series within the day
+     * @return {@code true} if the snapshot is current
+     */
+    public boolean isCurrent(SeriesWatermark watermark) {
+        return rows == watermark.rows() && updatedAt.equals(watermark.updatedAt());
+    }
+}
@@ -0,0 +1,50 @@
+package com.reservation.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the daily export snapshots generated ahead of requests.
+ * Bound from the {@code reservation.export-snapshot} properties.
+ *
+ * @author Bojana Samardzic
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation.export-snapshot")
+public class ExportSnapshotProperties {
+
+    /**
+     * Whether snapshots are generated. Snapshots already on disk are served either way.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory the compressed snapshots and their index entries are written to. Unlike the export spool, it is
+     * kept across restarts.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "reservation-export-snapshots");
+
+    /**
+     * Cron expression, in the default time zone of the JVM, of the generation of the previous day's snapshots.
+     */
+    private String cron = "0 15 0 * * *";
+
+    /**
+     * Delay between two checks of the snapshots of the retained days against the current watermarks of their series.
+     * Missing and outdated snapshots are generated again.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(15);
+
+    /**
+     * Upper bound of snapshots generated at the same time.
+     */
+    private int maxConcurrency = 2;
+
+    /**
+     * Number of past days snapshots are kept for, counting back from the previous day.
+     */
+    private int retentionDays = 7;
+}
@@ -0,0 +1,205 @@
+package com.reservation.snapshot;
+
+import com.reservation.export.ExportAdmission;
+import com.reservation.export.ExportKey;
+import com.reservation.export.ExportPermit;
+import com.reservation.export.ExportPlanner;
+import com.reservation.export.ExportRejectedException;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.SeriesWatermark;
+import com.reservation.repository.ReservationRepository;
+import com.reservation.service.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the daily export snapshots of {@link ExportSnapshotStore}: the detailed export and the export of totals of
+ * the previous day, for every asset/market pair with reservations on that day.
+ * Snapshots are generated right after day close and checked again every {@code refresh-interval} against the
+ * watermarks of their series; snapshots of series that changed since are generated again, those of series without
+ * reservations left are deleted, and days missed while the application was down are caught up. Snapshots older than
+ * {@code retention-days} are deleted.
+ * At most {@code max-concurrency} snapshots are generated at the same time, each under an admission permit, so that
+ * generation shares the export pool with requests instead of crowding them out. A snapshot that is not admitted is
+ * generated on the next refresh.
+ * Always created eagerly, so that generation is scheduled even when lazy initialization is enabled.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+@Lazy(false)
+public class ExportSnapshotScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportSnapshotScheduler.class);
+
+    private final ExportSnapshotProperties properties;
+    private final ExportSnapshotStore store;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final CsvReservationFormat csvFormat;
+    private final ExportPlanner exportPlanner;
+    private final ExportAdmission exportAdmission;
+    private final ExecutorService generators;
+    private final Set<ExportKey> pending = ConcurrentHashMap.newKeySet();
+    private final Counter generated;
+    private final Counter rejected;
+    private final Counter failed;
+
+    /**
+     * Constructs a new instance of {@code ExportSnapshotScheduler} with the specified dependencies.
+     *
+     * @param properties            the snapshot configuration
+     * @param store                 the store the snapshots are written to
+     * @param reservationRepository the repository reading the watermarks of the series
+     * @param reservationService    the service producing the exports
+     * @param csvFormat             the format of the snapshots
+     * @param exportPlanner         the planner estimating the rows of an export for admission
+     * @param exportAdmission       the admission control limiting the rows exported at the same time
+     * @param meterRegistry         the registry the metrics are published to
+     */
+    @Autowired
+    public ExportSnapshotScheduler(ExportSnapshotProperties properties, ExportSnapshotStore store, ReservationRepository reservationRepository,
+                                   ReservationService reservationService, CsvReservationFormat csvFormat, ExportPlanner exportPlanner,
+                                   ExportAdmission exportAdmission, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.csvFormat = csvFormat;
+        this.exportPlanner = exportPlanner;
+        this.exportAdmission = exportAdmission;
+        AtomicInteger threads = new AtomicInteger();
+        this.generators = Executors.newFixedThreadPool(Math.max(1, properties.getMaxConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "export-snapshot-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.generated = Counter.builder("reservation.export-snapshot.generated")
+                .description("Daily export snapshots generated")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("reservation.export-snapshot.rejected")
+                .description("Daily export snapshots postponed because the export was not admitted")
+                .register(meterRegistry);
+        this.failed = Counter.builder("reservation.export-snapshot.failed")
+                .description("Daily export snapshots that could not be generated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Generates the snapshots of the previous day once it has closed.
+     */
+    @Scheduled(cron = "${reservation.export-snapshot.cron:0 15 0 * * *}")
+    public void generatePreviousDay() {
+        if (properties.isEnabled()) {
+            refresh(LocalDate.now().minusDays(1));
+        }
+    }
+
+    /**
+     * Deletes the snapshots older than the retention and brings those of the retained days up to date.
+     */
+    @Scheduled(fixedDelayString = "${reservation.export-snapshot.refresh-interval:PT15M}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDate previousDay = LocalDate.now().minusDays(1);
+        LocalDate oldestDay = previousDay.minusDays(Math.max(1, properties.getRetentionDays()) - 1L);
+        store.snapshots().stream()
+                .filter(snapshot -> snapshot.day().isBefore(oldestDay) || snapshot.day().isAfter(previousDay))
+                .forEach(store::delete);
+        for (LocalDate day = previousDay; !day.isBefore(oldestDay); day = day.minusDays(1)) {
+            refresh(day);
+        }
+    }
+
+    /**
+     * Compares the snapshots of a day with the current watermarks of its series, deletes those of series without
+     * reservations and queues the generation of the missing and outdated ones.
+     *
+     * @param day the day to refresh
+     * @return completes once the queued snapshots are generated or have failed
+     */
+    CompletableFuture<Void> refresh(LocalDate day) {
+        List<SeriesWatermark> watermarks;
+        try {
+            watermarks = reservationRepository.findWatermarks(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        } catch (DataAccessException e) {
+            log.warn("Could not read the watermarks of {}, snapshots are refreshed on the next run", day, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Set<ExportKey> current = new HashSet<>();
+        List<CompletableFuture<Void>> generations = new ArrayList<>();
+        for (SeriesWatermark watermark : watermarks) {
+            for (boolean total : new boolean[]{false, true}) {
+                ExportKey key = ExportSnapshot.key(watermark.assetId(), watermark.marketId(), day, total);
+                current.add(key);
+                boolean upToDate = store.find(key).map(snapshot -> snapshot.isCurrent(watermark)).orElse(false);
+                if (!upToDate && pending.add(key)) {
+                    generations.add(CompletableFuture.runAsync(() -> generate(key, day, watermark), generators)
+                            .whenComplete((result, failure) -> pending.remove(key)));
+                }
+            }
+        }
+        store.snapshots().stream()
+                .filter(snapshot -> snapshot.day().equals(day) && !current.contains(snapshot.key()))
+                .forEach(store::delete);
+
+        if (!generations.isEmpty()) {
+            log.info("Generating {} export snapshots of {}", generations.size(), day);
+        }
+        return CompletableFuture.allOf(generations.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Stops the generation of snapshots; snapshots in progress are discarded and generated again after a restart.
+     */
+    @PreDestroy
+    public void shutdown() {
+        generators.shutdownNow();
+    }
+
+    /**
+     * Produces a snapshot under an admission permit. The rows are read from the database, which reflects at least the
+     * watermark read before; a change made in between is seen again on the next refresh and regenerates the snapshot.
+     */
+    private void generate(ExportKey key, LocalDate day, SeriesWatermark watermark) {
+        ZonedDateTime from = key.from().atZone(ZoneId.systemDefault());
+        ZonedDateTime to = key.to().atZone(ZoneId.systemDefault());
+        try (ExportPermit permit = exportAdmission.acquire(exportPlanner.plan(key))) {
+            store.write(day, key.total(), watermark, outputStream -> reservationService.writeStoredReservations(
+                    key.assetId(), key.marketId(), from, to, key.total(), key.fields(), key.filter(), csvFormat, outputStream));
+            generated.increment();
+        } catch (ExportRejectedException e) {
+            rejected.increment();
+            log.debug("Export snapshot of asset {} in market {} on {} not admitted, retrying on the next refresh",
+                    key.assetId(), key.marketId(), day);
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Could not generate the export snapshot of asset {} in market {} on {}", key.assetId(), key.marketId(), day, e);
+        }
+    }
+}
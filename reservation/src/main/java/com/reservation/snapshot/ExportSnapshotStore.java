@@ -0,0 +1,311 @@
+package com.reservation.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reservation.export.ExportKey;
+import com.reservation.export.ExportSpool;
+import com.reservation.model.SeriesWatermark;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Index of the daily export snapshots in the snapshot directory.
+ * Each snapshot is a gzip-compressed export next to a JSON index entry describing it; the entries are read back on
+ * startup, so snapshots survive restarts. Every generation is written to a new file, so that a request still reading
+ * a replaced snapshot is not affected.
+ *
+ * @author Bojana Samardzic
+ */
+@Component
+public class ExportSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportSnapshotStore.class);
+
+    private static final String FILE_SUFFIX = ".csv.gz";
+    private static final String INDEX_SUFFIX = ".json";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<ExportKey, ExportSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance of {@code ExportSnapshotStore}, creating the snapshot directory and indexing the
+     * snapshots left by a previous run. Incomplete files and files without index entry are deleted.
+     *
+     * @param properties    the snapshot configuration
+     * @param objectMapper  the mapper of the index entries
+     * @param meterRegistry the registry the metrics are published to
+     */
+    @Autowired
+    public ExportSnapshotStore(ExportSnapshotProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.directory = properties.getDirectory();
+        this.objectMapper = objectMapper;
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare export snapshot directory " + directory, e);
+        }
+
+        Gauge.builder("reservation.export-snapshot.snapshots", snapshots, map -> map.size())
+                .description("Daily export snapshots on disk")
+                .register(meterRegistry);
+        Gauge.builder("reservation.export-snapshot.bytes", this, ExportSnapshotStore::compressedBytes)
+                .description("Disk space used by the daily export snapshots")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the snapshot serving an export, if one exists.
+     *
+     * @param key the export to look up
+     * @return the snapshot, or an empty optional if the export has to be produced
+     */
+    public Optional<ExportSnapshot> find(ExportKey key) {
+        ExportSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        if (!Files.exists(file(snapshot))) {
+            snapshots.remove(key, snapshot);
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Returns all indexed snapshots.
+     *
+     * @return the snapshots in no particular order
+     */
+    public Collection<ExportSnapshot> snapshots() {
+        return List.copyOf(snapshots.values());
+    }
+
+    /**
+     * Returns the compressed content of a snapshot, to be served with {@code Content-Encoding: gzip}.
+     *
+     * @param snapshot the snapshot to read
+     * @return the compressed file
+     */
+    public Resource compressed(ExportSnapshot snapshot) {
+        return new FileSystemResource(file(snapshot));
+    }
+
+    /**
+     * Opens the uncompressed content of a snapshot, for clients that do not accept gzip.
+     *
+     * @param snapshot the snapshot to read
+     * @return the CSV content, to be closed by the caller
+     * @throws IOException if the file cannot be opened
+     */
+    public InputStream open(ExportSnapshot snapshot) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(file(snapshot)), BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a snapshot while it is produced and replaces the earlier snapshot of the same export, if any.
+     *
+     * @param day       the day of the snapshot
+     * @param total     whether the snapshot aggregates positive and negative values
+     * @param watermark the watermark of the series within the day read before the export is produced
+     * @param writer    writes the complete export content
+     * @return the index entry of the new snapshot
+     * @throws IOException if the export cannot be produced or written
+     */
+    public ExportSnapshot write(LocalDate day, boolean total, SeriesWatermark watermark, ExportSpool.ContentWriter writer) throws IOException {
+        MessageDigest contentDigest = sha256();
+        MessageDigest compressedDigest = sha256();
+        String fileName = String.join("_", watermark.assetId().toString(), watermark.marketId().toString(), day.toString(),
+                total ? "total" : "detailed", Long.toHexString(System.nanoTime())) + FILE_SUFFIX;
+        Path temporary = directory.resolve(fileName + TEMPORARY_SUFFIX);
+        try {
+            CountingOutputStream content;
+            try (OutputStream compressed = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE), compressedDigest);
+                 GZIPOutputStream gzip = new GZIPOutputStream(compressed, BUFFER_SIZE)) {
+                content = new CountingOutputStream(new DigestOutputStream(gzip, contentDigest));
+                writer.writeTo(content);
+                content.flush();
+            }
+            Files.move(temporary, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+
+            ExportSnapshot snapshot = new ExportSnapshot(watermark.assetId(), watermark.marketId(), day, total, watermark.updatedAt(),
+                    watermark.rows(), fileName, eTag(contentDigest.digest()), content.count, eTag(compressedDigest.digest()),
+                    Files.size(directory.resolve(fileName)));
+            writeIndexEntry(snapshot);
+            ExportSnapshot previous = snapshots.put(snapshot.key(), snapshot);
+            if (previous != null) {
+                deleteFiles(previous);
+            }
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            Files.deleteIfExists(directory.resolve(fileName));
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a snapshot from the index and deletes its files, unless it has been replaced in the meantime.
+     *
+     * @param snapshot the snapshot to delete
+     */
+    public void delete(ExportSnapshot snapshot) {
+        if (snapshots.remove(snapshot.key(), snapshot)) {
+            deleteFiles(snapshot);
+        }
+    }
+
+    /**
+     * Returns the disk space used by all snapshots.
+     *
+     * @return the compressed bytes
+     */
+    public long compressedBytes() {
+        return snapshots.values().stream().mapToLong(ExportSnapshot::compressedLength).sum();
+    }
+
+    /**
+     * Indexes the snapshots of the index entries in the directory and deletes everything else this store wrote.
+     */
+    private void load() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(INDEX_SUFFIX)) {
+                    loadIndexEntry(file);
+                }
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(FILE_SUFFIX) && snapshots.values().stream().noneMatch(snapshot -> snapshot.fileName().equals(name))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        log.info("Indexed {} export snapshots in {}", snapshots.size(), directory);
+    }
+
+    private void loadIndexEntry(Path indexFile) throws IOException {
+        ExportSnapshot snapshot;
+        try {
+            snapshot = objectMapper.readValue(indexFile.toFile(), ExportSnapshot.class);
+        } catch (IOException e) {
+            log.warn("Deleting unreadable export snapshot index entry {}", indexFile, e);
+            Files.deleteIfExists(indexFile);
+            return;
+        }
+        if (!Files.exists(file(snapshot))) {
+            Files.deleteIfExists(indexFile);
+            return;
+        }
+        // Two generations of one export are left by a run that stopped between writing one and deleting the other.
+        ExportSnapshot previous = snapshots.get(snapshot.key());
+        if (previous == null || snapshot.updatedAt().isAfter(previous.updatedAt())) {
+            snapshots.put(snapshot.key(), snapshot);
+            if (previous != null) {
+                deleteFiles(previous);
+            }
+        } else {
+            deleteFiles(snapshot);
+        }
+    }
+
+    /**
+     * Writes the index entry of a snapshot next to its file, replacing the entry atomically.
+     */
+    private void writeIndexEntry(ExportSnapshot snapshot) throws IOException {
+        Path indexFile = indexFile(snapshot);
+        Path temporary = directory.resolve(indexFile.getFileName() + TEMPORARY_SUFFIX);
+        objectMapper.writeValue(temporary.toFile(), snapshot);
+        Files.move(temporary, indexFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteFiles(ExportSnapshot snapshot) {
+        try {
+            Files.deleteIfExists(indexFile(snapshot));
+            Files.deleteIfExists(file(snapshot));
+        } catch (IOException e) {
+            log.warn("Could not delete export snapshot {}", file(snapshot), e);
+        }
+    }
+
+    private Path file(ExportSnapshot snapshot) {
+        return directory.resolve(snapshot.fileName());
+    }
+
+    private Path indexFile(ExportSnapshot snapshot) {
+        return directory.resolve(snapshot.fileName() + INDEX_SUFFIX);
+    }
+
+    private static String eTag(byte[] digest) {
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Counts the uncompressed bytes of a snapshot.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Index the access path of range exports: one asset/market series, filtered and ordered by timestamp.
+-- Lets series queries read rows in timestamp order without a separate sort.
+
+CREATE INDEX IF NOT EXISTS reservation_asset_market_timestamp_idx
+    ON reservation (asset_id, market_id, timestamp);
@@ -0,0 +1,11 @@
+-- Index the access path of exports filtered to reservations with a positive or negative value.
+-- Series queries with a positive lower bound on a value add the predicate of the index, so the planner can use it
+-- and skip the rows without a reservation of that direction.
+
+CREATE INDEX IF NOT EXISTS reservation_positive_value_series_idx
+    ON reservation (asset_id, market_id, timestamp)
+    WHERE positive_value > 0;
+
+CREATE INDEX IF NOT EXISTS reservation_negative_value_series_idx
+    ON reservation (asset_id, market_id, timestamp)
+    WHERE negative_value > 0;
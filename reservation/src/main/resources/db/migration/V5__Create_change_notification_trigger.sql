@@ -0,0 +1,35 @@
+-- Publish inserted and updated reservations on the 'reservation_changes' channel for the change feed.
+-- Triggers fire once per statement and send one notification per changed asset/market series with the range of
+-- update times written, so bulk loads send a handful of notifications instead of one per row. Listeners read the
+-- changed rows themselves; notifications are delivered only when the transaction commits.
+
+CREATE OR REPLACE FUNCTION notify_reservation_changes() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('reservation_changes', json_build_object(
+                'assetId', asset_id,
+                'marketId', market_id,
+                'updatedFrom', updated_from,
+                'updatedTo', updated_to)::text)
+    FROM (SELECT asset_id, market_id, min(updated_at) AS updated_from, max(updated_at) AS updated_to
+          FROM changed_rows
+          GROUP BY asset_id, market_id) AS changes;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS reservation_insert_notify ON reservation;
+CREATE TRIGGER reservation_insert_notify
+    AFTER INSERT ON reservation
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reservation_changes();
+
+DROP TRIGGER IF EXISTS reservation_update_notify ON reservation;
+CREATE TRIGGER reservation_update_notify
+    AFTER UPDATE ON reservation
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reservation_changes();
+
+-- Index the access path of the change feed: the rows of one series within a range of update times.
+
+CREATE INDEX IF NOT EXISTS reservation_asset_market_updated_at_idx
+    ON reservation (asset_id, market_id, updated_at);
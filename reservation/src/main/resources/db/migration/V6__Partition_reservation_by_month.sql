@@ -0,0 +1,118 @@
+-- Partition the 'reservation' table by month of 'timestamp', so that range queries only read the months they cover
+-- and whole months can be detached and archived as metadata operations instead of deleted row by row.
+-- Months are calendar months in UTC. Rows of months without a partition are kept in the default partition until one
+-- is created; create_reservation_partition moves them over. Partitions of upcoming months are created by the
+-- application ahead of time, expired ones are moved to the 'reservation_archive' schema by its retention job.
+
+ALTER TABLE reservation RENAME TO reservation_unpartitioned;
+ALTER SEQUENCE reservation_id_seq OWNED BY NONE;
+
+CREATE TABLE reservation (
+    id INTEGER NOT NULL DEFAULT nextval('reservation_id_seq'),  -- Unique identifier for each reservation (auto-incremented)
+    timestamp TIMESTAMPTZ NOT NULL,                              -- Timestamp of the reservation, the partition key
+    asset_id UUID NOT NULL,
+    market_id UUID NOT NULL,
+    positive_bid_id UUID,
+    negative_bid_id UUID,
+    positive_value DOUBLE PRECISION NOT NULL,
+    positive_capacity_price DOUBLE PRECISION NOT NULL,
+    positive_energy_price DOUBLE PRECISION NOT NULL,
+    negative_value DOUBLE PRECISION NOT NULL,
+    negative_capacity_price DOUBLE PRECISION NOT NULL,
+    negative_energy_price DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE reservation_id_seq OWNED BY reservation.id;
+
+CREATE TABLE reservation_default PARTITION OF reservation DEFAULT;
+
+CREATE SCHEMA IF NOT EXISTS reservation_archive;
+
+-- Creates the partition 'reservation_YYYY_MM' of the month containing the given day, unless it exists.
+-- The partition is filled with the rows of its month from the default partition and validated by a temporary check
+-- constraint before it is attached, so attaching does not scan it again. Returns the name of the created partition,
+-- or NULL if it already existed.
+
+CREATE OR REPLACE FUNCTION create_reservation_partition(month DATE) RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := 'reservation_' || to_char(month, 'YYYY_MM');
+    range_start TIMESTAMPTZ := date_trunc('month', month)::TIMESTAMP AT TIME ZONE 'UTC';
+    range_end TIMESTAMPTZ := (date_trunc('month', month) + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC';
+BEGIN
+    IF to_regclass(format('public.%I', partition_name)) IS NOT NULL THEN
+        RETURN NULL;
+    END IF;
+
+    EXECUTE format('CREATE TABLE public.%I (LIKE reservation INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM reservation_default WHERE timestamp >= %L AND timestamp < %L RETURNING *) '
+                   'INSERT INTO public.%I SELECT * FROM moved', range_start, range_end, partition_name);
+    EXECUTE format('ALTER TABLE public.%I ADD CONSTRAINT %I CHECK (timestamp >= %L AND timestamp < %L)',
+                   partition_name, partition_name || '_range', range_start, range_end);
+    EXECUTE format('ALTER TABLE reservation ATTACH PARTITION public.%I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+    EXECUTE format('ALTER TABLE public.%I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Lists the partitions of 'reservation' with their range of timestamps; the range of the default partition is NULL.
+
+CREATE OR REPLACE VIEW reservation_partitions AS
+SELECT child.relname AS partition_name,
+       substring(pg_get_expr(child.relpartbound, child.oid) FROM 'FROM \(''([^'']+)''\)')::TIMESTAMPTZ AS range_start,
+       substring(pg_get_expr(child.relpartbound, child.oid) FROM 'TO \(''([^'']+)''\)')::TIMESTAMPTZ AS range_end
+FROM pg_inherits
+JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+WHERE pg_inherits.inhparent = 'reservation'::regclass;
+
+-- Create the partitions of all months with reservations and of the current and next three months, then copy the
+-- reservations over. Indexes and triggers are created after the copy, which is faster than maintaining them row by
+-- row and does not notify the change feed of the copied rows.
+
+SELECT create_reservation_partition(month)
+FROM (SELECT DISTINCT date_trunc('month', timestamp AT TIME ZONE 'UTC')::DATE AS month FROM reservation_unpartitioned
+      UNION
+      SELECT (date_trunc('month', now() AT TIME ZONE 'UTC') + months * INTERVAL '1 month')::DATE
+      FROM generate_series(0, 3) AS months) AS months
+ORDER BY month;
+
+INSERT INTO reservation (id, timestamp, asset_id, market_id, positive_bid_id, negative_bid_id,
+                         positive_value, positive_capacity_price, positive_energy_price,
+                         negative_value, negative_capacity_price, negative_energy_price, updated_at)
+SELECT id, timestamp, asset_id, market_id, positive_bid_id, negative_bid_id,
+       positive_value, positive_capacity_price, positive_energy_price,
+       negative_value, negative_capacity_price, negative_energy_price, updated_at
+FROM reservation_unpartitioned;
+
+DROP TABLE reservation_unpartitioned;
+
+-- A primary key of a partitioned table must include the partition key; ids stay unique through the sequence.
+
+ALTER TABLE reservation ADD PRIMARY KEY (id, timestamp);
+
+CREATE INDEX reservation_asset_market_timestamp_idx
+    ON reservation (asset_id, market_id, timestamp);
+
+CREATE INDEX reservation_positive_value_series_idx
+    ON reservation (asset_id, market_id, timestamp)
+    WHERE positive_value > 0;
+
+CREATE INDEX reservation_negative_value_series_idx
+    ON reservation (asset_id, market_id, timestamp)
+    WHERE negative_value > 0;
+
+CREATE INDEX reservation_asset_market_updated_at_idx
+    ON reservation (asset_id, market_id, updated_at);
+
+CREATE TRIGGER reservation_insert_notify
+    AFTER INSERT ON reservation
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reservation_changes();
+
+CREATE TRIGGER reservation_update_notify
+    AFTER UPDATE ON reservation
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reservation_changes();
+
+ANALYZE reservation;
@@ -0,0 +1,6 @@
+-- Index the access path of the hot window's poll: all rows updated since its watermark, across every series.
+-- The change feed index leads with the asset and market and cannot serve it, so without this index each poll is a
+-- sequential scan of the partitions within the hot window.
+
+CREATE INDEX IF NOT EXISTS reservation_updated_at_idx
+    ON reservation (updated_at);
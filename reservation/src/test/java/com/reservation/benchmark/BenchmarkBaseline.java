@@ -0,0 +1,103 @@
+package com.reservation.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stored benchmark results used to detect regressions.
+ * Latency and GC metrics regress when they grow beyond the tolerance, throughput metrics when they drop below it.
+ *
+ * @author Bojana Samardzic
+ */
+class BenchmarkBaseline {
+
+    private final Properties values;
+
+    private BenchmarkBaseline(Properties values) {
+        this.values = values;
+    }
+
+    /**
+     * Loads a baseline file; a missing file yields an empty baseline.
+     *
+     * @param file the baseline file
+     * @return the loaded baseline
+     * @throws IOException if the file exists but cannot be read
+     */
+    static BenchmarkBaseline load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return new BenchmarkBaseline(properties);
+    }
+
+    /**
+     * Writes results in baseline format.
+     *
+     * @param file    the destination file
+     * @param results the results to store
+     * @throws IOException if the file cannot be written
+     */
+    static void store(Path file, List<WorkloadResult> results) throws IOException {
+        Properties properties = new Properties();
+        for (WorkloadResult result : results) {
+            for (Map.Entry<String, Double> metric : result.metrics().entrySet()) {
+                properties.setProperty(result.key() + "." + metric.getKey(), String.format(Locale.ROOT, "%.3f", metric.getValue()));
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Reservation export benchmark results");
+        }
+    }
+
+    /**
+     * Returns whether the baseline holds any values.
+     *
+     * @return {@code true} if no baseline has been stored yet
+     */
+    boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Compares results against this baseline.
+     *
+     * @param results   the results of the current run
+     * @param tolerance the allowed relative deviation, e.g. {@code 0.2} for 20%
+     * @return human-readable descriptions of all regressions
+     */
+    List<String> regressions(List<WorkloadResult> results, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (WorkloadResult result : results) {
+            for (Map.Entry<String, Double> metric : result.metrics().entrySet()) {
+                String key = result.key() + "." + metric.getKey();
+                String stored = values.getProperty(key);
+                if (stored == null) {
+                    continue;
+                }
+                double baseline = Double.parseDouble(stored);
+                double current = metric.getValue();
+                boolean higherIsBetter = metric.getKey().endsWith("PerSecond");
+                boolean regressed = higherIsBetter
+                        ? current < baseline * (1 - tolerance)
+                        : current > baseline * (1 + tolerance) && current - baseline > 1;
+                if (regressed) {
+                    regressions.add(String.format(Locale.ROOT, "%s: %.3f (baseline %.3f)", key, current, baseline));
+                }
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,168 @@
+package com.reservation.benchmark;
+
+import com.reservation.generator.SyntheticDataLoader;
+import com.reservation.generator.SyntheticDataProperties;
+import com.reservation.generator.SyntheticReservationGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end HTTP benchmark of the export and JSON endpoints against a real PostgreSQL database.
+ * Only runs with the {@code benchmark} Maven profile: {@code ./mvnw test -Pbenchmark}.
+ * The database is seeded with synthetic data on the first run; all sizes, rates and durations can be overridden
+ * with {@code -Dbenchmark.*} system properties (see {@code application-benchmark.properties}).
+ * Results are written to {@code target/benchmark/results.properties} and compared with
+ * {@code src/test/resources/benchmark/baseline.properties}; run with {@code -Dbenchmark.update-baseline=true}
+ * to store the current results as the new baseline.
+ *
+ * @author Bojana Samardzic
+ */
+@Tag("benchmark")
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ExportBenchmark {
+
+    private static final Path BASELINE = Path.of("src/test/resources/benchmark/baseline.properties");
+    private static final Path RESULTS = Path.of("target/benchmark/results.properties");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SyntheticDataLoader syntheticDataLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SyntheticDataProperties dataSet;
+    private SyntheticReservationGenerator generator;
+
+    /**
+     * Seeds the database with the benchmark data set unless it is already present.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataSet = new SyntheticDataProperties();
+        dataSet.setSeed(Long.getLong("benchmark.seed", 2024));
+        dataSet.setAssets(Integer.getInteger("benchmark.assets", 50));
+        dataSet.setMarkets(Integer.getInteger("benchmark.markets", 4));
+        dataSet.setDays(Integer.getInteger("benchmark.days", 365));
+        dataSet.setParallelism(Integer.getInteger("benchmark.load-parallelism", 4));
+        dataSet.setTruncate(true);
+        generator = new SyntheticReservationGenerator(dataSet);
+
+        Boolean present = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM reservation WHERE asset_id = ? AND market_id = ?)", Boolean.class,
+                generator.assetId(dataSet.getAssets() - 1), generator.marketId(dataSet.getMarkets() - 1));
+        if (!Boolean.TRUE.equals(present)) {
+            syntheticDataLoader.load(dataSet);
+        }
+    }
+
+    /**
+     * Runs all scenarios, prints a report and fails on regressions against the stored baseline.
+     */
+    @Test
+    public void benchmarkExports() throws Exception {
+        Duration warmup = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("benchmark.duration-seconds", 30));
+        double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.2"));
+
+        LoadDriver driver = new LoadDriver();
+        List<WorkloadResult> results = new ArrayList<>();
+
+        for (boolean total : new boolean[]{false, true}) {
+            for (int rangeDays : intList("benchmark.range-days", "1,30,365")) {
+                for (int concurrency : intList("benchmark.concurrency", "4,16")) {
+                    String mode = total ? "total" : "detailed";
+                    String scenario = String.format(Locale.ROOT, "%s-%dd-c%d", mode, rangeDays, concurrency);
+                    double rate = Math.max(0.2, 50.0 / rangeDays);
+                    results.addAll(driver.run(scenario,
+                            List.of(Workload.csv("export", rate, concurrency, n -> exportUri(n, rangeDays, total))),
+                            warmup, duration));
+                }
+            }
+        }
+
+        results.addAll(driver.run("json", List.of(Workload.json("json", 5, 4, this::jsonUri)), warmup, duration));
+
+        results.addAll(driver.run("mixed", List.of(
+                Workload.csv("export", 1, 16, n -> exportUri(n, 365, false)),
+                Workload.json("json", 5, 4, this::jsonUri)), warmup, duration));
+
+        report(results);
+        BenchmarkBaseline.store(RESULTS, results);
+
+        if (Boolean.getBoolean("benchmark.update-baseline")) {
+            BenchmarkBaseline.store(BASELINE, results);
+            return;
+        }
+
+        BenchmarkBaseline baseline = BenchmarkBaseline.load(BASELINE);
+        if (baseline.isEmpty()) {
+            System.out.println("No benchmark baseline stored yet; run with -Dbenchmark.update-baseline=true to create one.");
+            return;
+        }
+        List<String> regressions = baseline.regressions(results, tolerance);
+        assertTrue(regressions.isEmpty(), "Benchmark regressions:\n" + String.join("\n", regressions));
+    }
+
+    /**
+     * Spreads requests over all series and over the whole generated period.
+     */
+    private URI exportUri(int n, int rangeDays, boolean total) {
+        UUID assetId = generator.assetId(n % dataSet.getAssets());
+        UUID marketId = generator.marketId((n / dataSet.getAssets()) % dataSet.getMarkets());
+        int offsetDays = Math.max(1, dataSet.getDays() - rangeDays);
+        LocalDate fromDate = dataSet.getStartDate().plusDays((n * 7L) % offsetDays);
+        String from = fromDate.atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        String to = fromDate.plusDays(rangeDays).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        return URI.create(String.format("http://localhost:%d/api/v1/flexibility/reservations/%s/market/%s/export?from=%s&to=%s&total=%s",
+                port, assetId, marketId, from, to, total));
+    }
+
+    private URI jsonUri(int n) {
+        UUID assetId = generator.assetId(n % dataSet.getAssets());
+        UUID marketId = generator.marketId((n / dataSet.getAssets()) % dataSet.getMarkets());
+        return URI.create(String.format("http://localhost:%d/api/v1/flexibility/reservations/%s/market/%s", port, assetId, marketId));
+    }
+
+    private static void report(List<WorkloadResult> results) {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%n%-24s %-8s %8s %6s %10s %10s %10s %12s %12s %6s %8s %10s%n",
+                "scenario", "workload", "requests", "errors", "p50 ms", "p99 ms", "p999 ms", "rows/s", "MB/s", "GCs", "GC ms", "heap MB"));
+        for (WorkloadResult result : results) {
+            report.append(String.format(Locale.ROOT, "%-24s %-8s %8d %6d %10.1f %10.1f %10.1f %12.0f %12.2f %6d %8d %10.0f%n",
+                    result.scenario(), result.workload(), result.requests(), result.errors(),
+                    result.p50Millis(), result.p99Millis(), result.p999Millis(),
+                    result.rowsPerSecond(), result.bytesPerSecond() / (1024 * 1024),
+                    result.gcCount(), result.gcMillis(), result.peakHeapMb()));
+        }
+        System.out.println(report);
+    }
+
+    private static List<Integer> intList(String property, String defaultValue) {
+        List<Integer> values = new ArrayList<>();
+        for (String value : System.getProperty(property, defaultValue).split(",")) {
+            values.add(Integer.parseInt(value.trim()));
+        }
+        return values;
+    }
+}
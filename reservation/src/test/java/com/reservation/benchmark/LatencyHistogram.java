@@ -0,0 +1,52 @@
+package com.reservation.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe recorder of request latencies with exact percentiles.
+ * Latencies are kept in microseconds; benchmark runs are short enough that storing every sample is affordable.
+ *
+ * @author Bojana Samardzic
+ */
+class LatencyHistogram {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    /**
+     * Records one latency sample.
+     *
+     * @param latencyNanos the latency in nanoseconds
+     */
+    synchronized void record(long latencyNanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = latencyNanos / 1000;
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return the sample count
+     */
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Returns the latency at the given percentile using the nearest-rank method.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in milliseconds, or 0 if nothing was recorded
+     */
+    synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.min(count, Math.max(1, rank)) - 1] / 1000.0;
+    }
+}
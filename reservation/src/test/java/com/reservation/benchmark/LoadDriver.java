@@ -0,0 +1,182 @@
+package com.reservation.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-model load generator.
+ * Requests are issued at fixed arrival rates regardless of how fast earlier requests complete, and latency is
+ * measured from the intended start time, so queueing inside the driver is not hidden (no coordinated omission).
+ *
+ * @author Bojana Samardzic
+ */
+class LoadDriver {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * Runs the workloads of one scenario concurrently.
+     *
+     * @param scenario  the scenario name
+     * @param workloads the workloads issued during the scenario
+     * @param warmup    the warm-up period whose requests are not measured
+     * @param duration  the measured period
+     * @return one result per workload
+     * @throws InterruptedException if the driver is interrupted
+     */
+    List<WorkloadResult> run(String scenario, List<Workload> workloads, Duration warmup, Duration duration) throws InterruptedException {
+        ScheduledExecutorService ticker = Executors.newScheduledThreadPool(workloads.size());
+        List<ExecutorService> workers = new ArrayList<>();
+        List<Recorder> recorders = new ArrayList<>();
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        for (Workload workload : workloads) {
+            ExecutorService worker = Executors.newFixedThreadPool(workload.maxInFlight());
+            Recorder recorder = new Recorder(measureFrom, measureUntil);
+            AtomicInteger sequence = new AtomicInteger();
+            long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / workload.requestsPerSecond());
+
+            ticker.scheduleAtFixedRate(() -> {
+                long intendedStart = System.nanoTime();
+                int n = sequence.getAndIncrement();
+                worker.execute(() -> execute(workload, n, intendedStart, recorder));
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+            workers.add(worker);
+            recorders.add(recorder);
+        }
+
+        HeapSampler heapSampler = new HeapSampler();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(measureFrom - System.nanoTime()));
+        heapSampler.start();
+        Thread.sleep(duration.toMillis());
+
+        ticker.shutdownNow();
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+            worker.awaitTermination(2, TimeUnit.MINUTES);
+        }
+        heapSampler.stop();
+
+        long gcCount = gcCount() - gcCountBefore;
+        long gcMillis = gcMillis() - gcMillisBefore;
+        double seconds = duration.toNanos() / 1e9;
+
+        List<WorkloadResult> results = new ArrayList<>();
+        for (int i = 0; i < workloads.size(); i++) {
+            Recorder recorder = recorders.get(i);
+            results.add(new WorkloadResult(scenario, workloads.get(i).name(),
+                    recorder.latencies.count(), recorder.errors.get(),
+                    recorder.latencies.percentileMillis(50), recorder.latencies.percentileMillis(99), recorder.latencies.percentileMillis(99.9),
+                    recorder.rows.get() / seconds, recorder.bytes.get() / seconds,
+                    gcCount, gcMillis, heapSampler.peakBytes / (1024.0 * 1024.0)));
+        }
+        return results;
+    }
+
+    private void execute(Workload workload, int n, long intendedStart, Recorder recorder) {
+        HttpRequest request = HttpRequest.newBuilder(workload.uris().apply(n)).GET().build();
+        long rows = 0;
+        long bytes = 0;
+        boolean failed;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    bytes += read;
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == workload.rowMarker()) {
+                            rows++;
+                        }
+                    }
+                }
+            }
+            failed = response.statusCode() / 100 != 2;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(intendedStart, System.nanoTime(), Math.max(0, rows - workload.headerRows()), bytes, failed);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * Collects the measurements of requests whose intended start lies inside the measured period.
+     */
+    private static final class Recorder {
+
+        private final long measureFrom;
+        private final long measureUntil;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        Recorder(long measureFrom, long measureUntil) {
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        void record(long intendedStart, long end, long rowCount, long byteCount, boolean failed) {
+            if (intendedStart < measureFrom || intendedStart >= measureUntil) {
+                return;
+            }
+            latencies.record(end - intendedStart);
+            rows.addAndGet(rowCount);
+            bytes.addAndGet(byteCount);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Samples the used heap every 100 ms and keeps the peak.
+     */
+    private static final class HeapSampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        private volatile long peakBytes;
+
+        void start() {
+            sampler.scheduleAtFixedRate(() -> peakBytes = Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed()), 0, 100, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() {
+            sampler.shutdownNow();
+        }
+    }
+}
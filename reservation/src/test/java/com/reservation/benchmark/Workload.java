@@ -0,0 +1,33 @@
+package com.reservation.benchmark;
+
+import java.net.URI;
+import java.util.function.IntFunction;
+
+/**
+ * One stream of requests within a benchmark scenario, issued at a fixed arrival rate.
+ *
+ * @param name              the name used in reports and baseline keys
+ * @param requestsPerSecond the arrival rate of requests
+ * @param maxInFlight       the maximum number of concurrently executing requests; further arrivals queue and
+ *                          their queueing time is included in the measured latency
+ * @param uris              produces the URI of the n-th request
+ * @param rowMarker         the byte that occurs once per data row in the response body
+ * @param headerRows        the number of row markers that do not belong to data rows
+ * @author Bojana Samardzic
+ */
+record Workload(String name, double requestsPerSecond, int maxInFlight, IntFunction<URI> uris, byte rowMarker, int headerRows) {
+
+    /**
+     * Creates a workload of CSV exports, counting one data row per line after the header.
+     */
+    static Workload csv(String name, double requestsPerSecond, int maxInFlight, IntFunction<URI> uris) {
+        return new Workload(name, requestsPerSecond, maxInFlight, uris, (byte) '\n', 1);
+    }
+
+    /**
+     * Creates a workload of JSON reads, counting one data row per object.
+     */
+    static Workload json(String name, double requestsPerSecond, int maxInFlight, IntFunction<URI> uris) {
+        return new Workload(name, requestsPerSecond, maxInFlight, uris, (byte) '{', 0);
+    }
+}
@@ -0,0 +1,53 @@
+package com.reservation.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements of one workload within a scenario run.
+ *
+ * @param scenario       the scenario the workload belongs to
+ * @param workload       the workload name
+ * @param requests       the number of completed requests
+ * @param errors         the number of failed requests or non-2xx responses
+ * @param p50Millis      the median latency
+ * @param p99Millis      the 99th percentile latency
+ * @param p999Millis     the 99.9th percentile latency
+ * @param rowsPerSecond  the number of data rows received per second
+ * @param bytesPerSecond the number of body bytes received per second
+ * @param gcCount        the number of garbage collections during the scenario
+ * @param gcMillis       the accumulated garbage collection time during the scenario
+ * @param peakHeapMb     the highest sampled heap usage during the scenario
+ * @author Bojana Samardzic
+ */
+record WorkloadResult(String scenario, String workload, long requests, long errors,
+                      double p50Millis, double p99Millis, double p999Millis,
+                      double rowsPerSecond, double bytesPerSecond,
+                      long gcCount, long gcMillis, double peakHeapMb) {
+
+    /**
+     * Returns the key prefix of this result in result and baseline files.
+     *
+     * @return the key prefix
+     */
+    String key() {
+        return scenario + "." + workload;
+    }
+
+    /**
+     * Returns the metrics of this result keyed by metric name.
+     *
+     * @return the metrics in report order
+     */
+    Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("p50Millis", p50Millis);
+        metrics.put("p99Millis", p99Millis);
+        metrics.put("p999Millis", p999Millis);
+        metrics.put("rowsPerSecond", rowsPerSecond);
+        metrics.put("bytesPerSecond", bytesPerSecond);
+        metrics.put("gcMillis", (double) gcMillis);
+        metrics.put("peakHeapMb", peakHeapMb);
+        return metrics;
+    }
+}
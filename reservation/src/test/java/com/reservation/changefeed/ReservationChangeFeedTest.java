@@ -0,0 +1,155 @@
+package com.reservation.changefeed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reservation.dto.ReservationDTO;
+import com.reservation.model.ReservationSeries;
+import com.reservation.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ReservationChangeFeed}.
+ * Tests the fan-out of changed reservations to the subscribers of their series, the bounded buffers of subscribers and
+ * resuming from an update time. The listener connection never opens, so notifications are dispatched directly.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationChangeFeedTest {
+
+    private ReservationService reservationService;
+    private ChangeFeedProperties properties;
+    private ReservationChangeFeed changeFeed;
+    private UUID assetId;
+    private UUID marketId;
+
+    /**
+     * Sets up a running feed whose listener waits for a connection forever.
+     */
+    @BeforeEach
+    public void setUp() {
+        reservationService = mock(ReservationService.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        doReturn(Mono.<Connection>never()).when(connectionFactory).create();
+        ConnectionPool connectionPool = mock(ConnectionPool.class);
+        when(connectionPool.unwrap()).thenReturn(connectionFactory);
+
+        properties = new ChangeFeedProperties();
+        properties.setEnabled(true);
+        properties.setSubscriberBufferSize(2);
+        changeFeed = new ReservationChangeFeed(properties, reservationService, connectionPool, new ObjectMapper(), new SimpleMeterRegistry());
+        changeFeed.start();
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        changeFeed.stop();
+    }
+
+    /**
+     * Tests that the changes of a notification are read once and delivered to the subscribers of its series only.
+     */
+    @Test
+    public void testDispatch_SubscribedSeries_ChangesDelivered() {
+        when(reservationService.streamReservationChanges(eq(assetId), eq(marketId), any(), any())).thenReturn(Flux.just(series(1L, 2L)));
+
+        StepVerifier.create(changeFeed.subscribe(assetId, marketId, null).map(ReservationDTO::getId))
+                .then(() -> changeFeed.dispatch(notification(assetId, marketId)).block())
+                .expectNext(1L, 2L)
+                .then(changeFeed::stop)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that a notification of a series without subscribers reads nothing.
+     */
+    @Test
+    public void testDispatch_NoSubscribers_NothingRead() {
+        StepVerifier.create(changeFeed.subscribe(assetId, UUID.randomUUID(), null))
+                .then(() -> changeFeed.dispatch(notification(assetId, marketId)).block())
+                .then(changeFeed::stop)
+                .verifyComplete();
+
+        verify(reservationService, never()).streamReservationChanges(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a subscriber whose buffer is full receives the buffered changes and is then completed, so that it
+     * resumes instead of missing changes.
+     */
+    @Test
+    public void testDispatch_BufferFull_SubscriberCompleted() {
+        when(reservationService.streamReservationChanges(eq(assetId), eq(marketId), any(), any())).thenReturn(Flux.just(series(1L, 2L, 3L)));
+
+        StepVerifier.create(changeFeed.subscribe(assetId, marketId, null).map(ReservationDTO::getId), 0)
+                .then(() -> changeFeed.dispatch(notification(assetId, marketId)).block())
+                .thenRequest(10)
+                .expectNext(1L, 2L)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that a subscriber resuming from an update time receives the changes since then before the live ones.
+     */
+    @Test
+    public void testSubscribe_Since_MissedChangesFirst() {
+        ZonedDateTime since = ZonedDateTime.of(2024, 7, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(reservationService.streamReservationChanges(assetId, marketId, since, null)).thenReturn(Flux.just(series(1L)));
+        when(reservationService.streamReservationChanges(eq(assetId), eq(marketId), any(), any(ZonedDateTime.class))).thenReturn(Flux.just(series(2L)));
+
+        StepVerifier.create(changeFeed.subscribe(assetId, marketId, since).map(ReservationDTO::getId))
+                .expectNext(1L)
+                .then(() -> changeFeed.dispatch(notification(assetId, marketId)).block())
+                .expectNext(2L)
+                .then(changeFeed::stop)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that subscribing to a disabled feed fails.
+     */
+    @Test
+    public void testSubscribe_NotRunning_Throws() {
+        changeFeed.stop();
+
+        assertThrows(IllegalStateException.class, () -> changeFeed.subscribe(assetId, marketId, null));
+    }
+
+    private ChangeNotification notification(UUID assetId, UUID marketId) {
+        OffsetDateTime updatedAt = OffsetDateTime.of(2024, 7, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        return new ChangeNotification(assetId, marketId, updatedAt, updatedAt);
+    }
+
+    private ReservationSeries series(long... ids) {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        for (long id : ids) {
+            long updatedAt = ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 12, 0));
+            series.add(id, updatedAt, null, null, 0, 0, 0, 0, 0, 0, updatedAt);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,249 @@
+package com.reservation.coldtier;
+
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationPartition;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.repository.ReservationPartitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link ColdTierStore}.
+ * Tests that archived partitions read back unchanged from their files, that reads only return the rows and columns
+ * asked for, and that files are indexed again after a restart.
+ *
+ * @author Bojana Samardzic
+ */
+public class ColdTierStoreTest {
+
+    private static final int ROWS_PER_DAY = 96;
+
+    @TempDir
+    private Path directory;
+
+    private ColdTierProperties properties;
+    private ReservationPartitionRepository partitionRepository;
+    private UUID assetId;
+    private UUID marketId;
+    private UUID otherAssetId;
+    private UUID bidId;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ColdTierProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        partitionRepository = mock(ReservationPartitionRepository.class);
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+        otherAssetId = UUID.randomUUID();
+        bidId = UUID.randomUUID();
+    }
+
+    /**
+     * Tests that all columns of an archived series read back unchanged, with time points in the default time zone
+     * of the JVM like series read from the database.
+     */
+    @Test
+    public void testArchivedSeriesReadsBackUnchanged() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        ReservationSeries written = series(assetId, marketId, january, 3);
+        givenPartition(january, written);
+        ColdTierStore store = store();
+
+        store.archive(january);
+
+        ColdTierView view = store.find(null).orElseThrow();
+        ReservationSeries read = view.findSeries(assetId, marketId, null, null, ReservationProjection.DETAILED);
+        assertEquals(written.size(), read.size());
+        for (int row = 0; row < written.size(); row++) {
+            assertEquals(written.getId(row), read.getId(row));
+            assertEquals(local(written.getTimestamp(row)), read.getTimestamp(row));
+            assertEquals(local(written.getUpdatedAt(row)), read.getUpdatedAt(row));
+            assertEquals(written.getPositiveBidId(row), read.getPositiveBidId(row));
+            assertEquals(written.getNegativeBidId(row), read.getNegativeBidId(row));
+            assertEquals(written.getPositiveValue(row), read.getPositiveValue(row));
+            assertEquals(written.getPositiveCapacityPrice(row), read.getPositiveCapacityPrice(row));
+            assertEquals(written.getPositiveEnergyPrice(row), read.getPositiveEnergyPrice(row));
+            assertEquals(written.getNegativeValue(row), read.getNegativeValue(row));
+            assertEquals(written.getNegativeCapacityPrice(row), read.getNegativeCapacityPrice(row));
+            assertEquals(written.getNegativeEnergyPrice(row), read.getNegativeEnergyPrice(row));
+        }
+        assertEquals(LocalDateTime.ofInstant(january.to(), ZoneId.systemDefault()), view.boundary());
+    }
+
+    /**
+     * Tests that a read returns only the rows within its range, and leaves the columns of fields it did not ask for
+     * empty.
+     */
+    @Test
+    public void testReadsRangeAndProjectedColumnsOnly() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        givenPartition(january, series(assetId, marketId, january, 5));
+        ColdTierStore store = store();
+        store.archive(january);
+
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.parse("2024-01-02T00:00:00Z"), ZoneId.systemDefault());
+        LocalDateTime to = from.plusDays(1);
+        ReservationProjection fields = new ReservationProjection(List.of(ReservationField.TIMESTAMP, ReservationField.POSITIVE_VALUE));
+        ReservationSeries read = store.find(from).orElseThrow().findSeries(assetId, marketId, from, to, fields);
+
+        assertEquals(ROWS_PER_DAY + 1, read.size());
+        assertEquals(ReservationSeries.toEpochMicros(from), read.getTimestamp(0));
+        assertEquals(ReservationSeries.toEpochMicros(to), read.getTimestamp(read.size() - 1));
+        assertTrue(read.getPositiveValue(1) > 0);
+        assertEquals(0, read.getNegativeValue(1));
+        assertNull(read.getPositiveBidId(1));
+        assertEquals(0, read.getUpdatedAt(1));
+    }
+
+    /**
+     * Tests that the series of several files and assets are found through the asset index of each file, and that a
+     * range starting at the boundary of the cold tier is left to the database.
+     */
+    @Test
+    public void testFindsSeriesAcrossFiles() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        ReservationPartition february = partition(YearMonth.of(2024, 2));
+        givenPartition(january, series(assetId, marketId, january, 2), series(otherAssetId, marketId, january, 2));
+        givenPartition(february, series(assetId, marketId, february, 1));
+        ColdTierStore store = store();
+        store.archive(january);
+        store.archive(february);
+
+        ColdTierView view = store.find(null).orElseThrow();
+        assertEquals(2, view.findChunks(assetId, marketId, null, null, ReservationProjection.DETAILED).size());
+        assertEquals(3, view.findAll(List.of(assetId, otherAssetId), null, null, null).size());
+        assertEquals(1, view.findAll(List.of(otherAssetId), marketId, null, null).size());
+        assertTrue(view.findAll(List.of(otherAssetId), UUID.randomUUID(), null, null).isEmpty());
+
+        LocalDateTime boundary = LocalDateTime.ofInstant(february.to(), ZoneId.systemDefault());
+        assertEquals(boundary, view.boundary());
+        assertTrue(store.find(boundary.minusSeconds(1)).isPresent());
+        assertFalse(store.find(boundary).isPresent());
+    }
+
+    /**
+     * Tests that rows are estimated from the index of the files, with series partly within a range counted by the
+     * share of their time span in it.
+     */
+    @Test
+    public void testEstimatesRowsFromIndex() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        givenPartition(january, series(assetId, marketId, january, 4), series(otherAssetId, marketId, january, 2));
+        ColdTierStore store = store();
+        store.archive(january);
+
+        ColdTierView view = store.find(null).orElseThrow();
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.parse("2024-01-02T00:00:00Z"), ZoneId.systemDefault());
+        assertEquals(4 * ROWS_PER_DAY, view.estimateRows(List.of(assetId), marketId, null, null));
+        assertEquals(6 * ROWS_PER_DAY, view.estimateRows(List.of(assetId, otherAssetId), null, null, null));
+        long estimate = view.estimateRows(List.of(assetId), marketId, from, from.plusDays(1));
+        assertTrue(Math.abs(estimate - ROWS_PER_DAY) <= 1, "estimate " + estimate);
+        assertEquals(0, view.estimateRows(List.of(assetId), UUID.randomUUID(), null, null));
+    }
+
+    /**
+     * Tests that the files are indexed again after a restart, and that temporary files of an interrupted archiving
+     * are deleted.
+     */
+    @Test
+    public void testIndexesFilesAfterRestart() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        givenPartition(january, series(assetId, marketId, january, 2));
+        store().archive(january);
+        Path temporary = Files.writeString(directory.resolve("reservation_2024_02.cold.tmp"), "incomplete");
+
+        ColdTierStore restarted = store();
+
+        assertEquals(2 * ROWS_PER_DAY, restarted.find(null).orElseThrow()
+                .findSeries(assetId, marketId, null, null, ReservationProjection.DETAILED).size());
+        assertFalse(Files.exists(temporary));
+    }
+
+    /**
+     * Tests that a failed archiving leaves no file behind and the cold tier unchanged.
+     */
+    @Test
+    public void testFailedArchivingLeavesNoFile() throws IOException {
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        doThrow(new IllegalStateException("connection lost"))
+                .when(partitionRepository).streamPartition(eq(january), any());
+        ColdTierStore store = store();
+
+        assertThrows(IllegalStateException.class, () -> store.archive(january));
+
+        assertTrue(store.find(null).isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private ColdTierStore store() {
+        return new ColdTierStore(properties, partitionRepository, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPartition(ReservationPartition partition, ReservationSeries... series) {
+        doAnswer(invocation -> {
+            Consumer<ReservationSeries> consumer = invocation.getArgument(1);
+            for (ReservationSeries each : series) {
+                consumer.accept(each);
+            }
+            return null;
+        }).when(partitionRepository).streamPartition(eq(partition), any(Consumer.class));
+    }
+
+    /**
+     * Creates a series of quarter-hourly rows from the start of a partition, with time points in epoch microseconds
+     * of the instant as read from a partition.
+     */
+    private ReservationSeries series(UUID assetId, UUID marketId, ReservationPartition partition, int days) {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        long start = partition.from().getEpochSecond() * 1_000_000;
+        for (int row = 0; row < days * ROWS_PER_DAY; row++) {
+            long timestamp = start + row * 900_000_000L;
+            series.add(row + 1, timestamp, row % 3 == 0 ? bidId : null, row % 2 == 0 ? UUID.randomUUID() : null,
+                    1000 + row * 0.125, 10.5, 150 + row % 7, row % 5 * 250.0, 9.75, 120 - row % 4,
+                    timestamp + 3_600_000_000L);
+        }
+        return series;
+    }
+
+    private static ReservationPartition partition(YearMonth month) {
+        return new ReservationPartition("reservation_" + month.toString().replace('-', '_'),
+                month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+
+    private static long local(long instantMicros) {
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(instantMicros, 1_000_000L), Math.floorMod(instantMicros, 1_000_000L) * 1_000);
+        return ReservationSeries.toEpochMicros(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()));
+    }
+}
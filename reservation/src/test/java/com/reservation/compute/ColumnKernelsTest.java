@@ -0,0 +1,166 @@
+package com.reservation.compute;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for {@link ScalarColumnKernels} and {@link VectorColumnKernels}.
+ * Tests the scalar kernels on small columns and that the vector kernels return the same results on random columns of
+ * all lengths around the vector size. The vector kernels are only tested if the Vector API module was added to the JVM.
+ *
+ * @author Bojana Samardzic
+ */
+public class ColumnKernelsTest {
+
+    /**
+     * Values whose sums or rounding to thousandths are easily wrong.
+     */
+    private static final double[] SPECIAL_VALUES = {0.0, -0.0, 0.1, 0.0005, -0.0005, 0.0025, -0.0025, 0.49999999999999994,
+            1e19, -1e19, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE};
+
+    private final ScalarColumnKernels scalar = new ScalarColumnKernels();
+
+    /**
+     * Tests that groups of equal keys are found within a slice, followed by the end of the slice.
+     */
+    @Test
+    public void testGroupStarts_Slice_Success() {
+        long[] keys = {9, 1, 1, 2, 3, 3, 3, 9};
+        int[] starts = new int[8];
+
+        int groups = scalar.groupStarts(keys, 1, 7, starts);
+
+        assertEquals(3, groups);
+        assertArrayEquals(new int[]{1, 3, 4, 7}, Arrays.copyOf(starts, groups + 1));
+        assertEquals(0, scalar.groupStarts(keys, 3, 3, starts));
+        assertEquals(3, starts[0]);
+    }
+
+    /**
+     * Tests that groups are summed in row order and in fixed point, where the sums carry no floating-point error.
+     */
+    @Test
+    public void testSumGroups_Success() {
+        double[] column = {0.1, 0.1, 0.1, 5, -0.0};
+        int[] starts = {0, 3, 4, 5};
+        double[] sums = new double[3];
+
+        scalar.sumGroups(column, starts, 3, sums);
+        assertArrayEquals(new double[]{0.30000000000000004, 5, 0.0}, sums);
+
+        scalar.sumGroupsFixedPoint(column, starts, 3, sums);
+        assertArrayEquals(new double[]{0.3, 5, 0.0}, sums);
+    }
+
+    /**
+     * Tests the statistics of a slice, and of an empty one.
+     */
+    @Test
+    public void testStatistics_Success() {
+        double[] column = {100, 2, -4, 8, 100};
+
+        assertEquals(new ColumnStatistics(3, -4, 8, 2), scalar.statistics(column, 1, 4));
+        assertEquals(ColumnStatistics.EMPTY, scalar.statistics(column, 2, 2));
+    }
+
+    /**
+     * Tests that the vector kernels divide, group and sum exactly like the scalar kernels.
+     */
+    @Test
+    public void testVectorKernels_RandomColumns_SameAsScalar() {
+        assumeTrue(ColumnKernelsConfiguration.isVectorModulePresent());
+        VectorColumnKernels vector = new VectorColumnKernels();
+        Random random = new Random(42);
+
+        for (int length = 0; length <= 4 * vector.lanes() + 3; length++) {
+            for (int maxGroupSize = 1; maxGroupSize <= 5; maxGroupSize++) {
+                long[] keys = randomKeys(random, length, maxGroupSize);
+                double[] column = randomValues(random, length);
+                int from = length > 0 ? random.nextInt(length) : 0;
+
+                double[] scalarDivided = column.clone();
+                double[] vectorDivided = column.clone();
+                scalar.divide(scalarDivided, from, length, 1000);
+                vector.divide(vectorDivided, from, length, 1000);
+                assertArrayEquals(scalarDivided, vectorDivided);
+
+                int[] starts = new int[length + 1];
+                int[] vectorStarts = new int[length + 1];
+                int sliceGroups = scalar.groupStarts(keys, from, length, starts);
+                assertEquals(sliceGroups, vector.groupStarts(keys, from, length, vectorStarts));
+                assertArrayEquals(starts, vectorStarts);
+                int groups = scalar.groupStarts(keys, 0, length, starts);
+                assertEquals(groups, vector.groupStarts(keys, 0, length, vectorStarts));
+                assertArrayEquals(starts, vectorStarts);
+
+                assertArrayEquals(computed(groups, target -> scalar.sumGroups(column, starts, groups, target)),
+                        computed(groups, target -> vector.sumGroups(column, starts, groups, target)));
+                assertArrayEquals(computed(groups, target -> scalar.sumGroupsFixedPoint(column, starts, groups, target)),
+                        computed(groups, target -> vector.sumGroupsFixedPoint(column, starts, groups, target)));
+            }
+        }
+    }
+
+    /**
+     * Tests that the vector kernels find the same minimum and maximum as the scalar kernels, and an average that differs
+     * only by rounding.
+     */
+    @Test
+    public void testVectorStatistics_RandomColumns_SameAsScalar() {
+        assumeTrue(ColumnKernelsConfiguration.isVectorModulePresent());
+        VectorColumnKernels vector = new VectorColumnKernels();
+        Random random = new Random(7);
+
+        for (int length = 0; length <= 4 * vector.lanes() + 3; length++) {
+            double[] column = random.doubles(length, -1000, 1000).toArray();
+            ColumnStatistics expected = scalar.statistics(column, 0, length);
+
+            ColumnStatistics actual = vector.statistics(column, 0, length);
+
+            assertEquals(expected.count(), actual.count());
+            assertEquals(expected.min(), actual.min());
+            assertEquals(expected.max(), actual.max());
+            assertEquals(expected.average(), actual.average(), 1e-9);
+        }
+        double[] withNaN = {1, Double.NaN, 2, 3, 4, 5, 6, 7, 8};
+        assertEquals(scalar.statistics(withNaN, 0, withNaN.length), vector.statistics(withNaN, 0, withNaN.length));
+    }
+
+    private static double[] computed(int groups, Consumer<double[]> kernel) {
+        double[] target = new double[groups];
+        kernel.accept(target);
+        return target;
+    }
+
+    private static long[] randomKeys(Random random, int length, int maxGroupSize) {
+        long[] keys = new long[length];
+        long key = random.nextInt(100);
+        int remaining = 0;
+        for (int row = 0; row < length; row++) {
+            if (remaining == 0) {
+                key += 1 + random.nextInt(3);
+                remaining = 1 + random.nextInt(maxGroupSize);
+            }
+            keys[row] = key;
+            remaining--;
+        }
+        return keys;
+    }
+
+    private static double[] randomValues(Random random, int length) {
+        double[] values = new double[length];
+        for (int row = 0; row < length; row++) {
+            values[row] = random.nextInt(4) == 0
+                    ? SPECIAL_VALUES[random.nextInt(SPECIAL_VALUES.length)]
+                    : (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(8));
+        }
+        return values;
+    }
+}
@@ -1,31 +1,89 @@
 package com.reservation.controller;
 
+import com.reservation.compute.ColumnStatistics;
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.TotalCSVFormatter;
 import com.reservation.dto.ReservationDTO;
+import com.reservation.export.ExportAdmission;
+import com.reservation.export.ExportCoalescer;
+import com.reservation.export.ExportKey;
+import com.reservation.export.ExportPermit;
+import com.reservation.export.ExportPlan;
+import com.reservation.export.ExportPlanner;
+import com.reservation.export.ExportRejectedException;
+import com.reservation.export.ExportSpool;
+import com.reservation.export.ExportSpoolProperties;
+import com.reservation.export.ExportStrategy;
+import com.reservation.export.SpooledExport;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.format.NdjsonReservationFormat;
+import com.reservation.format.ReservationFormatRegistry;
+import com.reservation.format.TsvReservationFormat;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
 import com.reservation.service.ReservationService;
+import com.reservation.snapshot.ExportSnapshot;
+import com.reservation.snapshot.ExportSnapshotStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.modelmapper.ModelMapper;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -36,12 +94,39 @@ import static org.mockito.Mockito.when;
  */
 public class ReservationControllerTest {
 
+    @TempDir
+    static Path spoolDirectory;
+
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private ExportSpool exportSpool;
+
+    @Mock
+    private ExportAdmission exportAdmission;
+
+    @Mock
+    private ExportPermit exportPermit;
+
+    @Mock
+    private ExportPlanner exportPlanner;
+
+    @Mock
+    private ExportSnapshotStore exportSnapshotStore;
+
+    @Spy
+    private ExportCoalescer exportCoalescer = new ExportCoalescer(spoolProperties(), new SimpleMeterRegistry());
+
+    private ServletWebRequest request;
+
     @Mock
     private ModelMapper modelMapper;
 
+    @Spy
+    private ReservationFormatRegistry exportFormats = new ReservationFormatRegistry(List.of(
+            new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter()), new TsvReservationFormat(), new NdjsonReservationFormat()));
+
     @InjectMocks
     private ReservationController reservationController;
 
@@ -57,7 +142,7 @@ public class ReservationControllerTest {
      * Initializes mock objects and test data.
      */
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws IOException, ExportRejectedException {
         MockitoAnnotations.openMocks(this);
         assetId = UUID.randomUUID();
         marketId = UUID.randomUUID();
@@ -65,6 +150,22 @@ public class ReservationControllerTest {
         to = ZonedDateTime.now();
         total = false;
         csvData = "csv,data";
+        request = new ServletWebRequest(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+
+        when(exportSpool.store(any(ExportKey.class), any(byte[].class)))
+                .thenAnswer(invocation -> snapshot("\"stored\"", new String(invocation.<byte[]>getArgument(1), StandardCharsets.UTF_8)));
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.IN_MEMORY, 96));
+        when(exportPlanner.planTotals(any(), any(), any(), any())).thenReturn(new ExportPlan(ExportStrategy.IN_MEMORY, 192));
+        when(exportAdmission.acquire(any(ExportPlan.class))).thenReturn(exportPermit);
+    }
+
+    /**
+     * Clears the request bound to the test thread.
+     */
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
     }
 
     /**
@@ -74,15 +175,15 @@ public class ReservationControllerTest {
      */
     @Test
     public void testExportReservationsToCSV_Success() throws IOException {
-        when(reservationService.exportReservationsToCSV(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean()))
-                .thenReturn(csvData);
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
 
-        ResponseEntity<String> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
 
         HttpHeaders headers = response.getHeaders();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("attachment; filename=reservations.csv", Objects.requireNonNull(headers.getFirst(HttpHeaders.CONTENT_DISPOSITION)));
-        assertEquals(csvData, response.getBody());
+        assertEquals(csvData, content(response));
     }
 
     /**
@@ -93,15 +194,15 @@ public class ReservationControllerTest {
     @Test
     public void testExportReservationsToCSV_WithTotal_Success() throws IOException {
         total = true;
-        when(reservationService.exportReservationsToCSV(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), eq(true)))
-                .thenReturn(csvData);
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), eq(true), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
 
-        ResponseEntity<String> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
 
         HttpHeaders headers = response.getHeaders();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("attachment; filename=reservations.csv", Objects.requireNonNull(headers.getFirst(HttpHeaders.CONTENT_DISPOSITION)));
-        assertEquals(csvData, response.getBody());
+        assertEquals(csvData, content(response));
     }
 
     /**
@@ -113,11 +214,11 @@ public class ReservationControllerTest {
         ZonedDateTime invalidFrom = ZonedDateTime.now();
         ZonedDateTime invalidTo = ZonedDateTime.now().minusDays(1);
 
-        when(reservationService.exportReservationsToCSV(any(UUID.class), any(UUID.class), eq(invalidFrom), eq(invalidTo), anyBoolean()))
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), eq(invalidFrom), eq(invalidTo), anyBoolean(), any(), any(), any()))
                 .thenThrow(new IllegalArgumentException("Invalid date range"));
 
         try {
-            reservationController.exportReservationsToCSV(assetId, marketId, invalidFrom, invalidTo, total);
+            reservationController.exportReservationsToCSV(assetId, marketId, invalidFrom, invalidTo, total, null, new ReservationFilter(), null, null);
         } catch (IllegalArgumentException e) {
             assertEquals("Invalid date range", e.getMessage());
         }
@@ -131,7 +232,7 @@ public class ReservationControllerTest {
         assetId = null;
 
         try {
-            reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+            reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
         } catch (IllegalArgumentException e) {
             assertEquals("Asset ID cannot be null", e.getMessage());
         }
@@ -145,7 +246,7 @@ public class ReservationControllerTest {
         marketId = null;
 
         try {
-            reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+            reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
         } catch (IllegalArgumentException e) {
             assertEquals("Market ID cannot be null", e.getMessage());
         }
@@ -158,15 +259,15 @@ public class ReservationControllerTest {
      */
     @Test
     public void testExportReservationsToCSV_EmptyCSVData() throws IOException {
-        when(reservationService.exportReservationsToCSV(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean()))
-                .thenReturn(csvData);
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
 
-        ResponseEntity<String> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
 
         HttpHeaders headers = response.getHeaders();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("attachment; filename=reservations.csv", Objects.requireNonNull(headers.getFirst(HttpHeaders.CONTENT_DISPOSITION)));
-        assertEquals(csvData, response.getBody());
+        assertEquals(csvData, content(response));
     }
 
     /**
@@ -176,15 +277,15 @@ public class ReservationControllerTest {
      */
     @Test
     public void testExportReservationsToCSV_NullCSVData() throws IOException {
-        when(reservationService.exportReservationsToCSV(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean()))
-                .thenReturn(csvData);
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
 
-        ResponseEntity<String> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total);
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
 
         HttpHeaders headers = response.getHeaders();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("attachment; filename=reservations.csv", Objects.requireNonNull(headers.getFirst(HttpHeaders.CONTENT_DISPOSITION)));
-        assertEquals(csvData, response.getBody());
+        assertEquals(csvData, content(response));
     }
 
     /**
@@ -245,4 +346,692 @@ public class ReservationControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNull(response.getBody());
     }
+
+    /**
+     * Tests that a full export advertises byte-range support and carries the ETag of its snapshot.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_AdvertisesRanges() throws IOException {
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("\"stored\"", response.getHeaders().getETag());
+    }
+
+    /**
+     * Tests that the admission permit is released once the export is complete.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_ReleasesPermit() throws IOException {
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        verify(exportPermit).close();
+    }
+
+    /**
+     * Tests that an export that is not admitted is rejected with 429 and a Retry-After header, without exporting.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_NotAdmitted_TooManyRequests() throws Exception {
+        when(exportAdmission.acquire(any(ExportPlan.class)))
+                .thenThrow(new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30)));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a medium export is streamed while it is read and releases its permit once produced.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Streaming_WritesWhileReading() throws Exception {
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 100_000));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(8).write(csvData.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reservationService).writeReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingResponseBody) Objects.requireNonNull(response.getBody())).writeTo(outputStream);
+        assertEquals(csvData, outputStream.toString(StandardCharsets.UTF_8));
+        verify(exportPermit, timeout(5000)).close();
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a streamed export without any content is answered with 404 before the response is committed, like
+     * an export produced in memory, and releases its permit.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Streaming_NoContent_NotFound() throws Exception {
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 100_000));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(exportPermit, timeout(5000)).close();
+    }
+
+    /**
+     * Tests that a streamed export leaves its shared export when the request completes before the response body
+     * runs, so that the producer is cancelled and its permit released.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Streaming_RequestEndsBeforeBody_Unsubscribes() throws Exception {
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 100_000));
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(8);
+            for (int i = 0; i < 500; i++) {
+                outputStream.write(csvData.getBytes(StandardCharsets.UTF_8));
+                outputStream.flush();
+                Thread.sleep(10);
+            }
+            return null;
+        }).when(reservationService).writeReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+        completeAsyncRequest();
+
+        verify(exportPermit, timeout(5000)).close();
+        StreamingResponseBody body = (StreamingResponseBody) Objects.requireNonNull(response.getBody());
+        assertThrows(IOException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Tests that a large export is spooled to disk and served from the spool file with its ETag.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Spool_ServesSpooledFile() throws IOException {
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.SPOOL, 1_000_000));
+        SpooledExport spooled = snapshot("\"spooled\"", csvData);
+        when(exportSpool.spool(any(ExportKey.class), any(ExportSpool.ContentWriter.class))).thenReturn(spooled);
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"spooled\"", response.getHeaders().getETag());
+        assertSame(spooled.resource(), response.getBody());
+        verify(exportPermit).close();
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a range request is answered with the spooled snapshot without exporting again.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_Spooled_ServesSnapshot() throws IOException {
+        SpooledExport spooled = snapshot("\"spooled\"", csvData);
+        when(exportSpool.find(any(ExportKey.class))).thenReturn(Optional.of(spooled));
+
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), "\"spooled\"", null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"spooled\"", response.getHeaders().getETag());
+        assertSame(spooled.resource(), response.getBody());
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a spooled file replaced in the spool while it is being sent stays readable until the request is
+     * complete, and is closed afterwards.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_SpooledFileReplaced_ReadableUntilRequestCompleted() throws IOException {
+        ExportSpoolProperties properties = spoolProperties();
+        properties.setMinBytes(0);
+        ExportSpool spool = new ExportSpool(properties);
+        ExportKey key = new ExportKey(assetId, marketId, from.toLocalDateTime(), to.toLocalDateTime(), total, ReservationProjection.DETAILED,
+                new ReservationFilter(), CsvReservationFormat.TEXT_CSV);
+        SpooledExport spooled = spool.store(key, csvData.getBytes(StandardCharsets.UTF_8));
+        when(exportSpool.find(any(ExportKey.class))).thenReturn(spool.find(key));
+
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null, null);
+        spool.store(key, "new,data".getBytes(StandardCharsets.UTF_8));
+
+        Resource body = (Resource) response.getBody();
+        assertNotNull(body);
+        assertEquals(spooled.eTag(), response.getHeaders().getETag());
+        assertEquals(csvData, body.getContentAsString(StandardCharsets.UTF_8));
+
+        request.requestCompleted();
+
+        assertFalse(body.exists());
+        assertEquals("new,data", spool.find(key).orElseThrow().resource().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that a range request without a snapshot exports again and is answered with the new snapshot.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_NotSpooled_ExportsAgain() throws IOException {
+        when(exportSpool.find(any(ExportKey.class))).thenReturn(Optional.empty());
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"stored\"", response.getHeaders().getETag());
+        Resource body = (Resource) response.getBody();
+        assertNotNull(body);
+        assertEquals(csvData, body.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that the complete export is returned when the client holds a different version than the current one.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_IfRangeMismatch_FullContent() throws IOException {
+        when(exportSpool.find(any(ExportKey.class))).thenReturn(Optional.of(snapshot("\"spooled\"", "old,data")));
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), "\"outdated\"", null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"stored\"", response.getHeaders().getETag());
+        assertEquals(csvData.length(), response.getHeaders().getContentLength());
+        InputStreamResource body = (InputStreamResource) response.getBody();
+        assertNotNull(body);
+        assertEquals(csvData, new String(body.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that an export with a pre-generated snapshot is sent compressed to a client accepting gzip, without
+     * exporting.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Snapshot_ServedCompressed() throws IOException {
+        ExportSnapshot snapshot = exportSnapshot();
+        when(exportSnapshotStore.find(any(ExportKey.class))).thenReturn(Optional.of(snapshot));
+        when(exportSnapshotStore.compressed(snapshot)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), "gzip, deflate, br", null);
+
+        HttpHeaders headers = response.getHeaders();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"compressed\"", headers.getETag());
+        assertEquals(3, headers.getContentLength());
+        InputStreamResource body = (InputStreamResource) response.getBody();
+        assertNotNull(body);
+        assertEquals(3, body.getInputStream().readAllBytes().length);
+        verify(exportPlanner, never()).plan(any());
+        verify(reservationService, never()).writeReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export with a pre-generated snapshot is decompressed for a client refusing gzip and carries the
+     * ETag of the uncompressed content.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_SnapshotGzipRefused_ServedDecompressed() throws IOException {
+        ExportSnapshot snapshot = exportSnapshot();
+        when(exportSnapshotStore.find(any(ExportKey.class))).thenReturn(Optional.of(snapshot));
+        when(exportSnapshotStore.open(snapshot)).thenReturn(new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8)));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), "gzip;q=0, identity", null);
+
+        HttpHeaders headers = response.getHeaders();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"content\"", headers.getETag());
+        assertEquals(csvData.length(), headers.getContentLength());
+        InputStreamResource body = (InputStreamResource) response.getBody();
+        assertNotNull(body);
+        assertEquals(csvData, new String(body.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        verify(exportPlanner, never()).plan(any());
+    }
+
+    /**
+     * Tests that a range request of a client accepting gzip is answered from the compressed snapshot.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_Snapshot_ServesCompressedRanges() throws IOException {
+        ExportSnapshot snapshot = exportSnapshot();
+        Resource compressed = new ByteArrayResource(new byte[]{1, 2, 3});
+        when(exportSnapshotStore.find(any(ExportKey.class))).thenReturn(Optional.of(snapshot));
+        when(exportSnapshotStore.compressed(snapshot)).thenReturn(compressed);
+
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), "\"compressed\"", "gzip", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"compressed\"", response.getHeaders().getETag());
+        assertSame(compressed, response.getBody());
+        verify(exportSpool, never()).find(any());
+    }
+
+    /**
+     * Tests that a range request is rejected when the date range is invalid.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationRangeToCSV_InvalidDateRange() throws IOException {
+        ResponseEntity<?> response = reservationController.exportReservationRangeToCSV(assetId, marketId, to, from, total, null, new ReservationFilter(), null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(exportSpool, never()).find(any());
+    }
+
+    /**
+     * Tests that a streamed export that is not admitted is rejected with 429 before the response is started.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_StreamingNotAdmitted_TooManyRequests() throws Exception {
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 100_000));
+        when(exportAdmission.acquire(any(ExportPlan.class)))
+                .thenThrow(new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30)));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        verify(reservationService, never()).writeReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+    }
+
+    /**
+     * Tests that a multi-window export is streamed with the windows in time order and releases its permit once
+     * produced.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationWindows_Streams() throws Exception {
+        when(exportPlanner.planWindows(any(), any(), any(), any())).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 96));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(7).write(csvData.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reservationService).writeWindowReservations(any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+
+        ResponseEntity<?> response = reservationController.exportReservationWindows(assetId, marketId,
+                "2024-03-08T00:00:00Z/2024-03-09T00:00:00Z,2024-03-01T00:00:00Z/2024-03-02T00:00:00Z", null, null, null, null,
+                total, null, new ReservationFilter(), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(CsvReservationFormat.TEXT_CSV, response.getHeaders().getContentType());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingResponseBody) Objects.requireNonNull(response.getBody())).writeTo(outputStream);
+        assertEquals(csvData, outputStream.toString(StandardCharsets.UTF_8));
+        verify(reservationService).writeWindowReservations(eq(assetId), eq(marketId),
+                argThat((TimeWindows windows) -> windows.windows().size() == 2 && windows.from().isBefore(windows.to())),
+                eq(false), any(), any(), any(), any(OutputStream.class));
+        verify(exportPermit, timeout(5000)).close();
+    }
+
+    /**
+     * Tests that the permit of a multi-window export is released when the request completes before the response
+     * body runs.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationWindows_RequestEndsBeforeBody_ReleasesPermit() throws Exception {
+        when(exportPlanner.planWindows(any(), any(), any(), any())).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 96));
+
+        reservationController.exportReservationWindows(assetId, marketId, "2024-03-01T00:00:00Z/2024-03-02T00:00:00Z", null, null, null, null,
+                total, null, new ReservationFilter(), null);
+        completeAsyncRequest();
+
+        verify(exportPermit).close();
+        verify(reservationService, never()).writeWindowReservations(any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+    }
+
+    /**
+     * Tests that recurring windows are created on the days of the week asked for.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationWindows_Daily_WindowsOnGivenDays() throws Exception {
+        ZonedDateTime monday = ZonedDateTime.parse("2024-07-01T00:00:00Z");
+        when(exportPlanner.planWindows(any(), any(), any(), any())).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 96));
+
+        ResponseEntity<?> response = reservationController.exportReservationWindows(assetId, marketId, null, monday, monday.plusWeeks(1),
+                "08:00/20:00", List.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), total, null, new ReservationFilter(), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(exportPlanner).planWindows(eq(assetId), eq(marketId), argThat((TimeWindows windows) -> windows.windows().size() == 2), any());
+    }
+
+    /**
+     * Tests that a multi-window export without windows, or with malformed times of day, is rejected before it is
+     * admitted.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationWindows_InvalidWindows_BadRequest() throws Exception {
+        ResponseEntity<?> missing = reservationController.exportReservationWindows(assetId, marketId, null, from, to, null, null,
+                total, null, new ReservationFilter(), null);
+        ResponseEntity<?> malformed = reservationController.exportReservationWindows(assetId, marketId, null, from, to, "8/20", null,
+                total, null, new ReservationFilter(), null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, malformed.getStatusCode());
+        verify(exportAdmission, never()).acquire(any(ExportPlan.class));
+    }
+
+    /**
+     * Tests that a multi-window export that is not admitted is rejected with a Retry-After header.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportReservationWindows_NotAdmitted_TooManyRequests() throws Exception {
+        when(exportPlanner.planWindows(any(), any(), any(), any())).thenReturn(new ExportPlan(ExportStrategy.STREAMING, 96));
+        when(exportAdmission.acquire(any(ExportPlan.class)))
+                .thenThrow(new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30)));
+
+        ResponseEntity<?> response = reservationController.exportReservationWindows(assetId, marketId,
+                "2024-03-01T00:00:00Z/2024-03-02T00:00:00Z", null, null, null, null, total, null, new ReservationFilter(), null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(reservationService, never()).writeWindowReservations(any(), any(), any(), anyBoolean(), any(), any(), any(), any(OutputStream.class));
+    }
+
+    /**
+     * Tests that the totals of an asset are exported across all of its markets.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportAssetTotalsToCSV_Success() throws IOException {
+        when(reservationService.exportTotalsToCSV(Set.of(assetId), null, from, to)).thenReturn(csvData);
+
+        ResponseEntity<String> response = reservationController.exportAssetTotalsToCSV(assetId, from, to);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=totals.csv", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(csvData, response.getBody());
+    }
+
+    /**
+     * Tests that the totals of a portfolio are exported for its distinct assets and the given market, under a permit
+     * weighted by the planner estimate.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportPortfolioTotalsToCSV_Success() throws Exception {
+        UUID otherAssetId = UUID.randomUUID();
+        when(reservationService.exportTotalsToCSV(Set.of(assetId, otherAssetId), marketId, from, to)).thenReturn(csvData);
+
+        ResponseEntity<String> response = reservationController.exportPortfolioTotalsToCSV(List.of(assetId, otherAssetId, assetId), marketId, from, to);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(csvData, response.getBody());
+        verify(exportPlanner).planTotals(Set.of(assetId, otherAssetId), marketId, from.toLocalDateTime(), to.toLocalDateTime());
+        verify(exportAdmission).acquire(new ExportPlan(ExportStrategy.IN_MEMORY, 192));
+        verify(exportPermit).close();
+    }
+
+    /**
+     * Tests that totals that are not admitted are rejected with 429 and a Retry-After header, without summing them.
+     *
+     * @throws Exception if an error occurs during export
+     */
+    @Test
+    public void testExportAssetTotalsToCSV_NotAdmitted_TooManyRequests() throws Exception {
+        when(exportAdmission.acquire(any(ExportPlan.class)))
+                .thenThrow(new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30)));
+
+        ResponseEntity<String> response = reservationController.exportAssetTotalsToCSV(assetId, from, to);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(reservationService, never()).exportTotalsToCSV(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a portfolio without assets is rejected.
+     */
+    @Test
+    public void testExportPortfolioTotalsToCSV_NoAssets_BadRequest() {
+        ResponseEntity<String> response = reservationController.exportPortfolioTotalsToCSV(List.of(), null, from, to);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    /**
+     * Tests that totals without reservations are answered with 404.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportAssetTotalsToCSV_NoData_NotFound() throws IOException {
+        when(reservationService.exportTotalsToCSV(any(), any(), any(), any())).thenReturn("");
+
+        ResponseEntity<String> response = reservationController.exportAssetTotalsToCSV(assetId, from, to);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    /**
+     * Tests that the selected fields of an export are passed to the service and become part of the export key.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_Fields_PassedToService() throws IOException {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue,negativeValue", false);
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), eq(projection), any(), any()))
+                .thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, "timestamp,positiveValue,negativeValue", new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(csvData, content(response));
+        verify(exportSpool).store(eq(new ExportKey(assetId, marketId, from.toLocalDateTime(), to.toLocalDateTime(), total, projection, new ReservationFilter(),
+                CsvReservationFormat.TEXT_CSV)), aryEq(csvData.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests that an export naming an unknown field is rejected without reading any reservation.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_UnknownField_BadRequest() throws IOException {
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, "timestamp,price", new ReservationFilter(), null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export with an inverted filter range is rejected without reading any reservation.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_InvalidFilter_BadRequest() throws IOException {
+        ReservationFilter filter = new ReservationFilter();
+        filter.setMinPositiveEnergyPrice(200.0);
+        filter.setMaxPositiveEnergyPrice(100.0);
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, filter, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(exportPlanner, never()).plan(any());
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export accepting tab-separated values is exported and spooled in that format, named after its
+     * extension.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_AcceptTsv_TsvAttachment() throws IOException {
+        when(reservationService.exportReservations(any(UUID.class), any(UUID.class), any(ZonedDateTime.class), any(ZonedDateTime.class), anyBoolean(), any(), any(),
+                any(TsvReservationFormat.class))).thenReturn(csvData.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null,
+                "text/tab-separated-values, text/csv;q=0.5");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=reservations.tsv", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(TsvReservationFormat.TEXT_TAB_SEPARATED_VALUES, response.getHeaders().getContentType());
+        assertEquals(HttpHeaders.ACCEPT, response.getHeaders().getFirst(HttpHeaders.VARY));
+        verify(exportSpool).store(eq(new ExportKey(assetId, marketId, from.toLocalDateTime(), to.toLocalDateTime(), total, ReservationProjection.DETAILED,
+                new ReservationFilter(), TsvReservationFormat.TEXT_TAB_SEPARATED_VALUES)), any(byte[].class));
+    }
+
+    /**
+     * Tests that an export accepting none of the export formats is rejected without reading any reservation.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    public void testExportReservationsToCSV_NoAcceptableFormat_NotAcceptable() throws IOException {
+        ResponseEntity<?> response = reservationController.exportReservationsToCSV(assetId, marketId, from, to, total, null, new ReservationFilter(), null,
+                "application/pdf");
+
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, response.getStatusCode());
+        verify(exportPlanner, never()).plan(any());
+        verify(reservationService, never()).exportReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that the JSON endpoint returns only the selected fields of each reservation, in the selected order.
+     */
+    @Test
+    void testGetReservationFields_Success() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, 0, null, null, 1.5, 10, 20, 2.5, 30, 40, 0);
+        when(reservationService.getReservationSeries(assetId, marketId, ReservationProjection.parse("negativeValue,positiveValue", false)))
+                .thenReturn(series);
+
+        ResponseEntity<List<Map<String, Object>>> response = reservationController.getReservationFields(assetId, marketId, "negativeValue,positiveValue");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(List.of(Map.of("negativeValue", 2.5, "positiveValue", 1.5)), response.getBody());
+        assertEquals(List.of("negativeValue", "positiveValue"), List.copyOf(response.getBody().get(0).keySet()));
+    }
+
+    /**
+     * Tests that the JSON endpoint rejects unknown fields.
+     */
+    @Test
+    void testGetReservationFields_UnknownField_BadRequest() {
+        ResponseEntity<List<Map<String, Object>>> response = reservationController.getReservationFields(assetId, marketId, "price");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(reservationService, never()).getReservationSeries(any(), any(), any());
+    }
+
+    /**
+     * Tests that the statistics endpoint returns the statistics of each field computed by the service.
+     */
+    @Test
+    void testGetStatistics_Success() {
+        Map<String, ColumnStatistics> statistics = Map.of("positiveValue", new ColumnStatistics(2, 1.0, 3.0, 2.0));
+        when(reservationService.getStatistics(assetId, marketId, from, to, false)).thenReturn(statistics);
+
+        ResponseEntity<Map<String, ColumnStatistics>> response = reservationController.getStatistics(assetId, marketId, from, to, false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(statistics, response.getBody());
+    }
+
+    /**
+     * Tests that the statistics endpoint answers with 404 if no reservation is in the range.
+     */
+    @Test
+    void testGetStatistics_NoData_NotFound() {
+        when(reservationService.getStatistics(assetId, marketId, from, to, true))
+                .thenReturn(Map.of("positiveValue", ColumnStatistics.EMPTY, "negativeValue", ColumnStatistics.EMPTY));
+
+        ResponseEntity<Map<String, ColumnStatistics>> response = reservationController.getStatistics(assetId, marketId, from, to, true);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    /**
+     * Tests that the statistics endpoint rejects a range whose start is after its end.
+     */
+    @Test
+    void testGetStatistics_InvalidDateRange_BadRequest() {
+        ResponseEntity<Map<String, ColumnStatistics>> response = reservationController.getStatistics(assetId, marketId, to, from, false);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(reservationService, never()).getStatistics(any(), any(), any(), any(), anyBoolean());
+    }
+
+    /**
+     * Completes the asynchronous processing of the current request, as the container does when the response is
+     * complete, the request times out or the client disconnects.
+     */
+    private void completeAsyncRequest() throws Exception {
+        WebAsyncUtils.getAsyncManager(request.getRequest())
+                .getCallableInterceptor(ReservationController.class.getName() + ".streamedExport")
+                .afterCompletion(request, () -> null);
+    }
+
+    private static ExportSpoolProperties spoolProperties() {
+        ExportSpoolProperties properties = new ExportSpoolProperties();
+        properties.setDirectory(spoolDirectory);
+        return properties;
+    }
+
+    private static SpooledExport snapshot(String eTag, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new SpooledExport(eTag, bytes.length, new ByteArrayResource(bytes));
+    }
+
+    private static String content(ResponseEntity<?> response) {
+        return new String((byte[]) Objects.requireNonNull(response.getBody()), StandardCharsets.UTF_8);
+    }
+
+    private ExportSnapshot exportSnapshot() {
+        return new ExportSnapshot(assetId, marketId, LocalDate.of(2024, 7, 1), total, LocalDateTime.of(2024, 7, 2, 0, 0), 96,
+                "snapshot.csv.gz", "\"content\"", csvData.length(), "\"compressed\"", 3);
+    }
 }
@@ -0,0 +1,184 @@
+package com.reservation.csvHandler;
+
+import com.reservation.model.ReservationSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link ExportEncodingContext}.
+ * Verifies that cached encodings are identical to the plain {@code toString()} representations they replace.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportEncodingContextTest {
+
+    private ExportEncodingContext context;
+
+    @BeforeEach
+    public void setUp() {
+        context = new ExportEncodingContext();
+    }
+
+    /**
+     * Tests encoding of consecutive quarter-hour timestamps across a day boundary.
+     */
+    @Test
+    public void testEncodeTimestamp_QuarterHours_Success() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 7, 31, 22, 0);
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals(timestamp.atZone(ZoneOffset.UTC).toString(), context.encodeTimestamp(timestamp));
+            timestamp = timestamp.plusMinutes(15);
+        }
+    }
+
+    /**
+     * Tests encoding of timestamps that are not aligned to a quarter hour.
+     */
+    @Test
+    public void testEncodeTimestamp_UnalignedTimestamps_Success() {
+        LocalDateTime[] timestamps = {
+                LocalDateTime.of(2024, 7, 31, 12, 7),
+                LocalDateTime.of(2024, 7, 31, 12, 15, 30),
+                LocalDateTime.of(2024, 7, 31, 12, 30, 0, 794363000),
+                LocalDateTime.of(2024, 7, 31, 12, 45, 0, 1)
+        };
+
+        for (LocalDateTime timestamp : timestamps) {
+            assertEquals(timestamp.atZone(ZoneOffset.UTC).toString(), context.encodeTimestamp(timestamp));
+        }
+    }
+
+    /**
+     * Tests that a repeated timestamp returns the previously encoded value.
+     */
+    @Test
+    public void testEncodeTimestamp_RepeatedTimestamp_ReturnsCachedValue() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+
+        String first = context.encodeTimestamp(timestamp);
+        String second = context.encodeTimestamp(LocalDateTime.of(2024, 7, 31, 12, 0));
+
+        assertSame(first, second);
+    }
+
+    /**
+     * Tests that interleaved update times do not affect the encoding of time points.
+     */
+    @Test
+    public void testEncodeUpdatedAt_Interleaved_Success() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 7, 30, 11, 42, 12, 794363000);
+
+        String first = context.encodeTimestamp(timestamp);
+        assertEquals(updatedAt.atZone(ZoneOffset.UTC).toString(), context.encodeUpdatedAt(updatedAt));
+        String second = context.encodeTimestamp(timestamp);
+
+        assertSame(first, second);
+    }
+
+    /**
+     * Tests that asset and market IDs passed to the constructor are encoded up front and reused.
+     */
+    @Test
+    public void testEncodeUuid_PreEncodedIds_Success() {
+        UUID assetId = UUID.randomUUID();
+        UUID marketId = UUID.randomUUID();
+        context = new ExportEncodingContext(assetId, marketId);
+
+        assertEquals(assetId.toString(), context.encodeUuid(assetId));
+        assertSame(context.encodeUuid(assetId), context.encodeUuid(assetId));
+        assertSame(context.encodeUuid(marketId), context.encodeUuid(marketId));
+    }
+
+    /**
+     * Tests that the UUID cache keeps producing correct values after it has been cleared.
+     */
+    @Test
+    public void testEncodeUuid_CacheOverflow_Success() {
+        UUID first = UUID.randomUUID();
+        String encodedFirst = context.encodeUuid(first);
+
+        for (int i = 0; i < ExportEncodingContext.MAX_CACHED_UUIDS; i++) {
+            context.encodeUuid(UUID.randomUUID());
+        }
+
+        String encodedAgain = context.encodeUuid(first);
+        assertEquals(encodedFirst, encodedAgain);
+        assertNotSame(encodedFirst, encodedAgain);
+    }
+
+    /**
+     * Tests that bid IDs are encoded directly instead of being cached, and that a missing bid ID stays empty.
+     */
+    @Test
+    public void testEncodeBidId_NotCached_Success() {
+        UUID bidId = UUID.randomUUID();
+
+        String first = context.encodeBidId(bidId);
+        String second = context.encodeBidId(bidId);
+
+        assertEquals(bidId.toString(), first);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertNull(context.encodeBidId(null));
+    }
+
+    /**
+     * Tests that epoch-microsecond time points encode exactly like the date-times they represent.
+     */
+    @Test
+    public void testEncodeTimestamp_EpochMicros_Success() {
+        LocalDateTime[] timestamps = {
+                LocalDateTime.of(2024, 7, 31, 23, 45),
+                LocalDateTime.of(2024, 8, 1, 0, 0),
+                LocalDateTime.of(2024, 8, 1, 0, 7, 30),
+                LocalDateTime.of(2024, 8, 1, 0, 15, 0, 794363000),
+                LocalDateTime.of(1969, 12, 31, 23, 45)
+        };
+
+        for (LocalDateTime timestamp : timestamps) {
+            String expected = timestamp.atZone(ZoneOffset.UTC).toString();
+            assertEquals(expected, context.encodeTimestamp(ReservationSeries.toEpochMicros(timestamp)));
+            assertEquals(expected, context.encodeUpdatedAt(ReservationSeries.toEpochMicros(timestamp)));
+        }
+    }
+
+    /**
+     * Tests that values in milli-kW are written as MW with trailing zeros dropped and at least one decimal place.
+     */
+    @Test
+    public void testEncodeMilliKw_Values_Success() {
+        assertEquals("0.0", context.encodeMilliKw(0));
+        assertEquals("1.0", context.encodeMilliKw(1_000_000));
+        assertEquals("1.5", context.encodeMilliKw(1_500_000));
+        assertEquals("0.000001", context.encodeMilliKw(1));
+        assertEquals("-0.5", context.encodeMilliKw(-500_000));
+        assertEquals("-1234.56789", context.encodeMilliKw(-1_234_567_890));
+        assertEquals("-9223372036854.775808", context.encodeMilliKw(Long.MIN_VALUE));
+    }
+
+    /**
+     * Tests that values are divided in floating point by default and written from milli-kW in fixed-point mode.
+     */
+    @Test
+    public void testEncodeValue_FixedPoint_NoFloatingPointArtifacts() {
+        ExportEncodingContext fixedPointContext = new ExportEncodingContext(null, null, true);
+
+        assertEquals(String.valueOf(1.5 / 1000), context.encodeValue(1.5));
+        assertEquals(String.valueOf(0.1 / 1000), context.encodeValue(0.1));
+        assertEquals("0.0015", fixedPointContext.encodeValue(1.5));
+        assertEquals("0.0001", fixedPointContext.encodeValue(0.1));
+        assertEquals("12.0", fixedPointContext.encodeValue(12_000));
+        assertEquals("-0.000001", fixedPointContext.encodeValue(-0.001));
+    }
+}
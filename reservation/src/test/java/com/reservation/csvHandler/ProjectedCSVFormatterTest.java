@@ -0,0 +1,98 @@
+package com.reservation.csvHandler;
+
+import com.opencsv.CSVWriter;
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link ProjectedCSVFormatter}.
+ * Tests that only the selected fields are written, in the selected order, and encoded like the detailed export.
+ *
+ * @author Bojana Samardzic
+ */
+public class ProjectedCSVFormatterTest {
+
+    private CSVWriter csvWriter;
+    private Reservation reservation;
+
+    @BeforeEach
+    public void setUp() {
+        csvWriter = mock(CSVWriter.class);
+
+        reservation = new Reservation();
+        reservation.setId(1L);
+        reservation.setTimestamp(LocalDateTime.of(2024, 7, 1, 12, 15));
+        reservation.setAssetId(UUID.randomUUID());
+        reservation.setMarketId(UUID.randomUUID());
+        reservation.setPositiveBidId(UUID.randomUUID());
+        reservation.setNegativeBidId(UUID.randomUUID());
+        reservation.setPositiveValue(5000);
+        reservation.setPositiveCapacityPrice(10.5);
+        reservation.setPositiveEnergyPrice(20.5);
+        reservation.setNegativeValue(3000);
+        reservation.setNegativeCapacityPrice(5.5);
+        reservation.setNegativeEnergyPrice(15.5);
+        reservation.setUpdatedAt(LocalDateTime.of(2024, 6, 30, 8, 0));
+    }
+
+    /**
+     * Tests that the header names the selected fields in the selected order.
+     */
+    @Test
+    public void testWriteHeader_SelectedFields_InRequestedOrder() {
+        ProjectedCSVFormatter formatter = new ProjectedCSVFormatter(ReservationProjection.parse("negativeValue,timestamp", false));
+
+        formatter.writeHeader(csvWriter);
+
+        ArgumentCaptor<String[]> headerCaptor = ArgumentCaptor.forClass(String[].class);
+        verify(csvWriter, times(1)).writeNext(headerCaptor.capture());
+        assertArrayEquals(new String[]{"negativeValue", "timestamp"}, headerCaptor.getValue());
+    }
+
+    /**
+     * Tests that a row of a series holds only the selected fields, converted to MW and encoded like the detailed export.
+     */
+    @Test
+    public void testWriteRow_Series_SelectedFieldsOnly() {
+        ProjectedCSVFormatter formatter = new ProjectedCSVFormatter(
+                ReservationProjection.parse("timestamp,positiveValue,negativeValue,marketId,positiveEnergyPrice", false));
+        ReservationSeries series = ReservationSeries.of(reservation.getAssetId(), reservation.getMarketId(), List.of(reservation));
+
+        formatter.writeRow(csvWriter, series, 0, new ExportEncodingContext());
+
+        ArgumentCaptor<String[]> rowCaptor = ArgumentCaptor.forClass(String[].class);
+        verify(csvWriter, times(1)).writeNext(rowCaptor.capture());
+        assertArrayEquals(new String[]{"2024-07-01T12:15Z", "5.0", "3.0", reservation.getMarketId().toString(), "20.5"}, rowCaptor.getValue());
+    }
+
+    /**
+     * Tests that a projection of all fields writes the same row as the detailed formatter.
+     */
+    @Test
+    public void testWriteRow_AllFields_SameAsDetailed() {
+        ProjectedCSVFormatter formatter = new ProjectedCSVFormatter(ReservationProjection.DETAILED);
+        CSVWriter detailedWriter = mock(CSVWriter.class);
+
+        formatter.writeRow(csvWriter, reservation, new ExportEncodingContext());
+        new DetailedCSVFormatter().writeRow(detailedWriter, reservation, new ExportEncodingContext());
+
+        ArgumentCaptor<String[]> rowCaptor = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> detailedCaptor = ArgumentCaptor.forClass(String[].class);
+        verify(csvWriter).writeNext(rowCaptor.capture());
+        verify(detailedWriter).writeNext(detailedCaptor.capture());
+        assertArrayEquals(detailedCaptor.getValue(), rowCaptor.getValue());
+    }
+}
@@ -0,0 +1,166 @@
+package com.reservation.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ExportDiagnostics}.
+ * Tests that only queries above the threshold are recorded, that the most recent ones are kept newest first, and that
+ * the logged SQL has its bind parameters inlined.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportDiagnosticsTest {
+
+    private static final String SQL = "SELECT id, timestamp\nFROM reservation\nWHERE asset_id = ? AND market_id = ? AND timestamp BETWEEN ? AND ?\n";
+
+    private ExportDiagnosticsProperties properties;
+    private DataSource dataSource;
+    private SimpleMeterRegistry meterRegistry;
+    private ExportDiagnostics diagnostics;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ExportDiagnosticsProperties();
+        properties.setThreshold(Duration.ofSeconds(1));
+        properties.setCapacity(2);
+        properties.setExplainSampleRate(0);
+        dataSource = mock(DataSource.class);
+        meterRegistry = new SimpleMeterRegistry();
+        diagnostics = new ExportDiagnostics(properties, dataSource, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        diagnostics.shutdown();
+    }
+
+    /**
+     * Tests that a query above the threshold is recorded with its row count and timings, and one below it is not.
+     */
+    @Test
+    public void testRecordsQueriesAboveThreshold() {
+        diagnostics.record("findSeries", SQL, arguments(), 10, Duration.ofMillis(100).toNanos(), Duration.ofMillis(999).toNanos(), Duration.ofMillis(999).toNanos());
+        diagnostics.record("streamSeries", SQL, arguments(), 96_000, Duration.ofMillis(1500).toNanos(), Duration.ofSeconds(3).toNanos(), Duration.ofSeconds(4).toNanos());
+
+        List<QueryDiagnostic> recent = diagnostics.recent();
+        assertEquals(1, recent.size());
+        QueryDiagnostic diagnostic = recent.get(0);
+        assertEquals("streamSeries", diagnostic.operation());
+        assertEquals(96_000, diagnostic.rows());
+        assertEquals(Duration.ofMillis(1500), diagnostic.firstRowTime());
+        assertEquals(Duration.ofSeconds(3), diagnostic.databaseTime());
+        assertEquals(Duration.ofSeconds(4), diagnostic.totalTime());
+        assertTrue(diagnostic.plan().isEmpty());
+        assertEquals(1, meterRegistry.counter("reservation.export.slow-queries").count());
+    }
+
+    /**
+     * Tests that only the most recent queries up to the capacity are kept, newest first.
+     */
+    @Test
+    public void testKeepsMostRecentQueries() {
+        for (int rows = 1; rows <= 3; rows++) {
+            diagnostics.record("findSeries", SQL, arguments(), rows, 0, Duration.ofSeconds(2).toNanos(), Duration.ofSeconds(2).toNanos());
+        }
+
+        List<QueryDiagnostic> recent = diagnostics.recent();
+        assertEquals(List.of(3L, 2L), recent.stream().map(QueryDiagnostic::rows).toList());
+    }
+
+    /**
+     * Tests that a query held up by a slow client is not recorded: the time its consumer spent on the rows does not
+     * count towards the threshold, though it is part of the total time.
+     */
+    @Test
+    public void testSlowConsumerIsNotSlowQuery() throws InterruptedException {
+        properties.setThreshold(Duration.ofMillis(200));
+        diagnostics.record("streamSeries", SQL, arguments(), 96_000, 0, Duration.ofMillis(10).toNanos(), Duration.ofMinutes(1).toNanos());
+
+        QueryTimer timer = diagnostics.start("streamSeries", UUID.randomUUID(), UUID.randomUUID(), SQL, arguments());
+        timer.rows(1);
+        timer.pause();
+        Thread.sleep(300);
+        timer.resume();
+        timer.requested(1);
+        timer.delivered();
+        Thread.sleep(300);
+        timer.finish();
+
+        assertTrue(diagnostics.recent().isEmpty());
+        assertEquals(0, meterRegistry.counter("reservation.export.slow-queries").count());
+    }
+
+    /**
+     * Tests that nothing is recorded when the diagnostics are disabled.
+     */
+    @Test
+    public void testDisabled() {
+        properties.setEnabled(false);
+
+        diagnostics.record("findSeries", SQL, arguments(), 1, 0, Duration.ofMinutes(1).toNanos(), Duration.ofMinutes(1).toNanos());
+
+        assertTrue(diagnostics.recent().isEmpty());
+    }
+
+    /**
+     * Tests that a sampled query whose plan cannot be captured is still recorded, without a plan.
+     */
+    @Test
+    public void testRecordsQueryWhosePlanFails() throws SQLException {
+        properties.setExplainSampleRate(1);
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        diagnostics.record("findTotals", SQL, arguments(), 1, 0, Duration.ofSeconds(2).toNanos(), Duration.ofSeconds(2).toNanos());
+
+        verify(dataSource, timeout(5000)).getConnection();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (diagnostics.recent().isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, diagnostics.recent().size());
+        assertTrue(diagnostics.recent().get(0).plan().isEmpty());
+        assertEquals(0, meterRegistry.counter("reservation.export.captured-plans").count());
+    }
+
+    /**
+     * Tests that bind parameters are inlined as SQL literals, with time points at the offset the driver binds them in.
+     */
+    @Test
+    public void testBindInlinesLiterals() {
+        UUID assetId = UUID.fromString("01e3b2aa-4f2a-3bf5-9c8a-3256af87370c");
+        UUID marketId = UUID.fromString("44657132-fee0-3b06-9913-511b3b3d1872");
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        String offset = from.atZone(ZoneId.systemDefault()).getOffset().toString();
+
+        String bound = ExportDiagnostics.bind("SELECT 1 FROM reservation WHERE asset_id = ANY (?) AND market_id = ? AND timestamp >= ? "
+                + "AND positive_value >= ? AND note = ? AND negative_bid_id IS ?", new Object[]{
+                new UUID[]{assetId, marketId}, marketId, Timestamp.valueOf(from), 1.5, "it's", null});
+
+        assertEquals("SELECT 1 FROM reservation WHERE asset_id = ANY ('{" + assetId + "," + marketId + "}') AND market_id = '" + marketId
+                + "' AND timestamp >= '2024-01-01T00:00" + offset + "' AND positive_value >= 1.5 AND note = 'it''s' AND negative_bid_id IS NULL", bound);
+    }
+
+    private static Object[] arguments() {
+        return new Object[]{UUID.randomUUID(), UUID.randomUUID(), Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0)),
+                Timestamp.valueOf(LocalDateTime.of(2024, 2, 1, 0, 0))};
+    }
+}
@@ -0,0 +1,167 @@
+package com.reservation.export;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ExportAdmission}.
+ * Tests the row budget, the concurrency limit, queueing, rejections and the published metrics.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportAdmissionTest {
+
+    private ExportAdmissionProperties properties;
+    private MeterRegistry meterRegistry;
+    private ExportPlan plan;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ExportAdmissionProperties();
+        properties.setMaxInFlightRows(1000);
+        properties.setMaxQueueDepth(4);
+        properties.setQueueTimeout(Duration.ZERO);
+        properties.setRetryAfter(Duration.ofSeconds(30));
+        meterRegistry = new SimpleMeterRegistry();
+        plan = new ExportPlan(ExportStrategy.IN_MEMORY, 600);
+    }
+
+    /**
+     * Tests that an admitted export holds its estimated rows until the permit is closed.
+     */
+    @Test
+    public void testAcquire_WithinBudget_HoldsRowsUntilClosed() throws ExportRejectedException {
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+
+        ExportPermit permit = exportAdmission.acquire(plan);
+
+        assertEquals(600, permit.getRows());
+        assertEquals(600, meterRegistry.get("reservation.export.admission.rows.in.flight").gauge().value());
+        permit.close();
+        permit.close();
+        assertEquals(0, meterRegistry.get("reservation.export.admission.rows.in.flight").gauge().value());
+        assertEquals(1, meterRegistry.get("reservation.export.admission.admitted").counter().count());
+    }
+
+    /**
+     * Tests that an export is rejected with the configured retry delay when the budget stays exhausted.
+     */
+    @Test
+    public void testAcquire_BudgetExhausted_Rejected() throws ExportRejectedException {
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+        exportAdmission.acquire(plan);
+
+        ExportRejectedException e = assertThrows(ExportRejectedException.class, () -> exportAdmission.acquire(plan));
+
+        assertEquals(Duration.ofSeconds(30), e.getRetryAfter());
+        assertEquals(1, meterRegistry.get("reservation.export.admission.rejected").tag("reason", "timeout").counter().count());
+        assertEquals(0, exportAdmission.queued());
+    }
+
+    /**
+     * Tests that an export is rejected immediately when the queue is full.
+     */
+    @Test
+    public void testAcquire_QueueFull_Rejected() {
+        properties.setMaxQueueDepth(0);
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+
+        assertThrows(ExportRejectedException.class, () -> exportAdmission.acquire(plan));
+
+        assertEquals(1, meterRegistry.get("reservation.export.admission.rejected").tag("reason", "queue_full").counter().count());
+    }
+
+    /**
+     * Tests that a waiting export is admitted as soon as a running export releases its rows.
+     */
+    @Test
+    public void testAcquire_Queued_AdmittedAfterRelease() throws Exception {
+        properties.setQueueTimeout(Duration.ofSeconds(10));
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+        ExportPermit running = exportAdmission.acquire(plan);
+
+        CompletableFuture<ExportPermit> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return exportAdmission.acquire(plan);
+            } catch (ExportRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (exportAdmission.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, meterRegistry.get("reservation.export.admission.queued").gauge().value());
+        running.close();
+
+        assertEquals(600, waiting.get(5, TimeUnit.SECONDS).getRows());
+        assertEquals(0, exportAdmission.queued());
+    }
+
+    /**
+     * Tests that an export is rejected when all concurrency slots are taken, even though budget is left.
+     */
+    @Test
+    public void testAcquire_ConcurrencyLimitReached_Rejected() throws ExportRejectedException {
+        properties.setMaxConcurrentExports(2);
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+        ExportPlan smallPlan = new ExportPlan(ExportStrategy.IN_MEMORY, 10);
+        ExportPermit first = exportAdmission.acquire(smallPlan);
+        exportAdmission.acquire(smallPlan);
+
+        assertEquals(2, meterRegistry.get("reservation.export.admission.running").gauge().value());
+        assertThrows(ExportRejectedException.class, () -> exportAdmission.acquire(smallPlan));
+
+        first.close();
+        exportAdmission.acquire(smallPlan);
+        assertEquals(2, meterRegistry.get("reservation.export.admission.running").gauge().value());
+        assertEquals(20, meterRegistry.get("reservation.export.admission.rows.in.flight").gauge().value());
+    }
+
+    /**
+     * Tests that an export rejected for lack of budget does not keep its concurrency slot.
+     */
+    @Test
+    public void testAcquire_BudgetExhausted_ReleasesSlot() throws ExportRejectedException {
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+        exportAdmission.acquire(plan);
+
+        assertThrows(ExportRejectedException.class, () -> exportAdmission.acquire(plan));
+
+        assertEquals(1, meterRegistry.get("reservation.export.admission.running").gauge().value());
+    }
+
+    /**
+     * Tests that an export estimated above the budget is admitted alone instead of waiting forever.
+     */
+    @Test
+    public void testAcquire_EstimateAboveBudget_AdmittedAlone() throws ExportRejectedException {
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+
+        ExportPermit permit = exportAdmission.acquire(new ExportPlan(ExportStrategy.SPOOL, 5_000_000));
+
+        assertEquals(1000, permit.getRows());
+    }
+
+    /**
+     * Tests that disabled admission control admits every export without holding budget.
+     */
+    @Test
+    public void testAcquire_Disabled_AdmittedWithoutBudget() throws ExportRejectedException {
+        properties.setEnabled(false);
+        ExportAdmission exportAdmission = new ExportAdmission(properties, meterRegistry);
+
+        ExportPermit permit = exportAdmission.acquire(new ExportPlan(ExportStrategy.SPOOL, 5_000_000));
+
+        assertEquals(0, permit.getRows());
+        assertEquals(0, meterRegistry.get("reservation.export.admission.rows.in.flight").gauge().value());
+    }
+}
@@ -0,0 +1,249 @@
+package com.reservation.export;
+
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ExportCoalescer}.
+ * Tests single-flight exports, the fan-out of streamed exports, slow subscribers and cancellation.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportCoalescerTest {
+
+    @TempDir
+    private Path directory;
+
+    private MeterRegistry meterRegistry;
+    private ExportCoalescer exportCoalescer;
+    private ExportKey key;
+    private Semaphore budget;
+
+    @BeforeEach
+    public void setUp() {
+        ExportSpoolProperties properties = new ExportSpoolProperties();
+        properties.setDirectory(directory);
+        meterRegistry = new SimpleMeterRegistry();
+        exportCoalescer = new ExportCoalescer(properties, meterRegistry);
+        key = new ExportKey(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 8, 1, 0, 0), false, ReservationProjection.DETAILED,
+                new ReservationFilter(), CsvReservationFormat.TEXT_CSV);
+        budget = new Semaphore(0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        exportCoalescer.shutdown();
+    }
+
+    /**
+     * Tests that a request arriving while an identical export is produced waits for and shares its result.
+     */
+    @Test
+    public void testCoalesce_ConcurrentIdenticalExports_ComputedOnce() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> coalesce(() -> {
+            computations.incrementAndGet();
+            computing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "csv,data";
+        }));
+        computing.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> coalesce(() -> {
+            computations.incrementAndGet();
+            return "other";
+        }));
+        while (meterRegistry.get("reservation.export.coalesced").tag("mode", "materialized").counter().count() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("csv,data", first.get(5, TimeUnit.SECONDS));
+        assertEquals("csv,data", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+    }
+
+    /**
+     * Tests that an export is computed again once the previous identical export has completed.
+     */
+    @Test
+    public void testCoalesce_AfterCompletion_ComputedAgain() throws Exception {
+        assertEquals("first", exportCoalescer.coalesce(key, () -> "first"));
+        assertEquals("second", exportCoalescer.coalesce(key, () -> "second"));
+    }
+
+    /**
+     * Tests that a rejection of the export is rethrown to the caller that computed it.
+     */
+    @Test
+    public void testCoalesce_Rejected_Rethrown() {
+        ExportRejectedException e = assertThrows(ExportRejectedException.class, () -> exportCoalescer.coalesce(key, () -> {
+            throw new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30));
+        }));
+
+        assertEquals(Duration.ofSeconds(30), e.getRetryAfter());
+    }
+
+    /**
+     * Tests that subscribers joining a streamed export receive the complete content, including a subscriber that
+     * only starts reading after the export is complete, while the export is produced once.
+     */
+    @Test
+    public void testSubscribe_ConcurrentIdenticalStreams_ProducedOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger productions = new AtomicInteger();
+        ExportSpool.ContentWriter writer = out -> {
+            productions.incrementAndGet();
+            out.write("timestamp,value\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            out.write("2024-07-01T00:00,1.0\n".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ExportSubscription leader = exportCoalescer.subscribe(key, this::permit, writer);
+        started.await(5, TimeUnit.SECONDS);
+        ExportSubscription follower = exportCoalescer.subscribe(key, this::permit, writer);
+        ExportSubscription slow = exportCoalescer.subscribe(key, this::permit, writer);
+        CompletableFuture<String> leaderContent = CompletableFuture.supplyAsync(() -> read(leader));
+        CompletableFuture<String> followerContent = CompletableFuture.supplyAsync(() -> read(follower));
+        release.countDown();
+
+        String expected = "timestamp,value\n2024-07-01T00:00,1.0\n";
+        assertEquals(expected, leaderContent.get(5, TimeUnit.SECONDS));
+        assertEquals(expected, followerContent.get(5, TimeUnit.SECONDS));
+        assertEquals(expected, read(slow));
+        assertEquals(1, productions.get());
+        assertEquals(2, meterRegistry.get("reservation.export.coalesced").tag("mode", "streaming").counter().count());
+        assertTrue(budget.tryAcquire(1, 5, TimeUnit.SECONDS));
+        assertTrue(spoolFiles().isEmpty());
+    }
+
+    /**
+     * Tests that the export is cancelled and its permit released once its last subscriber leaves.
+     */
+    @Test
+    public void testSubscribe_LastSubscriberLeaves_ExportCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<IOException> failure = new CompletableFuture<>();
+        ExportSubscription subscription = exportCoalescer.subscribe(key, this::permit, out -> {
+            started.countDown();
+            try {
+                while (true) {
+                    out.write("2024-07-01T00:00,1.0\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                failure.complete(e);
+                throw e;
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+
+        subscription.close();
+
+        assertEquals("Export cancelled, no subscriber left", failure.get(5, TimeUnit.SECONDS).getMessage());
+        assertTrue(budget.tryAcquire(1, 5, TimeUnit.SECONDS));
+        for (int attempt = 0; attempt < 500 && !spoolFiles().isEmpty(); attempt++) {
+            Thread.sleep(10);
+        }
+        assertTrue(spoolFiles().isEmpty());
+    }
+
+    /**
+     * Tests that a streamed export that is not admitted is rejected without producing it, and that the next
+     * request starts a new export.
+     */
+    @Test
+    public void testSubscribe_Rejected_NextRequestStartsAgain() throws Exception {
+        assertThrows(ExportRejectedException.class, () -> exportCoalescer.subscribe(key, () -> {
+            throw new ExportRejectedException("Too many exports are running, please retry later", Duration.ofSeconds(30));
+        }, out -> out.write("unexpected".getBytes(StandardCharsets.UTF_8))));
+
+        assertTrue(spoolFiles().isEmpty());
+        ExportSubscription subscription = exportCoalescer.subscribe(key, this::permit, out -> out.write("csv,data".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("csv,data", read(subscription));
+    }
+
+    /**
+     * Tests that a failure of the export is reported to its subscribers instead of ending the content silently.
+     */
+    @Test
+    public void testSubscribe_ProducerFails_SubscriberFails() throws Exception {
+        ExportSubscription subscription = exportCoalescer.subscribe(key, this::permit, out -> {
+            out.write("timestamp,value\n".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("connection lost");
+        });
+
+        IOException e = assertThrows(IOException.class, () -> subscription.transferTo(new ByteArrayOutputStream()));
+
+        assertTrue(e.getMessage().contains("connection lost"));
+        subscription.close();
+    }
+
+    private ExportPermit permit() {
+        return new ExportPermit(budget, 1, null);
+    }
+
+    private String coalesce(ExportCoalescer.Computation<String> computation) {
+        try {
+            return exportCoalescer.coalesce(key, computation);
+        } catch (IOException | ExportRejectedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String read(ExportSubscription subscription) {
+        try (subscription) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            subscription.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
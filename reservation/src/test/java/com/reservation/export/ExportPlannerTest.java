@@ -0,0 +1,203 @@
+package com.reservation.export;
+
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.coldtier.ColdTierView;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.TimeWindows;
+import com.reservation.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ExportPlanner}.
+ * Tests the choice of strategy by estimated size, the estimates of multi-window exports and totals, the fallback
+ * estimates and the strategy metric.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportPlannerTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ColdTierStore coldTierStore;
+
+    private MeterRegistry meterRegistry;
+    private ExportPlanner exportPlanner;
+    private ExportKey key;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ExportPlannerProperties properties = new ExportPlannerProperties();
+        properties.setInMemoryMaxRows(100);
+        properties.setStreamingMaxRows(1000);
+        meterRegistry = new SimpleMeterRegistry();
+        exportPlanner = new ExportPlanner(properties, reservationRepository, coldTierStore, meterRegistry);
+        key = new ExportKey(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 7, 2, 0, 0), false, ReservationProjection.DETAILED,
+                new ReservationFilter(), CsvReservationFormat.TEXT_CSV);
+    }
+
+    /**
+     * Tests that small exports are produced in memory, including the threshold itself.
+     */
+    @Test
+    public void testPlan_SmallResult_InMemory() {
+        when(reservationRepository.estimateSeriesRows(any(), any(), any(), any(), any())).thenReturn(100L);
+
+        ExportPlan plan = exportPlanner.plan(key);
+
+        assertEquals(ExportStrategy.IN_MEMORY, plan.strategy());
+        assertEquals(100, plan.estimatedRows());
+        assertEquals(1, meterRegistry.get("reservation.export.strategy").tag("strategy", "in_memory").counter().count());
+    }
+
+    /**
+     * Tests that medium exports are streamed.
+     */
+    @Test
+    public void testPlan_MediumResult_Streaming() {
+        when(reservationRepository.estimateSeriesRows(any(), any(), any(), any(), any())).thenReturn(101L);
+
+        assertEquals(ExportStrategy.STREAMING, exportPlanner.plan(key).strategy());
+        assertEquals(1, meterRegistry.get("reservation.export.strategy").tag("strategy", "streaming").counter().count());
+    }
+
+    /**
+     * Tests that large exports are spooled to disk.
+     */
+    @Test
+    public void testPlan_LargeResult_Spool() {
+        when(reservationRepository.estimateSeriesRows(any(), any(), any(), any(), any())).thenReturn(1001L);
+
+        assertEquals(ExportStrategy.SPOOL, exportPlanner.plan(key).strategy());
+        assertEquals(1, meterRegistry.get("reservation.export.strategy").tag("strategy", "spool").counter().count());
+    }
+
+    /**
+     * Tests that the estimate falls back to one row per quarter-hour when the planner cannot be asked.
+     */
+    @Test
+    public void testEstimateRows_DatabaseUnavailable_FallsBackToTimeRange() {
+        when(reservationRepository.estimateSeriesRows(any(), any(), any(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(97, exportPlanner.estimateRows(key));
+        assertEquals(ExportStrategy.IN_MEMORY, exportPlanner.plan(key).strategy());
+    }
+
+    /**
+     * Tests that the rows of a range before the boundary of the cold tier are counted from its index, so that an
+     * export of archived months is not taken for an empty one and produced in memory.
+     */
+    @Test
+    public void testPlan_ArchivedRange_CountsColdTierRows() {
+        ColdTierView coldTier = mock(ColdTierView.class);
+        when(coldTier.boundary()).thenReturn(LocalDateTime.of(2025, 1, 1, 0, 0));
+        when(coldTier.estimateRows(List.of(key.assetId()), key.marketId(), key.from(), key.to())).thenReturn(5_000L);
+        when(coldTierStore.find(key.from())).thenReturn(Optional.of(coldTier));
+
+        ExportPlan plan = exportPlanner.plan(key);
+
+        assertEquals(ExportStrategy.SPOOL, plan.strategy());
+        assertEquals(5_000, plan.estimatedRows());
+        verify(reservationRepository, never()).estimateSeriesRows(any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a range spanning the boundary of the cold tier adds the planner estimate of the database from the
+     * boundary on to the rows of the cold tier.
+     */
+    @Test
+    public void testPlan_SpansColdTier_AddsDatabaseEstimateFromBoundary() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 12, 0);
+        ColdTierView coldTier = mock(ColdTierView.class);
+        when(coldTier.boundary()).thenReturn(boundary);
+        when(coldTier.estimateRows(any(), any(), any(), any())).thenReturn(48L);
+        when(coldTierStore.find(key.from())).thenReturn(Optional.of(coldTier));
+        when(reservationRepository.estimateSeriesRows(eq(key.assetId()), eq(key.marketId()), eq(boundary), eq(key.to()), any())).thenReturn(49L);
+
+        assertEquals(97, exportPlanner.plan(key).estimatedRows());
+    }
+
+    /**
+     * Tests that a multi-window export is streamed, estimated at the share of the planner estimate of its whole range
+     * that its windows cover.
+     */
+    @Test
+    public void testPlanWindows_ScalesRangeEstimate_Streaming() {
+        TimeWindows windows = windows();
+        when(reservationRepository.estimateSeriesRows(any(), any(), eq(windows.from()), eq(windows.to()), any())).thenReturn(10_000L);
+
+        ExportPlan plan = exportPlanner.planWindows(key.assetId(), key.marketId(), windows, new ReservationFilter());
+
+        assertEquals(ExportStrategy.STREAMING, plan.strategy());
+        assertEquals(5_000, plan.estimatedRows());
+        assertEquals(1, meterRegistry.get("reservation.export.strategy").tag("strategy", "streaming").counter().count());
+    }
+
+    /**
+     * Tests that the estimate of a multi-window export falls back to one row per quarter-hour of each window.
+     */
+    @Test
+    public void testEstimateWindowRows_DatabaseUnavailable_FallsBackToWindows() {
+        when(reservationRepository.estimateSeriesRows(any(), any(), any(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(2 * 49, exportPlanner.estimateWindowRows(key.assetId(), key.marketId(), windows(), new ReservationFilter()));
+    }
+
+    /**
+     * Tests that totals are produced in memory, estimated at the rows they are summed from, even if these exceed the
+     * in-memory threshold.
+     */
+    @Test
+    public void testPlanTotals_EstimatesSummedRows_InMemory() {
+        List<UUID> assetIds = List.of(key.assetId(), UUID.randomUUID());
+        when(reservationRepository.estimateTotalsRows(assetIds, null, key.from(), key.to())).thenReturn(5_000L);
+
+        ExportPlan plan = exportPlanner.planTotals(assetIds, null, key.from(), key.to());
+
+        assertEquals(ExportStrategy.IN_MEMORY, plan.strategy());
+        assertEquals(5_000, plan.estimatedRows());
+        assertEquals(1, meterRegistry.get("reservation.export.strategy").tag("strategy", "in_memory").counter().count());
+    }
+
+    /**
+     * Tests that the estimate of totals falls back to one row per quarter-hour of the time range and asset.
+     */
+    @Test
+    public void testEstimateTotalsRows_DatabaseUnavailable_FallsBackToTimeRange() {
+        when(reservationRepository.estimateTotalsRows(any(), any(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(2 * 97, exportPlanner.estimateTotalsRows(List.of(key.assetId(), UUID.randomUUID()), key.marketId(), key.from(), key.to()));
+    }
+
+    /**
+     * Creates two windows of twelve hours, covering half of the range from the first to the last.
+     */
+    private static TimeWindows windows() {
+        return new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 7, 1, 12, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 2, 12, 0), LocalDateTime.of(2024, 7, 3, 0, 0))));
+    }
+}
@@ -0,0 +1,238 @@
+package com.reservation.export;
+
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ExportSpool}.
+ * Tests spooling thresholds, entity tags, replacement, expiry, the disk budget and reading files evicted while they
+ * are being sent.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportSpoolTest {
+
+    @TempDir
+    private Path directory;
+
+    private ExportSpoolProperties properties;
+    private ExportKey key;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ExportSpoolProperties();
+        properties.setDirectory(directory);
+        properties.setMinBytes(10);
+        key = new ExportKey(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 8, 1, 0, 0), false, ReservationProjection.DETAILED,
+                new ReservationFilter(), CsvReservationFormat.TEXT_CSV);
+    }
+
+    /**
+     * Tests that a large export is written to disk and can be found and read back.
+     */
+    @Test
+    public void testStore_LargeExport_Spooled() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport stored = exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        Optional<SpooledExport> found = exportSpool.find(key);
+
+        assertInstanceOf(SpooledFileResource.class, stored.resource());
+        assertTrue(found.isPresent());
+        assertEquals(stored.eTag(), found.get().eTag());
+        assertEquals(20, found.get().length());
+        assertEquals("timestamp,value\n1,2\n", found.get().resource().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that a small export is kept in memory and not registered for resuming.
+     */
+    @Test
+    public void testStore_SmallExport_NotSpooled() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport stored = exportSpool.store(key, "a,b\n".getBytes(StandardCharsets.UTF_8));
+
+        assertInstanceOf(ByteArrayResource.class, stored.resource());
+        assertFalse(exportSpool.find(key).isPresent());
+    }
+
+    /**
+     * Tests that equal content yields equal entity tags and changed content replaces the previous snapshot.
+     */
+    @Test
+    public void testStore_ChangedContent_ReplacesSnapshot() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport first = exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        SpooledExport same = exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        SpooledExport changed = exportSpool.store(key, "timestamp,value\n1,3\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(first.eTag(), same.eTag());
+        assertNotEquals(first.eTag(), changed.eTag());
+        assertEquals(changed.eTag(), exportSpool.find(key).orElseThrow().eTag());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Tests that an export written while it is produced is spooled regardless of its size and tagged like a stored one.
+     */
+    @Test
+    public void testSpool_WrittenExport_Spooled() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport spooled = exportSpool.spool(key, writer -> writer.write("a,b\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertInstanceOf(SpooledFileResource.class, spooled.resource());
+        assertEquals(4, spooled.length());
+        assertEquals("a,b\n", exportSpool.find(key).orElseThrow().resource().getContentAsString(StandardCharsets.UTF_8));
+        properties.setMinBytes(0);
+        assertEquals(spooled.eTag(), exportSpool.store(key, "a,b\n".getBytes(StandardCharsets.UTF_8)).eTag());
+    }
+
+    /**
+     * Tests that a failing export leaves neither a snapshot nor a file behind.
+     */
+    @Test
+    public void testSpool_WriterFails_NothingSpooled() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        assertThrows(IOException.class, () -> exportSpool.spool(key, writer -> {
+            writer.write("a,b\n".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("Query cancelled");
+        }));
+
+        assertFalse(exportSpool.find(key).isPresent());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Tests that expired exports are neither found nor kept on disk.
+     */
+    @Test
+    public void testFind_Expired_Empty() throws IOException {
+        properties.setTtl(Duration.ZERO);
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(exportSpool.find(key).isPresent());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Tests that the oldest exports are deleted when the disk budget is exceeded.
+     */
+    @Test
+    public void testStore_BudgetExceeded_OldestDeleted() throws IOException {
+        properties.setMaxBytes(30);
+        ExportSpool exportSpool = new ExportSpool(properties);
+        ExportKey otherKey = new ExportKey(key.assetId(), key.marketId(), key.from(), key.to(), true, ReservationProjection.TOTAL, key.filter(), key.mediaType());
+
+        exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        exportSpool.store(otherKey, "timestamp,value\n1,3\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(exportSpool.find(key).isPresent());
+        assertTrue(exportSpool.find(otherKey).isPresent());
+        assertEquals(20, exportSpool.spooledBytes());
+    }
+
+    /**
+     * Tests that an export exceeding the disk budget on its own is kept until the next export replaces it.
+     */
+    @Test
+    public void testStore_LargerThanBudget_KeepsItself() throws IOException {
+        properties.setMaxBytes(10);
+        ExportSpool exportSpool = new ExportSpool(properties);
+        ExportKey otherKey = new ExportKey(key.assetId(), key.marketId(), key.from(), key.to(), true, ReservationProjection.TOTAL, key.filter(), key.mediaType());
+
+        exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(exportSpool.find(key).isPresent());
+
+        exportSpool.store(otherKey, "timestamp,value\n1,3\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(exportSpool.find(key).isPresent());
+        assertTrue(exportSpool.find(otherKey).isPresent());
+    }
+
+    /**
+     * Tests that a retained export stays readable after it is replaced and its file is deleted, and is closed once
+     * it is released.
+     */
+    @Test
+    public void testRetain_Replaced_ReadableUntilReleased() throws IOException {
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport first = exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(first.retain());
+        exportSpool.store(key, "timestamp,value\n1,3\n".getBytes(StandardCharsets.UTF_8));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals("timestamp,value\n1,2\n", first.resource().getContentAsString(StandardCharsets.UTF_8));
+        try (InputStream range = first.resource().getInputStream()) {
+            assertEquals(16, range.skip(16));
+            assertEquals("1,2\n", new String(range.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        first.release();
+
+        assertFalse(first.resource().exists());
+        assertFalse(first.retain());
+        assertThrows(IOException.class, () -> first.resource().getInputStream());
+    }
+
+    /**
+     * Tests that an evicted export no longer referenced by any request is closed and cannot be retained.
+     */
+    @Test
+    public void testRetain_EvictedAndNotServed_Fails() throws IOException {
+        properties.setTtl(Duration.ZERO);
+        ExportSpool exportSpool = new ExportSpool(properties);
+
+        SpooledExport stored = exportSpool.store(key, "timestamp,value\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        exportSpool.cleanUp();
+
+        assertFalse(stored.retain());
+    }
+
+    /**
+     * Tests that files left over from a previous run are deleted on startup.
+     */
+    @Test
+    public void testConstructor_LeftoverFiles_Deleted() throws IOException {
+        Files.writeString(directory.resolve("leftover.csv"), "a,b\n");
+
+        new ExportSpool(properties);
+
+        assertFalse(Files.exists(directory.resolve("leftover.csv")));
+    }
+}
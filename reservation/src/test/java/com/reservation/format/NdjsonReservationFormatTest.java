@@ -0,0 +1,94 @@
+package com.reservation.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link NdjsonReservationFormat}.
+ * Tests that each reservation is written as one valid JSON object per line, with numbers unquoted.
+ *
+ * @author Bojana Samardzic
+ */
+public class NdjsonReservationFormatTest {
+
+    private NdjsonReservationFormat format;
+    private ReservationSeries series;
+    private UUID bidId;
+
+    @BeforeEach
+    public void setUp() {
+        format = new NdjsonReservationFormat();
+        bidId = UUID.randomUUID();
+        series = new ReservationSeries(UUID.randomUUID(), UUID.randomUUID());
+        series.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), bidId, null, 1500, 10.5, 0, 2500, 0, 0, 0);
+        series.add(2, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 15)), null, bidId, 500, Double.NaN, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Tests that the selected fields are members in the selected order, values and prices as numbers.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_SelectedFields_OneObjectPerLine() throws IOException {
+        String ndjson = write(ReservationProjection.parse("timestamp,positiveValue,positiveCapacityPrice", false));
+
+        assertEquals("""
+                {"timestamp":"2024-07-01T00:00Z","positiveValue":1.5,"positiveCapacityPrice":10.5}
+                {"timestamp":"2024-07-01T00:15Z","positiveValue":0.5,"positiveCapacityPrice":null}
+                """, ndjson);
+    }
+
+    /**
+     * Tests that every line of a detailed export is valid JSON and a missing bid ID is {@code null}.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_Detailed_ValidJson() throws IOException {
+        String[] lines = write(ReservationProjection.DETAILED).split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(bidId.toString(), first.get("positiveBidId").asText());
+        assertTrue(first.get("negativeBidId").isNull());
+        assertEquals(2.5, first.get("negativeValue").asDouble());
+        assertEquals(series.getAssetId().toString(), first.get("assetId").asText());
+    }
+
+    /**
+     * Tests that an export without rows is empty, as the format has no header.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_NoRows_Empty() throws IOException {
+        series = new ReservationSeries(series.getAssetId(), series.getMarketId());
+
+        assertEquals("", write(ReservationProjection.DETAILED));
+    }
+
+    private String write(ReservationProjection fields) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ReservationSink sink = format.open(outputStream, fields, new ExportEncodingContext());
+        sink.writeHeader();
+        sink.writeRows(series);
+        sink.writeFooter();
+        sink.flush();
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ReactiveReservationWriter}.
+ * Tests that the header and the rows of all chunks are emitted in order, in elements of a bounded number of rows.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReactiveReservationWriterTest {
+
+    private ReactiveReservationWriter writer;
+    private UUID assetId;
+    private UUID marketId;
+
+    @BeforeEach
+    public void setUp() {
+        writer = new ReactiveReservationWriter(new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter()),
+                ReservationProjection.parse("positiveValue", false));
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+    }
+
+    /**
+     * Tests that a chunk larger than an element is split into several elements holding all its rows in order.
+     */
+    @Test
+    public void testWrite_LargeChunk_SplitIntoElements() {
+        ReservationSeries chunk = chunk(ReactiveReservationWriter.ROWS_PER_ELEMENT + 1, 0);
+
+        List<String> csv = text(writer.write(Flux.just(chunk), new ExportEncodingContext())).collectList().block();
+
+        assertEquals(3, csv.size());
+        assertEquals("\"positiveValue\"\n", csv.get(0));
+        assertEquals(ReactiveReservationWriter.ROWS_PER_ELEMENT, csv.get(1).lines().count());
+        assertEquals("\"" + ReactiveReservationWriter.ROWS_PER_ELEMENT / 1000.0 + "\"\n", csv.get(2));
+    }
+
+    /**
+     * Tests that rows of consecutive chunks follow each other and empty chunks emit nothing.
+     */
+    @Test
+    public void testWrite_SeveralChunks_RowsInOrder() {
+        Flux<ReservationSeries> chunks = Flux.just(chunk(1, 1000), new ReservationSeries(assetId, marketId), chunk(1, 2000));
+
+        StepVerifier.create(text(writer.write(chunks, new ExportEncodingContext())))
+                .expectNext("\"positiveValue\"\n", "\"1.0\"\n", "\"2.0\"\n")
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that a stream without rows yields only the header.
+     */
+    @Test
+    public void testWrite_NoChunks_HeaderOnly() {
+        StepVerifier.create(text(writer.write(Flux.empty(), new ExportEncodingContext())))
+                .expectNext("\"positiveValue\"\n")
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that a format without header emits no element before the first row, and nothing at all without rows.
+     */
+    @Test
+    public void testWrite_FormatWithoutHeader_NoEmptyElements() {
+        ReactiveReservationWriter ndjsonWriter = new ReactiveReservationWriter(new NdjsonReservationFormat(),
+                ReservationProjection.parse("positiveValue", false));
+
+        StepVerifier.create(text(ndjsonWriter.write(Flux.just(chunk(1, 1000)), new ExportEncodingContext())))
+                .expectNext("{\"positiveValue\":1.0}\n")
+                .verifyComplete();
+        StepVerifier.create(ndjsonWriter.write(Flux.empty(), new ExportEncodingContext()))
+                .verifyComplete();
+    }
+
+    private static Flux<String> text(Flux<byte[]> elements) {
+        return elements.map(element -> new String(element, StandardCharsets.UTF_8));
+    }
+
+    private ReservationSeries chunk(int rows, double firstValue) {
+        ReservationSeries chunk = new ReservationSeries(assetId, marketId);
+        for (int row = 0; row < rows; row++) {
+            chunk.add(row, row, null, null, firstValue + row, 0, 0, 0, 0, 0, 0);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,102 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ReservationFormatRegistry}.
+ * Tests the selection of the export format from the {@code Accept} header of a request.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationFormatRegistryTest {
+
+    private CsvReservationFormat csvFormat;
+    private TsvReservationFormat tsvFormat;
+    private NdjsonReservationFormat ndjsonFormat;
+    private ReservationFormatRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        csvFormat = new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter());
+        tsvFormat = new TsvReservationFormat();
+        ndjsonFormat = new NdjsonReservationFormat();
+        registry = new ReservationFormatRegistry(List.of(ndjsonFormat, tsvFormat, csvFormat));
+    }
+
+    /**
+     * Tests that CSV is exported for requests without {@code Accept} header, and listed first.
+     */
+    @Test
+    public void testNegotiate_NoAcceptHeader_Csv() {
+        assertSame(csvFormat, registry.negotiate(null).orElseThrow());
+        assertSame(csvFormat, registry.negotiate(" ").orElseThrow());
+        assertEquals(List.of(CsvReservationFormat.TEXT_CSV, MediaType.APPLICATION_NDJSON, TsvReservationFormat.TEXT_TAB_SEPARATED_VALUES),
+                registry.mediaTypes());
+    }
+
+    /**
+     * Tests that CSV is preferred among formats accepted through a wildcard range.
+     */
+    @Test
+    public void testNegotiate_Wildcards_Csv() {
+        assertSame(csvFormat, registry.negotiate("*/*").orElseThrow());
+        assertSame(csvFormat, registry.negotiate("text/*").orElseThrow());
+    }
+
+    /**
+     * Tests that a concrete media type selects its format, also when listed after a wildcard range.
+     */
+    @Test
+    public void testNegotiate_ConcreteType_ItsFormat() {
+        assertSame(tsvFormat, registry.negotiate("text/tab-separated-values").orElseThrow());
+        assertSame(ndjsonFormat, registry.negotiate("application/json, application/x-ndjson").orElseThrow());
+        assertSame(tsvFormat, registry.negotiate("text/csv;q=0.5, text/tab-separated-values").orElseThrow());
+    }
+
+    /**
+     * Tests that a format is rated by its most specific range, so that excluding it overrides a wildcard.
+     */
+    @Test
+    public void testNegotiate_Qualities_MostSpecificRangeWins() {
+        assertSame(ndjsonFormat, registry.negotiate("text/csv;q=0, */*;q=0.1").orElseThrow());
+        assertSame(tsvFormat, registry.negotiate("text/*;q=0.8, text/csv;q=0.2, application/x-ndjson;q=0.5").orElseThrow());
+    }
+
+    /**
+     * Tests that no format is selected if the request accepts none of them.
+     */
+    @Test
+    public void testNegotiate_NoMatch_Empty() {
+        assertEquals(Optional.empty(), registry.negotiate("application/pdf"));
+        assertEquals(Optional.empty(), registry.negotiate("text/csv;q=0"));
+    }
+
+    /**
+     * Tests that a malformed header is rejected as an invalid argument.
+     */
+    @Test
+    public void testNegotiate_MalformedHeader_Rejected() {
+        assertThrows(InvalidMediaTypeException.class, () -> registry.negotiate("text/csv;q=x"));
+    }
+
+    /**
+     * Tests that a registry without CSV format or with two formats of one media type cannot be built.
+     */
+    @Test
+    public void testConstruct_InvalidFormats_Rejected() {
+        assertThrows(IllegalStateException.class, () -> new ReservationFormatRegistry(List.of(tsvFormat)));
+        assertThrows(IllegalStateException.class, () -> new ReservationFormatRegistry(List.of(csvFormat, tsvFormat, new TsvReservationFormat())));
+    }
+}
@@ -0,0 +1,90 @@
+package com.reservation.format;
+
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link TsvReservationFormat}.
+ * Tests that the selected fields are written separated by tabs, encoded like in the CSV format but unquoted.
+ *
+ * @author Bojana Samardzic
+ */
+public class TsvReservationFormatTest {
+
+    private TsvReservationFormat format;
+    private ReservationSeries series;
+    private UUID bidId;
+
+    @BeforeEach
+    public void setUp() {
+        format = new TsvReservationFormat();
+        bidId = UUID.randomUUID();
+        series = new ReservationSeries(UUID.randomUUID(), UUID.randomUUID());
+        series.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), bidId, null, 1500, 10.5, 0, 2500, 0, 0, 0);
+        series.add(2, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 15)), null, bidId, 500, 11.5, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Tests that the header names the selected fields and each row holds their values in the same order.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_SelectedFields_TabSeparated() throws IOException {
+        String tsv = write(ReservationProjection.parse("timestamp,positiveValue,positiveCapacityPrice", false), series);
+
+        assertEquals("timestamp\tpositiveValue\tpositiveCapacityPrice\n2024-07-01T00:00Z\t1.5\t10.5\n2024-07-01T00:15Z\t0.5\t11.5\n", tsv);
+    }
+
+    /**
+     * Tests that a missing bid ID is written as an empty field.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_MissingBidId_EmptyField() throws IOException {
+        String tsv = write(ReservationProjection.parse("positiveBidId,negativeBidId", false), series);
+
+        assertEquals("positiveBidId\tnegativeBidId\n" + bidId + "\t\n\t" + bidId + "\n", tsv);
+    }
+
+    /**
+     * Tests that rows exceeding the buffer of the sink are written completely and in order.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Test
+    public void testWrite_MoreThanBuffer_AllRowsInOrder() throws IOException {
+        ReservationSeries large = new ReservationSeries(series.getAssetId(), series.getMarketId());
+        for (int row = 0; row < 10_000; row++) {
+            large.add(row, row, null, null, row * 1000, 0, 0, 0, 0, 0, 0);
+        }
+
+        String[] lines = write(ReservationProjection.parse("positiveValue", false), large).split("\n");
+
+        assertEquals(10_001, lines.length);
+        assertEquals("0.0", lines[1]);
+        assertEquals("9999.0", lines[10_000]);
+    }
+
+    private String write(ReservationProjection fields, ReservationSeries rows) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ReservationSink sink = format.open(outputStream, fields, new ExportEncodingContext());
+        sink.writeHeader();
+        sink.writeRows(rows);
+        sink.writeFooter();
+        sink.flush();
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package com.reservation.generator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link SyntheticReservationGenerator}.
+ * Tests determinism and shape of the generated rows.
+ *
+ * @author Bojana Samardzic
+ */
+public class SyntheticReservationGeneratorTest {
+
+    private SyntheticDataProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new SyntheticDataProperties();
+        properties.setSeed(7);
+        properties.setStartDate(LocalDate.of(2024, 3, 1));
+        properties.setDays(2);
+        properties.setBidDensity(0.5);
+        properties.setMaxBidsPerSlot(3);
+    }
+
+    /**
+     * Tests that the same seed produces identical series.
+     */
+    @Test
+    public void testWriteSeries_SameSeed_Deterministic() throws IOException {
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+
+        new SyntheticReservationGenerator(properties).writeSeries(3, 1, first);
+        new SyntheticReservationGenerator(properties).writeSeries(3, 1, second);
+
+        assertEquals(first.toString(), second.toString());
+    }
+
+    /**
+     * Tests that different seeds and different series produce different data.
+     */
+    @Test
+    public void testWriteSeries_DifferentSeedOrSeries_Differs() throws IOException {
+        StringBuilder original = new StringBuilder();
+        StringBuilder otherSeries = new StringBuilder();
+        StringBuilder otherSeed = new StringBuilder();
+
+        new SyntheticReservationGenerator(properties).writeSeries(0, 0, original);
+        new SyntheticReservationGenerator(properties).writeSeries(0, 1, otherSeries);
+        properties.setSeed(8);
+        new SyntheticReservationGenerator(properties).writeSeries(0, 0, otherSeed);
+
+        assertNotEquals(original.toString(), otherSeries.toString());
+        assertNotEquals(original.toString(), otherSeed.toString());
+    }
+
+    /**
+     * Tests that the row count respects the configured density and that every row has all COPY columns.
+     */
+    @Test
+    public void testWriteSeries_RowShape_Success() throws IOException {
+        StringBuilder out = new StringBuilder();
+        SyntheticReservationGenerator generator = new SyntheticReservationGenerator(properties);
+
+        long rows = generator.writeSeries(0, 0, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(rows, lines.length);
+        assertTrue(rows > 0);
+        assertTrue(rows <= (long) properties.getDays() * SyntheticReservationGenerator.SLOTS_PER_DAY * properties.getMaxBidsPerSlot());
+
+        int columns = SyntheticReservationGenerator.COPY_COLUMNS.split(",").length;
+        for (String line : lines) {
+            String[] values = line.split(",");
+            assertEquals(columns, values.length);
+            assertEquals(generator.assetId(0).toString(), values[1]);
+            assertEquals(generator.marketId(0).toString(), values[2]);
+            assertTrue(values[0].startsWith("2024-03-0"));
+        }
+    }
+
+    /**
+     * Tests that a zero bid density produces no rows.
+     */
+    @Test
+    public void testWriteSeries_ZeroDensity_NoRows() throws IOException {
+        properties.setBidDensity(0);
+        StringBuilder out = new StringBuilder();
+
+        long rows = new SyntheticReservationGenerator(properties).writeSeries(0, 0, out);
+
+        assertEquals(0, rows);
+        assertEquals("", out.toString());
+    }
+}
@@ -0,0 +1,208 @@
+package com.reservation.hotwindow;
+
+import com.reservation.model.Reservation;
+import com.reservation.model.ReservationSeries;
+import com.reservation.repository.ReservationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link HotWindowStore}.
+ * Tests that series evicted for exceeding the per-series limit are served from the database, and that they are loaded
+ * again once they are due and fit. Tests that polls overlap the previous one and that a store whose polls fail is
+ * no longer served, and that reads set their own statement timeout.
+ *
+ * @author Bojana Samardzic
+ */
+public class HotWindowStoreTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private Query timeoutQuery;
+
+    private HotWindowProperties properties;
+    private UUID assetId;
+    private UUID marketId;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new HotWindowProperties();
+        properties.setMaxRowsPerSeries(2);
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+        start = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(2);
+
+        when(reservationRepository.streamByTimestampGreaterThanEqualOrderByAssetIdAscMarketIdAscTimestampAscIdAsc(any())).thenAnswer(invocation -> Stream.of(
+                reservation(1, start), reservation(2, start.plusMinutes(15)), reservation(3, start.plusMinutes(30))));
+        when(reservationRepository.streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(any(), any()))
+                .thenAnswer(invocation -> Stream.empty());
+        when(entityManager.createNativeQuery(any(String.class))).thenReturn(timeoutQuery);
+    }
+
+    /**
+     * Tests that the warm-up and polls replace the statement timeout of the interactive pool with that of the hot
+     * window before reading.
+     */
+    @Test
+    public void testWarmUp_SetsStatementTimeout() {
+        properties.setStatementTimeout(Duration.ofMinutes(2));
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+        store.warmUp();
+        store.poll();
+
+        verify(timeoutQuery, times(2)).setParameter("timeout", "120000");
+        verify(timeoutQuery, times(2)).getSingleResult();
+    }
+
+    /**
+     * Tests that an evicted series is loaded again on the next poll once it is due and fits, and is then served from
+     * memory again, also as part of a portfolio.
+     */
+    @Test
+    public void testPoll_EvictedSeriesFits_Readmitted() {
+        properties.setReadmitAfter(Duration.ZERO);
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+        store.warmUp();
+
+        assertTrue(store.find(assetId, marketId, start, start.plusHours(1)).isEmpty());
+        assertTrue(store.findAll(Set.of(assetId), null, start, start.plusHours(1)).isEmpty());
+
+        when(reservationRepository.streamByAssetIdAndMarketIdAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(eq(assetId), eq(marketId), any()))
+                .thenAnswer(invocation -> Stream.of(reservation(2, start.plusMinutes(15)), reservation(3, start.plusMinutes(30))));
+        store.poll();
+
+        assertEquals(2, store.find(assetId, marketId, start, start.plusHours(1)).orElseThrow().size());
+        assertEquals(List.of(2), store.findAll(Set.of(assetId), null, start, start.plusHours(1)).orElseThrow().stream()
+                .map(ReservationSeries::size).toList());
+    }
+
+    /**
+     * Tests that an evicted series that still exceeds the per-series limit stays evicted, and that a series is not
+     * loaded again before it is due.
+     */
+    @Test
+    public void testPoll_EvictedSeries_StaysEvictedUntilDueAndFits() {
+        properties.setReadmitAfter(Duration.ofHours(1));
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+        store.warmUp();
+        store.poll();
+
+        verify(reservationRepository, never()).streamByAssetIdAndMarketIdAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(any(), any(), any());
+
+        properties.setReadmitAfter(Duration.ZERO);
+        when(reservationRepository.streamByAssetIdAndMarketIdAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(eq(assetId), eq(marketId), any()))
+                .thenAnswer(invocation -> Stream.of(reservation(1, start), reservation(2, start.plusMinutes(15)), reservation(3, start.plusMinutes(30))));
+        store.poll();
+
+        assertTrue(store.find(assetId, marketId, start, start.plusHours(1)).isEmpty());
+    }
+
+    /**
+     * Tests that each poll reads the changes since the latest update time seen minus the poll lag, and that a row
+     * committed late with an older update time is applied in place.
+     */
+    @Test
+    public void testPoll_OverlapsPreviousPoll_AppliesLateRow() {
+        properties.setMaxRowsPerSeries(10);
+        properties.setPollLag(Duration.ofMinutes(1));
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+        store.warmUp();
+
+        LocalDateTime watermark = start.plusMinutes(30);
+        when(reservationRepository.streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(eq(watermark.minusMinutes(1)), any()))
+                .thenAnswer(invocation -> Stream.of(lateRevision(2, start.plusMinutes(15), watermark.minusSeconds(30))));
+        store.poll();
+
+        List<Reservation> result = store.find(assetId, marketId, start, start.plusHours(1)).orElseThrow().toReservations();
+        assertEquals(3, result.size());
+        assertEquals(999, result.get(1).getPositiveValue());
+    }
+
+    /**
+     * Tests that a store whose polls fail is not served once its last successful refresh is older than the maximum
+     * staleness, and is served again after the next successful poll.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    @Test
+    public void testPoll_Fails_NotServedUntilRefreshed() throws InterruptedException {
+        properties.setMaxRowsPerSeries(10);
+        properties.setMaxStaleness(Duration.ofSeconds(1));
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+        store.warmUp();
+        store.poll();
+        assertTrue(store.find(assetId, marketId, start, start.plusHours(1)).isPresent());
+
+        when(reservationRepository.streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(any(), any()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+        Thread.sleep(1200);
+        store.poll();
+        assertTrue(store.find(assetId, marketId, start, start.plusHours(1)).isEmpty());
+        assertTrue(store.findAll(Set.of(assetId), null, start, start.plusHours(1)).isEmpty());
+
+        doReturn(Stream.empty()).when(reservationRepository).streamByUpdatedAtGreaterThanEqualAndTimestampGreaterThanEqual(any(), any());
+        store.poll();
+        assertEquals(3, store.find(assetId, marketId, start, start.plusHours(1)).orElseThrow().size());
+    }
+
+    /**
+     * Tests that a failed warm-up is retried on the next poll and the store is not served until then.
+     */
+    @Test
+    public void testWarmUp_Fails_RetriedOnPoll() {
+        properties.setMaxRowsPerSeries(10);
+        when(reservationRepository.streamByTimestampGreaterThanEqualOrderByAssetIdAscMarketIdAscTimestampAscIdAsc(any()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .thenAnswer(invocation -> Stream.of(reservation(1, start)));
+        HotWindowStore store = new HotWindowStore(reservationRepository, properties, entityManager, transactionManager);
+
+        store.warmUp();
+        assertTrue(store.find(assetId, marketId, start, start.plusHours(1)).isEmpty());
+
+        store.poll();
+        assertEquals(1, store.find(assetId, marketId, start, start.plusHours(1)).orElseThrow().size());
+    }
+
+    private Reservation lateRevision(long id, LocalDateTime timestamp, LocalDateTime updatedAt) {
+        return new Reservation(id, timestamp, assetId, marketId, null, null, 999, 1, 2, 50, 3, 4, updatedAt);
+    }
+
+    private Reservation reservation(long id, LocalDateTime timestamp) {
+        return new Reservation(id, timestamp, assetId, marketId, null, null, 100, 1, 2, 50, 3, 4, timestamp);
+    }
+}
@@ -0,0 +1,56 @@
+package com.reservation.hotwindow;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link OffHeapIdIndex}.
+ * Tests lookups, replacement and removal across growing and shrinking of the table.
+ *
+ * @author Bojana Samardzic
+ */
+public class OffHeapIdIndexTest {
+
+    /**
+     * Tests that stored ids are found with their latest timestamp and unknown ids are reported missing.
+     */
+    @Test
+    public void testPut_Replaces_Success() {
+        OffHeapIdIndex index = new OffHeapIdIndex();
+        index.put(7, 100);
+        index.put(7, 200);
+
+        assertEquals(1, index.size());
+        assertEquals(200, index.get(7));
+        assertEquals(OffHeapIdIndex.MISSING, index.get(8));
+    }
+
+    /**
+     * Tests that removing most of many ids in a scattered order keeps the remaining ones reachable, and that the
+     * table grows and shrinks again with them.
+     */
+    @Test
+    public void testRemove_ManyIds_RemainingFound() {
+        OffHeapIdIndex index = new OffHeapIdIndex();
+        long initialBytes = index.reservedBytes();
+        for (long id = 0; id < 20_000; id++) {
+            index.put(id, id * 10);
+        }
+        long grownBytes = index.reservedBytes();
+        for (long id = 0; id < 20_000; id++) {
+            if (id % 97 != 0) {
+                index.remove(id);
+            }
+        }
+        index.remove(-1);
+
+        assertTrue(grownBytes > initialBytes);
+        assertTrue(index.reservedBytes() < grownBytes);
+        assertEquals(207, index.size());
+        for (long id = 0; id < 20_000; id++) {
+            assertEquals(id % 97 == 0 ? id * 10 : OffHeapIdIndex.MISSING, index.get(id));
+        }
+    }
+}
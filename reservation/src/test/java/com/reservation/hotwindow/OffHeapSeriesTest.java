@@ -0,0 +1,177 @@
+package com.reservation.hotwindow;
+
+import com.reservation.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link OffHeapSeries}.
+ * Tests ordering, in-place updates, timestamp revisions, range reads and eviction of the off-heap columns.
+ *
+ * @author Bojana Samardzic
+ */
+public class OffHeapSeriesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 7, 31, 0, 0);
+
+    private UUID assetId;
+    private UUID marketId;
+    private OffHeapSeries series;
+
+    @BeforeEach
+    public void setUp() {
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+        series = new OffHeapSeries(assetId, marketId);
+    }
+
+    /**
+     * Tests that rows inserted out of order are read back in timestamp and id order with all values intact.
+     */
+    @Test
+    public void testUpsert_OutOfOrder_ReadInTimestampOrder() {
+        UUID bidId = UUID.randomUUID();
+        series.upsert(reservation(3, START.plusMinutes(30), 300, bidId));
+        series.upsert(reservation(1, START, 100, bidId));
+        series.upsert(reservation(2, START.plusMinutes(15), 200, null));
+        series.upsert(reservation(4, START, 400, bidId));
+
+        List<Reservation> result = series.range(START, START.plusHours(1)).toReservations();
+
+        assertEquals(4, result.size());
+        assertEquals(List.of(1L, 4L, 2L, 3L), result.stream().map(Reservation::getId).toList());
+        assertEquals(100, result.get(0).getPositiveValue());
+        assertEquals(bidId, result.get(0).getPositiveBidId());
+        assertNull(result.get(2).getPositiveBidId());
+        assertEquals(assetId, result.get(3).getAssetId());
+        assertEquals(marketId, result.get(3).getMarketId());
+        assertEquals(START.plusMinutes(30), result.get(3).getTimestamp());
+        assertEquals(START.minusDays(1).plusNanos(794_363_000), result.get(3).getUpdatedAt());
+    }
+
+    /**
+     * Tests that a reservation with a known id is updated in place.
+     */
+    @Test
+    public void testUpsert_ExistingId_UpdatesInPlace() {
+        series.upsert(reservation(1, START, 100, null));
+        series.upsert(reservation(1, START, 150, null));
+
+        List<Reservation> result = series.range(START, START).toReservations();
+
+        assertEquals(1, series.size());
+        assertEquals(150, result.get(0).getPositiveValue());
+    }
+
+    /**
+     * Tests that a reservation whose timestamp was revised replaces its previous row instead of being kept twice.
+     */
+    @Test
+    public void testUpsert_RevisedTimestamp_MovesRow() {
+        series.upsert(reservation(1, START, 100, null));
+        series.upsert(reservation(2, START.plusMinutes(15), 200, null));
+        series.upsert(reservation(3, START.plusMinutes(30), 300, null));
+
+        series.upsert(reservation(1, START.plusMinutes(45), 150, null));
+        series.upsert(reservation(3, START.plusMinutes(15), 350, null));
+
+        List<Reservation> result = series.range(START, START.plusHours(1)).toReservations();
+
+        assertEquals(3, series.size());
+        assertEquals(List.of(2L, 3L, 1L), result.stream().map(Reservation::getId).toList());
+        assertEquals(List.of(200.0, 350.0, 150.0), result.stream().map(Reservation::getPositiveValue).toList());
+        assertEquals(START.plusMinutes(45), result.get(2).getTimestamp());
+    }
+
+    /**
+     * Tests that many rows appended in order, including rows sharing a timestamp, are kept in order and can each
+     * still be revised after the rows before them were evicted.
+     */
+    @Test
+    public void testUpsert_AppendedInOrder_RevisableAfterEviction() {
+        for (int i = 0; i < 5000; i++) {
+            series.upsert(reservation(i, START.plusMinutes(15L * (i / 2)), i, null));
+        }
+        series.evictBefore(START.plusMinutes(15L * 2000));
+        for (int i = 4000; i < 5000; i++) {
+            series.upsert(reservation(i, START.plusMinutes(15L * (i / 2)), -i, null));
+        }
+
+        List<Reservation> result = series.range(START, START.plusDays(30)).toReservations();
+
+        assertEquals(1000, series.size());
+        assertEquals(4000L, result.get(0).getId());
+        assertEquals(4999L, result.get(999).getId());
+        assertEquals(-4999, result.get(999).getPositiveValue());
+    }
+
+    /**
+     * Tests that bid IDs survive rows being moved by inserts, revisions and eviction, and that a missing bid ID is
+     * kept apart from the nil UUID.
+     */
+    @Test
+    public void testBidIds_MovedRowsAndNil_Kept() {
+        UUID nil = new UUID(0, 0);
+        UUID bidId = UUID.randomUUID();
+        series.upsert(reservation(1, START.plusMinutes(30), 100, bidId));
+        series.upsert(reservation(2, START.plusMinutes(15), 200, nil));
+        series.upsert(reservation(3, START.plusMinutes(20), 300, null));
+        series.upsert(reservation(4, START, 400, UUID.randomUUID()));
+        series.upsert(reservation(1, START.plusMinutes(45), 150, bidId));
+        series.evictBefore(START.plusMinutes(15));
+
+        List<Reservation> result = series.range(START, START.plusHours(1)).toReservations();
+
+        assertEquals(List.of(2L, 3L, 1L), result.stream().map(Reservation::getId).toList());
+        assertEquals(nil, result.get(0).getPositiveBidId());
+        assertNull(result.get(1).getPositiveBidId());
+        assertEquals(bidId, result.get(2).getPositiveBidId());
+    }
+
+    /**
+     * Tests that range reads honour inclusive bounds.
+     */
+    @Test
+    public void testRange_InclusiveBounds_Success() {
+        for (int i = 0; i < 8; i++) {
+            series.upsert(reservation(i, START.plusMinutes(15L * i), i, null));
+        }
+
+        List<Reservation> result = series.range(START.plusMinutes(15), START.plusMinutes(45)).toReservations();
+
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(Reservation::getId).toList());
+    }
+
+    /**
+     * Tests growth beyond the initial capacity and eviction of old rows.
+     */
+    @Test
+    public void testEvictBefore_LargeSeries_Success() {
+        for (int i = 0; i < 1000; i++) {
+            series.upsert(reservation(i, START.plusMinutes(15L * i), i, UUID.randomUUID()));
+        }
+        long reservedBeforeEviction = series.reservedBytes();
+
+        series.evictBefore(START.plusMinutes(15L * 990));
+
+        assertEquals(10, series.size());
+        assertTrue(series.reservedBytes() < reservedBeforeEviction);
+        List<Reservation> result = series.range(START, START.plusDays(30)).toReservations();
+        assertEquals(990L, result.get(0).getId());
+        assertEquals(999L, result.get(9).getId());
+        assertEquals(999, result.get(9).getPositiveValue());
+    }
+
+    private Reservation reservation(long id, LocalDateTime timestamp, double positiveValue, UUID positiveBidId) {
+        return new Reservation(id, timestamp, assetId, marketId, positiveBidId, UUID.randomUUID(),
+                positiveValue, 1.5, 2.5, 50, 3.5, 4.5, START.minusDays(1).plusNanos(794_363_000));
+    }
+}
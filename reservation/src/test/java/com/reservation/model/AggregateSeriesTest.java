@@ -0,0 +1,105 @@
+package com.reservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link AggregateSeries}.
+ * Tests accumulation per timestamp, growth and the ordered combination of two aggregates.
+ *
+ * @author Bojana Samardzic
+ */
+public class AggregateSeriesTest {
+
+    private static final long QUARTER_HOUR = 15 * 60 * 1_000_000L;
+
+    /**
+     * Tests that values of the same timestamp are summed into one row and later timestamps start new rows.
+     */
+    @Test
+    public void testAccumulate_SameTimestamp_Summed() {
+        AggregateSeries aggregate = new AggregateSeries(1);
+
+        aggregate.accumulate(0, 100, 10);
+        aggregate.accumulate(0, 200, 20);
+        aggregate.accumulate(QUARTER_HOUR, 50, 5);
+
+        assertEquals(2, aggregate.size());
+        assertEquals(300, aggregate.getPositiveValue(0));
+        assertEquals(30, aggregate.getNegativeValue(0));
+        assertEquals(QUARTER_HOUR, aggregate.getTimestamp(1));
+        assertEquals(50, aggregate.getPositiveValue(1));
+    }
+
+    /**
+     * Tests that accumulating a timestamp before the last one is rejected.
+     */
+    @Test
+    public void testAccumulate_OutOfOrder_Rejected() {
+        AggregateSeries aggregate = new AggregateSeries();
+        aggregate.accumulate(QUARTER_HOUR, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> aggregate.accumulate(0, 1, 1));
+    }
+
+    /**
+     * Tests that the totals of a series contain one row per timestamp, in milli-kW.
+     */
+    @Test
+    public void testOf_Series_OneRowPerTimestamp() {
+        ReservationSeries series = new ReservationSeries(UUID.randomUUID(), UUID.randomUUID());
+        series.add(1, 0, null, null, 100, 0, 0, 10, 0, 0, 0);
+        series.add(2, 0, null, null, 200, 0, 0, 20, 0, 0, 0);
+        series.add(3, QUARTER_HOUR, null, null, 300, 0, 0, 30, 0, 0, 0);
+
+        AggregateSeries aggregate = AggregateSeries.of(series);
+
+        assertEquals(2, aggregate.size());
+        assertEquals(300_000, aggregate.getPositiveValue(0));
+        assertEquals(300_000, aggregate.getPositiveValue(1));
+        assertEquals(30_000, aggregate.getNegativeValue(1));
+    }
+
+    /**
+     * Tests that fractional values are rounded to milli-kW before summing, so the totals carry no floating-point error.
+     */
+    @Test
+    public void testOf_FractionalValues_ExactMilliKw() {
+        ReservationSeries series = new ReservationSeries(UUID.randomUUID(), UUID.randomUUID());
+        for (int row = 0; row < 10; row++) {
+            series.add(row, 0, null, null, 0.1, 0, 0, 0.0004, 0, 0, 0);
+        }
+
+        AggregateSeries aggregate = AggregateSeries.of(series);
+
+        assertEquals(1_000, aggregate.getPositiveValue(0));
+        assertEquals(0, aggregate.getNegativeValue(0));
+    }
+
+    /**
+     * Tests that combining two aggregates merges their timestamps in order and sums shared timestamps.
+     */
+    @Test
+    public void testCombine_OverlappingTimestamps_MergedInOrder() {
+        AggregateSeries left = new AggregateSeries();
+        left.accumulate(0, 1, 10);
+        left.accumulate(2 * QUARTER_HOUR, 3, 30);
+        AggregateSeries right = new AggregateSeries();
+        right.accumulate(QUARTER_HOUR, 2, 20);
+        right.accumulate(2 * QUARTER_HOUR, 4, 40);
+
+        AggregateSeries combined = left.combine(right);
+
+        assertEquals(3, combined.size());
+        assertEquals(0, combined.getTimestamp(0));
+        assertEquals(QUARTER_HOUR, combined.getTimestamp(1));
+        assertEquals(2 * QUARTER_HOUR, combined.getTimestamp(2));
+        assertEquals(7, combined.getPositiveValue(2));
+        assertEquals(70, combined.getNegativeValue(2));
+        assertEquals(2, left.size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.reservation.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ReservationFilter}.
+ * Tests validation, the conversion of bounds to database units and matching rows held in memory.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationFilterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 7, 31, 0, 0);
+
+    private ReservationFilter filter;
+    private ReservationSeries series;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new ReservationFilter();
+        UUID assetId = UUID.randomUUID();
+        UUID marketId = UUID.randomUUID();
+        series = ReservationSeries.of(assetId, marketId, List.of(
+                new Reservation(1L, START, assetId, marketId, UUID.randomUUID(), null, 1500, 10, 150, 0, 20, 0, START),
+                new Reservation(2L, START.plusMinutes(15), assetId, marketId, null, UUID.randomUUID(), 0, 0, 0, 800, 30, 210, START.plusDays(1))));
+    }
+
+    /**
+     * Tests that a filter without conditions is empty and matches every row.
+     */
+    @Test
+    public void testIsEmpty_NoConditions_MatchesEveryRow() {
+        assertTrue(filter.isEmpty());
+        assertTrue(filter.ranges().isEmpty());
+        assertTrue(filter.matches(series, 0));
+        assertTrue(filter.matches(series, 1));
+    }
+
+    /**
+     * Tests that value bounds are converted from MW to kW and price bounds are kept.
+     */
+    @Test
+    public void testRanges_ValueAndPrice_ConvertedToDatabaseUnits() {
+        filter.setMinPositiveValue(1.5);
+        filter.setMaxNegativeEnergyPrice(200.0);
+
+        assertEquals(List.of(
+                new ReservationFilter.ValueRange(ReservationField.POSITIVE_VALUE, 1500.0, null),
+                new ReservationFilter.ValueRange(ReservationField.NEGATIVE_ENERGY_PRICE, null, 200.0)), filter.ranges());
+        assertFalse(filter.isEmpty());
+    }
+
+    /**
+     * Tests that inverted ranges and bounds that are not numbers are rejected.
+     */
+    @Test
+    public void testValidate_InvalidBounds_ThrowsException() {
+        filter.setMinPositiveEnergyPrice(200.0);
+        filter.setMaxPositiveEnergyPrice(100.0);
+        assertThrows(IllegalArgumentException.class, filter::validate);
+
+        filter = new ReservationFilter();
+        filter.setMinNegativeValue(Double.NaN);
+        assertThrows(IllegalArgumentException.class, filter::validate);
+
+        filter = new ReservationFilter();
+        filter.setUpdatedFrom(START.plusDays(1).atZone(ZoneOffset.UTC));
+        filter.setUpdatedTo(START.atZone(ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, filter::validate);
+    }
+
+    /**
+     * Tests that rows are matched against inclusive value and price bounds.
+     */
+    @Test
+    public void testMatches_Ranges_InclusiveBounds() {
+        filter.setMinPositiveValue(1.5);
+        filter.setMaxPositiveCapacityPrice(10.0);
+
+        assertTrue(filter.matches(series, 0));
+        assertFalse(filter.matches(series, 1));
+    }
+
+    /**
+     * Tests that rows are matched by the presence of bids and by their update time.
+     */
+    @Test
+    public void testMatches_BidsAndUpdateTime_Success() {
+        filter.setHasPositiveBid(false);
+        assertFalse(filter.matches(series, 0));
+        assertTrue(filter.matches(series, 1));
+
+        filter = new ReservationFilter();
+        filter.setHasNegativeBid(true);
+        filter.setUpdatedTo(START.atZone(ZoneOffset.UTC));
+        assertFalse(filter.matches(series, 0));
+        assertFalse(filter.matches(series, 1));
+
+        filter.setHasNegativeBid(null);
+        assertTrue(filter.matches(series, 0));
+    }
+}
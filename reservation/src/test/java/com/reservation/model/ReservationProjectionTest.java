@@ -0,0 +1,81 @@
+package com.reservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ReservationProjection}.
+ * Tests parsing of field lists, the defaults of the detailed and total exports, and the projected columns and values.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationProjectionTest {
+
+    /**
+     * Tests that without a field list all fields of the export are selected.
+     */
+    @Test
+    public void testParse_NoFields_AllFieldsOfExport() {
+        assertSame(ReservationProjection.DETAILED, ReservationProjection.parse(null, false));
+        assertSame(ReservationProjection.TOTAL, ReservationProjection.parse(null, true));
+        assertEquals(12, ReservationProjection.DETAILED.fields().size());
+    }
+
+    /**
+     * Tests that fields are selected in the given order, ignoring blanks around the names.
+     */
+    @Test
+    public void testParse_FieldList_InGivenOrder() {
+        ReservationProjection projection = ReservationProjection.parse("negativeValue, timestamp ,positiveValue", false);
+
+        assertEquals(List.of(ReservationField.NEGATIVE_VALUE, ReservationField.TIMESTAMP, ReservationField.POSITIVE_VALUE), projection.fields());
+    }
+
+    /**
+     * Tests that unknown, repeated and empty field names are rejected, as are fields the totals do not have.
+     */
+    @Test
+    public void testParse_InvalidFields_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> ReservationProjection.parse("timestamp,price", false));
+        assertThrows(IllegalArgumentException.class, () -> ReservationProjection.parse("timestamp,timestamp", false));
+        assertThrows(IllegalArgumentException.class, () -> ReservationProjection.parse("", false));
+        assertThrows(IllegalArgumentException.class, () -> ReservationProjection.parse("timestamp,positiveCapacityPrice", true));
+    }
+
+    /**
+     * Tests that only fields stored per row are read from a database column.
+     */
+    @Test
+    public void testColumnFields_SharedIdsExcluded() {
+        ReservationProjection projection = ReservationProjection.parse("assetId,updatedAt,timestamp", false);
+
+        assertEquals(Set.of(ReservationField.TIMESTAMP, ReservationField.UPDATED_AT), projection.columnFields());
+    }
+
+    /**
+     * Tests that a row is converted to the selected fields by name, in the selected order.
+     */
+    @Test
+    public void testToMap_Row_SelectedFieldsInOrder() {
+        UUID assetId = UUID.randomUUID();
+        ReservationSeries series = new ReservationSeries(assetId, UUID.randomUUID());
+        LocalDateTime timestamp = LocalDateTime.of(2024, 7, 1, 0, 15);
+        series.add(1, ReservationSeries.toEpochMicros(timestamp), null, null, 1.5, 0, 0, 2.5, 0, 0, 0);
+
+        Map<String, Object> values = ReservationProjection.parse("positiveValue,assetId,timestamp", false).toMap(series, 0);
+
+        assertEquals(List.of("positiveValue", "assetId", "timestamp"), List.copyOf(values.keySet()));
+        assertEquals(1.5, values.get("positiveValue"));
+        assertEquals(assetId, values.get("assetId"));
+        assertEquals(timestamp, values.get("timestamp"));
+    }
+}
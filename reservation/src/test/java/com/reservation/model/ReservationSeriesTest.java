@@ -0,0 +1,225 @@
+package com.reservation.model;
+
+import com.reservation.compute.ColumnKernels;
+import com.reservation.compute.ColumnStatistics;
+import com.reservation.compute.ScalarColumnKernels;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ReservationSeries}.
+ * Tests appending, growth, storage of bid IDs, conversion from and to reservation entities and the batch operations
+ * on the value columns.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReservationSeriesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 7, 31, 0, 0);
+
+    private final ColumnKernels kernels = new ScalarColumnKernels();
+
+    private UUID assetId;
+    private UUID marketId;
+
+    @BeforeEach
+    public void setUp() {
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+    }
+
+    /**
+     * Tests that entities converted to a series and back keep all their values.
+     */
+    @Test
+    public void testOf_RoundTrip_Success() {
+        Reservation reservation = new Reservation(7L, START.plusNanos(794_363_000), assetId, marketId, UUID.randomUUID(), null,
+                100, 1.5, 2.5, 50, 3.5, 4.5, START.minusDays(1));
+
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(reservation));
+
+        assertEquals(1, series.size());
+        assertEquals(List.of(reservation), series.toReservations());
+    }
+
+    /**
+     * Tests that entities are ordered by timestamp and id when a series is created from them.
+     */
+    @Test
+    public void testOf_Unordered_SortedByTimestampAndId() {
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(3L, START.plusMinutes(15), null),
+                reservation(2L, START, null),
+                reservation(1L, START, null)));
+
+        assertEquals(1L, series.getId(0));
+        assertEquals(2L, series.getId(1));
+        assertEquals(3L, series.getId(2));
+    }
+
+    /**
+     * Tests growth beyond the initial capacity and that bid IDs are kept across it.
+     */
+    @Test
+    public void testAdd_ManyRows_GrowsAndKeepsBidIds() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId, 1);
+        UUID bidId = UUID.randomUUID();
+
+        for (int i = 0; i < 500; i++) {
+            series.add(reservation(i, START.plusMinutes(15L * i), new UUID(bidId.getMostSignificantBits(), bidId.getLeastSignificantBits())));
+        }
+
+        assertEquals(500, series.size());
+        assertEquals(499L, series.getId(499));
+        assertEquals(ReservationSeries.toEpochMicros(START.plusMinutes(15L * 499)), series.getTimestamp(499));
+        assertEquals(bidId, series.getPositiveBidId(0));
+        assertEquals(bidId, series.getPositiveBidId(499));
+        assertNull(series.getNegativeBidId(499));
+    }
+
+    /**
+     * Tests that missing bid IDs stay missing, including the nil UUID being kept apart from a missing bid, when rows
+     * are appended, selected and summed.
+     */
+    @Test
+    public void testBidIds_MissingAndNil_KeptApart() {
+        UUID nil = new UUID(0, 0);
+        UUID bidId = UUID.randomUUID();
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, 0, nil, null, 100, 1, 2, 50, 3, 4, 0);
+        series.add(2, 1, null, bidId, 100, 1, 2, 50, 3, 4, 0);
+
+        ReservationSeries copied = new ReservationSeries(assetId, marketId);
+        copied.addAll(series.select(row -> true));
+        ReservationSeries summed = series.sumPerTimestamp(kernels, false);
+
+        for (ReservationSeries result : List.of(copied, summed)) {
+            assertEquals(nil, result.getPositiveBidId(0));
+            assertNull(result.getNegativeBidId(0));
+            assertNull(result.getPositiveBidId(1));
+            assertEquals(bidId, result.getNegativeBidId(1));
+        }
+        assertEquals(bidId, series.toReservation(1).getNegativeBidId());
+    }
+
+    /**
+     * Tests that rows out of timestamp order are rejected.
+     */
+    @Test
+    public void testAdd_OutOfOrder_ThrowsException() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, START.plusMinutes(15), null));
+
+        assertThrows(IllegalArgumentException.class, () -> series.add(reservation(2L, START, null)));
+    }
+
+    /**
+     * Tests that the rows of a later series of the same pair are appended in order, and that series of another pair
+     * or of an earlier range are rejected.
+     */
+    @Test
+    public void testAddAll_LaterSeries_Appended() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, START, null));
+        ReservationSeries later = new ReservationSeries(assetId, marketId);
+        later.add(reservation(2L, START.plusMinutes(15), UUID.randomUUID()));
+        later.add(reservation(3L, START.plusMinutes(30), null));
+
+        series.addAll(later);
+
+        assertEquals(3, series.size());
+        assertEquals(3L, series.getId(2));
+        assertEquals(later.getPositiveBidId(0), series.getPositiveBidId(1));
+        assertThrows(IllegalArgumentException.class, () -> series.addAll(new ReservationSeries(UUID.randomUUID(), marketId)));
+        ReservationSeries earlier = new ReservationSeries(assetId, marketId);
+        earlier.add(reservation(0L, START.minusMinutes(15), null));
+        assertThrows(IllegalArgumentException.class, () -> series.addAll(earlier));
+    }
+
+    /**
+     * Tests conversion between date-times and epoch microseconds, including times before the epoch.
+     */
+    @Test
+    public void testEpochMicros_RoundTrip_Success() {
+        LocalDateTime[] dateTimes = {START, START.plusNanos(794_363_000), LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000)};
+
+        for (LocalDateTime dateTime : dateTimes) {
+            assertEquals(dateTime, ReservationSeries.fromEpochMicros(ReservationSeries.toEpochMicros(dateTime)));
+        }
+        assertEquals(-1, ReservationSeries.toEpochMicros(dateTimes[2]));
+    }
+
+    /**
+     * Tests that values are divided in place while prices are left unchanged.
+     */
+    @Test
+    public void testDivideValues_Success() {
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(reservation(1L, START, null)));
+
+        series.divideValues(kernels, 1000);
+
+        assertEquals(0.1, series.getPositiveValue(0));
+        assertEquals(0.05, series.getNegativeValue(0));
+        assertEquals(1, series.getPositiveCapacityPrice(0));
+    }
+
+    /**
+     * Tests that the rows of each timestamp are summed into one row holding the other columns of the first row.
+     */
+    @Test
+    public void testSumPerTimestamp_RepeatedTimestamps_Summed() {
+        UUID bidId = UUID.randomUUID();
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(1L, START, bidId),
+                reservation(2L, START, UUID.randomUUID()),
+                reservation(3L, START.plusMinutes(15), null)));
+
+        ReservationSeries summed = series.sumPerTimestamp(kernels, false);
+
+        assertEquals(2, summed.size());
+        assertEquals(new Reservation(1L, START, assetId, marketId, bidId, null, 200, 1, 2, 100, 3, 4, START), summed.toReservation(0));
+        assertEquals(series.toReservation(2), summed.toReservation(1));
+    }
+
+    /**
+     * Tests that fixed-point sums are exact in milli-kW.
+     */
+    @Test
+    public void testSumPerTimestamp_FixedPoint_ExactSums() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        for (int i = 0; i < 10; i++) {
+            series.add(i, 0, null, null, 0.1, 0, 0, 0.2, 0, 0, 0);
+        }
+
+        assertEquals(0.9999999999999999, series.sumPerTimestamp(kernels, false).getPositiveValue(0));
+        assertEquals(1.0, series.sumPerTimestamp(kernels, true).getPositiveValue(0));
+        assertEquals(2.0, series.sumPerTimestamp(kernels, true).getNegativeValue(0));
+    }
+
+    /**
+     * Tests the statistics of a numeric field and the rejection of other fields.
+     */
+    @Test
+    public void testStatistics_NumericField_Success() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, 0, null, null, 3, 0, 0, 0, 0, 0, 0);
+        series.add(2, 1, null, null, -1, 0, 0, 0, 0, 0, 0);
+        series.add(3, 2, null, null, 4, 0, 0, 0, 0, 0, 0);
+
+        assertEquals(new ColumnStatistics(3, -1, 4, 2), series.statistics(ReservationField.POSITIVE_VALUE, kernels));
+        assertEquals(ColumnStatistics.EMPTY, new ReservationSeries(assetId, marketId).statistics(ReservationField.NEGATIVE_VALUE, kernels));
+        assertThrows(IllegalArgumentException.class, () -> series.statistics(ReservationField.TIMESTAMP, kernels));
+    }
+
+    private Reservation reservation(long id, LocalDateTime timestamp, UUID positiveBidId) {
+        return new Reservation(id, timestamp, assetId, marketId, positiveBidId, null, 100, 1, 2, 50, 3, 4, timestamp);
+    }
+}
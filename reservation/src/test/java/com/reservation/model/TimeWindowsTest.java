@@ -0,0 +1,147 @@
+package com.reservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link TimeWindows}.
+ * Tests that windows are parsed and kept in time order with overlapping ones merged, that daily windows follow the
+ * days and times asked for, and that time points are found within the windows.
+ *
+ * @author Bojana Samardzic
+ */
+public class TimeWindowsTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    /**
+     * Tests that parsed windows are sorted, that overlapping and touching windows are merged, and that time points
+     * are converted to the default time zone of the JVM.
+     */
+    @Test
+    public void testParseSortsAndMergesWindows() {
+        TimeWindows windows = TimeWindows.parse("2024-03-08T00:00:00Z/2024-03-09T00:00:00Z, "
+                + "2024-03-01T00:00:00Z/2024-03-02T00:00:00Z,2024-03-01T12:00:00Z/2024-03-02T06:00:00Z,"
+                + "2024-03-09T00:00:00Z/2024-03-09T12:00:00Z");
+
+        assertEquals(List.of(
+                new TimeWindows.Window(local("2024-03-01T00:00:00Z"), local("2024-03-02T06:00:00Z")),
+                new TimeWindows.Window(local("2024-03-08T00:00:00Z"), local("2024-03-09T12:00:00Z"))), windows.windows());
+        assertEquals(local("2024-03-01T00:00:00Z"), windows.from());
+        assertEquals(local("2024-03-09T12:00:00Z"), windows.to());
+    }
+
+    /**
+     * Tests that malformed windows, windows ending before they start and too many windows are rejected.
+     */
+    @Test
+    public void testParseRejectsInvalidWindows() {
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.parse("2024-03-01T00:00:00Z"));
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.parse("2024-03-01/2024-03-02"));
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.parse("2024-03-02T00:00:00Z/2024-03-01T00:00:00Z"));
+        assertThrows(IllegalArgumentException.class, () -> new TimeWindows(List.of()));
+
+        StringBuilder tooMany = new StringBuilder();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i <= TimeWindows.MAX_WINDOWS; i++) {
+            tooMany.append(i == 0 ? "" : ",").append(start.plusDays(i)).append("Z/").append(start.plusDays(i).plusHours(1)).append('Z');
+        }
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.parse(tooMany.toString()));
+    }
+
+    /**
+     * Tests that daily windows are created on the days of the week asked for only, keep their time of day across a
+     * daylight saving time change and are clipped to the range.
+     */
+    @Test
+    public void testDailyWindowsOnWorkingDays() {
+        ZonedDateTime from = ZonedDateTime.of(2024, 3, 29, 10, 0, 0, 0, BERLIN);
+        ZonedDateTime to = ZonedDateTime.of(2024, 4, 2, 0, 0, 0, 0, BERLIN);
+
+        TimeWindows windows = TimeWindows.daily(from, to, LocalTime.of(8, 0), LocalTime.of(20, 0),
+                List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY));
+
+        assertEquals(List.of(
+                window(from, ZonedDateTime.of(2024, 3, 29, 20, 0, 0, 0, BERLIN)),
+                window(ZonedDateTime.of(2024, 4, 1, 8, 0, 0, 0, BERLIN), ZonedDateTime.of(2024, 4, 1, 20, 0, 0, 0, BERLIN))),
+                windows.windows());
+    }
+
+    /**
+     * Tests that a daily window ending before its start ends on the next day, and that the window of the day before
+     * the range is clipped into it.
+     */
+    @Test
+    public void testDailyWindowsAcrossMidnight() {
+        ZonedDateTime from = ZonedDateTime.of(2024, 6, 1, 0, 0, 0, 0, BERLIN);
+        ZonedDateTime to = ZonedDateTime.of(2024, 6, 2, 12, 0, 0, 0, BERLIN);
+
+        TimeWindows windows = TimeWindows.daily(from, to, LocalTime.of(22, 0), LocalTime.of(6, 0), null);
+
+        assertEquals(List.of(
+                window(from, ZonedDateTime.of(2024, 6, 1, 6, 0, 0, 0, BERLIN)),
+                window(ZonedDateTime.of(2024, 6, 1, 22, 0, 0, 0, BERLIN), ZonedDateTime.of(2024, 6, 2, 6, 0, 0, 0, BERLIN))),
+                windows.windows());
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.daily(to, from, LocalTime.of(22, 0), LocalTime.of(6, 0), null));
+    }
+
+    /**
+     * Tests that time points are found within the windows, including both of their ends, and not between them.
+     */
+    @Test
+    public void testContains() {
+        TimeWindows windows = new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 1, 8, 0), LocalDateTime.of(2024, 1, 1, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 2, 8, 0), LocalDateTime.of(2024, 1, 2, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 3, 8, 0), LocalDateTime.of(2024, 1, 3, 20, 0))));
+
+        assertTrue(windows.contains(micros(LocalDateTime.of(2024, 1, 1, 8, 0))));
+        assertTrue(windows.contains(micros(LocalDateTime.of(2024, 1, 2, 12, 0))));
+        assertTrue(windows.contains(micros(LocalDateTime.of(2024, 1, 3, 20, 0))));
+        assertFalse(windows.contains(micros(LocalDateTime.of(2024, 1, 1, 7, 45))));
+        assertFalse(windows.contains(micros(LocalDateTime.of(2024, 1, 2, 20, 15))));
+        assertFalse(windows.contains(micros(LocalDateTime.of(2024, 1, 4, 8, 0))));
+    }
+
+    /**
+     * Tests that the parts of the windows from a time point on are clipped to it, and earlier windows are left out.
+     */
+    @Test
+    public void testSince() {
+        TimeWindows windows = new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 1, 8, 0), LocalDateTime.of(2024, 1, 1, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 2, 8, 0), LocalDateTime.of(2024, 1, 2, 20, 0))));
+
+        assertEquals(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 1, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 1, 2, 8, 0), LocalDateTime.of(2024, 1, 2, 20, 0))),
+                windows.since(LocalDateTime.of(2024, 1, 1, 12, 0)));
+        assertEquals(List.of(windows.windows().get(1)), windows.since(LocalDateTime.of(2024, 1, 2, 0, 0)));
+        assertTrue(windows.since(LocalDateTime.of(2024, 1, 3, 0, 0)).isEmpty());
+    }
+
+    private static TimeWindows.Window window(ZonedDateTime from, ZonedDateTime to) {
+        return new TimeWindows.Window(from.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
+                to.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+    }
+
+    private static LocalDateTime local(String dateTime) {
+        return OffsetDateTime.parse(dateTime).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return ReservationSeries.toEpochMicros(dateTime);
+    }
+}
@@ -0,0 +1,230 @@
+package com.reservation.partition;
+
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.model.ReservationPartition;
+import com.reservation.repository.ReservationPartitionRepository;
+import com.reservation.repository.ReservationPartitionRepository.MaintenanceLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PartitionMaintenance}.
+ * Tests that the partitions of the current and upcoming months and of months in the default partition are created,
+ * that only the partitions entirely before the retention are archived, and that a run only proceeds while it holds
+ * the maintenance lock.
+ *
+ * @author Bojana Samardzic
+ */
+public class PartitionMaintenanceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-15T10:00:00Z");
+
+    private PartitionProperties properties;
+    private ReservationPartitionRepository partitionRepository;
+    private ColdTierStore coldTierStore;
+    private MaintenanceLock lock;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionMaintenance maintenance;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new PartitionProperties();
+        partitionRepository = mock(ReservationPartitionRepository.class);
+        when(partitionRepository.createPartition(any(YearMonth.class))).thenReturn(Optional.empty());
+        lock = mock(MaintenanceLock.class);
+        when(partitionRepository.tryLockMaintenance()).thenReturn(Optional.of(lock));
+        coldTierStore = mock(ColdTierStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        maintenance = new PartitionMaintenance(properties, partitionRepository, coldTierStore, meterRegistry);
+    }
+
+    /**
+     * Tests that the partitions of the current month and of the premade months after it are created, counting only
+     * those that did not exist yet.
+     */
+    @Test
+    public void testCreatesPartitionsOfUpcomingMonths() {
+        properties.setPremadeMonths(2);
+        when(partitionRepository.createPartition(YearMonth.of(2024, 8))).thenReturn(Optional.of("reservation_2024_08"));
+
+        maintenance.maintain(NOW);
+
+        verify(partitionRepository).createPartition(YearMonth.of(2024, 6));
+        verify(partitionRepository).createPartition(YearMonth.of(2024, 7));
+        verify(partitionRepository).createPartition(YearMonth.of(2024, 8));
+        verify(partitionRepository, never()).createPartition(YearMonth.of(2024, 9));
+        assertEquals(1, meterRegistry.counter("reservation.partitions.created").count());
+    }
+
+    /**
+     * Tests that the partitions of past months with reservations in the default partition are created before the
+     * upcoming ones.
+     */
+    @Test
+    public void testCreatesPartitionsOfMonthsInDefaultPartition() {
+        properties.setPremadeMonths(0);
+        when(partitionRepository.findDefaultPartitionMonths()).thenReturn(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        when(partitionRepository.createPartition(YearMonth.of(2024, 1))).thenReturn(Optional.of("reservation_2024_01"));
+        when(partitionRepository.createPartition(YearMonth.of(2024, 2))).thenReturn(Optional.of("reservation_2024_02"));
+
+        maintenance.maintain(NOW);
+
+        InOrder order = inOrder(partitionRepository);
+        order.verify(partitionRepository).createPartition(YearMonth.of(2024, 1));
+        order.verify(partitionRepository).createPartition(YearMonth.of(2024, 2));
+        order.verify(partitionRepository).createPartition(YearMonth.of(2024, 6));
+        assertEquals(2, meterRegistry.counter("reservation.partitions.created").count());
+    }
+
+    /**
+     * Tests that partitions ending at or before the retention cutoff are archived, while the partition containing
+     * the cutoff is kept.
+     */
+    @Test
+    public void testArchivesPartitionsBeforeRetention() {
+        properties.setRetention(Period.ofMonths(3));
+        ReservationPartition february = partition(YearMonth.of(2024, 2));
+        ReservationPartition march = partition(YearMonth.of(2024, 3));
+        ReservationPartition june = partition(YearMonth.of(2024, 6));
+        when(partitionRepository.findPartitions()).thenReturn(List.of(february, march, june));
+
+        maintenance.maintain(NOW);
+
+        verify(partitionRepository).archivePartition(february);
+        verify(partitionRepository, never()).archivePartition(march);
+        verify(partitionRepository, never()).archivePartition(june);
+        assertEquals(1, meterRegistry.counter("reservation.partitions.archived").count());
+    }
+
+    /**
+     * Tests that with the cold tier enabled, expired partitions are detached and written to the cold tier before they
+     * are dropped, and that a partition whose file cannot be written is attached again and kept in the database along
+     * with all later ones.
+     */
+    @Test
+    public void testMovesPartitionsToColdTier() throws IOException {
+        properties.setRetention(Period.ofMonths(2));
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        ReservationPartition february = partition(YearMonth.of(2024, 2));
+        ReservationPartition march = partition(YearMonth.of(2024, 3));
+        when(partitionRepository.findPartitions()).thenReturn(List.of(january, february, march));
+        when(coldTierStore.isEnabled()).thenReturn(true);
+        doThrow(new IOException("disk full")).when(coldTierStore).archive(february);
+
+        maintenance.maintain(NOW);
+
+        InOrder order = inOrder(coldTierStore, partitionRepository, lock);
+        order.verify(partitionRepository).detachPartition(january);
+        order.verify(coldTierStore).archive(january);
+        order.verify(partitionRepository).dropPartition(january);
+        order.verify(partitionRepository).detachPartition(february);
+        order.verify(partitionRepository).attachPartition(february);
+        order.verify(lock).close();
+        verify(partitionRepository, never()).dropPartition(february);
+        verify(partitionRepository, never()).detachPartition(march);
+        verify(coldTierStore, never()).archive(march);
+        verify(partitionRepository, never()).archivePartition(any());
+        assertEquals(1, meterRegistry.counter("reservation.partitions.archived").count());
+    }
+
+    /**
+     * Tests that a partition left detached by an interrupted run is moved to the cold tier before expired partitions.
+     */
+    @Test
+    public void testMovesDetachedPartitionToColdTier() throws IOException {
+        properties.setRetention(Period.ofMonths(2));
+        ReservationPartition january = partition(YearMonth.of(2024, 1));
+        ReservationPartition february = partition(YearMonth.of(2024, 2));
+        when(partitionRepository.findDetachedPartitions()).thenReturn(List.of(january));
+        when(partitionRepository.findPartitions()).thenReturn(List.of(february));
+        when(coldTierStore.isEnabled()).thenReturn(true);
+
+        maintenance.maintain(NOW);
+
+        InOrder order = inOrder(coldTierStore, partitionRepository);
+        order.verify(coldTierStore).archive(january);
+        order.verify(partitionRepository).dropPartition(january);
+        order.verify(partitionRepository).detachPartition(february);
+        order.verify(coldTierStore).archive(february);
+        order.verify(partitionRepository).dropPartition(february);
+        verify(partitionRepository, never()).detachPartition(january);
+        assertEquals(2, meterRegistry.counter("reservation.partitions.archived").count());
+    }
+
+    /**
+     * Tests that a run leaves the partitions alone while another instance holds the maintenance lock.
+     */
+    @Test
+    public void testSkipsRunWhileLockedElsewhere() {
+        properties.setRetention(Period.ofMonths(1));
+        when(partitionRepository.tryLockMaintenance()).thenReturn(Optional.empty());
+
+        maintenance.maintain(NOW);
+
+        verify(partitionRepository, never()).createPartition(any(YearMonth.class));
+        verify(partitionRepository, never()).findPartitions();
+    }
+
+    /**
+     * Tests that no partitions are archived without a retention.
+     */
+    @Test
+    public void testKeepsPartitionsWithoutRetention() {
+        maintenance.maintain(NOW);
+
+        verify(partitionRepository, never()).findPartitions();
+        verify(partitionRepository, never()).archivePartition(any());
+    }
+
+    /**
+     * Tests that disabled maintenance leaves the partitions alone.
+     */
+    @Test
+    public void testDisabled() {
+        properties.setEnabled(false);
+        properties.setRetention(Period.ofMonths(1));
+
+        maintenance.maintain();
+
+        verifyNoInteractions(partitionRepository);
+    }
+
+    /**
+     * Tests that a failing database is logged instead of failing the scheduled run.
+     */
+    @Test
+    public void testDatabaseFailureIsNotPropagated() {
+        when(partitionRepository.createPartition(any(YearMonth.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertDoesNotThrow(() -> maintenance.maintain(NOW));
+    }
+
+    private static ReservationPartition partition(YearMonth month) {
+        return new ReservationPartition("reservation_" + month.toString().replace('-', '_'),
+                month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,174 @@
+package com.reservation.profiling;
+
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.ExportEncodingContext;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.format.ReservationSink;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link FlightRecordings} and the export events it records.
+ * Tests that a started recording captures the export events with the series they belong to, that dumps are kept
+ * until they are released, that the environment and system properties are left out, and that exports outside of a
+ * recording are written without instrumentation.
+ *
+ * @author Bojana Samardzic
+ */
+public class FlightRecordingsTest {
+
+    @TempDir
+    private Path directory;
+
+    private FlightRecorderProperties properties;
+    private FlightRecordings recordings;
+    private CsvReservationFormat format;
+    private UUID assetId;
+    private UUID marketId;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new FlightRecorderProperties();
+        properties.setDirectory(directory);
+        recordings = new FlightRecordings(properties, new DefaultResourceLoader());
+        format = new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter());
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recordings.close();
+    }
+
+    /**
+     * Tests that the formatting batches, flushes and cache lookups of an export are recorded with their series, row
+     * counts and bytes, and that the bytes of the flushes add up to the written export.
+     */
+    @Test
+    public void testRecordsExportEvents() throws IOException {
+        recordings.start(null);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ReservationSink sink = ProfiledReservationSink.open(format, outputStream, ReservationProjection.parse("positiveValue", false),
+                new ExportEncodingContext(assetId, marketId), assetId, marketId, false);
+        sink.writeHeader();
+        sink.writeRows(series(3));
+        sink.writeRows(series(2));
+        sink.flush();
+        CacheLookupEvent.lookup("hotWindow", assetId, marketId, false, Optional::empty);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordings.dump().orElseThrow());
+
+        List<RecordedEvent> batches = events(events, "com.reservation.FormatBatch");
+        assertEquals(List.of(3L, 2L), batches.stream().map(event -> event.getLong("rows")).toList());
+        assertEquals(assetId.toString(), batches.get(0).getString("assetId"));
+        assertEquals(marketId.toString(), batches.get(0).getString("marketId"));
+        assertEquals("text/csv", batches.get(0).getString("format"));
+        assertFalse(batches.get(0).getBoolean("total"));
+        List<RecordedEvent> flushes = events(events, "com.reservation.ResponseFlush");
+        assertEquals(outputStream.size(), flushes.get(flushes.size() - 1).getLong("totalBytes"));
+        RecordedEvent lookup = events(events, "com.reservation.CacheLookup").get(0);
+        assertEquals("hotWindow", lookup.getString("cache"));
+        assertFalse(lookup.getBoolean("hit"));
+    }
+
+    /**
+     * Tests that recordings leave out the environment variables and system properties of the JVM.
+     */
+    @Test
+    public void testOmitsEnvironmentAndSystemProperties() throws IOException {
+        recordings.start(null);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordings.dump().orElseThrow());
+
+        assertFalse(events.isEmpty());
+        assertTrue(events(events, "jdk.InitialEnvironmentVariable").isEmpty());
+        assertTrue(events(events, "jdk.InitialSystemProperty").isEmpty());
+    }
+
+    /**
+     * Tests that the sink of the format is used as is while no recording is running.
+     */
+    @Test
+    public void testNoInstrumentationWithoutRecording() {
+        ReservationSink sink = ProfiledReservationSink.open(format, new ByteArrayOutputStream(), ReservationProjection.parse("positiveValue", false),
+                new ExportEncodingContext(), assetId, marketId, false);
+
+        assertFalse(sink instanceof ProfiledReservationSink);
+    }
+
+    /**
+     * Tests that each dump gets a file of its own that is kept until it is released or the recordings are closed, and
+     * that a stopped recording can still be dumped.
+     */
+    @Test
+    public void testKeepsDumpsUntilReleased() throws IOException {
+        assertTrue(recordings.dump().isEmpty());
+        recordings.start(Duration.ofMinutes(5));
+
+        Path first = recordings.dump().orElseThrow();
+        assertEquals("STOPPED", recordings.stop().orElseThrow().state());
+        Path second = recordings.dump().orElseThrow();
+
+        assertNotEquals(first, second);
+        assertTrue(Files.exists(first));
+        recordings.release(first);
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+        assertEquals(Duration.ofMinutes(5), recordings.status().orElseThrow().duration());
+
+        recordings.close();
+        assertFalse(Files.exists(second));
+    }
+
+    /**
+     * Tests that an unreadable JFC file fails on startup.
+     */
+    @Test
+    public void testInvalidSettings() throws IOException {
+        Path settings = Files.writeString(directory.resolve("broken.jfc"), "<configuration");
+        properties.setSettings(settings.toUri().toString());
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new FlightRecordings(properties, new DefaultResourceLoader()));
+        assertInstanceOf(ParseException.class, exception.getCause());
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    private ReservationSeries series(int rows) {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        for (int row = 0; row < rows; row++) {
+            series.add(row, row, null, null, 1000 + row, 0, 0, 0, 0, 0, 0);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,246 @@
+package com.reservation.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reservation.changefeed.ChangeFeedProperties;
+import com.reservation.changefeed.ReservationChangeFeed;
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.dto.ReservationDTO;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.format.NdjsonReservationFormat;
+import com.reservation.format.ReservationFormat;
+import com.reservation.format.ReservationFormatRegistry;
+import com.reservation.format.TsvReservationFormat;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ReactiveReservationHandler}.
+ * Tests the routes of the reactive export server against a mocked service.
+ *
+ * @author Bojana Samardzic
+ */
+public class ReactiveReservationHandlerTest {
+
+    private static final String EXPORT_URI = "/api/v1/flexibility/reservations/{assetId}/market/{marketId}/export?from={from}&to={to}";
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private ReservationChangeFeed changeFeed;
+
+    @Spy
+    private ChangeFeedProperties changeFeedProperties;
+
+    private final CsvReservationFormat csvFormat = new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter());
+    private final TsvReservationFormat tsvFormat = new TsvReservationFormat();
+
+    @Spy
+    private ReservationFormatRegistry exportFormats = new ReservationFormatRegistry(List.of(csvFormat, tsvFormat, new NdjsonReservationFormat()));
+
+    @InjectMocks
+    private ReactiveReservationHandler handler;
+
+    private WebTestClient client;
+    private UUID assetId;
+    private UUID marketId;
+
+    /**
+     * Sets up the test client on the routes of the handler, serializing JSON like the application does.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .build();
+        client = WebTestClient.bindToRouterFunction(handler.routes()).handlerStrategies(strategies).build();
+        assetId = UUID.randomUUID();
+        marketId = UUID.randomUUID();
+    }
+
+    /**
+     * Tests that an export streams the CSV of the service as an attachment, passing the filter parameters along.
+     */
+    @Test
+    public void testExportReservationsToCSV_Success() {
+        when(reservationService.streamReservations(eq(assetId), eq(marketId), any(ZonedDateTime.class), any(ZonedDateTime.class),
+                eq(false), eq(ReservationProjection.DETAILED), argThat(filter -> Double.valueOf(5).equals(filter.getMinPositiveValue())), same(csvFormat)))
+                .thenReturn(Flux.just(bytes("\"header\"\n"), bytes("\"row\"\n")));
+
+        client.get().uri(EXPORT_URI + "&minPositiveValue=5", assetId, marketId, "2024-07-01T00:00:00Z", "2024-07-02T00:00:00Z")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reservations.csv")
+                .expectHeader().contentTypeCompatibleWith(new MediaType("text", "csv"))
+                .expectBody(String.class).isEqualTo("\"header\"\n\"row\"\n");
+    }
+
+    /**
+     * Tests that an export with 'from' after 'to' is rejected without streaming.
+     */
+    @Test
+    public void testExportReservationsToCSV_InvalidDateRange_BadRequest() {
+        client.get().uri(EXPORT_URI, assetId, marketId, "2024-07-02T00:00:00Z", "2024-07-01T00:00:00Z")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Invalid date range: 'from' cannot be after 'to'");
+
+        verify(reservationService, never()).streamReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export with a filter value that is not a number is rejected.
+     */
+    @Test
+    public void testExportReservationsToCSV_InvalidFilter_BadRequest() {
+        client.get().uri(EXPORT_URI + "&minPositiveValue=abc", assetId, marketId, "2024-07-01T00:00:00Z", "2024-07-02T00:00:00Z")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(reservationService, never()).streamReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export accepting tab-separated values is streamed in that format, named after its extension.
+     */
+    @Test
+    public void testExportReservationsToCSV_AcceptTsv_TsvAttachment() {
+        when(reservationService.streamReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), same(tsvFormat)))
+                .thenReturn(Flux.just(bytes("positiveValue\n"), bytes("1.5\n")));
+
+        client.get().uri(EXPORT_URI, assetId, marketId, "2024-07-01T00:00:00Z", "2024-07-02T00:00:00Z")
+                .accept(TsvReservationFormat.TEXT_TAB_SEPARATED_VALUES)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reservations.tsv")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectHeader().contentTypeCompatibleWith(TsvReservationFormat.TEXT_TAB_SEPARATED_VALUES)
+                .expectBody(String.class).isEqualTo("positiveValue\n1.5\n");
+    }
+
+    /**
+     * Tests that an export accepting none of the export formats is rejected without streaming.
+     */
+    @Test
+    public void testExportReservationsToCSV_NoAcceptableFormat_NotAcceptable() {
+        client.get().uri(EXPORT_URI, assetId, marketId, "2024-07-01T00:00:00Z", "2024-07-02T00:00:00Z")
+                .accept(MediaType.APPLICATION_PDF)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+
+        verify(reservationService, never()).streamReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(ReservationFormat.class));
+    }
+
+    /**
+     * Tests that the selected fields of the streamed chunks are returned as newline-delimited JSON on request.
+     */
+    @Test
+    public void testGetReservations_FieldsAsNdjson() {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries chunk = new ReservationSeries(assetId, marketId);
+        chunk.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), null, null, 1.5, 0, 0, 0, 0, 0, 0);
+        chunk.add(2, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 15)), null, null, 2.5, 0, 0, 0, 0, 0, 0);
+        when(reservationService.streamReservationSeries(assetId, marketId, projection)).thenReturn(Flux.just(chunk));
+
+        client.get().uri("/api/v1/flexibility/reservations/{assetId}/market/{marketId}?fields=timestamp,positiveValue", assetId, marketId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo("""
+                        {"timestamp":"2024-07-01T00:00:00","positiveValue":1.5}
+                        {"timestamp":"2024-07-01T00:15:00","positiveValue":2.5}
+                        """);
+    }
+
+    /**
+     * Tests that an asset without reservations yields an empty JSON array.
+     */
+    @Test
+    public void testGetReservations_NoReservations_EmptyArray() {
+        when(reservationService.streamReservationSeries(assetId, marketId, ReservationProjection.DETAILED)).thenReturn(Flux.empty());
+
+        client.get().uri("/api/v1/flexibility/reservations/{assetId}/market/{marketId}", assetId, marketId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("[]");
+    }
+
+    /**
+     * Tests that changes are streamed as server-sent events identified by their update time, resuming after the
+     * {@code Last-Event-ID} of a reconnecting client rather than the {@code since} of its original request.
+     */
+    @Test
+    public void testStreamReservationChanges_LastEventId_ResumesAfterIt() {
+        ReservationDTO change = new ReservationDTO();
+        change.setId(1L);
+        change.setUpdatedAt(LocalDateTime.of(2024, 7, 1, 12, 0, 30));
+        when(changeFeed.isRunning()).thenReturn(true);
+        when(changeFeed.subscribe(eq(assetId), eq(marketId), argThat(since -> since.toInstant().equals(Instant.parse("2024-07-01T12:00:00Z")))))
+                .thenReturn(Flux.just(change));
+
+        String body = client.get().uri("/api/v1/flexibility/reservations/{assetId}/market/{marketId}/changes?since=2024-01-01T00:00:00Z", assetId, marketId)
+                .header("Last-Event-ID", "2024-07-01T12:00:00Z")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertTrue(body.startsWith("id:" + change.getUpdatedAt().atZone(ZoneId.systemDefault()).toOffsetDateTime() + "\nevent:reservation\ndata:{\"id\":1,"));
+    }
+
+    /**
+     * Tests that the change feed endpoint is unavailable while the feed is disabled.
+     */
+    @Test
+    public void testStreamReservationChanges_Disabled_ServiceUnavailable() {
+        when(changeFeed.isRunning()).thenReturn(false);
+
+        client.get().uri("/api/v1/flexibility/reservations/{assetId}/market/{marketId}/changes", assetId, marketId)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        verify(changeFeed, never()).subscribe(any(), any(), any());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,31 +1,65 @@
 package com.reservation.service;
 
 import com.opencsv.CSVWriter;
+import com.reservation.coldtier.ColdTierStore;
+import com.reservation.coldtier.ColdTierView;
+import com.reservation.compute.ColumnKernels;
+import com.reservation.compute.ColumnStatistics;
+import com.reservation.compute.ScalarColumnKernels;
+import com.reservation.csvHandler.AggregateCSVFormatter;
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.FixedPointProperties;
 import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.hotwindow.HotWindowStore;
+import com.reservation.model.AggregateSeries;
 import com.reservation.model.Reservation;
+import com.reservation.model.ReservationField;
+import com.reservation.model.ReservationFilter;
+import com.reservation.model.ReservationProjection;
+import com.reservation.model.ReservationSeries;
+import com.reservation.model.TimeWindows;
+import com.reservation.repository.ReactiveReservationSeriesRepository;
 import com.reservation.repository.ReservationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import reactor.core.publisher.Flux;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,9 +77,28 @@ public class ReservationServiceImplTest {
     @Mock
     private TotalCSVFormatter totalCSVFormatter;
 
+    @Mock
+    private HotWindowStore hotWindowStore;
+
+    @Mock
+    private ReactiveReservationSeriesRepository reactiveSeriesRepository;
+
+    @Mock
+    private ColdTierStore coldTierStore;
+
+    @Spy
+    private AggregateCSVFormatter aggregateCSVFormatter;
+
+    @Spy
+    private FixedPointProperties fixedPointProperties;
+
+    @Spy
+    private ColumnKernels columnKernels = new ScalarColumnKernels();
+
     @InjectMocks
     private ReservationServiceImpl reservationServiceImpl;
 
+    private CsvReservationFormat csvFormat;
     private UUID assetId;
     private UUID marketId;
     private ZonedDateTime from;
@@ -57,6 +110,7 @@ public class ReservationServiceImplTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        csvFormat = new CsvReservationFormat(totalCSVFormatter, new DetailedCSVFormatter());
         assetId = UUID.randomUUID();
         marketId = UUID.randomUUID();
         from = ZonedDateTime.now().minusDays(1);
@@ -243,13 +297,14 @@ public class ReservationServiceImplTest {
      */
     @Test
     public void testExportReservationsToCSV_NoReservations_WithTotal_Success() throws IOException {
-        when(reservationRepository.findByAssetIdAndMarketIdAndTimestampBetween(any(), any(), any(), any()))
-                .thenReturn(Collections.emptyList());
+        when(reservationRepository.findSeries(any(), any(), any(), any(), any(), any()))
+                .thenReturn(new ReservationSeries(assetId, marketId));
 
         doNothing().when(totalCSVFormatter).writeHeader(any(CSVWriter.class));
         doNothing().when(totalCSVFormatter).writeRow(any(CSVWriter.class), any());
 
-        String result = reservationServiceImpl.exportReservationsToCSV(assetId, marketId, from, to, true);
+        String result = new String(reservationServiceImpl.exportReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat),
+                StandardCharsets.UTF_8);
 
         String expectedCsv = "";
         assertEquals(expectedCsv, result);
@@ -263,15 +318,15 @@ public class ReservationServiceImplTest {
      */
     @Test
     public void testExportReservationsToCSV_IOException() throws IOException {
-        when(reservationRepository.findByAssetIdAndMarketIdAndTimestampBetween(any(), any(), any(), any()))
-                .thenReturn(List.of());
+        when(reservationRepository.findSeries(any(), any(), any(), any(), any(), any()))
+                .thenReturn(new ReservationSeries(assetId, marketId));
 
         doAnswer(invocation -> {
             throw new IOException("Simulated IO Exception");
         }).when(totalCSVFormatter).writeHeader(any(CSVWriter.class));
 
         try {
-            reservationServiceImpl.exportReservationsToCSV(assetId, marketId, from, to, true);
+            reservationServiceImpl.exportReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat);
         } catch (IOException e) {
             assertEquals("Simulated IO Exception", e.getMessage());
         }
@@ -392,6 +447,209 @@ public class ReservationServiceImplTest {
         assertEquals(2, result.size());
     }
 
+    /**
+     * Tests that exporting writes one row per series row in series order.
+     */
+    @Test
+    public void testExportReservationsToCSV_Series_WritesEveryRow() throws IOException {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, fixedTimestamp, 100, 50));
+        series.add(reservation(2L, fixedTimestamp.plusMinutes(15), 200, 100));
+
+        when(reservationRepository.findSeries(any(), any(), any(), any(), any(), any())).thenReturn(series);
+
+        reservationServiceImpl.exportReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat);
+
+        verify(totalCSVFormatter).writeRow(any(CSVWriter.class), any(ReservationSeries.class), eq(0), any());
+        verify(totalCSVFormatter).writeRow(any(CSVWriter.class), any(ReservationSeries.class), eq(1), any());
+        verify(reservationRepository, never()).findByAssetIdAndMarketIdAndTimestampBetween(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a streamed export aggregates and writes every chunk read from the database.
+     */
+    @Test
+    public void testWriteReservationsToCSV_Chunks_WritesAggregatedRows() throws IOException {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries first = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(1L, fixedTimestamp, 100, 50),
+                reservation(2L, fixedTimestamp, 200, 100)));
+        ReservationSeries second = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(3L, fixedTimestamp.plusMinutes(15), 300, 150),
+                reservation(4L, fixedTimestamp.plusMinutes(30), 400, 200)));
+        doAnswer(invocation -> {
+            Consumer<ReservationSeries> chunkConsumer = invocation.getArgument(6);
+            chunkConsumer.accept(first);
+            chunkConsumer.accept(second);
+            return null;
+        }).when(reservationRepository).streamSeries(any(), any(), any(), any(), any(), any(), any());
+
+        reservationServiceImpl.writeReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat,
+                new ByteArrayOutputStream());
+
+        verify(totalCSVFormatter).writeHeader(any(CSVWriter.class));
+        verify(totalCSVFormatter, times(1)).writeRow(any(CSVWriter.class), argThat((ReservationSeries chunk) -> chunk.size() == 1), eq(0), any());
+        verify(totalCSVFormatter, times(1)).writeRow(any(CSVWriter.class), argThat((ReservationSeries chunk) -> chunk.size() == 2), eq(1), any());
+        verify(reservationRepository, never()).findSeries(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that an export from stored reservations reads the database even if the range lies in the hot window.
+     */
+    @Test
+    public void testWriteStoredReservationsToCSV_HotWindow_ReadsDatabase() throws IOException {
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(reservation(1L, LocalDateTime.of(2024, 7, 31, 12, 0), 100, 50)));
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.of(series));
+
+        reservationServiceImpl.writeStoredReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat,
+                new ByteArrayOutputStream());
+
+        verify(reservationRepository).streamSeries(eq(assetId), eq(marketId), any(), any(), eq(ReservationProjection.TOTAL), any(), any());
+        verify(hotWindowStore, never()).find(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a streamed export stops reading as soon as the writer fails.
+     */
+    @Test
+    public void testWriteReservationsToCSV_WriterFails_StopsReading() {
+        ReservationSeries chunk = ReservationSeries.of(assetId, marketId, List.of(reservation(1L, LocalDateTime.of(2024, 7, 31, 12, 0), 100, 50)));
+        doAnswer(invocation -> {
+            Consumer<ReservationSeries> chunkConsumer = invocation.getArgument(6);
+            chunkConsumer.accept(chunk);
+            chunkConsumer.accept(chunk);
+            return null;
+        }).when(reservationRepository).streamSeries(any(), any(), any(), any(), any(), any(), any());
+        doAnswer(invocation -> {
+            invocation.<CSVWriter>getArgument(0).writeNext(new String[]{"row"});
+            return null;
+        }).when(totalCSVFormatter).writeRow(any(CSVWriter.class), any(ReservationSeries.class), eq(0), any());
+        OutputStream failingStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> reservationServiceImpl.writeReservations(assetId, marketId, from, to, true, ReservationProjection.TOTAL, new ReservationFilter(),
+                csvFormat, failingStream));
+
+        verify(totalCSVFormatter, times(1)).writeRow(any(CSVWriter.class), any(ReservationSeries.class), eq(0), any());
+    }
+
+    /**
+     * Tests aggregation of a series with repeated and distinct timestamps.
+     */
+    @Test
+    public void testAggregateReservations_Series_Success() {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(3L, fixedTimestamp.plusMinutes(15), 400, 200),
+                reservation(1L, fixedTimestamp, 100, 50),
+                reservation(2L, fixedTimestamp, 200, 100)));
+
+        ReservationSeries result = reservationServiceImpl.aggregateReservations(series);
+
+        assertEquals(2, result.size());
+        assertEquals(ReservationSeries.toEpochMicros(fixedTimestamp), result.getTimestamp(0));
+        assertEquals(300, result.getPositiveValue(0));
+        assertEquals(150, result.getNegativeValue(0));
+        assertEquals(400, result.getPositiveValue(1));
+        assertEquals(200, result.getNegativeValue(1));
+        assertEquals(assetId, result.getAssetId());
+        assertEquals(marketId, result.getMarketId());
+    }
+
+    /**
+     * Tests that in fixed-point mode a series is summed exactly in milli-kW, without floating-point error.
+     */
+    @Test
+    public void testAggregateReservations_FixedPoint_ExactSums() {
+        fixedPointProperties.setEnabled(true);
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        List<Reservation> reservations = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            reservations.add(reservation(id, fixedTimestamp, 0.1, 0.2));
+        }
+
+        ReservationSeries result = reservationServiceImpl.aggregateReservations(ReservationSeries.of(assetId, marketId, reservations));
+
+        assertEquals(1, result.size());
+        assertEquals(1.0, result.getPositiveValue(0));
+        assertEquals(2.0, result.getNegativeValue(0));
+    }
+
+    /**
+     * Tests aggregation of an empty series.
+     */
+    @Test
+    public void testAggregateReservations_EmptySeries_Success() {
+        ReservationSeries result = reservationServiceImpl.aggregateReservations(new ReservationSeries(assetId, marketId));
+
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that statistics are computed over all values and prices read from the database, with values in MW.
+     */
+    @Test
+    void testGetStatistics_Database_Success() {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(1L, fixedTimestamp, 1000, 500),
+                reservation(2L, fixedTimestamp, 3000, 1500),
+                reservation(3L, fixedTimestamp.plusMinutes(15), 2000, 1000)));
+        when(reservationRepository.findSeries(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class),
+                argThat(fields -> !fields.fields().contains(ReservationField.POSITIVE_BID_ID)), any())).thenReturn(series);
+
+        Map<String, ColumnStatistics> result = reservationServiceImpl.getStatistics(assetId, marketId, from, to, false);
+
+        assertEquals(List.of("positiveValue", "positiveCapacityPrice", "positiveEnergyPrice",
+                "negativeValue", "negativeCapacityPrice", "negativeEnergyPrice"), List.copyOf(result.keySet()));
+        assertEquals(new ColumnStatistics(3, 1.0, 3.0, 2.0), result.get("positiveValue"));
+        assertEquals(new ColumnStatistics(3, 0.5, 1.5, 1.0), result.get("negativeValue"));
+        assertEquals(new ColumnStatistics(3, 0.0, 0.0, 0.0), result.get("positiveCapacityPrice"));
+    }
+
+    /**
+     * Tests that statistics of totals are computed over the sums per timestamp.
+     */
+    @Test
+    void testGetStatistics_Total_SumsPerTimestamp() {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(1L, fixedTimestamp, 1000, 500),
+                reservation(2L, fixedTimestamp, 3000, 1500),
+                reservation(3L, fixedTimestamp.plusMinutes(15), 2000, 1000)));
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.of(series));
+
+        Map<String, ColumnStatistics> result = reservationServiceImpl.getStatistics(assetId, marketId, from, to, true);
+
+        assertEquals(new ColumnStatistics(2, 2.0, 4.0, 3.0), result.get("positiveValue"));
+        assertEquals(new ColumnStatistics(2, 1.0, 2.0, 1.5), result.get("negativeValue"));
+        verify(reservationRepository, never()).findSeries(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests in-place conversion of series values from kW to MW.
+     */
+    @Test
+    void testConvertKWToMW_Series_Success() {
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, LocalDateTime.of(2024, 7, 31, 12, 0), 1000, 2000));
+
+        ReservationSeries result = reservationServiceImpl.convertKWToMW(series);
+
+        assertEquals(1.0, result.getPositiveValue(0));
+        assertEquals(2.0, result.getNegativeValue(0));
+    }
+
     /**
      * Test successful conversion of positive and negative values from kW to MW.
      * This test verifies that the method correctly converts positive and negative values in a list of reservations
@@ -449,4 +707,445 @@ public class ReservationServiceImplTest {
         assertEquals(0.0, resultReservation.getPositiveValue());
         assertEquals(0.0, resultReservation.getNegativeValue());
     }
+
+    /**
+     * Tests that totals over several assets are summed by the database when the range is not in the hot window.
+     */
+    @Test
+    void testGetTotals_NotInHotWindow_SummedByDatabase() {
+        AggregateSeries totals = new AggregateSeries();
+        totals.accumulate(0, 1_000_000, 2_000_000);
+        Set<UUID> assetIds = Set.of(assetId, UUID.randomUUID());
+        when(reservationRepository.findTotals(eq(assetIds), eq(null), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(totals);
+
+        AggregateSeries result = reservationServiceImpl.getTotals(assetIds, null, from, to);
+
+        assertEquals(totals, result);
+    }
+
+    /**
+     * Tests that totals over the hot window are reduced from the series of all markets in parallel, in timestamp order.
+     */
+    @Test
+    void testGetTotals_InHotWindow_ReducedInTimestampOrder() {
+        long quarterHour = 15 * 60 * 1_000_000L;
+        List<ReservationSeries> sources = new ArrayList<>();
+        for (int market = 0; market < 10; market++) {
+            ReservationSeries series = new ReservationSeries(assetId, UUID.randomUUID());
+            for (int slot = market % 2; slot < 8; slot += 2) {
+                series.add(slot, slot * quarterHour, null, null, 100, 0, 0, 10, 0, 0, 0);
+            }
+            sources.add(series);
+        }
+        when(hotWindowStore.findAll(eq(Set.of(assetId)), eq(null), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(sources));
+
+        AggregateSeries result = reservationServiceImpl.getTotals(Set.of(assetId), null, from, to);
+
+        assertEquals(8, result.size());
+        for (int slot = 0; slot < 8; slot++) {
+            assertEquals(slot * quarterHour, result.getTimestamp(slot));
+            assertEquals(500_000, result.getPositiveValue(slot));
+            assertEquals(50_000, result.getNegativeValue(slot));
+        }
+        verify(reservationRepository, never()).findTotals(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that totals are exported with one row per timestamp and values converted to MW.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    void testExportTotalsToCSV_Success() throws IOException {
+        AggregateSeries totals = new AggregateSeries();
+        totals.accumulate(ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), 1_500_000, 2_500_250);
+        when(reservationRepository.findTotals(any(), any(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(totals);
+
+        String csv = reservationServiceImpl.exportTotalsToCSV(Set.of(assetId), marketId, from, to);
+
+        assertEquals("\"timestamp\",\"positiveValue\",\"negativeValue\"\n\"2024-07-01T00:00Z\",\"1.5\",\"2.50025\"\n", csv);
+    }
+
+    /**
+     * Tests that an export of totals without reservations is empty.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    void testExportTotalsToCSV_NoReservations_Empty() throws IOException {
+        when(reservationRepository.findTotals(any(), any(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(new AggregateSeries());
+
+        assertEquals("", reservationServiceImpl.exportTotalsToCSV(Set.of(assetId), null, from, to));
+    }
+
+    /**
+     * Tests that an export of selected fields reads only those fields and writes them in the selected order.
+     *
+     * @throws IOException if an I/O error occurs during export
+     */
+    @Test
+    void testExportReservationsToCSV_Fields_SelectedColumnsOnly() throws IOException {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,negativeValue,positiveValue", false);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), null, null, 1500, 0, 0, 2500, 0, 0, 0);
+        when(reservationRepository.findSeries(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection), any()))
+                .thenReturn(series);
+
+        String csv = new String(reservationServiceImpl.exportReservations(assetId, marketId, from, to, false, projection, new ReservationFilter(), csvFormat),
+                StandardCharsets.UTF_8);
+
+        assertEquals("\"timestamp\",\"negativeValue\",\"positiveValue\"\n\"2024-07-01T00:00Z\",\"2.5\",\"1.5\"\n", csv);
+    }
+
+    /**
+     * Tests that the selected fields of all reservations of an asset/market pair are converted to MW.
+     */
+    @Test
+    void testGetReservationSeries_Fields_ConvertedToMW() {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, 0, null, null, 1500, 0, 0, 0, 0, 0, 0);
+        when(reservationRepository.findSeries(assetId, marketId, projection)).thenReturn(series);
+
+        ReservationSeries result = reservationServiceImpl.getReservationSeries(assetId, marketId, projection);
+
+        assertEquals(1.5, result.getPositiveValue(0));
+    }
+
+    /**
+     * Tests that a range served from the hot window is filtered in memory instead of being read from the database.
+     */
+    @Test
+    void testGetReservationSeries_HotWindowWithFilter_FilteredInMemory() {
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, fixedTimestamp, 100, 50));
+        series.add(reservation(2L, fixedTimestamp.plusMinutes(15), 200, 100));
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.of(series));
+        ReservationFilter filter = new ReservationFilter();
+        filter.setMinPositiveValue(0.15);
+
+        ReservationSeries result = reservationServiceImpl.getReservationSeries(assetId, marketId, from, to, false, ReservationProjection.DETAILED, filter);
+
+        assertEquals(1, result.size());
+        assertEquals(2L, result.getId(0));
+        verify(reservationRepository, never()).findSeries(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a reactive export of selected fields formats the chunks read from the reactive repository in order.
+     */
+    @Test
+    void testStreamReservationsToCSV_Fields_ChunksFromReactiveRepository() {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries first = new ReservationSeries(assetId, marketId);
+        first.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), null, null, 1500, 0, 0, 0, 0, 0, 0);
+        ReservationSeries second = new ReservationSeries(assetId, marketId);
+        second.add(2, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 15)), null, null, 2500, 0, 0, 0, 0, 0, 0);
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(reactiveSeriesRepository.streamSeries(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection), any()))
+                .thenReturn(Flux.just(first, second));
+
+        List<String> csv = reservationServiceImpl.streamReservations(assetId, marketId, from, to, false, projection, new ReservationFilter(), csvFormat)
+                .map(element -> new String(element, StandardCharsets.UTF_8))
+                .collectList().block();
+
+        assertEquals(List.of("\"timestamp\",\"positiveValue\"\n", "\"2024-07-01T00:00Z\",\"1.5\"\n", "\"2024-07-01T00:15Z\",\"2.5\"\n"), csv);
+        verify(reservationRepository, never()).findSeries(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a reactive export of a range inside the hot window is served from memory without a database read.
+     */
+    @Test
+    void testStreamReservationsToCSV_HotWindow_NoDatabaseRead() {
+        ReservationProjection projection = ReservationProjection.parse("positiveValue", false);
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(reservation(1L, LocalDateTime.of(2024, 7, 31, 12, 0), 100, 50));
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.of(series));
+
+        String csv = reservationServiceImpl.streamReservations(assetId, marketId, from, to, false, projection, new ReservationFilter(), csvFormat)
+                .map(element -> new String(element, StandardCharsets.UTF_8))
+                .collect(Collectors.joining()).block();
+
+        assertEquals("\"positiveValue\"\n\"0.1\"\n", csv);
+        verify(reactiveSeriesRepository, never()).streamSeries(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a range spanning the boundary of the cold tier is read from the cold tier up to the boundary and from
+     * the database from the boundary on, as one series.
+     */
+    @Test
+    void testGetReservationSeries_SpansColdTier_MergedWithDatabase() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 0);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(reservation(1L, boundary.minusMinutes(15), 1000, 0));
+        ReservationSeries stored = new ReservationSeries(assetId, marketId);
+        stored.add(reservation(2L, boundary, 2000, 0));
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findSeries(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(ReservationProjection.DETAILED)))
+                .thenReturn(cold);
+        when(reservationRepository.findSeries(eq(assetId), eq(marketId), eq(boundary), any(LocalDateTime.class), eq(ReservationProjection.DETAILED), any()))
+                .thenReturn(stored);
+
+        ReservationSeries result = reservationServiceImpl.getReservationSeries(assetId, marketId, from, to, false,
+                ReservationProjection.DETAILED, new ReservationFilter());
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.getId(0));
+        assertEquals(2L, result.getId(1));
+    }
+
+    /**
+     * Tests that all reservations of a series are read from the database only from the boundary of the cold tier on,
+     * so that a month archived to the cold tier but not yet dropped from the database is returned once.
+     */
+    @Test
+    void testGetReservationSeries_MonthInBothTiers_ReadOnce() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 0);
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(reservation(1L, boundary.minusMinutes(15), 1000, 0));
+        ReservationSeries stored = new ReservationSeries(assetId, marketId);
+        stored.add(reservation(1L, boundary.minusMinutes(15), 1000, 0));
+        stored.add(reservation(2L, boundary, 2000, 0));
+        ReservationSeries storedSinceBoundary = new ReservationSeries(assetId, marketId);
+        storedSinceBoundary.add(reservation(2L, boundary, 2000, 0));
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findSeries(assetId, marketId, null, null, projection)).thenReturn(cold);
+        when(reservationRepository.findSeries(assetId, marketId, projection)).thenReturn(stored);
+        when(reservationRepository.findSeries(assetId, marketId, boundary, projection)).thenReturn(storedSinceBoundary);
+
+        ReservationSeries result = reservationServiceImpl.getReservationSeries(assetId, marketId, projection);
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.getId(0));
+        assertEquals(2L, result.getId(1));
+        verify(reservationRepository, never()).findSeries(assetId, marketId, projection);
+    }
+
+    /**
+     * Tests that the reservations of a month in both tiers are returned once, read from the cold tier up to its
+     * boundary and from the database from the boundary on.
+     */
+    @Test
+    void testGetReservations_MonthInBothTiers_ReadOnce() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 0);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(reservation(1L, boundary.minusMinutes(15), 1000, 0));
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findSeries(assetId, marketId, null, null, ReservationProjection.DETAILED)).thenReturn(cold);
+        when(reservationRepository.findByAssetIdAndMarketId(assetId, marketId))
+                .thenReturn(List.of(reservation(1L, boundary.minusMinutes(15), 1000, 0), reservation(2L, boundary, 2000, 0)));
+        when(reservationRepository.findByAssetIdAndMarketIdAndTimestampGreaterThanEqual(assetId, marketId, boundary))
+                .thenReturn(List.of(reservation(2L, boundary, 2000, 0)));
+
+        List<Reservation> result = reservationServiceImpl.getReservations(assetId, marketId);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(Reservation::getId).toList());
+        verify(reservationRepository, never()).findByAssetIdAndMarketId(any(), any());
+    }
+
+    /**
+     * Tests that a reactive read of all reservations of a series streams the database only from the boundary of the
+     * cold tier on, after the chunks of the cold tier.
+     */
+    @Test
+    void testStreamReservationSeries_MonthInBothTiers_ReadOnce() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 0);
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(reservation(1L, boundary.minusMinutes(15), 1000, 0));
+        ReservationSeries storedSinceBoundary = new ReservationSeries(assetId, marketId);
+        storedSinceBoundary.add(reservation(2L, boundary, 2000, 0));
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findChunks(assetId, marketId, null, null, projection)).thenReturn(List.of(cold));
+        when(reactiveSeriesRepository.streamSeries(assetId, marketId, boundary, projection)).thenReturn(Flux.just(storedSinceBoundary));
+
+        List<Long> ids = reservationServiceImpl.streamReservationSeries(assetId, marketId, projection)
+                .flatMapIterable(chunk -> IntStream.range(0, chunk.size()).mapToObj(chunk::getId).toList())
+                .collectList().block();
+
+        assertEquals(List.of(1L, 2L), ids);
+        verify(reactiveSeriesRepository, never()).streamSeries(assetId, marketId, projection);
+    }
+
+    /**
+     * Tests that a range ending before the boundary of the cold tier is not read from the database.
+     */
+    @Test
+    void testWriteStoredReservationsToCSV_BeforeColdTierBoundary_NoDatabaseRead() throws IOException {
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), null, null, 1500, 0, 0, 0, 0, 0, 0);
+        ColdTierView coldTier = givenColdTier(to.toLocalDateTime().plusDays(1));
+        when(coldTier.findChunks(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection)))
+                .thenReturn(List.of(cold));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reservationServiceImpl.writeStoredReservations(assetId, marketId, from, to, false, projection, new ReservationFilter(), csvFormat, outputStream);
+
+        assertEquals("\"timestamp\",\"positiveValue\"\n\"2024-07-01T00:00Z\",\"1.5\"\n", outputStream.toString(StandardCharsets.UTF_8));
+        verify(reservationRepository, never()).streamSeries(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a reactive export spanning the boundary of the cold tier emits the chunks of the cold tier before
+     * those streamed from the database from the boundary on.
+     */
+    @Test
+    void testStreamReservationsToCSV_SpansColdTier_ColdChunksFirst() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 15);
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 0, 0)), null, null, 1500, 0, 0, 0, 0, 0, 0);
+        ReservationSeries stored = new ReservationSeries(assetId, marketId);
+        stored.add(2, ReservationSeries.toEpochMicros(boundary), null, null, 2500, 0, 0, 0, 0, 0, 0);
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(hotWindowStore.find(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(coldTier.findChunks(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection)))
+                .thenReturn(List.of(cold));
+        when(reactiveSeriesRepository.streamSeries(eq(assetId), eq(marketId), eq(boundary), any(LocalDateTime.class), eq(projection), any()))
+                .thenReturn(Flux.just(stored));
+
+        String csv = reservationServiceImpl.streamReservations(assetId, marketId, from, to, false, projection, new ReservationFilter(), csvFormat)
+                .map(element -> new String(element, StandardCharsets.UTF_8))
+                .collect(Collectors.joining()).block();
+
+        assertEquals("\"timestamp\",\"positiveValue\"\n\"2024-07-01T00:00Z\",\"1.5\"\n\"2024-07-01T00:15Z\",\"2.5\"\n", csv);
+    }
+
+    /**
+     * Tests that totals spanning the boundary of the cold tier combine the sums of the cold tier with those of the
+     * database from the boundary on.
+     */
+    @Test
+    void testGetTotals_SpansColdTier_CombinedWithDatabase() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 0, 15);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(1, ReservationSeries.toEpochMicros(boundary.minusMinutes(15)), null, null, 100, 0, 0, 10, 0, 0, 0);
+        AggregateSeries stored = new AggregateSeries();
+        stored.accumulate(ReservationSeries.toEpochMicros(boundary), 200_000, 20_000);
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findAll(eq(Set.of(assetId)), eq(null), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(List.of(cold));
+        when(reservationRepository.findTotals(eq(Set.of(assetId)), eq(null), eq(boundary), any(LocalDateTime.class))).thenReturn(stored);
+
+        AggregateSeries result = reservationServiceImpl.getTotals(Set.of(assetId), null, from, to);
+
+        assertEquals(2, result.size());
+        assertEquals(100_000, result.getPositiveValue(0));
+        assertEquals(200_000, result.getPositiveValue(1));
+    }
+
+    /**
+     * Tests that changes are read for the instants of the bounds, open-ended without an upper bound, and converted to MW.
+     */
+    @Test
+    void testStreamReservationChanges_Since_ConvertedToMW() {
+        ZonedDateTime since = ZonedDateTime.of(2024, 7, 1, 14, 0, 0, 0, ZoneOffset.ofHours(2));
+        LocalDateTime sinceLocal = since.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        ReservationSeries series = new ReservationSeries(assetId, marketId);
+        series.add(1, 0, null, null, 1500, 0, 0, 0, 0, 0, 0);
+        when(reactiveSeriesRepository.streamChanges(assetId, marketId, sinceLocal, null)).thenReturn(Flux.just(series));
+
+        ReservationSeries result = reservationServiceImpl.streamReservationChanges(assetId, marketId, since, null).blockFirst();
+
+        assertEquals(1.5, result.getPositiveValue(0));
+    }
+
+    /**
+     * Tests that a multi-window export outside the hot window and the cold tier reads all windows from the database
+     * in a single query and writes every chunk read.
+     */
+    @Test
+    void testWriteWindowReservationsToCSV_ReadsWindowsInOneQuery() throws IOException {
+        TimeWindows windows = new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 1, 8, 0), LocalDateTime.of(2024, 7, 1, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 2, 8, 0), LocalDateTime.of(2024, 7, 2, 20, 0))));
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries stored = new ReservationSeries(assetId, marketId);
+        stored.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 1, 8, 0)), null, null, 1500, 0, 0, 0, 0, 0, 0);
+        stored.add(2, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 7, 2, 8, 0)), null, null, 2500, 0, 0, 0, 0, 0, 0);
+        when(hotWindowStore.find(any(), any(), any(), any())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            invocation.<Consumer<ReservationSeries>>getArgument(5).accept(stored);
+            return null;
+        }).when(reservationRepository).streamWindows(eq(assetId), eq(marketId), eq(windows.windows()), eq(projection), any(), any());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reservationServiceImpl.writeWindowReservations(assetId, marketId, windows, false, projection, new ReservationFilter(), csvFormat, outputStream);
+
+        assertEquals("\"timestamp\",\"positiveValue\"\n\"2024-07-01T08:00Z\",\"1.5\"\n\"2024-07-02T08:00Z\",\"2.5\"\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+        verify(reservationRepository, never()).streamSeries(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a multi-window export held by the hot window writes only the rows within the windows, from memory.
+     */
+    @Test
+    void testWriteWindowReservationsToCSV_HotWindow_SelectsRowsInWindows() throws IOException {
+        TimeWindows windows = new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 31, 12, 0), LocalDateTime.of(2024, 7, 31, 12, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 31, 12, 30), LocalDateTime.of(2024, 7, 31, 13, 0))));
+        LocalDateTime fixedTimestamp = LocalDateTime.of(2024, 7, 31, 12, 0);
+        ReservationSeries series = ReservationSeries.of(assetId, marketId, List.of(
+                reservation(1L, fixedTimestamp, 100, 50),
+                reservation(2L, fixedTimestamp.plusMinutes(15), 200, 100),
+                reservation(3L, fixedTimestamp.plusMinutes(30), 300, 150)));
+        when(hotWindowStore.find(assetId, marketId, windows.from(), windows.to())).thenReturn(Optional.of(series));
+
+        reservationServiceImpl.writeWindowReservations(assetId, marketId, windows, false, ReservationProjection.TOTAL, new ReservationFilter(), csvFormat,
+                new ByteArrayOutputStream());
+
+        verify(totalCSVFormatter, times(2)).writeRow(any(CSVWriter.class), argThat((ReservationSeries rows) -> rows.size() == 2), any(Integer.class), any());
+        verify(reservationRepository, never()).streamWindows(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that windows before the boundary of the cold tier are read from its files, and only the parts of the
+     * windows from the boundary on from the database.
+     */
+    @Test
+    void testWriteWindowReservationsToCSV_SpansColdTier_DatabaseFromBoundary() throws IOException {
+        LocalDateTime boundary = LocalDateTime.of(2024, 7, 1, 12, 0);
+        TimeWindows windows = new TimeWindows(List.of(
+                new TimeWindows.Window(LocalDateTime.of(2024, 6, 30, 8, 0), LocalDateTime.of(2024, 6, 30, 20, 0)),
+                new TimeWindows.Window(LocalDateTime.of(2024, 7, 1, 8, 0), LocalDateTime.of(2024, 7, 1, 20, 0))));
+        ReservationProjection projection = ReservationProjection.parse("timestamp,positiveValue", false);
+        ReservationSeries cold = new ReservationSeries(assetId, marketId);
+        cold.add(1, ReservationSeries.toEpochMicros(LocalDateTime.of(2024, 6, 30, 8, 0)), null, null, 1500, 0, 0, 0, 0, 0, 0);
+        ColdTierView coldTier = givenColdTier(boundary);
+        when(coldTier.findChunks(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection)))
+                .thenReturn(List.of(cold), List.of());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reservationServiceImpl.writeWindowReservations(assetId, marketId, windows, false, projection, new ReservationFilter(), csvFormat, outputStream);
+
+        assertEquals("\"timestamp\",\"positiveValue\"\n\"2024-06-30T08:00Z\",\"1.5\"\n", outputStream.toString(StandardCharsets.UTF_8));
+        verify(coldTier, times(2)).findChunks(eq(assetId), eq(marketId), any(LocalDateTime.class), any(LocalDateTime.class), eq(projection));
+        verify(reservationRepository).streamWindows(eq(assetId), eq(marketId),
+                eq(List.of(new TimeWindows.Window(boundary, LocalDateTime.of(2024, 7, 1, 20, 0)))), eq(projection), any(), any());
+    }
+
+    private ColdTierView givenColdTier(LocalDateTime boundary) {
+        ColdTierView coldTier = mock(ColdTierView.class);
+        when(coldTier.boundary()).thenReturn(boundary);
+        when(coldTierStore.find(any())).thenReturn(Optional.of(coldTier));
+        return coldTier;
+    }
+
+    private Reservation reservation(Long id, LocalDateTime timestamp, double positiveValue, double negativeValue) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setAssetId(assetId);
+        reservation.setMarketId(marketId);
+        reservation.setTimestamp(timestamp);
+        reservation.setPositiveValue(positiveValue);
+        reservation.setNegativeValue(negativeValue);
+        reservation.setUpdatedAt(timestamp);
+        return reservation;
+    }
 }
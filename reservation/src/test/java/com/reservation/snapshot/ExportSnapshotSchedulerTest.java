@@ -0,0 +1,199 @@
+package com.reservation.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reservation.csvHandler.DetailedCSVFormatter;
+import com.reservation.csvHandler.TotalCSVFormatter;
+import com.reservation.export.ExportAdmission;
+import com.reservation.export.ExportKey;
+import com.reservation.export.ExportPermit;
+import com.reservation.export.ExportPlan;
+import com.reservation.export.ExportPlanner;
+import com.reservation.export.ExportRejectedException;
+import com.reservation.export.ExportStrategy;
+import com.reservation.format.CsvReservationFormat;
+import com.reservation.model.SeriesWatermark;
+import com.reservation.repository.ReservationRepository;
+import com.reservation.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ExportSnapshotScheduler}.
+ * Tests that snapshots are generated for the series of a day, kept while their watermark holds, regenerated once it
+ * moves and deleted once their series has no reservations left.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportSnapshotSchedulerTest {
+
+    @TempDir
+    private Path directory;
+
+    private ReservationRepository reservationRepository;
+    private ReservationService reservationService;
+    private CsvReservationFormat csvFormat;
+    private ExportAdmission exportAdmission;
+    private ExportSnapshotStore store;
+    private ExportSnapshotScheduler scheduler;
+    private LocalDate day;
+    private SeriesWatermark watermark;
+
+    @BeforeEach
+    public void setUp() throws IOException, ExportRejectedException {
+        reservationRepository = mock(ReservationRepository.class);
+        reservationService = mock(ReservationService.class);
+        csvFormat = new CsvReservationFormat(new TotalCSVFormatter(), new DetailedCSVFormatter());
+        ExportPlanner exportPlanner = mock(ExportPlanner.class);
+        when(exportPlanner.plan(any(ExportKey.class))).thenReturn(new ExportPlan(ExportStrategy.IN_MEMORY, 96));
+        exportAdmission = mock(ExportAdmission.class);
+        when(exportAdmission.acquire(any(ExportPlan.class))).thenReturn(mock(ExportPermit.class));
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(8);
+            outputStream.write((invocation.getArgument(4, Boolean.class) ? "total\n" : "detailed\n").getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reservationService).writeStoredReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any());
+
+        ExportSnapshotProperties properties = new ExportSnapshotProperties();
+        properties.setDirectory(directory);
+        properties.setEnabled(true);
+        store = new ExportSnapshotStore(properties, new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry());
+        scheduler = new ExportSnapshotScheduler(properties, store, reservationRepository, reservationService, csvFormat, exportPlanner, exportAdmission,
+                new SimpleMeterRegistry());
+        day = LocalDate.of(2024, 7, 1);
+        watermark = new SeriesWatermark(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.of(2024, 7, 2, 6, 0), 96);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Tests that the detailed and the total snapshot of a series are generated for the whole day.
+     */
+    @Test
+    public void testRefresh_NewSeries_BothSnapshotsGenerated() throws IOException {
+        when(reservationRepository.findWatermarks(day.atStartOfDay(), day.plusDays(1).atStartOfDay())).thenReturn(List.of(watermark));
+
+        scheduler.refresh(day).join();
+
+        assertEquals("detailed\n", content(ExportSnapshot.key(watermark.assetId(), watermark.marketId(), day, false)));
+        assertEquals("total\n", content(ExportSnapshot.key(watermark.assetId(), watermark.marketId(), day, true)));
+        ZonedDateTime from = day.atStartOfDay(ZoneId.systemDefault());
+        verify(reservationService).writeStoredReservations(eq(watermark.assetId()), eq(watermark.marketId()), eq(from), eq(from.plusDays(1)),
+                eq(false), any(), any(), same(csvFormat), any());
+    }
+
+    /**
+     * Tests that snapshots whose watermark still holds are not generated again.
+     */
+    @Test
+    public void testRefresh_WatermarkUnchanged_NotRegenerated() throws IOException {
+        when(reservationRepository.findWatermarks(any(), any())).thenReturn(List.of(watermark));
+        scheduler.refresh(day).join();
+
+        scheduler.refresh(day).join();
+
+        verify(reservationService, times(2)).writeStoredReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that snapshots are generated again once the watermark of their series has moved on.
+     */
+    @Test
+    public void testRefresh_WatermarkMoved_Regenerated() throws IOException {
+        SeriesWatermark moved = new SeriesWatermark(watermark.assetId(), watermark.marketId(), watermark.updatedAt().plusMinutes(1), 96);
+        when(reservationRepository.findWatermarks(any(), any())).thenReturn(List.of(watermark), List.of(moved));
+        scheduler.refresh(day).join();
+
+        scheduler.refresh(day).join();
+
+        verify(reservationService, times(4)).writeStoredReservations(any(), any(), any(), any(), anyBoolean(), any(), any(), any(), any());
+        assertTrue(store.snapshots().stream().allMatch(snapshot -> snapshot.isCurrent(moved)));
+    }
+
+    /**
+     * Tests that the snapshots of a series without reservations left are deleted.
+     */
+    @Test
+    public void testRefresh_SeriesGone_SnapshotsDeleted() {
+        when(reservationRepository.findWatermarks(any(), any())).thenReturn(List.of(watermark), List.of());
+        scheduler.refresh(day).join();
+
+        scheduler.refresh(day).join();
+
+        assertTrue(store.snapshots().isEmpty());
+    }
+
+    /**
+     * Tests that a snapshot that is not admitted is skipped and generated on the next refresh.
+     */
+    @Test
+    public void testRefresh_NotAdmitted_GeneratedOnNextRefresh() throws IOException, ExportRejectedException {
+        when(reservationRepository.findWatermarks(any(), any())).thenReturn(List.of(watermark));
+        when(exportAdmission.acquire(any(ExportPlan.class)))
+                .thenThrow(new ExportRejectedException("busy", Duration.ofSeconds(1)))
+                .thenThrow(new ExportRejectedException("busy", Duration.ofSeconds(1)))
+                .thenReturn(mock(ExportPermit.class));
+        scheduler.refresh(day).join();
+        assertTrue(store.snapshots().isEmpty());
+
+        scheduler.refresh(day).join();
+
+        assertEquals(2, store.snapshots().size());
+    }
+
+    /**
+     * Tests that nothing is generated while snapshots are disabled.
+     */
+    @Test
+    public void testRefresh_Disabled_NothingGenerated() {
+        ExportSnapshotProperties disabled = new ExportSnapshotProperties();
+        disabled.setDirectory(directory);
+        ExportSnapshotScheduler idle = new ExportSnapshotScheduler(disabled, store, reservationRepository, reservationService, csvFormat,
+                mock(ExportPlanner.class), exportAdmission, new SimpleMeterRegistry());
+
+        idle.refresh();
+        idle.generatePreviousDay();
+        idle.shutdown();
+
+        verify(reservationRepository, never()).findWatermarks(any(), any());
+        assertTrue(store.snapshots().isEmpty());
+    }
+
+    private String content(ExportKey key) throws IOException {
+        try (InputStream content = store.open(store.find(key).orElseThrow())) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
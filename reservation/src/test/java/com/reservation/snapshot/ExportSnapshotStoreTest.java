@@ -0,0 +1,164 @@
+package com.reservation.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reservation.export.ExportSpool;
+import com.reservation.export.ExportSpoolProperties;
+import com.reservation.export.SpooledExport;
+import com.reservation.model.SeriesWatermark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ExportSnapshotStore}.
+ * Tests writing, reading and replacing compressed snapshots, and indexing them again after a restart.
+ *
+ * @author Bojana Samardzic
+ */
+public class ExportSnapshotStoreTest {
+
+    private static final String CSV = "timestamp,value\n1,2\n";
+    private static final byte[] CSV_BYTES = CSV.getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path directory;
+
+    private ExportSnapshotProperties properties;
+    private LocalDate day;
+    private SeriesWatermark watermark;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ExportSnapshotProperties();
+        properties.setDirectory(directory);
+        day = LocalDate.of(2024, 7, 1);
+        watermark = new SeriesWatermark(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.of(2024, 7, 2, 6, 0), 96);
+    }
+
+    /**
+     * Tests that a written snapshot is found under the key of its day and reads back compressed and uncompressed.
+     */
+    @Test
+    public void testWrite_Snapshot_FoundAndReadable() throws IOException {
+        ExportSnapshotStore store = store();
+
+        ExportSnapshot snapshot = store.write(day, false, watermark, outputStream -> outputStream.write(CSV_BYTES));
+
+        assertEquals(snapshot, store.find(ExportSnapshot.key(watermark.assetId(), watermark.marketId(), day, false)).orElseThrow());
+        assertFalse(store.find(ExportSnapshot.key(watermark.assetId(), watermark.marketId(), day, true)).isPresent());
+        assertEquals(CSV.length(), snapshot.length());
+        assertNotEquals(snapshot.eTag(), snapshot.compressedETag());
+        try (InputStream content = store.open(snapshot)) {
+            assertEquals(CSV, new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        byte[] compressed = store.compressed(snapshot).getContentAsByteArray();
+        assertEquals(snapshot.compressedLength(), compressed.length);
+        assertEquals(CSV, new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that the ETag of the uncompressed content matches the one the export spool gives the same content.
+     */
+    @Test
+    public void testWrite_ETag_MatchesSpool(@TempDir Path spoolDirectory) throws IOException {
+        ExportSpoolProperties spoolProperties = new ExportSpoolProperties();
+        spoolProperties.setDirectory(spoolDirectory);
+        ExportSnapshot snapshot = store().write(day, false, watermark, outputStream -> outputStream.write(CSV_BYTES));
+
+        SpooledExport spooled = new ExportSpool(spoolProperties).spool(snapshot.key(), outputStream -> outputStream.write(CSV_BYTES));
+
+        assertEquals(spooled.eTag(), snapshot.eTag());
+    }
+
+    /**
+     * Tests that a new generation replaces the previous one and deletes its file.
+     */
+    @Test
+    public void testWrite_NewGeneration_ReplacesPrevious() throws IOException {
+        ExportSnapshotStore store = store();
+        ExportSnapshot previous = store.write(day, false, watermark, outputStream -> outputStream.write(CSV_BYTES));
+
+        SeriesWatermark moved = new SeriesWatermark(watermark.assetId(), watermark.marketId(), watermark.updatedAt().plusHours(1), 96);
+        ExportSnapshot current = store.write(day, false, moved, outputStream -> outputStream.write("timestamp,value\n1,3\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(current), List.copyOf(store.snapshots()));
+        assertFalse(Files.exists(directory.resolve(previous.fileName())));
+        assertTrue(current.isCurrent(moved));
+        assertFalse(previous.isCurrent(moved));
+    }
+
+    /**
+     * Tests that a failing export leaves neither a snapshot nor a file behind.
+     */
+    @Test
+    public void testWrite_Failure_NothingLeft() throws IOException {
+        ExportSnapshotStore store = store();
+
+        ExportSpool.ContentWriter failing = outputStream -> {
+            outputStream.write(CSV_BYTES);
+            throw new IOException("connection lost");
+        };
+        assertThrows(IOException.class, () -> store.write(day, false, watermark, failing));
+
+        assertTrue(store.snapshots().isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Tests that snapshots are indexed again after a restart and that files without index entry are deleted.
+     */
+    @Test
+    public void testConstructor_Restart_SnapshotsIndexed() throws IOException {
+        ExportSnapshot snapshot = store().write(day, true, watermark, outputStream -> outputStream.write(CSV_BYTES));
+        Files.writeString(directory.resolve("orphan.csv.gz"), "orphan");
+        Files.writeString(directory.resolve("incomplete.csv.gz.tmp"), "incomplete");
+
+        ExportSnapshotStore restarted = store();
+
+        assertEquals(snapshot, restarted.find(snapshot.key()).orElseThrow());
+        assertFalse(Files.exists(directory.resolve("orphan.csv.gz")));
+        assertFalse(Files.exists(directory.resolve("incomplete.csv.gz.tmp")));
+    }
+
+    /**
+     * Tests that a deleted snapshot is no longer found and its files are gone.
+     */
+    @Test
+    public void testDelete_Snapshot_FilesDeleted() throws IOException {
+        ExportSnapshotStore store = store();
+        ExportSnapshot snapshot = store.write(day, false, watermark, outputStream -> outputStream.write(CSV_BYTES));
+
+        store.delete(snapshot);
+
+        assertFalse(store.find(snapshot.key()).isPresent());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private ExportSnapshotStore store() {
+        return new ExportSnapshotStore(properties, new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry());
+    }
+}